@@ -2,9 +2,13 @@ package org.booklore.config;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.booklore.model.enums.MetadataProvider;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Component
 @ConfigurationProperties(prefix = "app")
 @Getter
@@ -16,6 +20,19 @@ public class AppProperties {
     private RemoteAuth remoteAuth;
     private Boolean forceDisableOidc = false;
     private Telemetry telemetry = new Telemetry();
+    private LibraryScan libraryScan = new LibraryScan();
+    private MagicShelf magicShelf = new MagicShelf();
+    private ReaderCache readerCache = new ReaderCache();
+    private PdfReader pdfReader = new PdfReader();
+    private CbxReader cbxReader = new CbxReader();
+    private BookEvents bookEvents = new BookEvents();
+    private MetadataFetch metadataFetch = new MetadataFetch();
+    private MetadataCache metadataCache = new MetadataCache();
+    private Audit audit = new Audit();
+    private GeoIp geoIp = new GeoIp();
+    private AuthCache authCache = new AuthCache();
+    private Search search = new Search();
+    private KoboConversionCache koboConversionCache = new KoboConversionCache();
 
     /**
      * Type of disk storage where library files are stored.
@@ -43,4 +60,280 @@ public class AppProperties {
     public static class Telemetry {
         private String baseUrl = "https://telemetry.booklore.org";
     }
+
+    @Getter
+    @Setter
+    public static class LibraryScan {
+        /**
+         * Number of directories listed concurrently while walking a library path.
+         * Mostly useful on network storage, where each directory listing and stat is a round trip.
+         */
+        private int walkParallelism = 8;
+
+        /**
+         * Number of files fingerprinted concurrently. Fingerprinting is I/O bound,
+         * so this mostly limits how hard a scan hits the underlying disk or network share.
+         */
+        private int fingerprintParallelism = 8;
+
+        /**
+         * Number of book groups whose metadata and cover are extracted and persisted concurrently.
+         * Each worker holds two database connections while persisting (the group's transaction and the book's own),
+         * so this is capped at half the connection pool, less the connection of the scan that started them.
+         * A value of 1 keeps the original serial scan.
+         */
+        private int extractionParallelism = 4;
+
+        /**
+         * Maximum number of book groups in flight between the fingerprint and extraction stages.
+         * The walker blocks once this many groups are waiting, which bounds memory on huge libraries.
+         */
+        private int queueCapacity = 64;
+    }
+
+    @Getter
+    @Setter
+    public static class MagicShelf {
+        /**
+         * Store each magic shelf's matching books per user in a table and keep it current as books, metadata
+         * and reading progress change, instead of running the shelf's rule query on every read. Only used
+         * for shelves whose rules can't be answered from the in-memory book list.
+         */
+        private boolean materializedMembership = false;
+    }
+
+    @Getter
+    @Setter
+    public static class ReaderCache {
+        /**
+         * Upper bound, in megabytes of estimated heap, for the page lists, outlines and manifests the readers
+         * keep for recently opened books. Large comic archives and EPUBs weigh more than small ones.
+         */
+        private long maxSizeMb = 32;
+    }
+
+    @Getter
+    @Setter
+    public static class PdfReader {
+        /**
+         * Number of PDFs kept open for page rendering. Each open document holds its parsed structure in memory.
+         */
+        private int documentPoolSize = 16;
+
+        /**
+         * Seconds an open PDF may go unused before it is closed.
+         */
+        private int documentIdleSeconds = 300;
+
+        /**
+         * Number of pages after the one requested that are rendered ahead in the background.
+         * Set to 0 to only render pages on request.
+         */
+        private int prerenderPages = 2;
+
+        /**
+         * Number of background threads rendering pages ahead.
+         */
+        private int prerenderThreads = 2;
+    }
+
+    @Getter
+    @Setter
+    public static class CbxReader {
+        /**
+         * Number of comic ZIP archives kept open between page requests.
+         */
+        private int archivePoolSize = 64;
+
+        /**
+         * Seconds an open archive may go unused before it is closed.
+         */
+        private int archiveIdleSeconds = 300;
+
+        /**
+         * Extract 7z and RAR comics to disk on first read and serve pages from the extracted files.
+         * Solid archives otherwise decompress everything before a page to read it.
+         */
+        private boolean extractSolidArchives = false;
+
+        /**
+         * Number of archives kept extracted when {@code extractSolidArchives} is on.
+         */
+        private int extractedArchiveLimit = 20;
+    }
+
+    @Getter
+    @Setter
+    public static class BookEvents {
+        /**
+         * Milliseconds book add, update and remove events are collected before they are sent as one batch.
+         */
+        private int windowMillis = 250;
+
+        /**
+         * Number of collected books that sends a batch before the window ends.
+         */
+        private int maxBatchSize = 500;
+
+        /**
+         * Number of unsent books after which clients are told to reload their book list instead of receiving
+         * every change, so a stalled sender can't hold a whole import in memory.
+         */
+        private int maxPendingBooks = 5000;
+
+        /**
+         * Seconds a WebSocket client may take to accept a message before its session is closed.
+         */
+        private int sendTimeLimitSeconds = 20;
+
+        /**
+         * Kilobytes of messages buffered for a slow WebSocket client before its session is closed.
+         */
+        private int sendBufferSizeKb = 4096;
+    }
+
+    @Getter
+    @Setter
+    public static class MetadataFetch {
+        /**
+         * Books a metadata refresh fetches from providers at the same time. Results are still saved one book at a
+         * time in the order the books were queued.
+         */
+        private int bookConcurrency = 4;
+
+        /**
+         * Requests in flight to any single metadata provider at a time, on top of its per-second request budget.
+         */
+        private int providerConcurrency = 2;
+
+        /**
+         * Books a metadata refresh loads and saves per transaction. Their updates are flushed together, so this
+         * also sets the size of the JDBC batches.
+         */
+        private int applyBatchSize = 50;
+
+        /**
+         * Minimum milliseconds between progress updates a metadata refresh saves to its job and sends to the
+         * client. Errors and the final result are always reported.
+         */
+        private int progressIntervalMillis = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class MetadataCache {
+        /**
+         * Keep metadata provider responses on disk and answer repeated lookups for the same book from them.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Upper bound for the cache directory. The oldest responses are removed first once it is exceeded.
+         */
+        private long maxSizeMb = 256;
+
+        /**
+         * Hours a cached response is used without asking the provider again. Amazon, GoodReads and Audible
+         * default to at most three days, since their ratings and review counts change more often.
+         */
+        private int ttlHours = 168;
+
+        /**
+         * Per-provider overrides of {@code ttlHours}.
+         */
+        private Map<MetadataProvider, Integer> providerTtlHours = new HashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Audit {
+        /**
+         * Audit entries waiting to be written. Entries logged while the queue is full are dropped and counted
+         * rather than holding up the request that logged them.
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * Audit entries written per JDBC batch.
+         */
+        private int batchSize = 200;
+    }
+
+    @Getter
+    @Setter
+    public static class GeoIp {
+        /**
+         * CSV file of IP ranges and their country codes, such as the free DB-IP or IP2Location country databases.
+         * Relative to the data directory unless absolute. The file is reloaded when it changes.
+         */
+        private String databaseFile = "geoip/ip-country.csv";
+
+        /**
+         * Ask ip-api.com for addresses the local database doesn't cover. Lookups run on the audit writer thread,
+         * never on a request thread.
+         */
+        private boolean onlineLookup = true;
+
+        /**
+         * Resolved addresses kept in memory.
+         */
+        private int cacheSize = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class AuthCache {
+        /**
+         * Seconds an authenticated user, Kobo token or KOReader/OPDS account is served from memory before it is
+         * loaded again. Changes made through the application clear the cache right away; this bounds how long
+         * changes made directly in the database go unnoticed.
+         */
+        private int ttlSeconds = 60;
+
+        /**
+         * Entries kept per kind of principal.
+         */
+        private long maxSize = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Search {
+        /**
+         * Keep a copy of the metadata search index under the data directory, so a restart serves searches right
+         * away instead of rebuilding the index from the database first.
+         */
+        private boolean persist = true;
+
+        /**
+         * Most books a single search returns, best matches first, counted among those the user may see. Paged feeds
+         * page within these.
+         */
+        private int maxResults = 1000;
+
+        /**
+         * Match words one or two typos away from the query when a word matches nothing as typed.
+         */
+        private boolean typoTolerance = true;
+    }
+
+    @Getter
+    @Setter
+    public static class KoboConversionCache {
+        /**
+         * Keep the KEPUB and CBX to EPUB conversions sent to Kobo devices under the data directory, so a book is only
+         * converted again when its file, its metadata or the conversion settings change.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Upper bound for the cache directory. The least recently downloaded conversions are removed first.
+         */
+        private long maxSizeMb = 4096;
+
+        /**
+         * Convert books in the background as they are put on a Kobo shelf, so the first sync doesn't wait for them.
+         */
+        private boolean preconvert = false;
+    }
 }
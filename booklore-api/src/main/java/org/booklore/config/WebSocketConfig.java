@@ -9,6 +9,7 @@ import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 import java.util.Arrays;
 
@@ -19,10 +20,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final WebSocketAuthInterceptor webSocketAuthInterceptor;
     private final Environment env;
+    private final AppProperties appProperties;
 
-    public WebSocketConfig(WebSocketAuthInterceptor webSocketAuthInterceptor, Environment env) {
+    public WebSocketConfig(WebSocketAuthInterceptor webSocketAuthInterceptor, Environment env, AppProperties appProperties) {
         this.webSocketAuthInterceptor = webSocketAuthInterceptor;
         this.env = env;
+        this.appProperties = appProperties;
     }
 
     @Override
@@ -52,6 +55,14 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         }
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // a client that stops reading is disconnected once these are exceeded, rather than buffering without bound
+        AppProperties.BookEvents bookEvents = appProperties.getBookEvents();
+        registration.setSendTimeLimit(bookEvents.getSendTimeLimitSeconds() * 1000);
+        registration.setSendBufferSizeLimit(bookEvents.getSendBufferSizeKb() * 1024);
+    }
+
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(webSocketAuthInterceptor);
@@ -1,13 +1,11 @@
 package org.booklore.config.security.filter;
 
 import org.booklore.config.security.JwtUtils;
+import org.booklore.config.security.service.AuthPrincipalCache;
 import org.booklore.config.security.service.DynamicOidcJwtProcessor;
 import org.booklore.config.security.userdetails.UserAuthenticationDetails;
-import org.booklore.mapper.custom.BookLoreUserTransformer;
 import org.booklore.model.dto.BookLoreUser;
 import org.booklore.model.dto.settings.OidcProviderDetails;
-import org.booklore.model.entity.BookLoreUserEntity;
-import org.booklore.repository.UserRepository;
 import org.booklore.service.appsettings.AppSettingService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -32,8 +30,7 @@ public class AudiobookStreamingJwtFilter extends OncePerRequestFilter {
             Pattern.compile("/api/v1/audiobook/\\d+/(stream|track/\\d+/stream|cover).*");
 
     private final JwtUtils jwtUtils;
-    private final UserRepository userRepository;
-    private final BookLoreUserTransformer bookLoreUserTransformer;
+    private final AuthPrincipalCache principalCache;
     private final AppSettingService appSettingService;
     private final DynamicOidcJwtProcessor dynamicOidcJwtProcessor;
 
@@ -81,9 +78,10 @@ public class AudiobookStreamingJwtFilter extends OncePerRequestFilter {
 
     private void authenticateLocalUser(String token, HttpServletRequest request) {
         Long userId = jwtUtils.extractUserId(token);
-        BookLoreUserEntity entity = userRepository.findById(userId)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + userId));
-        BookLoreUser user = bookLoreUserTransformer.toDTO(entity);
+        BookLoreUser user = principalCache.userById(userId);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with ID: " + userId);
+        }
         UsernamePasswordAuthenticationToken authentication =
                 new UsernamePasswordAuthenticationToken(user, null, null);
         authentication.setDetails(new UserAuthenticationDetails(request, user.getId()));
@@ -102,9 +100,10 @@ public class AudiobookStreamingJwtFilter extends OncePerRequestFilter {
         OidcProviderDetails providerDetails = appSettingService.getAppSettings().getOidcProviderDetails();
         OidcProviderDetails.ClaimMapping claimMapping = providerDetails.getClaimMapping();
         String username = claimsSet.getStringClaim(claimMapping.getUsername());
-        BookLoreUserEntity entity = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("OIDC user not found: " + username));
-        BookLoreUser user = bookLoreUserTransformer.toDTO(entity);
+        BookLoreUser user = principalCache.userByUsername(username);
+        if (user == null) {
+            throw new UsernameNotFoundException("OIDC user not found: " + username);
+        }
 
         UsernamePasswordAuthenticationToken authentication =
                 new UsernamePasswordAuthenticationToken(user, null, null);
@@ -1,9 +1,8 @@
 package org.booklore.config.security.filter;
 
 import org.booklore.config.security.JwtUtils;
+import org.booklore.config.security.service.AuthPrincipalCache;
 import org.booklore.config.security.service.DynamicOidcJwtProcessor;
-import org.booklore.mapper.custom.BookLoreUserTransformer;
-import org.booklore.repository.UserRepository;
 import org.booklore.service.appsettings.AppSettingService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Component;
@@ -13,11 +12,10 @@ public class CustomFontJwtFilter extends AbstractQueryParameterJwtFilter {
 
     public CustomFontJwtFilter(
             JwtUtils jwtUtils,
-            UserRepository userRepository,
-            BookLoreUserTransformer bookLoreUserTransformer,
+            AuthPrincipalCache principalCache,
             AppSettingService appSettingService,
             DynamicOidcJwtProcessor dynamicOidcJwtProcessor) {
-        super(jwtUtils, userRepository, bookLoreUserTransformer, appSettingService, dynamicOidcJwtProcessor);
+        super(jwtUtils, principalCache, appSettingService, dynamicOidcJwtProcessor);
     }
 
     @Override
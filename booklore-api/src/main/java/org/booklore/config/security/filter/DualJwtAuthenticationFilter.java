@@ -1,6 +1,7 @@
 package org.booklore.config.security.filter;
 
 import org.booklore.config.security.JwtUtils;
+import org.booklore.config.security.service.AuthPrincipalCache;
 import org.booklore.config.security.service.DynamicOidcJwtProcessor;
 import org.booklore.config.security.userdetails.UserAuthenticationDetails;
 import org.booklore.exception.ApiError;
@@ -43,6 +44,7 @@ public class DualJwtAuthenticationFilter extends OncePerRequestFilter {
     private final UserProvisioningService userProvisioningService;
     private static final ConcurrentMap<String, Object> userLocks = new ConcurrentHashMap<>();
     private final DynamicOidcJwtProcessor dynamicOidcJwtProcessor;
+    private final AuthPrincipalCache principalCache;
 
     private static final List<String> WHITELISTED_PATHS = List.of(
             "/api/v1/opds/",
@@ -89,8 +91,10 @@ public class DualJwtAuthenticationFilter extends OncePerRequestFilter {
 
     private void authenticateLocalUser(String token, HttpServletRequest request) {
         Long userId = jwtUtils.extractUserId(token);
-        BookLoreUserEntity entity = userRepository.findById(userId).orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + userId));
-        BookLoreUser user = bookLoreUserTransformer.toDTO(entity);
+        BookLoreUser user = principalCache.userById(userId);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with ID: " + userId);
+        }
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, null);
         authentication.setDetails(new UserAuthenticationDetails(request, user.getId()));
         SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -111,30 +115,10 @@ public class DualJwtAuthenticationFilter extends OncePerRequestFilter {
             String email = claimsSet.getStringClaim(claimMapping.getEmail());
             String name = claimsSet.getStringClaim(claimMapping.getName());
 
-            OidcAutoProvisionDetails provisionDetails = appSettingService.getAppSettings().getOidcAutoProvisionDetails();
-            boolean autoProvision = provisionDetails != null && provisionDetails.isEnableAutoProvisioning();
-
-            BookLoreUserEntity entity = userRepository.findByUsername(username)
-                    .orElseGet(() -> {
-                        if (!autoProvision) {
-                            log.warn("User '{}' not found and auto-provisioning is disabled.", username);
-                            throw ApiError.GENERIC_UNAUTHORIZED.createException("User not found and auto-provisioning is disabled.");
-                        }
-                        Object lock = userLocks.computeIfAbsent(username, k -> new Object());
-                        try {
-                            synchronized (lock) {
-                                return userRepository.findByUsername(username)
-                                        .orElseGet(() -> {
-                                            log.info("Provisioning new OIDC user '{}'", username);
-                                            return userProvisioningService.provisionOidcUser(username, email, name, provisionDetails);
-                                        });
-                            }
-                        } finally {
-                            userLocks.remove(username);
-                        }
-                    });
-
-            BookLoreUser user = bookLoreUserTransformer.toDTO(entity);
+            BookLoreUser user = principalCache.userByUsername(username);
+            if (user == null) {
+                user = bookLoreUserTransformer.toDTO(provisionOidcUser(username, email, name));
+            }
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null, null);
             authentication.setDetails(new UserAuthenticationDetails(request, user.getId()));
             SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -145,6 +129,31 @@ public class DualJwtAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
+    private BookLoreUserEntity provisionOidcUser(String username, String email, String name) {
+        OidcAutoProvisionDetails provisionDetails = appSettingService.getAppSettings().getOidcAutoProvisionDetails();
+        boolean autoProvision = provisionDetails != null && provisionDetails.isEnableAutoProvisioning();
+
+        return userRepository.findByUsername(username)
+                .orElseGet(() -> {
+                    if (!autoProvision) {
+                        log.warn("User '{}' not found and auto-provisioning is disabled.", username);
+                        throw ApiError.GENERIC_UNAUTHORIZED.createException("User not found and auto-provisioning is disabled.");
+                    }
+                    Object lock = userLocks.computeIfAbsent(username, k -> new Object());
+                    try {
+                        synchronized (lock) {
+                            return userRepository.findByUsername(username)
+                                    .orElseGet(() -> {
+                                        log.info("Provisioning new OIDC user '{}'", username);
+                                        return userProvisioningService.provisionOidcUser(username, email, name, provisionDetails);
+                                    });
+                        }
+                    } finally {
+                        userLocks.remove(username);
+                    }
+                });
+    }
+
     private String extractToken(HttpServletRequest request) {
         String bearer = request.getHeader("Authorization");
         return (bearer != null && bearer.startsWith("Bearer ")) ? bearer.substring(7) : null;
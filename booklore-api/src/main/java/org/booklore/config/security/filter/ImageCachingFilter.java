@@ -4,6 +4,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.booklore.service.book.BookMediaCacheValidator;
 import org.springframework.stereotype.Component;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,9 +19,9 @@ public class ImageCachingFilter extends OncePerRequestFilter {
         String uri = request.getRequestURI();
         if (uri.startsWith("/api/v1/media/book/") &&
             (uri.contains("/cover") || uri.contains("/thumbnail") || uri.contains("/backup-cover") ||
-             uri.contains("/cbx/pages/"))) {
-            response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=3600");
-            response.setHeader(HttpHeaders.EXPIRES, String.valueOf(System.currentTimeMillis() + 3600_000));
+             uri.contains("/cbx/pages/") || uri.contains("/pdf/pages/"))) {
+            // default for media endpoints; handlers that validate with BookMediaCacheValidator replace it
+            response.setHeader(HttpHeaders.CACHE_CONTROL, BookMediaCacheValidator.REVALIDATED);
         }
         filterChain.doFilter(request, response);
     }
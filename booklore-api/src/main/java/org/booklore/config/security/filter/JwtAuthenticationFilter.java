@@ -1,12 +1,9 @@
 package org.booklore.config.security.filter;
 
 import org.booklore.config.security.JwtUtils;
+import org.booklore.config.security.service.AuthPrincipalCache;
 import org.booklore.config.security.userdetails.UserAuthenticationDetails;
-import org.booklore.mapper.custom.BookLoreUserTransformer;
 import org.booklore.model.dto.BookLoreUser;
-import org.booklore.model.entity.BookLoreUserEntity;
-import org.booklore.model.entity.UserPermissionsEntity;
-import org.booklore.repository.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -29,8 +26,7 @@ import java.util.List;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
-    private final UserRepository userRepository;
-    private final BookLoreUserTransformer bookLoreUserTransformer;
+    private final AuthPrincipalCache principalCache;
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
@@ -42,9 +38,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = getJwtFromRequest(request);
         if (token != null && jwtUtils.validateToken(token)) {
             Long userId = jwtUtils.extractUserId(token);
-            BookLoreUserEntity bookLoreUserEntity = userRepository.findById(userId).orElseThrow(() -> new UsernameNotFoundException("User not found"));
-            BookLoreUser bookLoreUser = bookLoreUserTransformer.toDTO(bookLoreUserEntity);
-            List<GrantedAuthority> authorities = getAuthorities(bookLoreUserEntity.getPermissions());
+            BookLoreUser bookLoreUser = principalCache.userById(userId);
+            if (bookLoreUser == null) {
+                throw new UsernameNotFoundException("User not found");
+            }
+            List<GrantedAuthority> authorities = getAuthorities(bookLoreUser.getPermissions());
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(bookLoreUser, null, authorities);
             authentication.setDetails(new UserAuthenticationDetails(request, bookLoreUser.getId()));
             SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -60,21 +58,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return null;
     }
 
-    private List<GrantedAuthority> getAuthorities(UserPermissionsEntity permissions) {
+    private List<GrantedAuthority> getAuthorities(BookLoreUser.UserPermissions permissions) {
         List<GrantedAuthority> authorities = new ArrayList<>();
-        if (permissions.isPermissionUpload()) {
+        if (permissions.isCanUpload()) {
             authorities.add(new SimpleGrantedAuthority("ROLE_UPLOAD"));
         }
-        if (permissions.isPermissionDownload()) {
+        if (permissions.isCanDownload()) {
             authorities.add(new SimpleGrantedAuthority("ROLE_DOWNLOAD"));
         }
-        if (permissions.isPermissionEditMetadata()) {
+        if (permissions.isCanEditMetadata()) {
             authorities.add(new SimpleGrantedAuthority("ROLE_EDIT_METADATA"));
         }
-        if (permissions.isPermissionManageLibrary()) {
+        if (permissions.isCanManageLibrary()) {
             authorities.add(new SimpleGrantedAuthority("ROLE_MANAGE_LIBRARY"));
         }
-        if (permissions.isPermissionAdmin()) {
+        if (permissions.isAdmin()) {
             authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
         }
         return authorities;
@@ -0,0 +1,169 @@
+package org.booklore.config.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.booklore.config.security.userdetails.KoreaderUserDetails;
+import org.booklore.config.security.userdetails.OpdsUserDetails;
+import org.booklore.mapper.OpdsUserV2Mapper;
+import org.booklore.mapper.custom.BookLoreUserTransformer;
+import org.booklore.model.dto.BookLoreUser;
+import org.booklore.model.entity.*;
+import org.booklore.repository.KoboUserSettingsRepository;
+import org.booklore.repository.KoreaderUserRepository;
+import org.booklore.repository.OpdsUserV2Repository;
+import org.booklore.repository.UserRepository;
+import org.booklore.service.event.EntityChangeEvents;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The principals the authentication filters put into the security context, cached so that authenticated requests
+ * don't go to the database. Users are cached by id, and their ids by username and Kobo token; KOReader and OPDS
+ * accounts are cached by username.
+ * <p>
+ * Entries expire after a short TTL and the cache is bounded in size. Any write to a user, their permissions,
+ * settings or library assignments, a library, a Kobo token or a KOReader or OPDS account clears the whole cache
+ * once the transaction commits, driven by Hibernate's write events through {@link EntityChangeEvents}.
+ * Cached principals are shared between requests and must not be modified.
+ */
+@Slf4j
+@Component
+public class AuthPrincipalCache {
+
+    private final EntityChangeEvents entityChangeEvents;
+    private final UserRepository userRepository;
+    private final KoboUserSettingsRepository koboUserSettingsRepository;
+    private final KoreaderUserRepository koreaderUserRepository;
+    private final OpdsUserV2Repository opdsUserV2Repository;
+    private final OpdsUserV2Mapper opdsUserV2Mapper;
+    private final BookLoreUserTransformer bookLoreUserTransformer;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Cache<Long, BookLoreUser> users;
+    private final Cache<String, Long> userIdsByUsername;
+    private final Cache<String, Long> userIdsByKoboToken;
+    private final Cache<String, KoreaderUserDetails> koreaderUsers;
+    private final Cache<String, OpdsUserDetails> opdsUsers;
+
+    public AuthPrincipalCache(EntityChangeEvents entityChangeEvents, UserRepository userRepository,
+                              KoboUserSettingsRepository koboUserSettingsRepository, KoreaderUserRepository koreaderUserRepository,
+                              OpdsUserV2Repository opdsUserV2Repository, OpdsUserV2Mapper opdsUserV2Mapper,
+                              BookLoreUserTransformer bookLoreUserTransformer, AppProperties appProperties) {
+        this.entityChangeEvents = entityChangeEvents;
+        this.userRepository = userRepository;
+        this.koboUserSettingsRepository = koboUserSettingsRepository;
+        this.koreaderUserRepository = koreaderUserRepository;
+        this.opdsUserV2Repository = opdsUserV2Repository;
+        this.opdsUserV2Mapper = opdsUserV2Mapper;
+        this.bookLoreUserTransformer = bookLoreUserTransformer;
+
+        AppProperties.AuthCache settings = appProperties.getAuthCache();
+        Duration ttl = Duration.ofSeconds(Math.max(0, settings.getTtlSeconds()));
+        long maxSize = Math.max(0, settings.getMaxSize());
+        this.users = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).build();
+        this.userIdsByUsername = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).build();
+        this.userIdsByKoboToken = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).build();
+        this.koreaderUsers = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).build();
+        this.opdsUsers = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).build();
+    }
+
+    @PostConstruct
+    void register() {
+        entityChangeEvents.onCommit(AuthPrincipalCache::affectsPrincipals, this::invalidateAll);
+    }
+
+    /**
+     * Returns the user with the given id, or null if there is none.
+     */
+    public BookLoreUser userById(Long userId) {
+        return get(users, userId, id -> userRepository.findById(id).map(bookLoreUserTransformer::toDTO).orElse(null));
+    }
+
+    /**
+     * Returns the user with the given username, or null if there is none.
+     */
+    public BookLoreUser userByUsername(String username) {
+        Long userId = get(userIdsByUsername, username, name -> userRepository.findByUsername(name).map(BookLoreUserEntity::getId).orElse(null));
+        return userId != null ? userById(userId) : null;
+    }
+
+    /**
+     * Returns the user a Kobo sync token belongs to, or null if the token is unknown.
+     */
+    public BookLoreUser userByKoboToken(String token) {
+        Long userId = get(userIdsByKoboToken, token, key -> koboUserSettingsRepository.findByToken(key).map(KoboUserSettingsEntity::getUserId).orElse(null));
+        return userId != null ? userById(userId) : null;
+    }
+
+    /**
+     * Returns the KOReader sync account with the given username, or null if there is none.
+     */
+    public KoreaderUserDetails koreaderUser(String username) {
+        return get(koreaderUsers, username, name -> koreaderUserRepository.findByUsername(name)
+                .map(user -> new KoreaderUserDetails(
+                        user.getUsername(),
+                        user.getPasswordMD5(),
+                        user.isSyncEnabled(),
+                        user.isSyncWithBookloreReader(),
+                        user.getBookLoreUser() != null ? user.getBookLoreUser().getId() : null,
+                        List.of(new SimpleGrantedAuthority("ROLE_USER"))))
+                .orElse(null));
+    }
+
+    /**
+     * Returns the OPDS account with the given username, or null if there is none.
+     */
+    public OpdsUserDetails opdsUser(String username) {
+        return get(opdsUsers, username, name -> opdsUserV2Repository.findByUsername(name)
+                .map(user -> new OpdsUserDetails(opdsUserV2Mapper.toDto(user)))
+                .orElse(null));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        users.invalidateAll();
+        userIdsByUsername.invalidateAll();
+        userIdsByKoboToken.invalidateAll();
+        koreaderUsers.invalidateAll();
+        opdsUsers.invalidateAll();
+    }
+
+    private <K, V> V get(Cache<K, V> cache, K key, Function<K, V> loader) {
+        if (key == null) {
+            return null;
+        }
+        V value = cache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        long loadedGeneration = generation.get();
+        value = loader.apply(key);
+        if (value != null) {
+            cache.put(key, value);
+            if (generation.get() != loadedGeneration) {
+                // loaded while a change was being committed, may already be outdated
+                cache.invalidate(key);
+            }
+        }
+        return value;
+    }
+
+    private static boolean affectsPrincipals(Object entity) {
+        return entity instanceof BookLoreUserEntity
+                || entity instanceof UserPermissionsEntity
+                || entity instanceof UserSettingEntity
+                || entity instanceof KoboUserSettingsEntity
+                || entity instanceof KoreaderUserEntity
+                || entity instanceof OpdsUserV2Entity
+                || entity instanceof LibraryEntity
+                || entity instanceof LibraryPathEntity;
+    }
+}
@@ -19,6 +19,7 @@ import org.booklore.model.dto.response.DuplicateGroup;
 import org.booklore.model.dto.response.PersonalRatingUpdateResponse;
 import org.booklore.model.enums.ResetProgressType;
 import org.booklore.service.book.BookFileAttachmentService;
+import org.booklore.service.book.BookListStreamService;
 import org.booklore.service.book.BookService;
 import org.booklore.service.book.BookUpdateService;
 import org.booklore.service.book.DuplicateDetectionService;
@@ -26,6 +27,7 @@ import org.booklore.service.book.PhysicalBookService;
 import org.booklore.service.metadata.BookMetadataService;
 import org.booklore.service.progress.ReadingProgressService;
 import org.booklore.service.recommender.BookRecommendationService;
+import org.booklore.service.search.BookSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -39,6 +41,7 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
@@ -62,6 +65,8 @@ public class BookController {
     private final ReadingProgressService readingProgressService;
     private final PhysicalBookService physicalBookService;
     private final DuplicateDetectionService duplicateDetectionService;
+    private final BookListStreamService bookListStreamService;
+    private final BookSearchService bookSearchService;
 
     @Operation(summary = "Get all books", description = "Retrieve a list of all books. Optionally include descriptions.")
     @ApiResponse(responseCode = "200", description = "List of books returned successfully")
@@ -72,6 +77,34 @@ public class BookController {
         return ResponseEntity.ok(bookService.getBookDTOs(withDescription));
     }
 
+    @Operation(summary = "Stream books page by page",
+            description = "Stream the book list in id order, one page at a time. The response carries a version token that doubles as the ETag; "
+                    + "send it back as 'since' to receive only books changed after it plus the ids of removed books.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of books streamed successfully"),
+            @ApiResponse(responseCode = "304", description = "Nothing changed since the version in If-None-Match")
+    })
+    @GetMapping("/list")
+    public void streamBooks(
+            @Parameter(description = "Return books with an id greater than this cursor") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Maximum number of books in the page") @RequestParam(required = false) @Min(1) @Max(BookListStreamService.MAX_PAGE_SIZE) Integer limit,
+            @Parameter(description = "Version token from a previous response; only changes after it are returned") @RequestParam(required = false) String since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletResponse response) {
+        bookListStreamService.streamBooks(cursor, limit, since, ifNoneMatch, response);
+    }
+
+    @Operation(summary = "Search books",
+            description = "Full-text search over titles, subtitles, authors, series, publishers, tags, categories, ISBNs and descriptions. "
+                    + "Every word has to match; the last one also matches as a prefix and misspelled words match close terms. Best matches come first.")
+    @ApiResponse(responseCode = "200", description = "Matching books returned successfully")
+    @GetMapping("/search")
+    public ResponseEntity<List<Book>> searchBooks(
+            @Parameter(description = "Search query") @RequestParam("q") @Size(max = 500) String query,
+            @Parameter(description = "Maximum number of books to return") @RequestParam(required = false) @Min(1) @Max(BookSearchService.MAX_LIMIT) Integer limit) {
+        return ResponseEntity.ok(bookSearchService.searchBooks(query, limit));
+    }
+
     @Operation(summary = "Get a book by ID", description = "Retrieve details of a specific book by its ID.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Book details returned successfully"),
@@ -171,10 +204,9 @@ public class BookController {
     @GetMapping("/{bookId}/download-all")
     @PreAuthorize("@securityUtil.canDownload() or @securityUtil.isAdmin()")
     @CheckBookAccess(bookIdParam = "bookId")
-    public void downloadAllBookFiles(
-            @Parameter(description = "ID of the book") @PathVariable("bookId") Long bookId,
-            HttpServletResponse response) {
-        bookService.downloadAllBookFiles(bookId, response);
+    public ResponseEntity<Resource> downloadAllBookFiles(
+            @Parameter(description = "ID of the book") @PathVariable("bookId") Long bookId) {
+        return bookService.downloadAllBookFiles(bookId);
     }
 
     @Operation(summary = "Get viewer settings", description = "Retrieve viewer settings for a specific book file.")
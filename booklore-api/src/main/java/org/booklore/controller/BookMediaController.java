@@ -2,13 +2,17 @@ package org.booklore.controller;
 
 import org.booklore.service.AuthorMetadataService;
 import org.booklore.config.security.annotation.CheckBookAccess;
+import org.booklore.service.book.BookMediaCacheValidator;
+import org.booklore.service.book.BookMediaCacheValidator.CoverType;
 import org.booklore.service.book.BookService;
 import org.booklore.service.bookdrop.BookDropService;
 import org.booklore.service.reader.CbxReaderService;
+import org.booklore.service.reader.PdfReaderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import org.springframework.core.io.Resource;
@@ -16,8 +20,10 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Tag(name = "Book Media", description = "Endpoints for retrieving book media such as covers, thumbnails, and pages")
 @AllArgsConstructor
@@ -25,56 +31,114 @@ import java.io.IOException;
 @RequestMapping("/api/v1/media")
 public class BookMediaController {
 
+    // Tomcat sends a file range straight from disk to the socket when these request attributes are set
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final BookService bookService;
     private final CbxReaderService cbxReaderService;
+    private final PdfReaderService pdfReaderService;
     private final BookDropService bookDropService;
     private final AuthorMetadataService authorMetadataService;
+    private final BookMediaCacheValidator cacheValidator;
 
     @Operation(summary = "Get book thumbnail", description = "Retrieve the thumbnail image for a specific book.")
     @ApiResponse(responseCode = "200", description = "Book thumbnail returned successfully")
+    @ApiResponse(responseCode = "304", description = "Book thumbnail unchanged since the client's copy")
     @GetMapping("/book/{bookId}/thumbnail")
     @CheckBookAccess(bookIdParam = "bookId")
-    public ResponseEntity<Resource> getBookThumbnail(@Parameter(description = "ID of the book") @PathVariable long bookId) {
+    public ResponseEntity<Resource> getBookThumbnail(@Parameter(description = "ID of the book") @PathVariable long bookId, ServletWebRequest webRequest) {
+        if (cacheValidator.checkCoverNotModified(bookId, CoverType.THUMBNAIL, webRequest)) {
+            return null;
+        }
         return ResponseEntity.ok(bookService.getBookThumbnail(bookId));
     }
 
     @Operation(summary = "Get book cover", description = "Retrieve the cover image for a specific book.")
     @ApiResponse(responseCode = "200", description = "Book cover returned successfully")
+    @ApiResponse(responseCode = "304", description = "Book cover unchanged since the client's copy")
     @GetMapping("/book/{bookId}/cover")
     @CheckBookAccess(bookIdParam = "bookId")
-    public ResponseEntity<Resource> getBookCover(@Parameter(description = "ID of the book") @PathVariable long bookId) {
+    public ResponseEntity<Resource> getBookCover(@Parameter(description = "ID of the book") @PathVariable long bookId, ServletWebRequest webRequest) {
+        if (cacheValidator.checkCoverNotModified(bookId, CoverType.COVER, webRequest)) {
+            return null;
+        }
         return ResponseEntity.ok(bookService.getBookCover(bookId));
     }
 
     @Operation(summary = "Get audiobook thumbnail", description = "Retrieve the audiobook thumbnail image for a specific book.")
     @ApiResponse(responseCode = "200", description = "Audiobook thumbnail returned successfully")
+    @ApiResponse(responseCode = "304", description = "Audiobook thumbnail unchanged since the client's copy")
     @GetMapping("/book/{bookId}/audiobook-thumbnail")
     @CheckBookAccess(bookIdParam = "bookId")
-    public ResponseEntity<Resource> getAudiobookThumbnail(@Parameter(description = "ID of the book") @PathVariable long bookId) {
+    public ResponseEntity<Resource> getAudiobookThumbnail(@Parameter(description = "ID of the book") @PathVariable long bookId, ServletWebRequest webRequest) {
+        if (cacheValidator.checkCoverNotModified(bookId, CoverType.AUDIOBOOK_THUMBNAIL, webRequest)) {
+            return null;
+        }
         return ResponseEntity.ok(bookService.getAudiobookThumbnail(bookId));
     }
 
     @Operation(summary = "Get audiobook cover", description = "Retrieve the audiobook cover image for a specific book.")
     @ApiResponse(responseCode = "200", description = "Audiobook cover returned successfully")
+    @ApiResponse(responseCode = "304", description = "Audiobook cover unchanged since the client's copy")
     @GetMapping("/book/{bookId}/audiobook-cover")
     @CheckBookAccess(bookIdParam = "bookId")
-    public ResponseEntity<Resource> getAudiobookCover(@Parameter(description = "ID of the book") @PathVariable long bookId) {
+    public ResponseEntity<Resource> getAudiobookCover(@Parameter(description = "ID of the book") @PathVariable long bookId, ServletWebRequest webRequest) {
+        if (cacheValidator.checkCoverNotModified(bookId, CoverType.AUDIOBOOK_COVER, webRequest)) {
+            return null;
+        }
         return ResponseEntity.ok(bookService.getAudiobookCover(bookId));
     }
 
     @Operation(summary = "Get CBX page as image", description = "Retrieve a specific page from a CBX book as an image.")
     @ApiResponse(responseCode = "200", description = "CBX page image returned successfully")
+    @ApiResponse(responseCode = "304", description = "CBX page image unchanged since the client's copy")
     @GetMapping("/book/{bookId}/cbx/pages/{pageNumber}")
     @CheckBookAccess(bookIdParam = "bookId")
     public void getCbxPage(
             @Parameter(description = "ID of the book") @PathVariable Long bookId,
             @Parameter(description = "Page number to retrieve") @PathVariable int pageNumber,
             @Parameter(description = "Optional book type for alternative format (e.g., PDF, CBX)") @RequestParam(required = false) String bookType,
+            HttpServletRequest request,
             HttpServletResponse response) throws IOException {
+        if (cacheValidator.checkPageNotModified(bookId, bookType, pageNumber, null, new ServletWebRequest(request, response))) {
+            return;
+        }
         response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            Optional<CbxReaderService.PageRange> range = cbxReaderService.findPageRange(bookId, bookType, pageNumber);
+            if (range.isPresent()) {
+                request.setAttribute(SENDFILE_FILENAME, range.get().file().toString());
+                request.setAttribute(SENDFILE_START, range.get().offset());
+                request.setAttribute(SENDFILE_END, range.get().offset() + range.get().length());
+                response.setContentLengthLong(range.get().length());
+                return;
+            }
+        }
         cbxReaderService.streamPageImage(bookId, bookType, pageNumber, response.getOutputStream());
     }
 
+    @Operation(summary = "Get PDF page as image", description = "Retrieve a specific page from a PDF book rendered as a JPEG image.")
+    @ApiResponse(responseCode = "200", description = "PDF page image returned successfully")
+    @ApiResponse(responseCode = "304", description = "PDF page image unchanged since the client's copy")
+    @GetMapping("/book/{bookId}/pdf/pages/{pageNumber}")
+    @CheckBookAccess(bookIdParam = "bookId")
+    public void getPdfPage(
+            @Parameter(description = "ID of the book") @PathVariable Long bookId,
+            @Parameter(description = "Page number to retrieve") @PathVariable int pageNumber,
+            @Parameter(description = "Optional book type for alternative format (e.g., PDF, CBX)") @RequestParam(required = false) String bookType,
+            @Parameter(description = "Optional target width in pixels; the page is rendered at a resolution that covers it") @RequestParam(required = false) Integer width,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (cacheValidator.checkPageNotModified(bookId, bookType, pageNumber, width, new ServletWebRequest(request, response))) {
+            return;
+        }
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        pdfReaderService.streamPageImage(bookId, bookType, pageNumber, width, response.getOutputStream());
+    }
+
     @Operation(summary = "Get author photo", description = "Retrieve the photo for a specific author.")
     @ApiResponse(responseCode = "200", description = "Author photo returned successfully")
     @GetMapping("/author/{authorId}/photo")
@@ -19,8 +19,10 @@ import org.booklore.repository.ShelfRepository;
 import org.booklore.repository.UserBookFileProgressRepository;
 import org.booklore.repository.UserBookProgressRepository;
 import org.booklore.service.opds.MagicShelfBookService;
+import org.booklore.service.search.BookSearchIndex;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -51,6 +53,7 @@ public class MobileBookService {
     private final MobileBookMapper mobileBookMapper;
     private final MagicShelfBookService magicShelfBookService;
     private final EntityManager entityManager;
+    private final BookSearchIndex bookSearchIndex;
 
     @Transactional(readOnly = true)
     public MobilePageResponse<MobileBookSummary> getBooks(
@@ -137,17 +140,24 @@ public class MobileBookService {
         int pageNum = validatePageNumber(page);
         int pageSize = validatePageSize(size);
 
-        Pageable pageable = PageRequest.of(pageNum, pageSize, Sort.by(Sort.Direction.DESC, "addedOn"));
+        Pageable pageable = PageRequest.of(pageNum, pageSize);
 
+        // Best matches first among the books the user may see, then load just the requested page
         Specification<BookEntity> spec = MobileBookSpecification.combine(
                 MobileBookSpecification.notDeleted(),
                 MobileBookSpecification.hasDigitalFile(),
-                MobileBookSpecification.inLibraries(accessibleLibraryIds),
-                MobileBookSpecification.searchText(query)
+                MobileBookSpecification.inLibraries(accessibleLibraryIds)
         );
+        Set<Long> visible = new HashSet<>(bookRepository.findIds(spec));
+        List<Long> matches = bookSearchIndex.search(query, visible::contains);
 
-        Page<BookEntity> bookPage = bookRepository.findAll(spec, pageable);
-        return buildPageResponse(bookPage, userId, pageNum, pageSize);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        List<Long> pageIds = matches.subList(from, Math.min(from + pageSize, matches.size()));
+        Map<Long, BookEntity> booksById = pageIds.isEmpty() ? Map.of() : bookRepository.findAll(MobileBookSpecification.withIds(pageIds)).stream()
+                .collect(Collectors.toMap(BookEntity::getId, Function.identity()));
+        List<BookEntity> books = pageIds.stream().map(booksById::get).filter(Objects::nonNull).toList();
+
+        return buildPageResponse(new PageImpl<>(books, pageable, matches.size()), userId, pageNum, pageSize);
     }
 
     @Transactional(readOnly = true)
@@ -575,10 +585,6 @@ public class MobileBookService {
             specs.add(MobileBookSpecification.withReadStatus(status, userId));
         }
 
-        if (search != null && !search.trim().isEmpty()) {
-            specs.add(MobileBookSpecification.searchText(search));
-        }
-
         if (fileType != null) {
             specs.add(MobileBookSpecification.withFileType(fileType));
         }
@@ -599,7 +605,13 @@ public class MobileBookService {
             specs.add(MobileBookSpecification.withLanguage(language.trim()));
         }
 
-        return MobileBookSpecification.combine(specs.toArray(new Specification[0]));
+        Specification<BookEntity> filters = MobileBookSpecification.combine(specs.toArray(new Specification[0]));
+        if (search != null && !search.trim().isEmpty()) {
+            // the search only ranks books the other filters keep, so those it drops don't use up its result limit
+            Set<Long> filtered = new HashSet<>(bookRepository.findIds(filters));
+            return MobileBookSpecification.combine(filters, MobileBookSpecification.withIds(bookSearchIndex.search(search, filtered::contains)));
+        }
+        return filters;
     }
 
     private Sort buildSort(String sortBy, String sortDir) {
@@ -8,9 +8,7 @@ import org.springframework.data.jpa.domain.Specification;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 public class MobileBookSpecification {
 
@@ -84,24 +82,16 @@ public class MobileBookSpecification {
         };
     }
 
-    public static Specification<BookEntity> searchText(String searchQuery) {
+    /**
+     * Books with one of the given ids, such as the matches of a {@link org.booklore.service.search.BookSearchIndex}
+     * search; no books for an empty collection.
+     */
+    public static Specification<BookEntity> withIds(Collection<Long> bookIds) {
         return (root, query, cb) -> {
-            if (searchQuery == null || searchQuery.trim().isEmpty()) {
-                return cb.conjunction();
+            if (bookIds.isEmpty()) {
+                return cb.disjunction();
             }
-            String pattern = "%" + searchQuery.toLowerCase().trim() + "%";
-
-            Join<BookEntity, BookMetadataEntity> metadataJoin = root.join("metadata", JoinType.LEFT);
-            Join<BookMetadataEntity, AuthorEntity> authorsJoin = metadataJoin.join("authors", JoinType.LEFT);
-
-            List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.like(cb.lower(metadataJoin.get("title")), pattern));
-            predicates.add(cb.like(cb.lower(metadataJoin.get("seriesName")), pattern));
-            predicates.add(cb.like(cb.lower(authorsJoin.get("name")), pattern));
-
-            query.distinct(true);
-
-            return cb.or(predicates.toArray(new Predicate[0]));
+            return root.get("id").in(bookIds);
         };
     }
 
@@ -19,4 +19,9 @@ public class MetadataUpdateContext {
     private boolean mergeMoods;
     private boolean mergeTags;
     private MetadataReplaceMode replaceMode;
+    /**
+     * Save only to the database now; download the cover and write the book file and sidecar once the
+     * transaction commits, outside it.
+     */
+    private boolean deferFileUpdates;
 }
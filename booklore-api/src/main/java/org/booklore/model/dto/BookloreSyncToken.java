@@ -12,5 +12,7 @@ import lombok.NoArgsConstructor;
 public class BookloreSyncToken {
     private String ongoingSyncPointId;
     private String lastSuccessfulSyncPointId;
+    private Long ongoingLibraryVersion;
+    private Long lastSuccessfulLibraryVersion;
     private String rawKoboSyncToken;
 }
@@ -10,6 +10,7 @@ import org.booklore.model.enums.BookFileType;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 
 @Builder
 @Data
@@ -23,6 +24,14 @@ public class LibraryFile {
     private BookFileType bookFileType;
     @Builder.Default
     private boolean folderBased = false;
+    /**
+     * Fingerprint computed ahead of processing by the scan pipeline, or {@code null} if not yet hashed.
+     */
+    private String hash;
+    /**
+     * Attributes captured while walking the library, or {@code null} when the file was not discovered by a walk.
+     */
+    private BasicFileAttributes attributes;
 
     public Path getFullPath() {
         if (fileSubPath == null || fileSubPath.isEmpty()) {
@@ -0,0 +1,49 @@
+package org.booklore.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A book that is or was on a user's Kobo shelf, as last sent to their devices. Every change bumps
+ * {@code version} from a per-user sequence, so a device only reads the rows newer than its sync token.
+ * Removed books stay as rows with {@code onShelf = false} so devices learn about the removal.
+ */
+@Entity
+@Table(name = "kobo_library_book")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class KoboLibraryBookEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "on_shelf", nullable = false)
+    private boolean onShelf;
+
+    @Column(name = "file_hash")
+    private String fileHash;
+
+    @Column(name = "metadata_updated_at")
+    private Instant metadataUpdatedAt;
+
+    /**
+     * Version at which the book was last put on the shelf; a device synced before it doesn't have the book yet.
+     */
+    @Column(name = "added_version", nullable = false)
+    private long addedVersion;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
@@ -0,0 +1,51 @@
+package org.booklore.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Last observed stat and fingerprint of a file under a library path, used by rescans to skip
+ * files that have not changed since the previous scan.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "library_file_journal")
+public class LibraryFileJournalEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "library_path_id", nullable = false)
+    private Long libraryPathId;
+
+    @Column(name = "file_sub_path", length = 512, nullable = false)
+    private String fileSubPath;
+
+    @Column(name = "file_name", length = 1000, nullable = false)
+    private String fileName;
+
+    @Column(name = "is_folder_based", nullable = false)
+    private boolean folderBased;
+
+    @Column(name = "file_size", nullable = false)
+    private long fileSize;
+
+    @Column(name = "last_modified", nullable = false)
+    private long lastModified;
+
+    @Column(name = "file_key")
+    private String fileKey;
+
+    @Column(name = "hash", length = 128)
+    private String hash;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
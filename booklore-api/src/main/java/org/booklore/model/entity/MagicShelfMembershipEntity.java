@@ -0,0 +1,30 @@
+package org.booklore.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One book matched by a magic shelf's rules for one user. Library access and content restrictions are not
+ * applied here; they are checked when the shelf is read.
+ */
+@Entity
+@Table(name = "magic_shelf_membership")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(MagicShelfMembershipKey.class)
+public class MagicShelfMembershipEntity {
+
+    @Id
+    @Column(name = "magic_shelf_id")
+    private Long magicShelfId;
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+}
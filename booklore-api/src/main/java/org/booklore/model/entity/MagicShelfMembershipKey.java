@@ -0,0 +1,36 @@
+package org.booklore.model.entity;
+
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MagicShelfMembershipKey implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private Long magicShelfId;
+    private Long userId;
+    private Long bookId;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MagicShelfMembershipKey that)) return false;
+        return Objects.equals(magicShelfId, that.magicShelfId) && Objects.equals(userId, that.userId)
+                && Objects.equals(bookId, that.bookId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(magicShelfId, userId, bookId);
+    }
+}
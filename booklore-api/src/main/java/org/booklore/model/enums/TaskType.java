@@ -51,6 +51,14 @@ public enum TaskType {
             "Cleanup Temporary Metadata",
             "Removes temporary metadata files created during the bookdrop and manual metadata review processes."
     ),
+    REBUILD_SEARCH_INDEX(
+            false,
+            true,
+            true,
+            false,
+            "Rebuild Search Index",
+            "Rebuilds the full-text index behind book search from the metadata in the Booklore database."
+    ),
     REFRESH_METADATA_MANUAL(
             false,
             true,
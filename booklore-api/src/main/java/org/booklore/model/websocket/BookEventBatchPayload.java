@@ -0,0 +1,12 @@
+package org.booklore.model.websocket;
+
+import org.booklore.model.dto.Book;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Book changes collected over one event window. {@code resync} replaces the lists when too many changes piled up
+ * to send, and asks the client to reload its book list instead.
+ */
+public record BookEventBatchPayload(List<Book> added, List<Book> updated, Collection<Long> removed, boolean resync) {}
@@ -7,6 +7,7 @@ import lombok.Getter;
 @AllArgsConstructor
 public enum Topic {
     BOOK_ADD("/queue/book-add"),
+    BOOKS_BATCH("/queue/books-batch"),
     BOOK_UPDATE("/queue/book-update"),
     BOOKS_COVER_UPDATE("/queue/books-cover-update"),
     BOOKS_REMOVE("/queue/books-remove"),
@@ -27,6 +27,9 @@ public interface BookAdditionalFileRepository extends JpaRepository<BookFileEnti
     @Query("SELECT bf FROM BookFileEntity bf WHERE bf.book.library.id = :libraryId")
     List<BookFileEntity> findByLibraryId(@Param("libraryId") Long libraryId);
 
+    @Query("SELECT COUNT(bf) FROM BookFileEntity bf WHERE bf.book.library.id = :libraryId AND bf.isBookFormat = true AND (bf.book.deleted IS NULL OR bf.book.deleted = false)")
+    long countActiveBookFormatFilesByLibraryId(@Param("libraryId") Long libraryId);
+
     @Modifying
     @Query("""
             UPDATE BookFileEntity bf SET
@@ -0,0 +1,26 @@
+package org.booklore.repository;
+
+import org.booklore.model.entity.BookEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Id-only queries over book specifications, for the two query pattern: page through the matching ids first, then
+ * fetch just those books with whatever entity graph the caller needs.
+ */
+public interface BookIdQueryRepository {
+
+    /**
+     * All matching book ids, in id order.
+     */
+    List<Long> findIds(Specification<BookEntity> specification);
+
+    /**
+     * One page of matching book ids, ordered by the pageable's sort (nested properties such as
+     * {@code metadata.seriesNumber} are left joined) and then by id.
+     */
+    Page<Long> findIds(Specification<BookEntity> specification, Pageable pageable);
+}
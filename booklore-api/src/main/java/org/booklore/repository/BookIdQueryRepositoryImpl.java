@@ -0,0 +1,86 @@
+package org.booklore.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.booklore.model.entity.BookEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class BookIdQueryRepositoryImpl implements BookIdQueryRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Long> findIds(Specification<BookEntity> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<BookEntity> root = query.from(BookEntity.class);
+        applySpecification(specification, root, query, cb);
+        query.select(root.<Long>get("id")).orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public Page<Long> findIds(Specification<BookEntity> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<BookEntity> root = query.from(BookEntity.class);
+        applySpecification(specification, root, query, cb);
+        query.select(root.<Long>get("id")).orderBy(toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Long> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(specification));
+    }
+
+    private long count(Specification<BookEntity> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<BookEntity> root = query.from(BookEntity.class);
+        applySpecification(specification, root, query, cb);
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static void applySpecification(Specification<BookEntity> specification, Root<BookEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+
+    private static List<Order> toOrders(Sort sort, Root<BookEntity> root, CriteriaBuilder cb) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Expression<?> property = property(root, order.getProperty());
+            if (order.getNullHandling() != Sort.NullHandling.NATIVE) {
+                Expression<Integer> isNull = cb.<Integer>selectCase().when(cb.isNull(property), 1).otherwise(0);
+                orders.add(order.getNullHandling() == Sort.NullHandling.NULLS_LAST ? cb.asc(isNull) : cb.desc(isNull));
+            }
+            orders.add(order.isAscending() ? cb.asc(property) : cb.desc(property));
+        }
+        orders.add(cb.asc(root.get("id")));
+        return orders;
+    }
+
+    private static Path<?> property(Root<BookEntity> root, String property) {
+        String[] segments = property.split("\\.");
+        From<?, ?> from = root;
+        for (int i = 0; i < segments.length - 1; i++) {
+            from = from.join(segments[i], JoinType.LEFT);
+        }
+        return from.get(segments[segments.length - 1]);
+    }
+}
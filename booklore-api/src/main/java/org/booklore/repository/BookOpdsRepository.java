@@ -15,7 +15,7 @@ import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface BookOpdsRepository extends JpaRepository<BookEntity, Long>, JpaSpecificationExecutor<BookEntity> {
+public interface BookOpdsRepository extends JpaRepository<BookEntity, Long>, JpaSpecificationExecutor<BookEntity>, BookIdQueryRepository {
 
     // ============================================
     // ALL BOOKS - Two Query Pattern
@@ -69,60 +69,25 @@ public interface BookOpdsRepository extends JpaRepository<BookEntity, Long>, Jpa
     List<BookEntity> findAllWithMetadataByIdsAndShelfId(@Param("ids") Collection<Long> ids, @Param("shelfId") Long shelfId);
 
     // ============================================
-    // SEARCH BY METADATA - Two Query Pattern
+    // SEARCH BY METADATA - ids come from BookSearchIndex
     // ============================================
 
-    @Query("""
-            SELECT DISTINCT b.id FROM BookEntity b
-            LEFT JOIN b.metadata m
-            WHERE (b.deleted IS NULL OR b.deleted = false) AND (
-                  m.searchText LIKE CONCAT('%', :text, '%')
-            )
-            ORDER BY b.addedOn DESC
-            """)
-    Page<Long> findBookIdsByMetadataSearch(@Param("text") String text, Pageable pageable);
-
     @EntityGraph(attributePaths = {"metadata", "metadata.authors", "metadata.categories", "bookFiles", "shelves"})
     @Query("SELECT DISTINCT b FROM BookEntity b WHERE b.id IN :ids AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithFullMetadataByIds(@Param("ids") Collection<Long> ids);
 
     // ============================================
-    // SEARCH BY METADATA IN LIBRARIES - Two Query Pattern
+    // SEARCH BY METADATA IN LIBRARIES
     // ============================================
 
-    @Query("""
-            SELECT DISTINCT b.id FROM BookEntity b
-            LEFT JOIN b.metadata m
-            WHERE (b.deleted IS NULL OR b.deleted = false)
-              AND b.library.id IN :libraryIds
-              AND (
-                  m.searchText LIKE CONCAT('%', :text, '%')
-              )
-            ORDER BY b.addedOn DESC
-            """)
-    Page<Long> findBookIdsByMetadataSearchAndLibraryIds(@Param("text") String text, @Param("libraryIds") Collection<Long> libraryIds, Pageable pageable);
-
     @EntityGraph(attributePaths = {"metadata", "metadata.authors", "metadata.categories", "bookFiles", "shelves"})
     @Query("SELECT DISTINCT b FROM BookEntity b WHERE b.id IN :ids AND b.library.id IN :libraryIds AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithFullMetadataByIdsAndLibraryIds(@Param("ids") Collection<Long> ids, @Param("libraryIds") Collection<Long> libraryIds);
 
     // ============================================
-    // SEARCH BY METADATA IN SHELVES - Two Query Pattern
+    // SEARCH BY METADATA IN SHELVES
     // ============================================
 
-    @Query("""
-            SELECT DISTINCT b.id FROM BookEntity b
-            LEFT JOIN b.metadata m
-            JOIN b.shelves s
-            WHERE (b.deleted IS NULL OR b.deleted = false)
-              AND s.id IN :shelfIds
-              AND (
-                  m.searchText LIKE CONCAT('%', :text, '%')
-              )
-            ORDER BY b.addedOn DESC
-            """)
-    Page<Long> findBookIdsByMetadataSearchAndShelfIds(@Param("text") String text, @Param("shelfIds") Collection<Long> shelfIds, Pageable pageable);
-
     @EntityGraph(attributePaths = {"metadata", "metadata.authors", "metadata.categories", "bookFiles", "shelves"})
     @Query("SELECT DISTINCT b FROM BookEntity b JOIN b.shelves s WHERE b.id IN :ids AND s.id IN :shelfIds AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithFullMetadataByIdsAndShelfIds(@Param("ids") Collection<Long> ids, @Param("shelfIds") Collection<Long> shelfIds);
@@ -4,8 +4,10 @@ import org.booklore.model.entity.BookEntity;
 import org.booklore.model.entity.LibraryPathEntity;
 import org.booklore.model.enums.BookFileType;
 import org.booklore.repository.projection.BookCoverUpdateProjection;
+import org.booklore.repository.projection.BookCoverVersionProjection;
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,7 +19,7 @@ import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpecificationExecutor<BookEntity> {
+public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpecificationExecutor<BookEntity>, BookIdQueryRepository {
     Optional<BookEntity> findBookByIdAndLibraryId(long id, long libraryId);
 
     @EntityGraph(attributePaths = { "metadata", "metadata.comicMetadata", "shelves", "libraryPath", "library", "bookFiles" })
@@ -46,6 +48,19 @@ public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpec
     @Query("SELECT b.id FROM BookEntity b WHERE b.libraryPath.id IN :libraryPathIds AND (b.deleted IS NULL OR b.deleted = false)")
     List<Long> findAllBookIdsByLibraryPathIdIn(@Param("libraryPathIds") Collection<Long> libraryPathIds);
 
+    @Query("SELECT b.id FROM BookEntity b WHERE (b.deleted IS NULL OR b.deleted = false) ORDER BY b.id")
+    List<Long> findAllActiveBookIds();
+
+    // what searches run while the search index is still opening
+    @Query("""
+            SELECT b.id FROM BookEntity b
+            JOIN b.metadata m
+            WHERE (b.deleted IS NULL OR b.deleted = false)
+              AND m.searchText LIKE CONCAT('%', :text, '%')
+            ORDER BY b.addedOn DESC, b.id DESC
+            """)
+    Slice<Long> findBookIdsByMetadataSearch(@Param("text") String text, Pageable pageable);
+
     @EntityGraph(attributePaths = {"metadata", "metadata.comicMetadata", "shelves", "libraryPath", "bookFiles"})
     @Query("SELECT b FROM BookEntity b WHERE (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithMetadata();
@@ -85,6 +100,12 @@ public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpec
     @Query("SELECT DISTINCT b FROM BookEntity b JOIN b.shelves s WHERE s.id = :shelfId AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithMetadataByShelfId(@Param("shelfId") Long shelfId);
 
+    @Query("SELECT DISTINCT b.id FROM BookEntity b JOIN b.shelves s WHERE s.name = :shelfName AND (b.deleted IS NULL OR b.deleted = false)")
+    List<Long> findIdsByShelfName(@Param("shelfName") String shelfName);
+
+    @Query("SELECT DISTINCT b.id FROM BookEntity b JOIN b.shelves s WHERE s.name = :shelfName AND b.id IN :bookIds AND (b.deleted IS NULL OR b.deleted = false)")
+    List<Long> findIdsByShelfNameAndIdIn(@Param("shelfName") String shelfName, @Param("bookIds") Collection<Long> bookIds);
+
     @EntityGraph(attributePaths = { "metadata", "metadata.comicMetadata", "shelves", "libraryPath", "bookFiles" })
     @Query("SELECT DISTINCT b FROM BookEntity b JOIN b.bookFiles bf WHERE bf.isBookFormat = true AND bf.fileSizeKb IS NULL AND (b.deleted IS NULL OR b.deleted = false)")
     List<BookEntity> findAllWithMetadataByFileSizeKbIsNull();
@@ -99,6 +120,15 @@ public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpec
             """)
     List<BookEntity> findAllFullBooks();
 
+    @Query("""
+                SELECT DISTINCT b FROM BookEntity b
+                LEFT JOIN FETCH b.metadata m
+                LEFT JOIN FETCH m.authors
+                LEFT JOIN FETCH m.categories
+                WHERE b.id IN :bookIds
+            """)
+    List<BookEntity> findAllFullBooksByIds(@Param("bookIds") Collection<Long> bookIds);
+
     @Query(value = """
                 SELECT DISTINCT b.* FROM book b
                 LEFT JOIN book_metadata m ON b.id = m.book_id
@@ -184,6 +214,14 @@ public interface BookRepository extends JpaRepository<BookEntity, Long>, JpaSpec
     @Query("SELECT b.id as id, m.coverUpdatedOn as coverUpdatedOn FROM BookEntity b LEFT JOIN b.metadata m WHERE b.id IN :bookIds")
     List<BookCoverUpdateProjection> findCoverUpdateInfoByIds(@Param("bookIds") Collection<Long> bookIds);
 
+    @Query("""
+            SELECT b.bookCoverHash as bookCoverHash, b.audiobookCoverHash as audiobookCoverHash,
+                   m.coverUpdatedOn as coverUpdatedOn, m.audiobookCoverUpdatedOn as audiobookCoverUpdatedOn
+            FROM BookEntity b LEFT JOIN b.metadata m
+            WHERE b.id = :bookId
+            """)
+    Optional<BookCoverVersionProjection> findCoverVersionById(@Param("bookId") Long bookId);
+
     @Modifying
     @Query("""
             UPDATE BookEntity b SET
@@ -0,0 +1,25 @@
+package org.booklore.repository;
+
+import org.booklore.model.entity.KoboLibraryBookEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface KoboLibraryBookRepository extends JpaRepository<KoboLibraryBookEntity, Long> {
+
+    List<KoboLibraryBookEntity> findByUserId(Long userId);
+
+    List<KoboLibraryBookEntity> findByUserIdAndBookIdIn(Long userId, Collection<Long> bookIds);
+
+    Slice<KoboLibraryBookEntity> findByUserIdAndVersionGreaterThanOrderByVersionAsc(Long userId, long version, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(b.version), 0) FROM KoboLibraryBookEntity b WHERE b.userId = :userId")
+    long findLatestVersion(@Param("userId") Long userId);
+}
@@ -0,0 +1,12 @@
+package org.booklore.repository;
+
+import org.booklore.model.entity.LibraryFileJournalEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LibraryFileJournalRepository extends JpaRepository<LibraryFileJournalEntity, Long> {
+
+    List<LibraryFileJournalEntity> findByLibraryPathIdIn(Collection<Long> libraryPathIds);
+}
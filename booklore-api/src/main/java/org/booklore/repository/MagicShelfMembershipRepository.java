@@ -0,0 +1,28 @@
+package org.booklore.repository;
+
+import org.booklore.model.entity.MagicShelfMembershipEntity;
+import org.booklore.model.entity.MagicShelfMembershipKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface MagicShelfMembershipRepository extends JpaRepository<MagicShelfMembershipEntity, MagicShelfMembershipKey> {
+
+    @Query("SELECT m.bookId FROM MagicShelfMembershipEntity m WHERE m.magicShelfId = :magicShelfId AND m.userId = :userId ORDER BY m.bookId")
+    List<Long> findBookIds(@Param("magicShelfId") Long magicShelfId, @Param("userId") Long userId);
+
+    @Query("SELECT m.bookId FROM MagicShelfMembershipEntity m WHERE m.magicShelfId = :magicShelfId AND m.userId = :userId AND m.bookId IN :bookIds")
+    List<Long> findBookIdsIn(@Param("magicShelfId") Long magicShelfId, @Param("userId") Long userId, @Param("bookIds") Collection<Long> bookIds);
+
+    @Modifying
+    @Query("DELETE FROM MagicShelfMembershipEntity m WHERE m.magicShelfId = :magicShelfId AND m.userId = :userId")
+    int deleteAllByShelfAndUser(@Param("magicShelfId") Long magicShelfId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM MagicShelfMembershipEntity m WHERE m.magicShelfId = :magicShelfId AND m.userId = :userId AND m.bookId IN :bookIds")
+    int deleteBooks(@Param("magicShelfId") Long magicShelfId, @Param("userId") Long userId, @Param("bookIds") Collection<Long> bookIds);
+}
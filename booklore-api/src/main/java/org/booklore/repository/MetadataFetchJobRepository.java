@@ -1,10 +1,13 @@
 package org.booklore.repository;
 
 import org.booklore.model.entity.MetadataFetchJobEntity;
+import org.booklore.model.enums.MetadataFetchTaskStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
@@ -23,4 +26,15 @@ public interface MetadataFetchJobRepository extends JpaRepository<MetadataFetchJ
 
     @Query("SELECT DISTINCT t FROM MetadataFetchJobEntity t LEFT JOIN FETCH t.proposals")
     List<MetadataFetchJobEntity> findAllWithProposals();
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE MetadataFetchJobEntity t SET t.completedBooks = :completedBooks WHERE t.taskId = :taskId")
+    int updateProgress(@Param("taskId") String taskId, @Param("completedBooks") int completedBooks);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE MetadataFetchJobEntity t SET t.status = :status, t.completedAt = :completedAt, t.completedBooks = :completedBooks WHERE t.taskId = :taskId")
+    int updateStatus(@Param("taskId") String taskId, @Param("status") MetadataFetchTaskStatus status,
+                     @Param("completedAt") Instant completedAt, @Param("completedBooks") int completedBooks);
 }
@@ -52,6 +52,33 @@ public interface UserBookProgressRepository extends JpaRepository<UserBookProgre
             @Param("snapshotId") String snapshotId
     );
 
+    @Query("""
+        SELECT ubp FROM UserBookProgressEntity ubp
+        WHERE ubp.user.id = :userId
+          AND ubp.book.id IN (
+              SELECT klb.bookId FROM KoboLibraryBookEntity klb
+              WHERE klb.userId = :userId AND klb.onShelf = true
+          )
+          AND (
+              (ubp.readStatusModifiedTime IS NOT NULL AND (
+                  ubp.koboStatusSentTime IS NULL
+                  OR ubp.readStatusModifiedTime > ubp.koboStatusSentTime
+              ))
+              OR
+              (ubp.koboProgressReceivedTime IS NOT NULL AND (
+                  ubp.koboProgressSentTime IS NULL
+                  OR ubp.koboProgressReceivedTime > ubp.koboProgressSentTime
+              ))
+              OR
+              (ubp.epubProgressPercent IS NOT NULL
+                  AND ubp.epubProgress IS NOT NULL
+                  AND (ubp.koboProgressSentTime IS NULL OR ubp.lastReadTime > ubp.koboProgressSentTime))
+          )
+    """)
+    List<UserBookProgressEntity> findAllKoboShelfBooksNeedingKoboSync(
+            @Param("userId") Long userId
+    );
+
     @Query("""
             SELECT
                 YEAR(COALESCE(ubp.dateFinished, ubp.readStatusModifiedTime, ubp.lastReadTime)) as year,
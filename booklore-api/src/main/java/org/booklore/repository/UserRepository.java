@@ -2,10 +2,13 @@ package org.booklore.repository;
 
 import org.booklore.model.entity.BookLoreUserEntity;
 import org.booklore.model.enums.ProvisioningMethod;
+import org.booklore.repository.projection.UserLibraryAccessProjection;
 import org.jspecify.annotations.NonNull;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,5 +21,13 @@ public interface UserRepository extends JpaRepository<BookLoreUserEntity, Long>
     Optional<BookLoreUserEntity> findById(@NonNull Long id);
 
     long countByProvisioningMethod(ProvisioningMethod provisioningMethod);
+
+    @Query("""
+            SELECT u.username as username, p.permissionAdmin as admin, l.id as libraryId
+            FROM BookLoreUserEntity u
+            LEFT JOIN u.permissions p
+            LEFT JOIN u.libraries l
+            """)
+    List<UserLibraryAccessProjection> findAllLibraryAccess();
 }
 
@@ -0,0 +1,10 @@
+package org.booklore.repository.projection;
+
+import java.time.Instant;
+
+public interface BookCoverVersionProjection {
+    String getBookCoverHash();
+    String getAudiobookCoverHash();
+    Instant getCoverUpdatedOn();
+    Instant getAudiobookCoverUpdatedOn();
+}
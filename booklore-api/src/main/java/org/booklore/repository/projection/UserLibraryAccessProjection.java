@@ -0,0 +1,7 @@
+package org.booklore.repository.projection;
+
+public interface UserLibraryAccessProjection {
+    String getUsername();
+    Boolean getAdmin();
+    Long getLibraryId();
+}
@@ -1,22 +1,21 @@
 package org.booklore.service;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.*;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.booklore.model.dto.GroupRule;
-import org.booklore.model.dto.Rule;
 import org.booklore.model.dto.RuleField;
 import org.booklore.model.dto.RuleOperator;
 import org.booklore.model.entity.*;
 import org.booklore.model.enums.ComicCreatorRole;
+import org.booklore.service.rule.CompiledRule;
+import org.booklore.service.rule.MagicShelfRuleCompiler;
+import org.booklore.service.rule.RuleValues;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import tools.jackson.core.type.TypeReference;
-import tools.jackson.databind.ObjectMapper;
 
 import java.time.*;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
@@ -26,13 +25,18 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class BookRuleEvaluatorService {
 
-    private final ObjectMapper objectMapper;
+    private final MagicShelfRuleCompiler ruleCompiler;
+    private final EntityManager entityManager;
 
     private static final Set<RuleField> COMPOSITE_FIELDS = Set.of(
             RuleField.SERIES_STATUS, RuleField.SERIES_GAPS, RuleField.SERIES_POSITION
     );
 
     public Specification<BookEntity> toSpecification(GroupRule groupRule, Long userId) {
+        return toSpecification(ruleCompiler.compile(groupRule), userId);
+    }
+
+    public Specification<BookEntity> toSpecification(CompiledRule.Group rule, Long userId) {
         return (root, query, cb) -> {
             Join<BookEntity, UserBookProgressEntity> progressJoin = root.join("userBookProgress", JoinType.LEFT);
 
@@ -41,39 +45,109 @@ public class BookRuleEvaluatorService {
                     cb.equal(progressJoin.get("user").get("id"), userId)
             );
 
-            Predicate rulePredicate = buildPredicate(groupRule, query, cb, root, progressJoin, userId);
+            Predicate rulePredicate = buildPredicate(rule, query, cb, root, progressJoin, userId);
 
             return cb.and(userPredicate, rulePredicate);
         };
     }
 
-    private Predicate buildPredicate(GroupRule group, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin, Long userId) {
-        if (group.getRules() == null || group.getRules().isEmpty()) {
-            return cb.conjunction();
+    /**
+     * The next moment the rule's answer can change by the clock alone for one of the user's books: when the oldest
+     * date still inside a {@code within_last} / {@code older_than} window reaches its edge, or the current
+     * {@code this_period} period ends. Null when the rule has no such conditions. Other conditions are ignored, so
+     * the moment may come before anything actually changes, never after.
+     */
+    public Instant nextRelativeDateChange(CompiledRule.Group rule, Long userId) {
+        Instant next = null;
+        for (CompiledRule.Condition condition : relativeDateConditions(rule, new ArrayList<>())) {
+            Instant change = condition.operator() == RuleOperator.THIS_PERIOD
+                    ? RuleValues.nextPeriodStart(condition)
+                    : nextWindowCrossing(condition, userId);
+            if (change != null && (next == null || change.isBefore(next))) {
+                next = change;
+            }
         }
+        return next;
+    }
 
-        List<Predicate> predicates = new ArrayList<>();
+    private static List<CompiledRule.Condition> relativeDateConditions(CompiledRule.Group group, List<CompiledRule.Condition> found) {
+        for (CompiledRule rule : group.rules()) {
+            switch (rule) {
+                case CompiledRule.Group subGroup -> relativeDateConditions(subGroup, found);
+                case CompiledRule.Condition condition -> {
+                    boolean relative = condition.operator() == RuleOperator.WITHIN_LAST
+                            || condition.operator() == RuleOperator.OLDER_THAN
+                            || condition.operator() == RuleOperator.THIS_PERIOD;
+                    if (relative && condition.field() != null && condition.field() != RuleField.METADATA_PRESENCE
+                            && !COMPOSITE_FIELDS.contains(condition.field())) {
+                        found.add(condition);
+                    }
+                }
+            }
+        }
+        return found;
+    }
 
-        for (Object ruleObj : group.getRules()) {
-            if (ruleObj == null) continue;
+    private Instant nextWindowCrossing(CompiledRule.Condition condition, Long userId) {
+        Instant now = Instant.now();
+        Instant threshold = RuleValues.relativeDateThreshold(condition);
+        if (threshold == null) return null;
 
-            Map<String, Object> ruleMap = objectMapper.convertValue(ruleObj, new TypeReference<>() {
-            });
-            String type = (String) ruleMap.get("type");
+        Instant earliest;
+        if (condition.field() == RuleField.PUBLISHED_DATE) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDateTime date = earliestFrom(condition.field(), LocalDateTime.class, threshold.atZone(zone).toLocalDateTime(), userId);
+            earliest = date == null ? null : date.atZone(zone).toInstant();
+        } else {
+            earliest = earliestFrom(condition.field(), Instant.class, threshold, userId);
+        }
+        if (earliest == null) return null;
+
+        // The window slides with the clock, so that date reaches its edge once as much time has passed as lies
+        // between the two now
+        Instant crossing = now.plus(Duration.between(threshold, earliest));
+        String unit = condition.valueEnd() != null ? condition.valueEnd().toString().toLowerCase() : "days";
+        if (unit.equals("months") || unit.equals("years")) {
+            // Calendar months and years don't slide evenly (the window start jumps at the end of short months),
+            // so look again the next day at the latest
+            Instant tomorrow = LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+            crossing = crossing.isBefore(tomorrow) ? crossing : tomorrow;
+        }
+        return crossing;
+    }
+
+    private <T extends Comparable<? super T>> T earliestFrom(RuleField ruleField, Class<T> type, T from, Long userId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<BookEntity> root = query.from(BookEntity.class);
+        Join<BookEntity, UserBookProgressEntity> progressJoin = root.join("userBookProgress", JoinType.LEFT);
+        Expression<?> field = getFieldExpression(ruleField, cb, root, progressJoin);
+        if (field == null) return null;
+
+        Expression<T> value = field.as(type);
+        query.select(cb.least(value)).where(
+                cb.greaterThanOrEqualTo(value, from),
+                cb.or(
+                        cb.isNull(progressJoin.get("user").get("id")),
+                        cb.equal(progressJoin.get("user").get("id"), userId)
+                ));
+        return entityManager.createQuery(query).getSingleResult();
+    }
 
-            if ("group".equals(type)) {
-                GroupRule subGroup = objectMapper.convertValue(ruleObj, GroupRule.class);
-                predicates.add(buildPredicate(subGroup, query, cb, root, progressJoin, userId));
-            } else {
-                try {
-                    Rule rule = objectMapper.convertValue(ruleObj, Rule.class);
-                    Predicate rulePredicate = buildRulePredicate(rule, query, cb, root, progressJoin, userId);
-                    if (rulePredicate != null) {
-                        predicates.add(rulePredicate);
-                    }
-                } catch (Exception e) {
-                    log.error("Failed to parse rule: {}, error: {}", ruleObj, e.getMessage(), e);
-                }
+    private Predicate buildPredicate(CompiledRule.Group group, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin, Long userId) {
+        if (group.rules().isEmpty()) {
+            return cb.conjunction();
+        }
+
+        List<Predicate> predicates = new ArrayList<>();
+
+        for (CompiledRule rule : group.rules()) {
+            Predicate predicate = switch (rule) {
+                case CompiledRule.Group subGroup -> buildPredicate(subGroup, query, cb, root, progressJoin, userId);
+                case CompiledRule.Condition condition -> buildRulePredicate(condition, query, cb, root, progressJoin, userId);
+            };
+            if (predicate != null) {
+                predicates.add(predicate);
             }
         }
 
@@ -81,29 +155,29 @@ public class BookRuleEvaluatorService {
             return cb.conjunction();
         }
 
-        return group.getJoin() == org.booklore.model.dto.JoinType.AND
+        return group.join() == org.booklore.model.dto.JoinType.AND
                 ? cb.and(predicates.toArray(new Predicate[0]))
                 : cb.or(predicates.toArray(new Predicate[0]));
     }
 
-    private Predicate buildRulePredicate(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin, Long userId) {
-        if (rule.getField() == null || rule.getOperator() == null) return null;
+    private Predicate buildRulePredicate(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin, Long userId) {
+        if (rule.field() == null || rule.operator() == null) return null;
 
-        if (rule.getField() == RuleField.METADATA_PRESENCE) {
+        if (rule.field() == RuleField.METADATA_PRESENCE) {
             return buildMetadataPresencePredicate(rule, query, cb, root, progressJoin);
         }
 
-        if (COMPOSITE_FIELDS.contains(rule.getField())) {
+        if (COMPOSITE_FIELDS.contains(rule.field())) {
             return buildCompositeFieldPredicate(rule, query, cb, root, progressJoin, userId);
         }
 
-        return switch (rule.getOperator()) {
+        return switch (rule.operator()) {
             case EQUALS -> buildEquals(rule, query, cb, root, progressJoin);
             case NOT_EQUALS -> buildNotEquals(rule, query, cb, root, progressJoin);
             case CONTAINS -> buildContains(rule, query, cb, root, progressJoin);
             case DOES_NOT_CONTAIN -> {
                 Predicate notContains = cb.not(buildContains(rule, query, cb, root, progressJoin));
-                if (rule.getField() == RuleField.READ_STATUS) {
+                if (rule.field() == RuleField.READ_STATUS) {
                     yield cb.or(cb.isNull(progressJoin.get("readStatus")), notContains);
                 }
                 yield notContains;
@@ -126,87 +200,56 @@ public class BookRuleEvaluatorService {
         };
     }
 
-    private Predicate buildWithinLast(Rule rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        Expression<?> field = getFieldExpression(rule.getField(), cb, root, progressJoin);
+    private Predicate buildWithinLast(CompiledRule.Condition rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        Expression<?> field = getFieldExpression(rule.field(), cb, root, progressJoin);
         if (field == null) return cb.conjunction();
 
-        Instant threshold = computeRelativeDateThreshold(rule);
+        Instant threshold = RuleValues.relativeDateThreshold(rule);
         if (threshold == null) return cb.conjunction();
 
-        if (rule.getField() == RuleField.PUBLISHED_DATE) {
+        if (rule.field() == RuleField.PUBLISHED_DATE) {
             LocalDateTime ldt = threshold.atZone(ZoneId.systemDefault()).toLocalDateTime();
             return cb.greaterThanOrEqualTo(field.as(LocalDateTime.class), ldt);
         }
         return cb.greaterThanOrEqualTo(field.as(Instant.class), threshold);
     }
 
-    private Predicate buildOlderThan(Rule rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        Expression<?> field = getFieldExpression(rule.getField(), cb, root, progressJoin);
+    private Predicate buildOlderThan(CompiledRule.Condition rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        Expression<?> field = getFieldExpression(rule.field(), cb, root, progressJoin);
         if (field == null) return cb.conjunction();
 
-        Instant threshold = computeRelativeDateThreshold(rule);
+        Instant threshold = RuleValues.relativeDateThreshold(rule);
         if (threshold == null) return cb.conjunction();
 
-        if (rule.getField() == RuleField.PUBLISHED_DATE) {
+        if (rule.field() == RuleField.PUBLISHED_DATE) {
             LocalDateTime ldt = threshold.atZone(ZoneId.systemDefault()).toLocalDateTime();
             return cb.lessThan(field.as(LocalDateTime.class), ldt);
         }
         return cb.lessThan(field.as(Instant.class), threshold);
     }
 
-    private Predicate buildThisPeriod(Rule rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        Expression<?> field = getFieldExpression(rule.getField(), cb, root, progressJoin);
+    private Predicate buildThisPeriod(CompiledRule.Condition rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        Expression<?> field = getFieldExpression(rule.field(), cb, root, progressJoin);
         if (field == null) return cb.conjunction();
 
-        String period = rule.getValue() != null ? rule.getValue().toString().toLowerCase() : "year";
-        LocalDate now = LocalDate.now();
-        LocalDate start = switch (period) {
-            case "week" -> now.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-            case "month" -> now.withDayOfMonth(1);
-            default -> now.withDayOfYear(1);
-        };
+        Instant startInstant = RuleValues.periodStart(rule);
 
-        Instant startInstant = start.atStartOfDay(ZoneId.systemDefault()).toInstant();
-
-        if (rule.getField() == RuleField.PUBLISHED_DATE) {
+        if (rule.field() == RuleField.PUBLISHED_DATE) {
             LocalDateTime ldt = startInstant.atZone(ZoneId.systemDefault()).toLocalDateTime();
             return cb.greaterThanOrEqualTo(field.as(LocalDateTime.class), ldt);
         }
         return cb.greaterThanOrEqualTo(field.as(Instant.class), startInstant);
     }
 
-    private Instant computeRelativeDateThreshold(Rule rule) {
-        if (rule.getValue() == null) return null;
-        int amount;
-        try {
-            amount = ((Number) rule.getValue()).intValue();
-        } catch (ClassCastException e) {
-            try {
-                amount = Integer.parseInt(rule.getValue().toString());
-            } catch (NumberFormatException ex) {
-                return null;
-            }
-        }
-        String unit = rule.getValueEnd() != null ? rule.getValueEnd().toString().toLowerCase() : "days";
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime threshold = switch (unit) {
-            case "weeks" -> now.minusWeeks(amount);
-            case "months" -> now.minusMonths(amount);
-            case "years" -> now.minusYears(amount);
-            default -> now.minusDays(amount);
-        };
-        return threshold.atZone(ZoneId.systemDefault()).toInstant();
-    }
-
-    private Predicate buildCompositeFieldPredicate(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin, Long userId) {
-        boolean negate = rule.getOperator() == RuleOperator.NOT_EQUALS;
-        String value = rule.getValue() != null ? rule.getValue().toString().toLowerCase() : "";
+    private Predicate buildCompositeFieldPredicate(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin, Long userId) {
+        boolean negate = rule.operator() == RuleOperator.NOT_EQUALS;
+        String value = rule.value() != null ? rule.value().toString().toLowerCase() : "";
         Predicate hasSeries = cb.and(
                 cb.isNotNull(root.get("metadata").get("seriesName")),
                 cb.notEqual(cb.trim(root.get("metadata").get("seriesName").as(String.class)), "")
         );
 
-        Predicate result = switch (rule.getField()) {
+        Predicate result = switch (rule.field()) {
             case SERIES_STATUS -> buildSeriesStatusPredicate(value, query, cb, root, hasSeries, userId);
             case SERIES_GAPS -> buildSeriesGapsPredicate(value, query, cb, root, hasSeries);
             case SERIES_POSITION -> buildSeriesPositionPredicate(value, query, cb, root, progressJoin, hasSeries, userId);
@@ -216,9 +259,9 @@ public class BookRuleEvaluatorService {
         return negate ? cb.not(result) : result;
     }
 
-    private Predicate buildMetadataPresencePredicate(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        boolean hasOperator = rule.getOperator() == RuleOperator.EQUALS;
-        String metadataField = rule.getValue() != null ? rule.getValue().toString() : "";
+    private Predicate buildMetadataPresencePredicate(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        boolean hasOperator = rule.operator() == RuleOperator.EQUALS;
+        String metadataField = rule.value() != null ? rule.value().toString() : "";
         Predicate isPresent = buildFieldPresencePredicate(metadataField, query, cb, root, progressJoin);
         return hasOperator ? isPresent : cb.not(isPresent);
     }
@@ -510,23 +553,23 @@ public class BookRuleEvaluatorService {
         return cb.and(notRead, noLowerUnread, hasPriorRead);
     }
 
-    private Predicate buildEquals(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        List<String> ruleList = toStringList(rule.getValue());
+    private Predicate buildEquals(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        List<String> ruleList = rule.values();
 
-        if (isArrayField(rule.getField())) {
-            return buildArrayFieldPredicate(rule.getField(), ruleList, query, cb, root, false);
+        if (isArrayField(rule.field())) {
+            return buildArrayFieldPredicate(rule.field(), ruleList, query, cb, root, false);
         }
 
-        Expression<?> field = getFieldExpression(rule.getField(), cb, root, progressJoin);
+        Expression<?> field = getFieldExpression(rule.field(), cb, root, progressJoin);
         if (field == null) return cb.conjunction();
 
-        Object value = normalizeValue(rule.getValue(), rule.getField());
+        Object value = RuleValues.normalizeValue(rule.value(), rule.field());
 
         if (value instanceof Boolean) {
             return cb.equal(field, value);
         } else if (value instanceof LocalDateTime) {
             return cb.equal(field, value);
-        } else if (rule.getField() == RuleField.READ_STATUS) {
+        } else if (rule.field() == RuleField.READ_STATUS) {
             if ("UNSET".equals(value.toString())) {
                 return cb.isNull(field);
             }
@@ -537,29 +580,29 @@ public class BookRuleEvaluatorService {
         return cb.equal(cb.lower(field.as(String.class)), value.toString().toLowerCase());
     }
 
-    private Predicate buildNotEquals(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+    private Predicate buildNotEquals(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
         Predicate negated = cb.not(buildEquals(rule, query, cb, root, progressJoin));
-        if (rule.getField() == RuleField.READ_STATUS && !"UNSET".equals(String.valueOf(rule.getValue()))) {
+        if (rule.field() == RuleField.READ_STATUS && !"UNSET".equals(String.valueOf(rule.value()))) {
             return cb.or(cb.isNull(progressJoin.get("readStatus")), negated);
         }
         return negated;
     }
 
-    private Predicate buildContains(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        String ruleVal = rule.getValue().toString().toLowerCase();
-        return buildStringPredicate(rule.getField(), query, root, progressJoin, cb,
+    private Predicate buildContains(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        String ruleVal = rule.value().toString().toLowerCase();
+        return buildStringPredicate(rule.field(), query, root, progressJoin, cb,
                 nameField -> cb.like(cb.lower(nameField), "%" + escapeLike(ruleVal) + "%"));
     }
 
-    private Predicate buildStartsWith(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        String ruleVal = rule.getValue().toString().toLowerCase();
-        return buildStringPredicate(rule.getField(), query, root, progressJoin, cb,
+    private Predicate buildStartsWith(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        String ruleVal = rule.value().toString().toLowerCase();
+        return buildStringPredicate(rule.field(), query, root, progressJoin, cb,
                 nameField -> cb.like(cb.lower(nameField), escapeLike(ruleVal) + "%"));
     }
 
-    private Predicate buildEndsWith(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        String ruleVal = rule.getValue().toString().toLowerCase();
-        return buildStringPredicate(rule.getField(), query, root, progressJoin, cb,
+    private Predicate buildEndsWith(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        String ruleVal = rule.value().toString().toLowerCase();
+        return buildStringPredicate(rule.field(), query, root, progressJoin, cb,
                 nameField -> cb.like(cb.lower(nameField), "%" + escapeLike(ruleVal)));
     }
 
@@ -585,38 +628,38 @@ public class BookRuleEvaluatorService {
         return predicateBuilder.apply(fieldExpr.as(String.class));
     }
 
-    private Predicate buildGreaterThan(Rule rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+    private Predicate buildGreaterThan(CompiledRule.Condition rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
         return buildComparisonPredicate(rule, cb, root, progressJoin,
                 (field, dateValue) -> cb.greaterThan(field.as(LocalDateTime.class), dateValue),
                 (field, numValue) -> cb.gt(toNumericExpression(field), numValue));
     }
 
-    private Predicate buildGreaterThanEqual(Rule rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+    private Predicate buildGreaterThanEqual(CompiledRule.Condition rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
         return buildComparisonPredicate(rule, cb, root, progressJoin,
                 (field, dateValue) -> cb.greaterThanOrEqualTo(field.as(LocalDateTime.class), dateValue),
                 (field, numValue) -> cb.ge(toNumericExpression(field), numValue));
     }
 
-    private Predicate buildLessThan(Rule rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+    private Predicate buildLessThan(CompiledRule.Condition rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
         return buildComparisonPredicate(rule, cb, root, progressJoin,
                 (field, dateValue) -> cb.lessThan(field.as(LocalDateTime.class), dateValue),
                 (field, numValue) -> cb.lt(toNumericExpression(field), numValue));
     }
 
-    private Predicate buildLessThanEqual(Rule rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+    private Predicate buildLessThanEqual(CompiledRule.Condition rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
         return buildComparisonPredicate(rule, cb, root, progressJoin,
                 (field, dateValue) -> cb.lessThanOrEqualTo(field.as(LocalDateTime.class), dateValue),
                 (field, numValue) -> cb.le(toNumericExpression(field), numValue));
     }
 
-    private Predicate buildComparisonPredicate(Rule rule, CriteriaBuilder cb, Root<BookEntity> root,
+    private Predicate buildComparisonPredicate(CompiledRule.Condition rule, CriteriaBuilder cb, Root<BookEntity> root,
                                                Join<BookEntity, UserBookProgressEntity> progressJoin,
                                                BiFunction<Expression<?>, LocalDateTime, Predicate> dateComparator,
                                                BiFunction<Expression<?>, Double, Predicate> numberComparator) {
-        Expression<?> field = getFieldExpression(rule.getField(), cb, root, progressJoin);
+        Expression<?> field = getFieldExpression(rule.field(), cb, root, progressJoin);
         if (field == null) return cb.conjunction();
 
-        Object value = normalizeValue(rule.getValue(), rule.getField());
+        Object value = RuleValues.normalizeValue(rule.value(), rule.field());
 
         if (value instanceof LocalDateTime) {
             return dateComparator.apply(field, (LocalDateTime) value);
@@ -625,12 +668,12 @@ public class BookRuleEvaluatorService {
         return numberComparator.apply(field, ((Number) value).doubleValue());
     }
 
-    private Predicate buildInBetween(Rule rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        Expression<?> field = getFieldExpression(rule.getField(), cb, root, progressJoin);
+    private Predicate buildInBetween(CompiledRule.Condition rule, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        Expression<?> field = getFieldExpression(rule.field(), cb, root, progressJoin);
         if (field == null) return cb.conjunction();
 
-        Object start = normalizeValue(rule.getValueStart(), rule.getField());
-        Object end = normalizeValue(rule.getValueEnd(), rule.getField());
+        Object start = RuleValues.normalizeValue(rule.valueStart(), rule.field());
+        Object end = RuleValues.normalizeValue(rule.valueEnd(), rule.field());
 
         if (start == null || end == null) return cb.conjunction();
 
@@ -647,16 +690,16 @@ public class BookRuleEvaluatorService {
         return cb.between(numField, ((Number) start).doubleValue(), ((Number) end).doubleValue());
     }
 
-    private Predicate buildIsEmpty(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        if (isArrayField(rule.getField())) {
+    private Predicate buildIsEmpty(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        if (isArrayField(rule.field())) {
             Subquery<Long> subquery = query.subquery(Long.class);
             Root<BookEntity> subRoot = subquery.from(BookEntity.class);
 
-            if (rule.getField() == RuleField.SHELF) {
+            if (rule.field() == RuleField.SHELF) {
                 subRoot.join("shelves", JoinType.INNER);
             } else {
                 Join<Object, Object> metadataJoin = subRoot.join("metadata", JoinType.INNER);
-                joinArrayField(rule.getField(), metadataJoin);
+                joinArrayField(rule.field(), metadataJoin);
             }
 
             subquery.select(cb.literal(1L)).where(cb.equal(subRoot.get("id"), root.get("id")));
@@ -664,44 +707,44 @@ public class BookRuleEvaluatorService {
             return cb.not(cb.exists(subquery));
         }
 
-        Expression<?> field = getFieldExpression(rule.getField(), cb, root, progressJoin);
+        Expression<?> field = getFieldExpression(rule.field(), cb, root, progressJoin);
         if (field == null) return cb.conjunction();
 
         return cb.or(cb.isNull(field), cb.equal(cb.trim(field.as(String.class)), ""));
     }
 
-    private Predicate buildIncludesAny(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        List<String> ruleList = toStringList(rule.getValue());
+    private Predicate buildIncludesAny(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        List<String> ruleList = rule.values();
 
-        if (isArrayField(rule.getField())) {
-            return buildArrayFieldPredicate(rule.getField(), ruleList, query, cb, root, false);
+        if (isArrayField(rule.field())) {
+            return buildArrayFieldPredicate(rule.field(), ruleList, query, cb, root, false);
         }
 
-        return buildFieldInPredicate(rule.getField(), field -> field, ruleList, cb, progressJoin);
+        return buildFieldInPredicate(rule.field(), field -> field, ruleList, cb, progressJoin);
     }
 
-    private Predicate buildExcludesAll(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        List<String> ruleList = toStringList(rule.getValue());
+    private Predicate buildExcludesAll(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        List<String> ruleList = rule.values();
 
-        if (isArrayField(rule.getField())) {
-            return cb.not(buildArrayFieldPredicate(rule.getField(), ruleList, query, cb, root, false));
+        if (isArrayField(rule.field())) {
+            return cb.not(buildArrayFieldPredicate(rule.field(), ruleList, query, cb, root, false));
         }
 
-        Predicate negated = cb.not(buildFieldInPredicate(rule.getField(), field -> field, ruleList, cb, progressJoin));
-        if (rule.getField() == RuleField.READ_STATUS && ruleList.stream().noneMatch("UNSET"::equals)) {
+        Predicate negated = cb.not(buildFieldInPredicate(rule.field(), field -> field, ruleList, cb, progressJoin));
+        if (rule.field() == RuleField.READ_STATUS && ruleList.stream().noneMatch("UNSET"::equals)) {
             return cb.or(cb.isNull(progressJoin.get("readStatus")), negated);
         }
         return negated;
     }
 
-    private Predicate buildIncludesAll(Rule rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
-        List<String> ruleList = toStringList(rule.getValue());
+    private Predicate buildIncludesAll(CompiledRule.Condition rule, CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root, Join<BookEntity, UserBookProgressEntity> progressJoin) {
+        List<String> ruleList = rule.values();
 
-        if (isArrayField(rule.getField())) {
-            return buildArrayFieldPredicate(rule.getField(), ruleList, query, cb, root, true);
+        if (isArrayField(rule.field())) {
+            return buildArrayFieldPredicate(rule.field(), ruleList, query, cb, root, true);
         }
 
-        return buildFieldInPredicate(rule.getField(), field -> field, ruleList, cb, progressJoin);
+        return buildFieldInPredicate(rule.field(), field -> field, ruleList, cb, progressJoin);
     }
 
     private Predicate buildFieldInPredicate(RuleField ruleField,
@@ -860,85 +903,6 @@ public class BookRuleEvaluatorService {
         }
     }
 
-    private Object normalizeValue(Object value, RuleField field) {
-        if (value == null) return null;
-
-        if (field == RuleField.PUBLISHED_DATE) {
-            return parseDate(value);
-        }
-
-        if (field == RuleField.DATE_FINISHED || field == RuleField.LAST_READ_TIME || field == RuleField.ADDED_ON) {
-            LocalDateTime parsed = parseDate(value);
-            if (parsed != null) {
-                return parsed.atZone(ZoneId.systemDefault()).toInstant();
-            }
-            return null;
-        }
-
-        if (field == RuleField.READ_STATUS) {
-            return value.toString();
-        }
-
-        if (field == RuleField.ABRIDGED || field == RuleField.IS_PHYSICAL) {
-            return Boolean.valueOf(value.toString());
-        }
-
-        if (value instanceof Number) {
-            return value;
-        }
-
-        if (isNumericField(field)) {
-            try {
-                return Double.parseDouble(value.toString());
-            } catch (NumberFormatException ignored) {
-            }
-        }
-
-        return value.toString().toLowerCase();
-    }
-
-    private LocalDateTime parseDate(Object value) {
-        if (value == null) return null;
-        if (value instanceof LocalDateTime) return (LocalDateTime) value;
-
-        try {
-            return LocalDateTime.parse(value.toString(), DateTimeFormatter.ISO_DATE_TIME);
-        } catch (Exception e) {
-            try {
-                return LocalDate.parse(value.toString()).atStartOfDay();
-            } catch (Exception ex) {
-                return null;
-            }
-        }
-    }
-
-    private List<String> toStringList(Object value) {
-        if (value == null) return Collections.emptyList();
-        if (value instanceof List) {
-            return ((Collection<?>) value).stream()
-                    .map(Object::toString)
-                    .collect(Collectors.toList());
-        }
-
-        return Collections.singletonList(value.toString());
-    }
-
-    private static final Set<RuleField> NUMERIC_FIELDS = Set.of(
-            RuleField.METADATA_SCORE, RuleField.FILE_SIZE, RuleField.PAGE_COUNT,
-            RuleField.SERIES_NUMBER, RuleField.SERIES_TOTAL, RuleField.AGE_RATING,
-            RuleField.PERSONAL_RATING, RuleField.READING_PROGRESS, RuleField.AUDIOBOOK_DURATION,
-            RuleField.AMAZON_RATING, RuleField.AMAZON_REVIEW_COUNT,
-            RuleField.GOODREADS_RATING, RuleField.GOODREADS_REVIEW_COUNT,
-            RuleField.HARDCOVER_RATING, RuleField.HARDCOVER_REVIEW_COUNT,
-            RuleField.LUBIMYCZYTAC_RATING, RuleField.RANOBEDB_RATING,
-            RuleField.AUDIBLE_RATING, RuleField.AUDIBLE_REVIEW_COUNT,
-            RuleField.AUDIOBOOK_CHAPTER_COUNT, RuleField.AUDIOBOOK_BITRATE
-    );
-
-    private static boolean isNumericField(RuleField field) {
-        return field != null && NUMERIC_FIELDS.contains(field);
-    }
-
     @SuppressWarnings("unchecked")
     private static Expression<Number> toNumericExpression(Expression<?> expr) {
         return (Expression<Number>) expr;
@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -11,6 +12,9 @@ import java.io.RandomAccessFile;
 import java.net.SocketTimeoutException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 @Slf4j
 @Service
@@ -24,6 +28,21 @@ public class FileStreamingService {
             HttpServletRequest request,
             HttpServletResponse response
     ) throws IOException {
+        streamWithRangeSupport(filePath, contentType, null, request, response);
+    }
+
+    /**
+     * Streams the file with Range support, validated by {@code etag}. When no entity tag is given one is derived
+     * from the file's size and modification time. Conditional requests are answered with 304 before the file is
+     * opened, and a range whose {@code If-Range} no longer matches is answered with the whole file.
+     */
+    public void streamWithRangeSupport(
+            Path filePath,
+            String contentType,
+            String etag,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
 
         if (!Files.exists(filePath)) {
             response.sendError(HttpServletResponse.SC_NOT_FOUND, "File not found");
@@ -31,10 +50,22 @@ public class FileStreamingService {
         }
 
         long fileSize = Files.size(filePath);
-        String rangeHeader = request.getHeader("Range");
+        long lastModified = Files.getLastModifiedTime(filePath).toMillis();
+        String entityTag = etag != null ? etag : "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(fileSize) + "\"";
 
         response.setHeader("Accept-Ranges", "bytes");
-        response.setHeader("Cache-Control", "no-store");
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.setHeader("ETag", entityTag);
+        response.setDateHeader("Last-Modified", lastModified);
+
+        if (new ServletWebRequest(request, response).checkNotModified(entityTag, lastModified)) {
+            return;
+        }
+
+        String rangeHeader = ifRangeMatches(request.getHeader("If-Range"), entityTag, lastModified)
+                ? request.getHeader("Range")
+                : null;
+
         response.setHeader("Content-Disposition", "inline");
         response.setContentType(contentType);
 
@@ -136,6 +167,28 @@ public class FileStreamingService {
         }
     }
 
+    // ------------------------------------------------------------
+    // IF-RANGE — strong entity tag or exact date, RFC 9110 13.1.5
+    // ------------------------------------------------------------
+    boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        try {
+            long date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return date / 1000 == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
     // ------------------------------------------------------------
     // STREAM BYTES
     // ------------------------------------------------------------
@@ -0,0 +1,261 @@
+package org.booklore.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.booklore.config.AppProperties;
+import org.booklore.model.dto.RuleField;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.MagicShelfEntity;
+import org.booklore.model.entity.MagicShelfMembershipEntity;
+import org.booklore.repository.MagicShelfMembershipRepository;
+import org.booklore.service.book.BookListViewIndex;
+import org.booklore.service.rule.CompiledRule;
+import org.booklore.util.Md5Util;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Materialized magic shelf membership, enabled with {@code app.magic-shelf.materialized-membership}.
+ * <p>
+ * The first read of a shelf for a user after startup runs the shelf's rule query once and stores the matching
+ * book ids. After that, committed changes reported by {@link BookListViewIndex} (books, metadata, shelves, reading
+ * progress) mark the ids dirty for every materialized shelf, and the next read of a shelf re-evaluates only its
+ * dirty ids before reading its rows, so a read never sees a change older than itself and shelves nobody reads
+ * cost nothing. Rules that compare a book with the rest of its series, and changes to shared rows such as
+ * libraries or authors, fall back to recomputing the whole shelf on its next read. Relative date rules ("added in
+ * the last 7 days") also change with the clock, so a shelf using them is recomputed on the first read after the
+ * next moment one of its books crosses a window edge or the period rolls over.
+ * <p>
+ * The pending changes live in memory only, so stored memberships are not trusted across a restart: each shelf is
+ * recomputed on its first read after startup.
+ */
+@Service
+@RequiredArgsConstructor
+public class MagicShelfMembershipService implements BookListViewIndex.ChangeListener {
+
+    private static final int BATCH_SIZE = 1000;
+    // past this many dirty books a shelf is recomputed as a whole on its next read
+    private static final int MAX_DIRTY_BOOKS = 10_000;
+    private static final Set<RuleField> CROSS_BOOK_FIELDS = Set.of(
+            RuleField.SERIES_STATUS, RuleField.SERIES_GAPS, RuleField.SERIES_POSITION
+    );
+
+    private final AppProperties appProperties;
+    private final MagicShelfMembershipRepository membershipRepository;
+    private final BookRuleEvaluatorService ruleEvaluatorService;
+    private final BookListViewIndex bookListViewIndex;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    // shelves materialized since startup, with what changed since; a shelf missing here is recomputed when read
+    private final Map<ShelfKey, Dirty> materialized = new ConcurrentHashMap<>();
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    @PostConstruct
+    void register() {
+        if (isEnabled()) {
+            bookListViewIndex.addChangeListener(this);
+        }
+    }
+
+    public boolean isEnabled() {
+        return appProperties.getMagicShelf().isMaterializedMembership();
+    }
+
+    /**
+     * Book ids matched by the shelf's rules for the user, in id order. Materializes the shelf first if it hasn't
+     * been since startup or its rules changed, and applies the books changed since its last read.
+     */
+    public List<Long> getBookIds(MagicShelfEntity shelf, CompiledRule.Group rule, Long userId) {
+        ShelfKey key = new ShelfKey(shelf.getId(), userId);
+        String filterHash = Md5Util.md5Hex(shelf.getFilterJson());
+        if (!isCurrent(key, filterHash)) {
+            locked(() -> {
+                // another read may have brought it up to date while this one waited
+                if (!isCurrent(key, filterHash)) {
+                    refresh(key, shelf, rule, filterHash);
+                }
+                return null;
+            });
+        }
+        return membershipRepository.findBookIds(shelf.getId(), userId);
+    }
+
+    @Override
+    public void booksChanged(Collection<Long> bookIds) {
+        for (ShelfKey key : materialized.keySet()) {
+            materialized.computeIfPresent(key, (k, dirty) -> dirty.add(bookIds));
+        }
+    }
+
+    @Override
+    public void allBooksChanged() {
+        for (ShelfKey key : materialized.keySet()) {
+            materialized.computeIfPresent(key, (k, dirty) -> dirty.all());
+        }
+    }
+
+    private boolean isCurrent(ShelfKey key, String filterHash) {
+        Dirty dirty = materialized.get(key);
+        return dirty != null && dirty.isClean(filterHash);
+    }
+
+    private void refresh(ShelfKey key, MagicShelfEntity shelf, CompiledRule.Group rule, String filterHash) {
+        // swapped before evaluating, so changes committed meanwhile are applied by the next read; expired until the
+        // new deadline is known
+        Dirty next = new Dirty(filterHash, Instant.EPOCH);
+        Dirty dirty = materialized.put(key, next);
+        try {
+            if (dirty == null || dirty.full || !filterHash.equals(dirty.filterHash) || dirty.isExpired()
+                    || referencesOtherBooks(rule)) {
+                next.validUntil = recompute(shelf, rule, key.userId());
+            } else {
+                next.validUntil = dirty.validUntil;
+                List<Long> changed = new ArrayList<>(dirty.bookIds);
+                for (int start = 0; start < changed.size(); start += BATCH_SIZE) {
+                    apply(shelf.getId(), key.userId(), rule, changed.subList(start, Math.min(start + BATCH_SIZE, changed.size())));
+                }
+            }
+        } catch (RuntimeException e) {
+            materialized.remove(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the shelf's stored membership and returns when it has to be recomputed because of the clock, or null
+     * if never.
+     */
+    private Instant recompute(MagicShelfEntity shelf, CompiledRule.Group rule, Long userId) {
+        return locked(() -> inTransaction(() -> {
+            // taken first, so a book crossing a window edge during the query is caught by the next read
+            Instant validUntil = ruleEvaluatorService.nextRelativeDateChange(rule, userId);
+            List<Long> bookIds = findMatchingIds(ruleEvaluatorService.toSpecification(rule, userId));
+            membershipRepository.deleteAllByShelfAndUser(shelf.getId(), userId);
+            persist(shelf.getId(), userId, bookIds);
+            return validUntil;
+        }));
+    }
+
+    private void apply(Long shelfId, Long userId, CompiledRule.Group rule, List<Long> bookIds) {
+        locked(() -> inTransaction(() -> {
+            Specification<BookEntity> specification = ruleEvaluatorService.toSpecification(rule, userId)
+                    .and((root, query, cb) -> root.get("id").in(bookIds));
+            Set<Long> matched = new HashSet<>(findMatchingIds(specification));
+            Set<Long> current = new HashSet<>(membershipRepository.findBookIdsIn(shelfId, userId, bookIds));
+
+            List<Long> removed = current.stream().filter(id -> !matched.contains(id)).toList();
+            if (!removed.isEmpty()) {
+                membershipRepository.deleteBooks(shelfId, userId, removed);
+            }
+            persist(shelfId, userId, matched.stream().filter(id -> !current.contains(id)).toList());
+            return null;
+        }));
+    }
+
+    private List<Long> findMatchingIds(Specification<BookEntity> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<BookEntity> root = query.from(BookEntity.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        query.select(root.<Long>get("id")).distinct(true).orderBy(cb.asc(root.get("id")));
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private void persist(Long shelfId, Long userId, Collection<Long> bookIds) {
+        int pending = 0;
+        for (Long bookId : bookIds) {
+            entityManager.persist(new MagicShelfMembershipEntity(shelfId, userId, bookId));
+            if (++pending % BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+    }
+
+    private static boolean referencesOtherBooks(CompiledRule rule) {
+        return switch (rule) {
+            case CompiledRule.Group group -> group.rules().stream().anyMatch(MagicShelfMembershipService::referencesOtherBooks);
+            case CompiledRule.Condition condition -> CROSS_BOOK_FIELDS.contains(condition.field());
+        };
+    }
+
+    private <T> T locked(Supplier<T> action) {
+        maintenanceLock.lock();
+        try {
+            return action.get();
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template.execute(status -> action.get());
+    }
+
+    private record ShelfKey(Long shelfId, Long userId) {
+    }
+
+    /**
+     * What changed for a materialized shelf since it was last brought up to date. Only modified inside the
+     * {@code materialized} map's compute functions, so never after it was swapped out, apart from the deadline,
+     * which the refresh that put it in sets once; readers may look at it any time.
+     */
+    private static final class Dirty {
+
+        private final String filterHash;
+        private final Set<Long> bookIds = ConcurrentHashMap.newKeySet();
+        private volatile boolean full;
+        // when relative date rules need the shelf recomputed; null if they never do
+        private volatile Instant validUntil;
+
+        private Dirty(String filterHash, Instant validUntil) {
+            this.filterHash = filterHash;
+            this.validUntil = validUntil;
+        }
+
+        private Dirty add(Collection<Long> changed) {
+            if (!full) {
+                bookIds.addAll(changed);
+                if (bookIds.size() > MAX_DIRTY_BOOKS) {
+                    all();
+                }
+            }
+            return this;
+        }
+
+        private Dirty all() {
+            full = true;
+            bookIds.clear();
+            return this;
+        }
+
+        private boolean isExpired() {
+            Instant deadline = validUntil;
+            return deadline != null && !Instant.now().isBefore(deadline);
+        }
+
+        private boolean isClean(String currentFilterHash) {
+            return !full && bookIds.isEmpty() && filterHash.equals(currentFilterHash) && !isExpired();
+        }
+    }
+}
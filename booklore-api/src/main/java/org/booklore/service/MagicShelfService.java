@@ -7,6 +7,7 @@ import org.booklore.repository.MagicShelfRepository;
 import lombok.AllArgsConstructor;
 import org.booklore.model.enums.AuditAction;
 import org.booklore.service.audit.AuditService;
+import org.booklore.service.rule.MagicShelfRuleCompiler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +21,7 @@ public class MagicShelfService {
     private final MagicShelfRepository magicShelfRepository;
     private final AuthenticationService authenticationService;
     private final AuditService auditService;
+    private final MagicShelfRuleCompiler ruleCompiler;
 
     public List<MagicShelf> getUserShelves() {
         Long userId = authenticationService.getAuthenticatedUser().getId();
@@ -83,6 +85,7 @@ public class MagicShelfService {
         }
         String shelfName = shelf.getName();
         magicShelfRepository.deleteById(id);
+        ruleCompiler.evict(id);
         auditService.log(AuditAction.MAGIC_SHELF_DELETED, "MagicShelf", id, "Deleted magic shelf: " + shelfName);
     }
 
@@ -0,0 +1,158 @@
+package org.booklore.service.audit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.booklore.model.entity.AuditLogEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes audit log entries in the background.
+ * <p>
+ * {@link AuditService} hands entries over through a bounded queue and returns right away. A single thread takes
+ * whatever has queued up, resolves the countries of the client addresses and inserts the entries in JDBC batches,
+ * so neither the GeoIP lookup nor the insert runs on a request thread or inside the caller's transaction. When the
+ * queue is full, new entries are dropped rather than blocking the caller. The queue size and the written, dropped
+ * and failed entries are published to Micrometer as {@code audit.log.*}.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter implements MeterBinder {
+
+    private static final String INSERT_SQL = "INSERT INTO audit_log (user_id, username, action, entity_type, entity_id, description, "
+            + "ip_address, country_code, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final long POLL_SECONDS = 1;
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate txTemplate;
+    private final GeoIpService geoIpService;
+    private final BlockingQueue<AuditLogEntity> queue;
+    private final int batchSize;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean stopped;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, GeoIpService geoIpService,
+                          AppProperties appProperties) {
+        AppProperties.Audit settings = appProperties.getAudit();
+        this.jdbcTemplate = jdbcTemplate;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.geoIpService = geoIpService;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+        this.batchSize = Math.max(1, settings.getBatchSize());
+        this.writer = Thread.ofPlatform().name("audit-log").daemon().start(this::run);
+    }
+
+    /**
+     * Queues the entry for writing, or drops it if the queue is full.
+     */
+    public void enqueue(AuditLogEntity entry) {
+        if (!queue.offer(entry)) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                log.warn("Audit log queue is full, {} entries dropped so far", count);
+            }
+        }
+    }
+
+    private void run() {
+        List<AuditLogEntity> batch = new ArrayList<>(batchSize);
+        while (!stopped) {
+            try {
+                AuditLogEntity first = queue.poll(POLL_SECONDS, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    void write(List<AuditLogEntity> batch) {
+        try {
+            for (AuditLogEntity entry : batch) {
+                entry.setCountryCode(geoIpService.resolveCountryCode(entry.getIpAddress()));
+                if (entry.getCreatedAt() == null) {
+                    entry.setCreatedAt(LocalDateTime.now());
+                }
+            }
+            txTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, entry) -> {
+                statement.setObject(1, entry.getUserId(), Types.BIGINT);
+                statement.setString(2, entry.getUsername());
+                statement.setString(3, entry.getAction().name());
+                statement.setString(4, entry.getEntityType());
+                statement.setObject(5, entry.getEntityId(), Types.BIGINT);
+                statement.setString(6, entry.getDescription());
+                statement.setString(7, entry.getIpAddress());
+                statement.setString(8, entry.getCountryCode());
+                statement.setTimestamp(9, Timestamp.valueOf(entry.getCreatedAt()));
+            }));
+            written.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                // retry one by one, so a single bad entry doesn't take the whole batch with it
+                batch.forEach(entry -> write(List.of(entry)));
+                return;
+            }
+            failed.incrementAndGet();
+            log.warn("Failed to write audit log entry: action={}, description={}", batch.getFirst().getAction(), batch.getFirst().getDescription(), e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("audit.log.queue", queue, BlockingQueue::size)
+                .description("Audit log entries waiting to be written")
+                .register(registry);
+        FunctionCounter.builder("audit.log.written", written, AtomicLong::get)
+                .description("Audit log entries written")
+                .register(registry);
+        FunctionCounter.builder("audit.log.dropped", dropped, AtomicLong::get)
+                .description("Audit log entries dropped because the queue was full")
+                .register(registry);
+        FunctionCounter.builder("audit.log.failed", failed, AtomicLong::get)
+                .description("Audit log entries lost to failed inserts")
+                .register(registry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stopped = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_WAIT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<AuditLogEntity> remaining = new ArrayList<>();
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            write(remaining);
+            remaining.clear();
+        }
+    }
+}
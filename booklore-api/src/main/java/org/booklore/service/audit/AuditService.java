@@ -23,7 +23,7 @@ import java.util.List;
 public class AuditService {
 
     private final AuditLogRepository auditLogRepository;
-    private final GeoIpService geoIpService;
+    private final AuditLogWriter auditLogWriter;
 
     public void log(AuditAction action, String description) {
         log(action, null, null, description);
@@ -49,8 +49,6 @@ public class AuditService {
                 // Non-HTTP context (scheduled tasks, etc.)
             }
 
-            String countryCode = geoIpService.resolveCountryCode(ipAddress);
-
             String safeDescription = description;
             if (safeDescription != null && safeDescription.length() > MAX_DESCRIPTION_LENGTH) {
                 safeDescription = safeDescription.substring(0, MAX_DESCRIPTION_LENGTH - 3) + "...";
@@ -64,10 +62,10 @@ public class AuditService {
                     .entityId(entityId)
                     .description(safeDescription)
                     .ipAddress(ipAddress)
-                    .countryCode(countryCode)
+                    .createdAt(LocalDateTime.now())
                     .build();
 
-            auditLogRepository.save(entity);
+            auditLogWriter.enqueue(entity);
         } catch (Exception e) {
             log.warn("Failed to write audit log: action={}, description={}", action, description, e);
         }
@@ -0,0 +1,15 @@
+package org.booklore.service.audit;
+
+import java.net.InetAddress;
+
+/**
+ * A source of country codes for public IP addresses. {@link GeoIpService} asks the resolvers in their
+ * {@link org.springframework.core.annotation.Order order} and caches the first answer.
+ */
+public interface GeoIpResolver {
+
+    /**
+     * Returns the ISO 3166 country code of the address, or null if this resolver doesn't know it.
+     */
+    String resolve(InetAddress address);
+}
@@ -1,74 +1,67 @@
 package org.booklore.service.audit;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
 import org.springframework.stereotype.Service;
 
 import java.net.InetAddress;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.Locale;
 
+/**
+ * Resolves the country of the client addresses recorded in the audit log. The {@link GeoIpResolver}s are asked in
+ * order, the local database first, and every answer, including "unknown", is kept in a bounded cache.
+ * <p>
+ * A resolver may go to the network, so this is only called from the {@link AuditLogWriter} thread.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class GeoIpService {
 
-    private static final String GEO_API_URL = "http://ip-api.com/json/%s?fields=countryCode";
-    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(2);
+    private final List<GeoIpResolver> resolvers;
+    private final Cache<String, String> cache;
 
-    private final HttpClient httpClient;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Map<String, String> cache = new ConcurrentHashMap<>();
+    public GeoIpService(List<GeoIpResolver> resolvers, AppProperties appProperties) {
+        this.resolvers = resolvers;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, appProperties.getGeoIp().getCacheSize()))
+                .build();
+    }
 
     public String resolveCountryCode(String ip) {
-        if (ip == null || ip.isBlank() || isPrivateOrLocal(ip)) {
+        if (ip == null || ip.isBlank()) {
             return null;
         }
-        String result = cache.get(ip);
-        if (result == null) {
-            result = fetchCountryCode(ip);
-            cache.put(ip, result);
-        }
+        String result = cache.get(ip, this::lookup);
         return result.isEmpty() ? null : result;
     }
 
-    private String fetchCountryCode(String ip) {
+    private String lookup(String ip) {
+        InetAddress address;
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(String.format(GEO_API_URL, ip)))
-                    .timeout(REQUEST_TIMEOUT)
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() == 200) {
-                JsonNode node = objectMapper.readTree(response.body());
-                if (node.has("countryCode") && !node.get("countryCode").asText().isBlank()) {
-                    return node.get("countryCode").asText();
+            address = InetAddress.ofLiteral(ip);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+        if (isPrivateOrLocal(address)) {
+            return "";
+        }
+        for (GeoIpResolver resolver : resolvers) {
+            try {
+                String countryCode = resolver.resolve(address);
+                if (countryCode != null && !countryCode.isBlank()) {
+                    return countryCode.toUpperCase(Locale.ROOT);
                 }
+            } catch (RuntimeException e) {
+                log.debug("{} failed to resolve country code for IP {}: {}", resolver.getClass().getSimpleName(), ip, e.getMessage());
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.debug("Interrupted while resolving country code for IP: {}", ip);
-        } catch (Exception e) {
-            log.debug("Failed to resolve country code for IP: {}", ip);
         }
         return "";
     }
 
-    private boolean isPrivateOrLocal(String ip) {
-        try {
-            InetAddress addr = InetAddress.getByName(ip);
-            return addr.isLoopbackAddress() || addr.isSiteLocalAddress() || addr.isLinkLocalAddress();
-        } catch (Exception e) {
-            return true;
-        }
+    private boolean isPrivateOrLocal(InetAddress addr) {
+        return addr.isLoopbackAddress() || addr.isSiteLocalAddress() || addr.isLinkLocalAddress() || addr.isAnyLocalAddress();
     }
 }
@@ -0,0 +1,66 @@
+package org.booklore.service.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Asks ip-api.com for the country of addresses the local database doesn't cover, unless online lookups are
+ * disabled.
+ */
+@Slf4j
+@Component
+@Order(2)
+public class IpApiGeoIpResolver implements GeoIpResolver {
+
+    private static final String GEO_API_URL = "http://ip-api.com/json/%s?fields=countryCode";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(2);
+
+    private final HttpClient httpClient;
+    private final boolean enabled;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public IpApiGeoIpResolver(HttpClient httpClient, AppProperties appProperties) {
+        this.httpClient = httpClient;
+        this.enabled = appProperties.getGeoIp().isOnlineLookup();
+    }
+
+    @Override
+    public String resolve(InetAddress address) {
+        if (!enabled) {
+            return null;
+        }
+        String ip = address.getHostAddress();
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(String.format(GEO_API_URL, ip)))
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET()
+                    .build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                JsonNode node = objectMapper.readTree(response.body());
+                if (node.has("countryCode") && !node.get("countryCode").asText().isBlank()) {
+                    return node.get("countryCode").asText();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.debug("Interrupted while resolving country code for IP: {}", ip);
+        } catch (Exception e) {
+            log.debug("Failed to resolve country code for IP: {}", ip);
+        }
+        return null;
+    }
+}
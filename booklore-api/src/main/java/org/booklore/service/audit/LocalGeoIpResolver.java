@@ -0,0 +1,217 @@
+package org.booklore.service.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Resolves countries from a local CSV database of IP ranges, so lookups never leave the machine.
+ * <p>
+ * Each line holds the first and last address of a range and its country code, either as address literals
+ * ({@code 1.0.0.0,1.0.0.255,AU}, the DB-IP layout) or as decimal numbers ({@code "16777216","16777471","AU",...},
+ * the IP2Location layout); IPv4 and IPv6 ranges may be mixed. Further columns, blank lines and lines that don't
+ * parse, such as a header, are ignored. The file is optional and is reloaded when its modification time changes.
+ */
+@Slf4j
+@Component
+@Order(1)
+public class LocalGeoIpResolver implements GeoIpResolver {
+
+    private static final long RELOAD_CHECK_MILLIS = 60_000;
+
+    private final Path databaseFile;
+    private Ranges ranges = Ranges.EMPTY;
+    private long loadedModified = -1;
+    private long nextCheck;
+
+    public LocalGeoIpResolver(AppProperties appProperties) {
+        String file = appProperties.getGeoIp().getDatabaseFile();
+        if (file == null || file.isBlank()) {
+            this.databaseFile = null;
+        } else {
+            Path path = Paths.get(file);
+            this.databaseFile = path.isAbsolute() || appProperties.getPathConfig() == null ? path : Paths.get(appProperties.getPathConfig()).resolve(path);
+        }
+    }
+
+    @Override
+    public synchronized String resolve(InetAddress address) {
+        long now = System.currentTimeMillis();
+        if (databaseFile != null && now >= nextCheck) {
+            nextCheck = now + RELOAD_CHECK_MILLIS;
+            reloadIfChanged();
+        }
+        return ranges.lookup(address);
+    }
+
+    private void reloadIfChanged() {
+        try {
+            if (!Files.isRegularFile(databaseFile)) {
+                ranges = Ranges.EMPTY;
+                loadedModified = -1;
+                return;
+            }
+            long modified = Files.getLastModifiedTime(databaseFile).toMillis();
+            if (modified == loadedModified) {
+                return;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(databaseFile, StandardCharsets.UTF_8)) {
+                ranges = Ranges.parse(reader);
+            }
+            loadedModified = modified;
+            log.info("Loaded {} GeoIP ranges from {}", ranges.size(), databaseFile);
+        } catch (IOException e) {
+            log.warn("Failed to load GeoIP database {}: {}", databaseFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Address ranges sorted by their first address. Addresses are stored as 128-bit numbers split into two longs,
+     * with IPv4 addresses mapped into {@code ::ffff:0:0/96}.
+     */
+    static final class Ranges {
+
+        static final Ranges EMPTY = new Ranges(new long[0], new long[0], new long[0], new long[0], new String[0]);
+
+        private static final BigInteger IPV4_LIMIT = BigInteger.ONE.shiftLeft(32);
+        private static final BigInteger IPV4_MAPPED_PREFIX = BigInteger.valueOf(0xffffL).shiftLeft(32);
+        private static final BigInteger LOW_MASK = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+        private final long[] startHigh;
+        private final long[] startLow;
+        private final long[] endHigh;
+        private final long[] endLow;
+        private final String[] countries;
+
+        private Ranges(long[] startHigh, long[] startLow, long[] endHigh, long[] endLow, String[] countries) {
+            this.startHigh = startHigh;
+            this.startLow = startLow;
+            this.endHigh = endHigh;
+            this.endLow = endLow;
+            this.countries = countries;
+        }
+
+        static Ranges parse(BufferedReader reader) throws IOException {
+            List<Range> parsed = new ArrayList<>();
+            Map<String, String> countryCodes = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",", 4);
+                if (fields.length < 3) {
+                    continue;
+                }
+                String country = unquote(fields[2]).toUpperCase(Locale.ROOT);
+                BigInteger start = parseAddress(unquote(fields[0]));
+                BigInteger end = parseAddress(unquote(fields[1]));
+                if (start == null || end == null || country.length() != 2 || !Character.isLetter(country.charAt(0))
+                        || country.equals("ZZ") || start.compareTo(end) > 0) {
+                    continue;
+                }
+                parsed.add(new Range(start, end, countryCodes.computeIfAbsent(country, code -> code)));
+            }
+            parsed.sort(Comparator.comparing(Range::start));
+
+            int size = parsed.size();
+            Ranges ranges = new Ranges(new long[size], new long[size], new long[size], new long[size], new String[size]);
+            for (int i = 0; i < size; i++) {
+                Range range = parsed.get(i);
+                ranges.startHigh[i] = range.start().shiftRight(64).longValue();
+                ranges.startLow[i] = range.start().and(LOW_MASK).longValue();
+                ranges.endHigh[i] = range.end().shiftRight(64).longValue();
+                ranges.endLow[i] = range.end().and(LOW_MASK).longValue();
+                ranges.countries[i] = range.country();
+            }
+            return ranges;
+        }
+
+        int size() {
+            return countries.length;
+        }
+
+        String lookup(InetAddress address) {
+            byte[] bytes = toIpv6(address.getAddress());
+            long high = toLong(bytes, 0);
+            long low = toLong(bytes, 8);
+
+            // last range starting at or before the address
+            int lo = 0;
+            int hi = countries.length - 1;
+            int match = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(startHigh[mid], startLow[mid], high, low) <= 0) {
+                    match = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            if (match < 0 || compare(high, low, endHigh[match], endLow[match]) > 0) {
+                return null;
+            }
+            return countries[match];
+        }
+
+        private static BigInteger parseAddress(String value) {
+            if (value.isEmpty()) {
+                return null;
+            }
+            try {
+                if (value.chars().allMatch(Character::isDigit)) {
+                    BigInteger number = new BigInteger(value);
+                    return number.compareTo(IPV4_LIMIT) < 0 ? number.or(IPV4_MAPPED_PREFIX) : number;
+                }
+                InetAddress address = InetAddress.ofLiteral(value);
+                return new BigInteger(1, toIpv6(address.getAddress()));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private static byte[] toIpv6(byte[] address) {
+            if (address.length == 16) {
+                return address;
+            }
+            byte[] mapped = new byte[16];
+            mapped[10] = (byte) 0xff;
+            mapped[11] = (byte) 0xff;
+            System.arraycopy(address, 0, mapped, 12, 4);
+            return mapped;
+        }
+
+        private static long toLong(byte[] bytes, int offset) {
+            long value = 0;
+            for (int i = offset; i < offset + 8; i++) {
+                value = (value << 8) | (bytes[i] & 0xff);
+            }
+            return value;
+        }
+
+        private static int compare(long aHigh, long aLow, long bHigh, long bLow) {
+            int result = Long.compareUnsigned(aHigh, bHigh);
+            return result != 0 ? result : Long.compareUnsigned(aLow, bLow);
+        }
+
+        private static String unquote(String field) {
+            String value = field.strip();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            }
+            return value;
+        }
+    }
+
+    private record Range(BigInteger start, BigInteger end, String country) {
+    }
+}
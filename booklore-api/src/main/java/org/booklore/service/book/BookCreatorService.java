@@ -68,9 +68,7 @@ public class BookCreatorService {
         if (existingBookOpt.isPresent()) {
             log.warn("Book already exists for file: {}", libraryFile.getFileName());
             long fileSizeKb = calculateFileSize(libraryFile);
-            String newHash = libraryFile.isFolderBased()
-                    ? FileFingerprint.generateFolderHash(libraryFile.getFullPath())
-                    : FileFingerprint.generateHash(libraryFile.getFullPath());
+            String newHash = resolveHash(libraryFile);
             BookEntity existingBook = existingBookOpt.get();
             BookFileEntity primaryFile = existingBook.getPrimaryBookFile();
             primaryFile.setCurrentHash(newHash);
@@ -82,9 +80,7 @@ public class BookCreatorService {
         }
 
         long fileSizeKb = calculateFileSize(libraryFile);
-        String hash = libraryFile.isFolderBased()
-                ? FileFingerprint.generateFolderHash(libraryFile.getFullPath())
-                : FileFingerprint.generateHash(libraryFile.getFullPath());
+        String hash = resolveHash(libraryFile);
 
         BookEntity bookEntity = BookEntity.builder()
                 .library(libraryFile.getLibraryEntity())
@@ -115,6 +111,15 @@ public class BookCreatorService {
         return bookRepository.saveAndFlush(bookEntity);
     }
 
+    private String resolveHash(LibraryFile libraryFile) {
+        if (libraryFile.getHash() != null) {
+            return libraryFile.getHash();
+        }
+        return libraryFile.isFolderBased()
+                ? FileFingerprint.generateFolderHash(libraryFile.getFullPath())
+                : FileFingerprint.generateHash(libraryFile.getFullPath());
+    }
+
     private long calculateFileSize(LibraryFile libraryFile) {
         if (libraryFile.isFolderBased()) {
             Long size = FileUtils.getFolderSizeInKb(libraryFile.getFullPath());
@@ -8,9 +8,9 @@ import org.booklore.model.enums.BookFileType;
 import org.booklore.repository.BookFileRepository;
 import org.booklore.repository.BookRepository;
 import org.booklore.service.appsettings.AppSettingService;
-import org.booklore.service.kobo.KepubConversionService;
-import org.booklore.service.kobo.CbxConversionService;
+import org.booklore.service.kobo.KoboConversionCache;
 import org.booklore.util.FileUtils;
+import org.booklore.util.StreamingZipResource;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,7 +20,6 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.FileSystemUtils;
 
 import java.io.File;
 import java.io.IOException;
@@ -34,8 +33,6 @@ import java.nio.file.Paths;
 import java.util.Comparator;
 import java.util.List;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 @Slf4j
 @AllArgsConstructor
@@ -46,8 +43,7 @@ public class BookDownloadService {
 
     private final BookRepository bookRepository;
     private final BookFileRepository bookFileRepository;
-    private final KepubConversionService kepubConversionService;
-    private final CbxConversionService cbxConversionService;
+    private final KoboConversionCache koboConversionCache;
     private final AppSettingService appSettingService;
 
     public ResponseEntity<Resource> downloadBook(Long bookId) {
@@ -70,24 +66,7 @@ public class BookDownloadService {
                 return downloadFolderAsZip(file, primaryFile.getFileName());
             }
 
-            File bookFile = file.toFile();
-
-            // Use FileSystemResource which properly handles file resources and closing
-            Resource resource = new FileSystemResource(bookFile);
-
-            String encodedFilename = URLEncoder.encode(file.getFileName().toString(), StandardCharsets.UTF_8)
-                    .replace("+", "%20");
-            String fallbackFilename = NON_ASCII_PATTERN.matcher(file.getFileName().toString()).replaceAll("_");
-            String contentDisposition = String.format("attachment; filename=\"%s\"; filename*=UTF-8''%s",
-                    fallbackFilename, encodedFilename);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .contentLength(bookFile.length())
-                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
-                    .header(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate")
-                    .header(HttpHeaders.PRAGMA, "no-cache")
-                    .header(HttpHeaders.EXPIRES, "0")
-                    .body(resource);
+            return fileResponse(file);
         } catch (Exception e) {
             log.error("Failed to download book {}: {}", bookId, e.getMessage(), e);
             throw ApiError.FAILED_TO_DOWNLOAD_FILE.createException(bookId);
@@ -115,29 +94,14 @@ public class BookDownloadService {
                 return downloadFolderAsZip(file, bookFileEntity.getFileName());
             }
 
-            File bookFile = file.toFile();
-            Resource resource = new FileSystemResource(bookFile);
-
-            String encodedFilename = URLEncoder.encode(file.getFileName().toString(), StandardCharsets.UTF_8)
-                    .replace("+", "%20");
-            String fallbackFilename = NON_ASCII_PATTERN.matcher(file.getFileName().toString()).replaceAll("_");
-            String contentDisposition = String.format("attachment; filename=\"%s\"; filename*=UTF-8''%s",
-                    fallbackFilename, encodedFilename);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .contentLength(bookFile.length())
-                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
-                    .header(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate")
-                    .header(HttpHeaders.PRAGMA, "no-cache")
-                    .header(HttpHeaders.EXPIRES, "0")
-                    .body(resource);
+            return fileResponse(file);
         } catch (Exception e) {
             log.error("Failed to download book file {}: {}", fileId, e.getMessage(), e);
             throw ApiError.FAILED_TO_DOWNLOAD_FILE.createException(fileId);
         }
     }
 
-    public void downloadAllBookFiles(Long bookId, HttpServletResponse response) {
+    public ResponseEntity<Resource> downloadAllBookFiles(Long bookId) {
         BookEntity bookEntity = bookRepository.findById(bookId)
                 .orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
 
@@ -157,32 +121,19 @@ public class BookDownloadService {
 
             // For folder-based audiobooks, let it fall through to ZIP creation
             if (!singleFile.isFolderBased() || !Files.isDirectory(filePath)) {
-                File file = filePath.toFile();
-                setResponseHeaders(response, file);
-                streamFileToResponse(file, response);
-                return;
+                return fileResponse(filePath);
             }
         }
 
-        // Sort files by filename for consistent ordering
-        allFiles.sort(Comparator.comparing(BookFileEntity::getFileName));
-
-        // Create ZIP with all files
         String bookTitle = bookEntity.getMetadata() != null && bookEntity.getMetadata().getTitle() != null
                 ? bookEntity.getMetadata().getTitle()
                 : "book-" + bookId;
         String safeTitle = bookTitle.replaceAll("[^a-zA-Z0-9\\-_]", "_");
-        String zipFileName = safeTitle + ".zip";
-
-        response.setContentType("application/zip");
-        String encodedFilename = URLEncoder.encode(zipFileName, StandardCharsets.UTF_8).replace("+", "%20");
-        String fallbackFilename = NON_ASCII_PATTERN.matcher(zipFileName).replaceAll("_");
-        String contentDisposition = String.format("attachment; filename=\"%s\"; filename*=UTF-8''%s",
-                fallbackFilename, encodedFilename);
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
 
-        try (ZipOutputStream zos = new ZipOutputStream(response.getOutputStream())) {
-            for (BookFileEntity bookFile : allFiles) {
+        try {
+            StreamingZipResource zip = new StreamingZipResource(safeTitle + ".zip");
+            // Sort files by filename for consistent ordering
+            for (BookFileEntity bookFile : allFiles.stream().sorted(Comparator.comparing(BookFileEntity::getFileName)).toList()) {
                 Path filePath = bookFile.getFullFilePath();
 
                 if (!Files.exists(filePath)) {
@@ -192,41 +143,14 @@ public class BookDownloadService {
 
                 // Handle folder-based audiobooks - add all files from the folder
                 if (bookFile.isFolderBased() && Files.isDirectory(filePath)) {
-                    String folderPrefix = bookFile.getFileName() + "/";
-                    List<Path> audioFiles = Files.list(filePath)
-                            .filter(Files::isRegularFile)
-                            .sorted(Comparator.comparing(p -> p.getFileName().toString()))
-                            .toList();
-
-                    for (Path audioFile : audioFiles) {
-                        String entryName = folderPrefix + audioFile.getFileName().toString();
-                        ZipEntry zipEntry = new ZipEntry(entryName);
-                        zipEntry.setSize(Files.size(audioFile));
-                        zos.putNextEntry(zipEntry);
-
-                        try (InputStream fis = Files.newInputStream(audioFile)) {
-                            fis.transferTo(zos);
-                        }
-
-                        zos.closeEntry();
-                    }
+                    zip.addFolder(bookFile.getFileName() + "/", filePath);
                 } else {
-                    // Regular file
-                    ZipEntry zipEntry = new ZipEntry(bookFile.getFileName());
-                    zipEntry.setSize(Files.size(filePath));
-                    zos.putNextEntry(zipEntry);
-
-                    try (InputStream fis = Files.newInputStream(filePath)) {
-                        fis.transferTo(zos);
-                    }
-
-                    zos.closeEntry();
+                    zip.addFile(bookFile.getFileName(), filePath);
                 }
             }
-            zos.finish();
-            response.getOutputStream().flush();
 
-            log.info("Successfully created and streamed ZIP for book {} with {} files", bookId, allFiles.size());
+            log.info("Streaming ZIP for book {} with {} files ({} bytes)", bookId, allFiles.size(), zip.contentLength());
+            return zipResponse(zip);
         } catch (IOException e) {
             log.error("Failed to create ZIP for book {}: {}", bookId, e.getMessage(), e);
             throw ApiError.FAILED_TO_DOWNLOAD_FILE.createException(bookId);
@@ -252,28 +176,8 @@ public class BookDownloadService {
             throw ApiError.GENERIC_BAD_REQUEST.createException("Kobo settings not found.");
         }
 
-        boolean convertEpubToKepub = isEpub && koboSettings.isConvertToKepub() && primaryFile.getFileSizeKb() <= (long) koboSettings.getConversionLimitInMb() * 1024;
-        boolean convertCbxToEpub = isCbx && koboSettings.isConvertCbxToEpub() && primaryFile.getFileSizeKb() <= (long) koboSettings.getConversionLimitInMbForCbx() * 1024;
-
-        int compressionPercentage = koboSettings.getConversionImageCompressionPercentage();
-        Path tempDir = null;
-        try {
-            File inputFile = new File(FileUtils.getBookFullPath(bookEntity));
-            File fileToSend = inputFile;
-
-            if (convertCbxToEpub || convertEpubToKepub) {
-                tempDir = Files.createTempDirectory("kobo-conversion");
-            }
-
-            if (convertCbxToEpub) {
-                fileToSend = cbxConversionService.convertCbxToEpub(inputFile, tempDir.toFile(), bookEntity,compressionPercentage);
-            }
-
-            if (convertEpubToKepub) {
-                fileToSend = kepubConversionService.convertEpubToKepub(inputFile, tempDir.toFile(),
-                    koboSettings.isForceEnableHyphenation());
-            }
-
+        try (KoboConversionCache.Delivery delivery = koboConversionCache.prepare(bookEntity, koboSettings)) {
+            File fileToSend = delivery.file();
             setResponseHeaders(response, fileToSend);
             streamFileToResponse(fileToSend, response);
 
@@ -282,19 +186,13 @@ public class BookDownloadService {
         } catch (Exception e) {
             log.error("Failed to download kobo book {}: {}", bookId, e.getMessage(), e);
             throw ApiError.FAILED_TO_DOWNLOAD_FILE.createException(bookId);
-        } finally {
-            cleanupTempDirectory(tempDir);
         }
     }
 
     private void setResponseHeaders(HttpServletResponse response, File file) {
         response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
         response.setContentLengthLong(file.length());
-        String encodedFilename = URLEncoder.encode(file.getName(), StandardCharsets.UTF_8).replace("+", "%20");
-        String fallbackFilename = NON_ASCII_PATTERN.matcher(file.getName()).replaceAll("_");
-        String contentDisposition = String.format("attachment; filename=\"%s\"; filename*=UTF-8''%s",
-                fallbackFilename, encodedFilename);
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(file.getName()));
     }
 
     private void streamFileToResponse(File file, HttpServletResponse response) {
@@ -306,51 +204,45 @@ public class BookDownloadService {
         }
     }
 
-    private void cleanupTempDirectory(Path tempDir) {
-        if (tempDir != null) {
-            try {
-                FileSystemUtils.deleteRecursively(tempDir);
-                log.debug("Deleted temporary directory {}", tempDir);
-            } catch (Exception e) {
-                log.warn("Failed to delete temporary directory {}: {}", tempDir, e.getMessage());
-            }
-        }
-    }
-
     private ResponseEntity<Resource> downloadFolderAsZip(Path folderPath, String folderName) throws IOException {
-        java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-
-        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-            // Get all files in the folder, sorted by name
-            List<Path> files = Files.list(folderPath)
-                    .filter(Files::isRegularFile)
-                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
-                    .toList();
-
-            for (Path audioFile : files) {
-                ZipEntry entry = new ZipEntry(audioFile.getFileName().toString());
-                zos.putNextEntry(entry);
-                Files.copy(audioFile, zos);
-                zos.closeEntry();
-            }
-        }
+        return zipResponse(new StreamingZipResource(folderName + ".zip").addFolder("", folderPath));
+    }
 
-        byte[] zipBytes = baos.toByteArray();
-        Resource resource = new org.springframework.core.io.ByteArrayResource(zipBytes);
+    private ResponseEntity<Resource> fileResponse(Path file) {
+        File bookFile = file.toFile();
 
-        String zipFileName = folderName + ".zip";
-        String encodedFilename = URLEncoder.encode(zipFileName, StandardCharsets.UTF_8).replace("+", "%20");
-        String fallbackFilename = NON_ASCII_PATTERN.matcher(zipFileName).replaceAll("_");
-        String contentDisposition = String.format("attachment; filename=\"%s\"; filename*=UTF-8''%s",
-                fallbackFilename, encodedFilename);
+        // Use FileSystemResource which properly handles file resources and closing
+        Resource resource = new FileSystemResource(bookFile);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(bookFile.length())
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(file.getFileName().toString()))
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate")
+                .header(HttpHeaders.PRAGMA, "no-cache")
+                .header(HttpHeaders.EXPIRES, "0")
+                .body(resource);
+    }
 
+    /**
+     * The archive is written to the client as it is read from disk. Its length and entity tag are known up front, so
+     * Spring answers range requests from it and an interrupted download can be resumed.
+     */
+    private ResponseEntity<Resource> zipResponse(StreamingZipResource zip) {
         return ResponseEntity.ok()
                 .contentType(MediaType.valueOf("application/zip"))
-                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
-                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(zipBytes.length))
+                .contentLength(zip.contentLength())
+                .eTag(zip.getETag())
+                .lastModified(zip.lastModified())
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(zip.getFilename()))
                 .header(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate")
                 .header(HttpHeaders.PRAGMA, "no-cache")
                 .header(HttpHeaders.EXPIRES, "0")
-                .body(resource);
+                .body(zip);
+    }
+
+    private static String contentDisposition(String filename) {
+        String encodedFilename = URLEncoder.encode(filename, StandardCharsets.UTF_8).replace("+", "%20");
+        String fallbackFilename = NON_ASCII_PATTERN.matcher(filename).replaceAll("_");
+        return String.format("attachment; filename=\"%s\"; filename*=UTF-8''%s", fallbackFilename, encodedFilename);
     }
 }
@@ -0,0 +1,249 @@
+package org.booklore.service.book;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.security.service.AuthenticationService;
+import org.booklore.exception.ApiError;
+import org.booklore.model.dto.Book;
+import org.booklore.model.dto.BookLoreUser;
+import org.booklore.model.dto.ContentRestriction;
+import org.booklore.model.dto.Library;
+import org.booklore.service.restriction.ContentRestrictionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Pages through the book list index and streams each page straight to the response.
+ * <p>
+ * Every response carries a {@code version} token made of the latest index version that changed something this
+ * user can see, or could see before, and a fingerprint of what the user may see (libraries, content restrictions).
+ * Changes elsewhere in the library and other users' reading progress leave it alone. The strong ETag is that token
+ * plus the cursor, page size and {@code since} of the request, so a client revalidating an unchanged page gets a
+ * 304. Passing the token back as {@code since} returns only rows changed after it plus the ids of books the user
+ * could see at that version and no longer can; if the token is too old or the user's visibility changed, a full
+ * list is sent and {@code delta} is false. When paging with {@code cursor}, keep the token from the first page.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookListStreamService {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    public static final int MAX_PAGE_SIZE = 5000;
+    private static final int WRITE_BATCH_SIZE = 100;
+
+    private final BookListViewIndex bookListViewIndex;
+    private final BookService bookService;
+    private final AuthenticationService authenticationService;
+    private final ContentRestrictionService contentRestrictionService;
+    private final ObjectMapper objectMapper;
+
+    public void streamBooks(Long cursor, Integer limit, String since, String ifNoneMatch, HttpServletResponse response) {
+        BookLoreUser user = authenticationService.getAuthenticatedUser();
+        boolean isAdmin = user.getPermissions().isAdmin();
+        Set<Long> libraryIds = isAdmin ? null : user.getAssignedLibraries().stream()
+                .map(Library::getId)
+                .collect(Collectors.toSet());
+        List<ContentRestriction> restrictions = isAdmin ? List.of() : contentRestrictionService.getUserRestrictions(user.getId());
+
+        Predicate<Book> permitted = isAdmin || restrictions.isEmpty()
+                ? book -> true
+                : contentRestrictionService.bookRestrictionFilter(user.getId());
+        Predicate<Book> visible = book -> book != null
+                && (libraryIds == null || book.getLibraryId() != null && libraryIds.contains(book.getLibraryId()))
+                && permitted.test(book);
+
+        BookListViewIndex.Snapshot snapshot = bookListViewIndex.snapshot();
+        Map<Long, Long> touches = snapshot.touchesOf(user.getId());
+        String scope = scopeOf(user.getId(), libraryIds, restrictions);
+        String version = lastVisibleChange(snapshot, visible, touches) + "-" + scope;
+        Long sinceVersion = resolveSince(since, scope, snapshot);
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        String etag = "\"" + version + "/" + (cursor == null ? "" : cursor) + "/" + pageSize
+                + "/" + (sinceVersion == null ? "" : sinceVersion) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (matchesEtag(ifNoneMatch, etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeName("version");
+            generator.writeString(version);
+            generator.writeName("delta");
+            generator.writeBoolean(sinceVersion != null);
+
+            // Rows are enriched with the user's reading state and written a batch at a time, so a page never
+            // sits in memory whole
+            List<Long> removed = new ArrayList<>();
+            List<Book> batch = new ArrayList<>(Math.min(WRITE_BATCH_SIZE, pageSize));
+            int written = 0;
+            generator.writeName("books");
+            generator.writeStartArray();
+            int index = cursor == null ? 0 : snapshot.indexAfter(cursor);
+            for (; index < snapshot.size() && written < pageSize; index++) {
+                if (sinceVersion != null && snapshot.versions()[index] <= sinceVersion
+                        && touches.getOrDefault(snapshot.ids()[index], Long.MIN_VALUE) <= sinceVersion) {
+                    continue;
+                }
+                if (visible.test(snapshot.rows()[index])) {
+                    batch.add(snapshot.copy(index));
+                    written++;
+                    if (batch.size() == WRITE_BATCH_SIZE) {
+                        writeBatch(generator, batch, user);
+                    }
+                } else if (sinceVersion != null && visible.test(snapshot.rowAt(index, sinceVersion))) {
+                    removed.add(snapshot.ids()[index]);
+                }
+            }
+            writeBatch(generator, batch, user);
+            generator.writeEndArray();
+
+            if (index < snapshot.size()) {
+                generator.writeName("nextCursor");
+                generator.writeNumber(snapshot.ids()[index - 1]);
+            }
+            if (sinceVersion != null) {
+                if (cursor == null) {
+                    snapshot.tombstones().forEach((bookId, last) -> {
+                        if (last.until() > sinceVersion && visible.test(BookListViewIndex.Revision.rowAt(last, sinceVersion))) {
+                            removed.add(bookId);
+                        }
+                    });
+                }
+                generator.writeName("removed");
+                generator.writeStartArray();
+                for (Long bookId : removed) {
+                    generator.writeNumber(bookId);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        } catch (IOException | JacksonException e) {
+            log.debug("Book list stream aborted: {}", e.getMessage());
+        }
+    }
+
+    private void writeBatch(JsonGenerator generator, List<Book> batch, BookLoreUser user) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        bookService.enrichWithUserState(batch, user, false);
+        for (Book book : batch) {
+            generator.writePOJO(book);
+        }
+        generator.flush();
+        batch.clear();
+    }
+
+    /**
+     * The latest version at which a row this user can see changed, a book they could see stopped being visible or
+     * went away, or their own state on a visible book changed. Never older than the baseline, so a rebuild still
+     * moves it.
+     */
+    private static long lastVisibleChange(BookListViewIndex.Snapshot snapshot, Predicate<Book> visible, Map<Long, Long> touches) {
+        long latest = snapshot.baselineVersion();
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.versions()[i] <= latest) {
+                continue;
+            }
+            if (visible.test(snapshot.rows()[i])) {
+                latest = snapshot.versions()[i];
+            } else {
+                latest = Math.max(latest, lastSeenAt(snapshot.history().get(snapshot.ids()[i]), visible));
+            }
+        }
+        for (Map.Entry<Long, Long> touch : touches.entrySet()) {
+            int index = snapshot.indexOf(touch.getKey());
+            if (touch.getValue() > latest && index >= 0 && visible.test(snapshot.rows()[index])) {
+                latest = touch.getValue();
+            }
+        }
+        for (BookListViewIndex.Revision last : snapshot.tombstones().values()) {
+            if (last.until() > latest) {
+                latest = Math.max(latest, lastSeenAt(last, visible));
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * The version at which the most recent visible revision along the chain ended, or 0 if none was visible.
+     */
+    private static long lastSeenAt(BookListViewIndex.Revision revision, Predicate<Book> visible) {
+        for (BookListViewIndex.Revision r = revision; r != null; r = r.previous()) {
+            if (visible.test(r.row())) {
+                return r.until();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the version to diff against, or null when the client needs a full list.
+     */
+    private Long resolveSince(String since, String scope, BookListViewIndex.Snapshot snapshot) {
+        if (since == null || since.isBlank()) {
+            return null;
+        }
+        int separator = since.indexOf('-');
+        long sinceVersion;
+        try {
+            sinceVersion = Long.parseLong(separator < 0 ? since : since.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw ApiError.GENERIC_BAD_REQUEST.createException("Invalid since token: " + since);
+        }
+        boolean sameScope = separator >= 0 && since.substring(separator + 1).equals(scope);
+        if (!sameScope || sinceVersion < snapshot.baselineVersion() || sinceVersion > snapshot.version()) {
+            return null;
+        }
+        return sinceVersion;
+    }
+
+    private static String scopeOf(Long userId, Set<Long> libraryIds, List<ContentRestriction> restrictions) {
+        List<Long> sortedLibraries = libraryIds == null ? null : libraryIds.stream().sorted().toList();
+        List<String> sortedRestrictions = restrictions.stream()
+                .map(r -> r.getRestrictionType() + ":" + r.getMode() + ":" + r.getValue())
+                .sorted()
+                .toList();
+        return userId + "." + Integer.toHexString(Objects.hash(sortedLibraries, sortedRestrictions));
+    }
+
+    /**
+     * If-None-Match as RFC 9110 defines it: {@code *} on its own matches any current representation, which the
+     * list always has, and otherwise the tags are compared weakly.
+     */
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,537 @@
+package org.booklore.service.book;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.mapper.v2.BookMapperV2;
+import org.booklore.model.dto.Book;
+import org.booklore.model.dto.BookMetadata;
+import org.booklore.model.dto.Shelf;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.repository.BookRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Process-wide list-view snapshot of every active book, so the library grid is served without reloading
+ * and re-mapping the full entity graph on each request.
+ * <p>
+ * Rows are kept column-wise and sorted by book id: ids and library ids in primitive arrays, the stripped
+ * list-view DTO in a parallel array. Authors, series, publishers and other names shared by many books are
+ * interned so a large library holds one instance per distinct value; titles are left alone since nearly every
+ * one is distinct. Writers never touch the index directly; committed changes
+ * mark book ids dirty (see {@link BookListViewIndexListener}) and the next read reloads only those rows.
+ * <p>
+ * Every applied change bumps a process-wide version, and each row remembers the version it last changed at,
+ * so clients can ask for what changed since a version they already hold. Changed and removed rows keep their
+ * earlier states back to the baseline, so a delta can tell whether a reader could see a book at the version they
+ * hold. Per-user state changes ({@link #touch}) are versioned per user and leave the rows alone. Versions start at
+ * the wall clock so they keep increasing across restarts; a client holding a version older than the baseline
+ * (the last full rebuild, or the oldest change still remembered) gets a full list instead of a delta.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookListViewIndex {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    // Earlier row states, tombstones and touches kept for deltas, counted together
+    private static final int MAX_HISTORY = 20_000;
+    // Names left behind by edits stay interned until a rebuild; past this many the table starts over
+    private static final int MAX_INTERNED = 50_000;
+
+    private final BookRepository bookRepository;
+    private final BookMapperV2 bookMapperV2;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Set<Long> dirtyIds = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Long>> touchedIds = new ConcurrentHashMap<>();
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Map<String, String> internedStrings = new ConcurrentHashMap<>();
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot = Snapshot.empty(System.currentTimeMillis());
+
+    /**
+     * Returns list-view copies of all active books, or only those in the given libraries when {@code libraryIds}
+     * is not null. Each call gets fresh top-level {@link Book} objects that callers may enrich with per-user
+     * state; nested metadata is shared between calls and must be treated as read-only.
+     */
+    public List<Book> getBooks(Set<Long> libraryIds) {
+        Snapshot current = snapshot();
+        List<Book> books = new ArrayList<>(current.size());
+        for (int i = 0; i < current.size(); i++) {
+            if (current.inLibraries(i, libraryIds)) {
+                books.add(current.copy(i));
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Returns the current snapshot, applying any pending changes first. Snapshots are immutable; callers
+     * paging through one see a consistent view even while the index moves on.
+     */
+    public Snapshot snapshot() {
+        refreshIfNeeded();
+        return snapshot;
+    }
+
+    public void invalidate(Long bookId) {
+        if (bookId != null) {
+            dirtyIds.add(bookId);
+            notifyBooksChanged(List.of(bookId));
+        }
+    }
+
+    public void invalidate(Collection<Long> bookIds) {
+        List<Long> ids = bookIds.stream().filter(Objects::nonNull).toList();
+        if (!ids.isEmpty()) {
+            dirtyIds.addAll(ids);
+            notifyBooksChanged(ids);
+        }
+    }
+
+    /**
+     * Records that the given user's state on these books changed (reading progress, ratings) without reloading the
+     * rows; only that user's deltas pick them up. Inside a transaction this happens on commit.
+     */
+    public void touch(Long userId, Collection<Long> bookIds) {
+        List<Long> ids = bookIds.stream().filter(Objects::nonNull).toList();
+        if (userId == null || ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addTouched(userId, ids);
+            notifyBooksTouched(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addTouched(userId, ids);
+                notifyBooksTouched(ids);
+            }
+        });
+    }
+
+    private void addTouched(Long userId, Collection<Long> bookIds) {
+        // merge() and the remove() in drainTouched() are atomic per user, so no touch lands in a drained set
+        touchedIds.merge(userId, Set.copyOf(bookIds), (pending, added) -> {
+            Set<Long> merged = new HashSet<>(pending);
+            merged.addAll(added);
+            return merged;
+        });
+    }
+
+    /**
+     * Drops the whole snapshot. Used for changes that can touch many rows at once, such as renaming a
+     * library, shelf or author.
+     */
+    public void invalidateAll() {
+        stale.set(true);
+        changeListeners.forEach(ChangeListener::allBooksChanged);
+    }
+
+    /**
+     * Registers a callback for every committed change the index learns about, including per-user state
+     * changes passed to {@link #touch}. Callbacks run on the committing thread and should only queue work.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    private void notifyBooksChanged(Collection<Long> bookIds) {
+        if (!bookIds.isEmpty()) {
+            changeListeners.forEach(listener -> listener.booksChanged(bookIds));
+        }
+    }
+
+    private void notifyBooksTouched(Collection<Long> bookIds) {
+        if (!bookIds.isEmpty()) {
+            changeListeners.forEach(listener -> listener.booksTouched(bookIds));
+        }
+    }
+
+    private void refreshIfNeeded() {
+        if (!stale.get() && dirtyIds.isEmpty() && touchedIds.isEmpty()) {
+            return;
+        }
+        refreshLock.lock();
+        try {
+            if (stale.getAndSet(false)) {
+                dirtyIds.clear();
+                touchedIds.clear();
+                try {
+                    snapshot = rebuild(snapshot.version() + 1);
+                } catch (RuntimeException e) {
+                    stale.set(true);
+                    throw e;
+                }
+            } else if (!dirtyIds.isEmpty() || !touchedIds.isEmpty()) {
+                Set<Long> ids = drain(dirtyIds);
+                Map<Long, Set<Long>> touched = drainTouched();
+                try {
+                    snapshot = applyChanges(snapshot, ids, touched);
+                } catch (RuntimeException e) {
+                    dirtyIds.addAll(ids);
+                    touched.forEach(this::addTouched);
+                    throw e;
+                }
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private Snapshot rebuild(long version) {
+        long start = System.currentTimeMillis();
+        internedStrings.clear();
+        List<Long> ids = inReadOnlyTransaction(bookRepository::findAllActiveBookIds);
+        Map<Long, Book> rows = load(ids);
+        log.info("Built book list index with {} books in {} ms", rows.size(), System.currentTimeMillis() - start);
+        Map<Long, Long> versions = new HashMap<>();
+        rows.keySet().forEach(id -> versions.put(id, version));
+        return Snapshot.of(rows.values(), versions, version, version, Map.of(), Map.of(), Map.of());
+    }
+
+    private Snapshot applyChanges(Snapshot current, Set<Long> ids, Map<Long, Set<Long>> touched) {
+        long version = current.version() + 1;
+        Map<Long, Book> fresh = load(ids);
+
+        // Every book on a shelf reports that shelf's size, so a membership change also refreshes the other members
+        Set<Long> changedShelves = new HashSet<>();
+        for (Long id : ids) {
+            int index = current.indexOf(id);
+            Set<Long> before = index >= 0 ? shelfIds(current.rows()[index]) : Set.of();
+            Set<Long> after = fresh.containsKey(id) ? shelfIds(fresh.get(id)) : Set.of();
+            if (!before.equals(after)) {
+                before.stream().filter(shelfId -> !after.contains(shelfId)).forEach(changedShelves::add);
+                after.stream().filter(shelfId -> !before.contains(shelfId)).forEach(changedShelves::add);
+            }
+        }
+        Set<Long> reloaded = new HashSet<>(ids);
+        if (!changedShelves.isEmpty()) {
+            Set<Long> shelfMembers = new HashSet<>();
+            for (int i = 0; i < current.size(); i++) {
+                long id = current.ids()[i];
+                if (!reloaded.contains(id) && shelfIds(current.rows()[i]).stream().anyMatch(changedShelves::contains)) {
+                    shelfMembers.add(id);
+                }
+            }
+            fresh.putAll(load(shelfMembers));
+            reloaded.addAll(shelfMembers);
+        }
+
+        List<Book> rows = new ArrayList<>(current.size() + fresh.size());
+        Map<Long, Long> versions = new HashMap<>();
+        Map<Long, Revision> history = new HashMap<>(current.history());
+        Map<Long, Revision> tombstones = new HashMap<>(current.tombstones());
+        for (int i = 0; i < current.size(); i++) {
+            long id = current.ids()[i];
+            if (!reloaded.contains(id)) {
+                rows.add(current.rows()[i]);
+                versions.put(id, current.versions()[i]);
+                continue;
+            }
+            Revision before = new Revision(current.versions()[i], version, current.rows()[i], history.remove(id));
+            if (fresh.containsKey(id)) {
+                history.put(id, before);
+            } else {
+                tombstones.put(id, before);
+            }
+        }
+        fresh.forEach((id, row) -> {
+            rows.add(row);
+            versions.put(id, version);
+            Revision removed = tombstones.remove(id);
+            if (removed != null) {
+                history.put(id, removed);
+            }
+        });
+
+        Map<Long, Map<Long, Long>> touches = new HashMap<>(current.touches());
+        touched.forEach((userId, bookIds) -> {
+            Map<Long, Long> userTouches = new HashMap<>(touches.getOrDefault(userId, Map.of()));
+            bookIds.forEach(bookId -> userTouches.put(bookId, version));
+            touches.put(userId, userTouches);
+        });
+
+        long baselineVersion = current.baselineVersion();
+        int retained = touches.values().stream().mapToInt(Map::size).sum()
+                + history.values().stream().mapToInt(Revision::depth).sum()
+                + tombstones.values().stream().mapToInt(Revision::depth).sum();
+        if (retained > MAX_HISTORY) {
+            // Forget the oldest changes, down to three quarters of the limit so this doesn't run on every refresh;
+            // clients older than what we still remember get a full list
+            List<Long> expiries = new ArrayList<>(retained);
+            touches.values().forEach(userTouches -> expiries.addAll(userTouches.values()));
+            history.values().forEach(revision -> revision.addExpiries(expiries));
+            tombstones.values().forEach(revision -> revision.addExpiries(expiries));
+            expiries.sort(null);
+            baselineVersion = Math.max(baselineVersion, expiries.get(retained - MAX_HISTORY * 3 / 4 - 1));
+            forgetUpTo(baselineVersion, history, tombstones, touches);
+        }
+
+        log.debug("Refreshed {} rows and {} users' touches of the book list index at version {}",
+                reloaded.size(), touched.size(), version);
+        return Snapshot.of(rows, versions, version, baselineVersion, history, tombstones, touches);
+    }
+
+    private static void forgetUpTo(long baselineVersion, Map<Long, Revision> history, Map<Long, Revision> tombstones,
+                                   Map<Long, Map<Long, Long>> touches) {
+        history.replaceAll((id, revision) -> revision.after(baselineVersion));
+        history.values().removeIf(Objects::isNull);
+        tombstones.replaceAll((id, revision) -> revision.after(baselineVersion));
+        tombstones.values().removeIf(Objects::isNull);
+        touches.replaceAll((userId, userTouches) -> {
+            Map<Long, Long> kept = new HashMap<>(userTouches);
+            kept.values().removeIf(touchedAt -> touchedAt <= baselineVersion);
+            return kept;
+        });
+        touches.values().removeIf(Map::isEmpty);
+    }
+
+    private static Set<Long> drain(Set<Long> source) {
+        Set<Long> drained = new HashSet<>(source);
+        source.removeAll(drained);
+        return drained;
+    }
+
+    private Map<Long, Set<Long>> drainTouched() {
+        Map<Long, Set<Long>> drained = new HashMap<>();
+        for (Long userId : List.copyOf(touchedIds.keySet())) {
+            Set<Long> bookIds = touchedIds.remove(userId);
+            if (bookIds != null) {
+                drained.put(userId, bookIds);
+            }
+        }
+        return drained;
+    }
+
+    private Map<Long, Book> load(Collection<Long> ids) {
+        Map<Long, Book> rows = new HashMap<>();
+        List<Long> idList = new ArrayList<>(ids);
+        for (int from = 0; from < idList.size(); from += LOAD_BATCH_SIZE) {
+            Set<Long> batch = new HashSet<>(idList.subList(from, Math.min(from + LOAD_BATCH_SIZE, idList.size())));
+            // One short transaction per batch keeps the persistence context from holding the whole library
+            inReadOnlyTransaction(() -> {
+                for (BookEntity entity : bookRepository.findAllWithMetadataByIds(batch)) {
+                    rows.put(entity.getId(), toRow(entity));
+                }
+                return null;
+            });
+        }
+        return rows;
+    }
+
+    private <T> T inReadOnlyTransaction(Supplier<T> action) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        return template.execute(status -> action.get());
+    }
+
+    private Book toRow(BookEntity entity) {
+        Book book = bookMapperV2.toDTO(entity);
+        if (book.getMetadata() != null) {
+            book.getMetadata().setDescription(null);
+        }
+        BookQueryService.stripFieldsForListView(book);
+
+        book.setLibraryName(intern(book.getLibraryName()));
+        BookMetadata metadata = book.getMetadata();
+        if (metadata != null) {
+            metadata.setSeriesName(intern(metadata.getSeriesName()));
+            metadata.setPublisher(intern(metadata.getPublisher()));
+            metadata.setLanguage(intern(metadata.getLanguage()));
+            metadata.setContentRating(intern(metadata.getContentRating()));
+            metadata.setAuthors(intern(metadata.getAuthors()));
+            metadata.setCategories(intern(metadata.getCategories()));
+            metadata.setMoods(intern(metadata.getMoods()));
+            metadata.setTags(intern(metadata.getTags()));
+        }
+        return book;
+    }
+
+    private String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (internedStrings.size() >= MAX_INTERNED) {
+            internedStrings.clear();
+        }
+        return internedStrings.computeIfAbsent(value, v -> v);
+    }
+
+    private Set<String> intern(Set<String> values) {
+        if (values == null) {
+            return null;
+        }
+        Set<String> interned = new LinkedHashSet<>(values.size());
+        values.forEach(value -> interned.add(intern(value)));
+        return interned;
+    }
+
+    private static Set<Long> shelfIds(Book book) {
+        if (book.getShelves() == null) {
+            return Set.of();
+        }
+        return book.getShelves().stream().map(Shelf::getId).collect(Collectors.toSet());
+    }
+
+    public interface ChangeListener {
+
+        void booksChanged(Collection<Long> bookIds);
+
+        /**
+         * Books whose per-user state changed (see {@link #touch}) while their rows stayed the same. Listeners that
+         * only care about book data can ignore these.
+         */
+        default void booksTouched(Collection<Long> bookIds) {
+            booksChanged(bookIds);
+        }
+
+        void allBooksChanged();
+    }
+
+    /**
+     * Immutable view of the index at one version. Rows are sorted by id; {@code versions[i]} is the version at
+     * which row {@code i} last changed. {@code history} holds the earlier states of rows that changed after the
+     * baseline, {@code tombstones} the last states of removed books (their {@link Revision#until()} is the version
+     * they went away), and {@code touches} maps user ids to the books whose per-user state changed and when.
+     * Arrays and maps are shared and must not be modified.
+     */
+    public record Snapshot(long version, long baselineVersion, long[] ids, long[] libraryIds, long[] versions,
+                           Book[] rows, Map<Long, Revision> history, Map<Long, Revision> tombstones,
+                           Map<Long, Map<Long, Long>> touches) {
+
+        static Snapshot empty(long version) {
+            return new Snapshot(version, version, new long[0], new long[0], new long[0], new Book[0], Map.of(), Map.of(), Map.of());
+        }
+
+        static Snapshot of(Collection<Book> books, Map<Long, Long> rowVersions, long version, long baselineVersion,
+                           Map<Long, Revision> history, Map<Long, Revision> tombstones, Map<Long, Map<Long, Long>> touches) {
+            Book[] rows = books.toArray(Book[]::new);
+            Arrays.sort(rows, Comparator.comparing(Book::getId));
+            long[] ids = new long[rows.length];
+            long[] libraryIds = new long[rows.length];
+            long[] versions = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                ids[i] = rows[i].getId();
+                libraryIds[i] = rows[i].getLibraryId() == null ? -1L : rows[i].getLibraryId();
+                versions[i] = rowVersions.getOrDefault(ids[i], version);
+            }
+            return new Snapshot(version, baselineVersion, ids, libraryIds, versions, rows, Map.copyOf(history),
+                    Map.copyOf(tombstones), Map.copyOf(touches));
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        public int indexOf(long id) {
+            return Arrays.binarySearch(ids, id);
+        }
+
+        /**
+         * Position of the first row with an id greater than {@code id}.
+         */
+        public int indexAfter(long id) {
+            int index = indexOf(id);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        public boolean inLibraries(int index, Set<Long> libraryIds) {
+            return libraryIds == null || libraryIds.contains(this.libraryIds[index]);
+        }
+
+        /**
+         * Row {@code index} as it stood at {@code version}, or null when the book did not exist then. Only
+         * meaningful for versions at or after the baseline.
+         */
+        public Book rowAt(int index, long version) {
+            return versions[index] <= version ? rows[index] : Revision.rowAt(history.get(ids[index]), version);
+        }
+
+        /**
+         * The books whose per-user state changed for this user, with the version each last changed at.
+         */
+        public Map<Long, Long> touchesOf(Long userId) {
+            return touches.getOrDefault(userId, Map.of());
+        }
+
+        /**
+         * A fresh top-level copy of row {@code index} that callers may enrich with per-user state; nested
+         * metadata is shared and must be treated as read-only.
+         */
+        public Book copy(int index) {
+            return rows[index].toBuilder().build();
+        }
+    }
+
+    /**
+     * One earlier state of a row, valid from version {@code from} until (not including) {@code until}, linked to
+     * the state before it. A book that was removed and added back leaves a gap between two revisions.
+     */
+    public record Revision(long from, long until, Book row, Revision previous) {
+
+        /**
+         * The row as it stood at {@code version} along this chain, or null if the book did not exist then.
+         */
+        public static Book rowAt(Revision revision, long version) {
+            for (Revision r = revision; r != null; r = r.previous()) {
+                if (version >= r.until()) {
+                    return null;
+                }
+                if (version >= r.from()) {
+                    return r.row();
+                }
+            }
+            return null;
+        }
+
+        int depth() {
+            int depth = 0;
+            for (Revision r = this; r != null; r = r.previous()) {
+                depth++;
+            }
+            return depth;
+        }
+
+        void addExpiries(List<Long> expiries) {
+            for (Revision r = this; r != null; r = r.previous()) {
+                expiries.add(r.until());
+            }
+        }
+
+        /**
+         * This chain without the revisions that ended at or before {@code version}, or null if none are left.
+         */
+        Revision after(long version) {
+            List<Revision> kept = new ArrayList<>();
+            for (Revision r = this; r != null && r.until() > version; r = r.previous()) {
+                kept.add(r);
+            }
+            if (kept.isEmpty() || kept.getLast().previous() == null) {
+                return kept.isEmpty() ? null : this;
+            }
+            Revision trimmed = null;
+            for (Revision r : kept.reversed()) {
+                trimmed = new Revision(r.from(), r.until(), r.row(), trimmed);
+            }
+            return trimmed;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.booklore.service.book;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.booklore.model.entity.*;
+import org.booklore.service.event.EntityChangeEvents;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Feeds {@link BookListViewIndex} from Hibernate's own write events, as passed on by {@link EntityChangeEvents}, so
+ * every path that changes a book (scans, metadata edits, shelf assignment, deletes) keeps the index current
+ * without having to remember to notify it. Invalidations are applied after commit; a read in between still sees the committed state.
+ * Reading progress changes only touch the affected rows for the user they belong to, since progress is layered on per user.
+ * <p>
+ * Bulk JPQL updates bypass these events and have to call {@link BookListViewIndex#invalidate} themselves.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookListViewIndexListener implements EntityChangeEvents.Listener {
+
+    private final EntityChangeEvents entityChangeEvents;
+    private final BookListViewIndex bookListViewIndex;
+    // one instance, so a transaction touching many shared rows rebuilds the index once
+    private final Runnable invalidateAll = () -> bookListViewIndex.invalidateAll();
+
+    @PostConstruct
+    void register() {
+        entityChangeEvents.addListener(this);
+    }
+
+    @Override
+    public void entityChanged(Object entity, EntityChangeEvents.Change change) {
+        onBookChanged(entity, change == EntityChangeEvents.Change.UPDATED || change == EntityChangeEvents.Change.DELETED);
+    }
+
+    /**
+     * @param sharedRowChanged whether a change to a lookup row (library, shelf, author...) should count;
+     *                         inserting one doesn't affect any book until a book's collection references it
+     */
+    private void onBookChanged(Object entity, boolean sharedRowChanged) {
+        Long progressBookId = switch (entity) {
+            case UserBookProgressEntity progress -> progress.getBook() != null ? progress.getBook().getId() : null;
+            // Only follow an already loaded book file; loading one in the middle of a flush is not allowed
+            case UserBookFileProgressEntity fileProgress -> Hibernate.isInitialized(fileProgress.getBookFile())
+                    && fileProgress.getBookFile() != null && fileProgress.getBookFile().getBook() != null
+                    ? fileProgress.getBookFile().getBook().getId() : null;
+            case null, default -> null;
+        };
+        if (progressBookId != null) {
+            Long progressUserId = switch (entity) {
+                case UserBookProgressEntity progress -> progress.getUser() != null ? progress.getUser().getId() : null;
+                case UserBookFileProgressEntity fileProgress -> fileProgress.getUser() != null ? fileProgress.getUser().getId() : null;
+                default -> null;
+            };
+            // touch() defers to commit on its own
+            bookListViewIndex.touch(progressUserId, List.of(progressBookId));
+            return;
+        }
+
+        Long bookId = switch (entity) {
+            case BookEntity book -> book.getId();
+            case BookMetadataEntity metadata -> metadata.getBookId();
+            case ComicMetadataEntity comicMetadata -> comicMetadata.getBookId();
+            case BookFileEntity bookFile -> bookFile.getBook() != null ? bookFile.getBook().getId() : null;
+            case BookShelfMapping mapping -> mapping.getBookId();
+            case null, default -> null;
+        };
+        if (bookId != null) {
+            entityChangeEvents.afterCommit(() -> bookListViewIndex.invalidate(bookId));
+        } else if (sharedRowChanged && isSharedByBooks(entity)) {
+            entityChangeEvents.afterCommit(invalidateAll);
+        }
+    }
+
+    private boolean isSharedByBooks(Object entity) {
+        return entity instanceof LibraryEntity
+                || entity instanceof LibraryPathEntity
+                || entity instanceof ShelfEntity
+                || entity instanceof AuthorEntity
+                || entity instanceof CategoryEntity
+                || entity instanceof MoodEntity
+                || entity instanceof TagEntity;
+    }
+}
@@ -0,0 +1,152 @@
+package org.booklore.service.book;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.exception.ApiError;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookFileEntity;
+import org.booklore.model.enums.BookFileType;
+import org.booklore.repository.BookRepository;
+import org.booklore.repository.projection.BookCoverVersionProjection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * HTTP validators for covers and reader pages, so a client that already holds an image revalidates it with a
+ * conditional request instead of downloading it again.
+ * <p>
+ * Entity tags are built from what the database already knows: the cover hash for covers, and the book file's hash
+ * and modification time plus the page for reader pages. A matching {@code If-None-Match} or
+ * {@code If-Modified-Since} is answered with 304 before the image or archive is opened. Cover links that carry a
+ * version in the query string, as the UI's timestamped links do, never change content and are cached as immutable.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookMediaCacheValidator {
+
+    public static final String REVALIDATED = "public, max-age=3600";
+    public static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    // query parameters that don't identify a version of the image
+    private static final Set<String> UNVERSIONED_PARAMETERS = Set.of("token", "ngsw-bypass", "bookType", "width");
+
+    private final BookRepository bookRepository;
+
+    /**
+     * Sets the cache headers for a cover or thumbnail and returns true if the client's copy is current, in which
+     * case the response is already a 304 and the handler should return without a body.
+     */
+    public boolean checkCoverNotModified(long bookId, CoverType type, ServletWebRequest request) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, isVersioned(request) ? IMMUTABLE : REVALIDATED);
+        BookCoverVersionProjection version = bookRepository.findCoverVersionById(bookId).orElse(null);
+        if (version == null) {
+            return false;
+        }
+        String hash = type.isAudiobook() ? version.getAudiobookCoverHash() : version.getBookCoverHash();
+        Instant updatedOn = type.isAudiobook() ? version.getAudiobookCoverUpdatedOn() : version.getCoverUpdatedOn();
+        if (hash == null) {
+            // no cover yet, the placeholder is served
+            return false;
+        }
+        long lastModified = updatedOn != null ? updatedOn.toEpochMilli() : -1;
+        String etag = hash + "-" + Long.toHexString(Math.max(lastModified, 0)) + type.getSuffix();
+        return request.checkNotModified(quote(etag), lastModified);
+    }
+
+    /**
+     * Sets the cache headers for a rendered or extracted reader page and returns true if the client's copy is
+     * current. {@code width} is the requested render width for PDF pages, null otherwise.
+     */
+    public boolean checkPageNotModified(long bookId, String bookType, int page, Integer width, ServletWebRequest request) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATED);
+        BookEntity bookEntity = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
+        BookFileEntity bookFile = resolveBookFile(bookEntity, bookType);
+        if (bookFile == null) {
+            return false;
+        }
+        long lastModified = lastModified(bookFile);
+        String fileTag = fileEntityTag(bookFile, lastModified);
+        if (fileTag == null) {
+            return false;
+        }
+        String etag = fileTag + "-p" + page + (width != null ? "-w" + width : "");
+        return request.checkNotModified(quote(etag), lastModified);
+    }
+
+    /**
+     * A strong entity tag for the whole book file, or null if its hash isn't known or the file is missing.
+     */
+    public static String fileEntityTag(BookFileEntity bookFile, long lastModified) {
+        String hash = bookFile.getCurrentHash() != null ? bookFile.getCurrentHash() : bookFile.getInitialHash();
+        if (hash == null || lastModified <= 0) {
+            return null;
+        }
+        // the modification time guards against a file edited outside the app before it was re-hashed
+        return hash + "-" + Long.toHexString(lastModified);
+    }
+
+    public static String quote(String etag) {
+        return "\"" + etag + "\"";
+    }
+
+    private static BookFileEntity resolveBookFile(BookEntity bookEntity, String bookType) {
+        if (bookType == null) {
+            return bookEntity.getPrimaryBookFile();
+        }
+        BookFileType requestedType = BookFileType.valueOf(bookType.toUpperCase());
+        return bookEntity.getBookFiles().stream()
+                .filter(bf -> bf.getBookType() == requestedType)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static long lastModified(BookFileEntity bookFile) {
+        try {
+            return Files.getLastModifiedTime(bookFile.getFullFilePath()).toMillis();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Cannot read modification time of book file {}: {}", bookFile.getId(), e.getMessage());
+            return -1;
+        }
+    }
+
+    private static boolean isVersioned(ServletWebRequest request) {
+        Iterator<String> names = request.getParameterNames();
+        while (names.hasNext()) {
+            if (!UNVERSIONED_PARAMETERS.contains(names.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public enum CoverType {
+        COVER(false, ""),
+        THUMBNAIL(false, "-thumbnail"),
+        AUDIOBOOK_COVER(true, ""),
+        AUDIOBOOK_THUMBNAIL(true, "-thumbnail");
+
+        private final boolean audiobook;
+        private final String suffix;
+
+        CoverType(boolean audiobook, String suffix) {
+            this.audiobook = audiobook;
+            this.suffix = suffix;
+        }
+
+        boolean isAudiobook() {
+            return audiobook;
+        }
+
+        String getSuffix() {
+            return suffix;
+        }
+    }
+}
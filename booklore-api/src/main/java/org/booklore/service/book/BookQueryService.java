@@ -8,8 +8,11 @@ import org.booklore.model.entity.BookEntity;
 import org.booklore.repository.BookRepository;
 import org.booklore.service.restriction.ContentRestrictionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -18,21 +21,47 @@ import java.util.stream.Collectors;
 @Service
 public class BookQueryService {
 
+    private static final int LOAD_BATCH_SIZE = 1000;
+
     private final BookRepository bookRepository;
     private final BookMapperV2 bookMapperV2;
     private final ContentRestrictionService contentRestrictionService;
+    private final BookListViewIndex bookListViewIndex;
 
     public List<Book> getAllBooks(boolean includeDescription) {
+        if (!includeDescription) {
+            return bookListViewIndex.getBooks(null);
+        }
         List<BookEntity> books = bookRepository.findAllWithMetadata();
         return mapBooksToDto(books, includeDescription, null, !includeDescription);
     }
 
     public List<Book> getAllBooksByLibraryIds(Set<Long> libraryIds, boolean includeDescription, Long userId) {
-        List<BookEntity> books = bookRepository.findAllWithMetadataByLibraryIds(libraryIds);
-        books = contentRestrictionService.applyRestrictions(books, userId);
+        if (!includeDescription) {
+            return contentRestrictionService.applyRestrictionsToBooks(bookListViewIndex.getBooks(libraryIds), userId);
+        }
+        Specification<BookEntity> restrictions = contentRestrictionService.restrictionSpecification(userId);
+        List<BookEntity> books = restrictions == null
+                ? bookRepository.findAllWithMetadataByLibraryIds(libraryIds)
+                : findAllWithMetadataMatching(inLibraries(libraryIds).and(restrictions));
         return mapBooksToDto(books, includeDescription, userId, !includeDescription);
     }
 
+    private static Specification<BookEntity> inLibraries(Set<Long> libraryIds) {
+        return (root, query, cb) -> cb.and(
+                root.get("library").get("id").in(libraryIds),
+                cb.or(cb.isNull(root.get("deleted")), cb.equal(root.get("deleted"), false)));
+    }
+
+    private List<BookEntity> findAllWithMetadataMatching(Specification<BookEntity> specification) {
+        List<Long> ids = bookRepository.findIds(specification);
+        List<BookEntity> books = new ArrayList<>(ids.size());
+        for (int start = 0; start < ids.size(); start += LOAD_BATCH_SIZE) {
+            books.addAll(bookRepository.findAllWithMetadataByIds(new HashSet<>(ids.subList(start, Math.min(start + LOAD_BATCH_SIZE, ids.size())))));
+        }
+        return books;
+    }
+
     public List<BookEntity> findAllWithMetadataByIds(Set<Long> bookIds) {
         return bookRepository.findAllWithMetadataByIds(bookIds);
     }
@@ -75,7 +104,7 @@ public class BookQueryService {
         return dto;
     }
 
-    private void stripFieldsForListView(Book dto) {
+    static void stripFieldsForListView(Book dto) {
         dto.setLibraryPath(null);
 
         BookMetadata m = dto.getMetadata();
@@ -220,7 +249,7 @@ public class BookQueryService {
         if (dto.getSupplementaryFiles() != null && dto.getSupplementaryFiles().isEmpty()) dto.setSupplementaryFiles(null);
     }
 
-    private boolean computeAllMetadataLocked(BookMetadata m) {
+    private static boolean computeAllMetadataLocked(BookMetadata m) {
         Boolean[] bookLocks = {
                 m.getTitleLocked(), m.getSubtitleLocked(), m.getPublisherLocked(),
                 m.getPublishedDateLocked(), m.getDescriptionLocked(), m.getSeriesNameLocked(),
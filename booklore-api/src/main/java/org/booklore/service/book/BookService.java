@@ -82,6 +82,14 @@ public class BookService {
                 user.getId()
         );
 
+        enrichWithUserState(books, user, includeDescription);
+        return books;
+    }
+
+    /**
+     * Layers the user's reading progress onto list rows and narrows their shelves to the user's own.
+     */
+    public void enrichWithUserState(List<Book> books, BookLoreUser user, boolean includeDescription) {
         Set<Long> bookIds = books.stream().map(Book::getId).collect(Collectors.toSet());
         Map<Long, UserBookProgressEntity> progressMap =
                 readingProgressService.fetchUserProgress(user.getId(), bookIds);
@@ -97,8 +105,6 @@ public class BookService {
             Set<Shelf> filtered = filterShelvesByUserId(book.getShelves(), user.getId());
             book.setShelves(!includeDescription && filtered != null && filtered.isEmpty() ? null : filtered);
         });
-
-        return books;
     }
 
     private Set<Long> getUserLibraryIds(BookLoreUser user) {
@@ -307,8 +313,8 @@ public class BookService {
         return bookDownloadService.downloadBook(bookId);
     }
 
-    public void downloadAllBookFiles(Long bookId, HttpServletResponse response) {
-        bookDownloadService.downloadAllBookFiles(bookId, response);
+    public ResponseEntity<Resource> downloadAllBookFiles(Long bookId) {
+        return bookDownloadService.downloadAllBookFiles(bookId);
     }
 
     public ResponseEntity<Resource> getBookContent(long bookId) {
@@ -353,19 +359,26 @@ public class BookService {
 
     public void streamBookContent(long bookId, String bookType, HttpServletRequest request, HttpServletResponse response) throws IOException {
         BookEntity bookEntity = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
+        BookFileEntity bookFile;
         String filePath;
         if (bookType != null) {
             BookFileType requestedType = BookFileType.valueOf(bookType.toUpperCase());
-            BookFileEntity bookFile = bookEntity.getBookFiles().stream()
+            bookFile = bookEntity.getBookFiles().stream()
                     .filter(bf -> bf.getBookType() == requestedType)
                     .findFirst()
                     .orElseThrow(() -> ApiError.FILE_NOT_FOUND.createException("No file of type " + bookType + " found for book"));
             filePath = bookFile.getFullFilePath().toString();
         } else {
+            bookFile = bookEntity.getPrimaryBookFile();
             filePath = FileUtils.getBookFullPath(bookEntity);
         }
 
         Path path = Paths.get(filePath);
+        String etag = null;
+        if (bookFile != null && Files.exists(path)) {
+            String fileTag = BookMediaCacheValidator.fileEntityTag(bookFile, Files.getLastModifiedTime(path).toMillis());
+            etag = fileTag != null ? BookMediaCacheValidator.quote(fileTag) : null;
+        }
         String fileName = path.getFileName().toString();
         String extension = fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.') + 1) : "";
         String contentType = switch (extension.toLowerCase()) {
@@ -378,7 +391,7 @@ public class BookService {
             default -> "application/octet-stream";
         };
 
-        fileStreamingService.streamWithRangeSupport(path, contentType, request, response);
+        fileStreamingService.streamWithRangeSupport(path, contentType, etag, request, response);
     }
 
     @Transactional
@@ -39,6 +39,7 @@ public class BookUpdateService {
     private final BookQueryService bookQueryService;
     private final ReadingProgressService readingProgressService;
     private final EbookViewerPreferenceRepository ebookViewerPreferenceRepository;
+    private final BookListViewIndex bookListViewIndex;
 
     public void updateBookViewerSetting(long bookId, BookViewerSettings bookViewerSettings) {
         BookEntity book = bookRepository.findByIdWithBookFiles(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
@@ -79,6 +80,7 @@ public class BookUpdateService {
 
         if (!existingProgressBookIds.isEmpty()) {
             userBookProgressRepository.bulkUpdatePersonalRating(user.getId(), new ArrayList<>(existingProgressBookIds), rating);
+            bookListViewIndex.touch(user.getId(), existingProgressBookIds);
         }
 
         createProgressForRating(user.getId(), bookIds, existingProgressBookIds, rating);
@@ -93,6 +95,7 @@ public class BookUpdateService {
 
         if (!existingProgressBookIds.isEmpty()) {
             userBookProgressRepository.bulkUpdatePersonalRating(user.getId(), new ArrayList<>(existingProgressBookIds), null);
+            bookListViewIndex.touch(user.getId(), existingProgressBookIds);
         }
 
         return buildRatingUpdateResponses(bookIds, null);
@@ -217,6 +220,7 @@ public class BookUpdateService {
     private void updateExistingProgress(Long userId, Set<Long> bookIds, ReadStatus status, Instant now, Instant dateFinished) {
         if (!bookIds.isEmpty()) {
             userBookProgressRepository.bulkUpdateReadStatus(userId, new ArrayList<>(bookIds), status, now, dateFinished);
+            bookListViewIndex.touch(userId, bookIds);
         }
     }
 
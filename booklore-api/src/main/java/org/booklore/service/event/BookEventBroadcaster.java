@@ -1,31 +1,190 @@
 package org.booklore.service.event;
 
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
 import org.booklore.model.dto.Book;
+import org.booklore.model.websocket.BookEventBatchPayload;
 import org.booklore.model.websocket.LogNotification;
 import org.booklore.model.websocket.Topic;
-import org.booklore.service.user.UserService;
-import lombok.AllArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Sends book add, update and remove events to the users who can see the book's library, in batches.
+ * <p>
+ * Events are collected for a short window, or until a batch is full, and each user then gets one
+ * {@link Topic#BOOKS_BATCH} message and one log line for the whole window. Repeated events for a book collapse
+ * into the latest one. Sending happens on a single background thread, so a scan publishing events never waits on
+ * WebSocket clients; if that thread falls behind and too many books pile up, the pending changes are dropped and
+ * the affected users are told to reload their book list instead.
+ */
 @Slf4j
-@AllArgsConstructor
 @Service
 public class BookEventBroadcaster {
 
     private final SimpMessagingTemplate messagingTemplate;
-    private final UserService userService;
+    private final BookEventRecipients recipients;
+    private final int windowMillis;
+    private final int maxBatchSize;
+    private final int maxPendingBooks;
+    private final ScheduledExecutorService sender;
+
+    private final Object lock = new Object();
+    private Window window = new Window();
+    private boolean windowScheduled;
+    private boolean flushQueued;
+
+    public BookEventBroadcaster(SimpMessagingTemplate messagingTemplate, BookEventRecipients recipients, AppProperties appProperties) {
+        AppProperties.BookEvents settings = appProperties.getBookEvents();
+        this.messagingTemplate = messagingTemplate;
+        this.recipients = recipients;
+        this.windowMillis = settings.getWindowMillis();
+        this.maxBatchSize = Math.max(1, settings.getMaxBatchSize());
+        this.maxPendingBooks = Math.max(this.maxBatchSize, settings.getMaxPendingBooks());
+        this.sender = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("book-events").daemon().factory());
+    }
 
     public void broadcastBookAddEvent(Book book) {
-        Long libraryId = book.getLibraryId();
-        userService.getBookLoreUsers().stream()
-                .filter(u -> u.getPermissions().isAdmin() || u.getAssignedLibraries().stream()
-                        .anyMatch(lib -> lib.getId().equals(libraryId)))
-                .forEach(u -> {
-                    String username = u.getUsername();
-                    messagingTemplate.convertAndSendToUser(username, Topic.BOOK_ADD.getPath(), book);
-                    messagingTemplate.convertAndSendToUser(username, Topic.LOG.getPath(), LogNotification.info("Book added: " + (book.getPrimaryFile() != null ? book.getPrimaryFile().getFileName() : "unknown")));
-                });
+        publish(book.getLibraryId(), window -> {
+            window.removed.values().forEach(ids -> ids.remove(book.getId()));
+            window.updated.remove(book.getId());
+            window.added.put(book.getId(), book);
+        });
+    }
+
+    public void broadcastBookUpdateEvent(Book book) {
+        publish(book.getLibraryId(), window -> {
+            if (window.added.containsKey(book.getId())) {
+                window.added.put(book.getId(), book);
+            } else {
+                window.updated.put(book.getId(), book);
+            }
+        });
+    }
+
+    public void broadcastBooksRemoveEvent(Long libraryId, Collection<Long> bookIds) {
+        publish(libraryId, window -> {
+            for (Long bookId : bookIds) {
+                window.added.remove(bookId);
+                window.updated.remove(bookId);
+            }
+            window.removed.computeIfAbsent(libraryId, id -> new LinkedHashSet<>()).addAll(bookIds);
+        });
+    }
+
+    private void publish(Long libraryId, Consumer<Window> change) {
+        synchronized (lock) {
+            if (window.resyncLibraries.contains(libraryId)) {
+                return;
+            }
+            change.accept(window);
+            window.libraries.add(libraryId);
+            int size = window.size();
+            if (size >= maxPendingBooks) {
+                log.warn("{} book events are waiting to be sent, asking clients to reload instead", size);
+                window.dropChanges();
+            }
+            if (sender.isShutdown()) {
+                return;
+            }
+            if (size >= maxBatchSize && !flushQueued) {
+                flushQueued = true;
+                sender.execute(this::flush);
+            } else if (!windowScheduled) {
+                windowScheduled = true;
+                sender.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    void flush() {
+        Window batch;
+        synchronized (lock) {
+            windowScheduled = false;
+            flushQueued = false;
+            if (window.libraries.isEmpty()) {
+                return;
+            }
+            batch = window;
+            window = new Window();
+        }
+        try {
+            send(batch);
+        } catch (Exception e) {
+            log.error("Failed to send book events: {}", e.getMessage(), e);
+        }
+    }
+
+    private void send(Window batch) {
+        BookEventRecipients.LibraryAccess access = recipients.libraryAccess();
+        Map<String, UserBatch> batches = new HashMap<>();
+        batch.added.values().forEach(book -> forRecipients(access, book.getLibraryId(), batches, user -> user.added.add(book)));
+        batch.updated.values().forEach(book -> forRecipients(access, book.getLibraryId(), batches, user -> user.updated.add(book)));
+        batch.removed.forEach((libraryId, ids) -> forRecipients(access, libraryId, batches, user -> user.removed.addAll(ids)));
+        batch.resyncLibraries.forEach(libraryId -> forRecipients(access, libraryId, batches, user -> user.resync = true));
+
+        batches.forEach((username, user) -> {
+            BookEventBatchPayload payload = user.resync
+                    ? new BookEventBatchPayload(List.of(), List.of(), List.of(), true)
+                    : new BookEventBatchPayload(user.added, user.updated, user.removed, false);
+            messagingTemplate.convertAndSendToUser(username, Topic.BOOKS_BATCH.getPath(), payload);
+            if (!user.added.isEmpty()) {
+                messagingTemplate.convertAndSendToUser(username, Topic.LOG.getPath(), LogNotification.info(addedMessage(user.added)));
+            }
+        });
+    }
+
+    private static void forRecipients(BookEventRecipients.LibraryAccess access, Long libraryId, Map<String, UserBatch> batches,
+                                      Consumer<UserBatch> action) {
+        for (String username : access.recipients(libraryId)) {
+            action.accept(batches.computeIfAbsent(username, name -> new UserBatch()));
+        }
+    }
+
+    private static String addedMessage(List<Book> added) {
+        if (added.size() > 1) {
+            return added.size() + " books added";
+        }
+        Book book = added.getFirst();
+        return "Book added: " + (book.getPrimaryFile() != null ? book.getPrimaryFile().getFileName() : "unknown");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+        flush();
+    }
+
+    private static final class Window {
+        private final Map<Long, Book> added = new LinkedHashMap<>();
+        private final Map<Long, Book> updated = new LinkedHashMap<>();
+        private final Map<Long, Set<Long>> removed = new HashMap<>();
+        private final Set<Long> libraries = new HashSet<>();
+        private final Set<Long> resyncLibraries = new HashSet<>();
+
+        private int size() {
+            return added.size() + updated.size() + removed.values().stream().mapToInt(Set::size).sum();
+        }
+
+        private void dropChanges() {
+            added.clear();
+            updated.clear();
+            removed.clear();
+            resyncLibraries.addAll(libraries);
+        }
+    }
+
+    private static final class UserBatch {
+        private final List<Book> added = new ArrayList<>();
+        private final List<Book> updated = new ArrayList<>();
+        private final Set<Long> removed = new LinkedHashSet<>();
+        private boolean resync;
     }
 }
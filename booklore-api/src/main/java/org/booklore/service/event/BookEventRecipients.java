@@ -0,0 +1,84 @@
+package org.booklore.service.event;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.booklore.model.entity.BookLoreUserEntity;
+import org.booklore.model.entity.LibraryEntity;
+import org.booklore.model.entity.UserPermissionsEntity;
+import org.booklore.repository.UserRepository;
+import org.booklore.repository.projection.UserLibraryAccessProjection;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Which users receive book events for which library, loaded with one query and kept until a user, their
+ * permissions, their library assignments or a library change. Hibernate's write events, through
+ * {@link EntityChangeEvents}, drive the invalidation once the change commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookEventRecipients {
+
+    private final EntityChangeEvents entityChangeEvents;
+    private final UserRepository userRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile LibraryAccess cached;
+
+    @PostConstruct
+    void register() {
+        entityChangeEvents.onCommit(entity -> entity instanceof BookLoreUserEntity
+                || entity instanceof UserPermissionsEntity
+                || entity instanceof LibraryEntity, this::invalidate);
+    }
+
+    public LibraryAccess libraryAccess() {
+        LibraryAccess access = cached;
+        if (access != null) {
+            return access;
+        }
+        long loadedGeneration = generation.get();
+        access = load();
+        if (generation.get() == loadedGeneration) {
+            // not cached if it changed while loading; the next batch loads again
+            cached = access;
+        }
+        return access;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        cached = null;
+    }
+
+    private LibraryAccess load() {
+        Set<String> admins = new HashSet<>();
+        Map<Long, Set<String>> usersByLibrary = new HashMap<>();
+        for (UserLibraryAccessProjection row : userRepository.findAllLibraryAccess()) {
+            if (Boolean.TRUE.equals(row.getAdmin())) {
+                admins.add(row.getUsername());
+            } else if (row.getLibraryId() != null) {
+                usersByLibrary.computeIfAbsent(row.getLibraryId(), id -> new HashSet<>()).add(row.getUsername());
+            }
+        }
+        return new LibraryAccess(Set.copyOf(admins), usersByLibrary);
+    }
+
+    /**
+     * Admins see every library; everyone else sees the libraries assigned to them.
+     */
+    public record LibraryAccess(Set<String> admins, Map<Long, Set<String>> usersByLibrary) {
+
+        public Set<String> recipients(Long libraryId) {
+            Set<String> assigned = usersByLibrary.getOrDefault(libraryId, Set.of());
+            if (assigned.isEmpty()) {
+                return admins;
+            }
+            Set<String> recipients = new HashSet<>(admins);
+            recipients.addAll(assigned);
+            return recipients;
+        }
+    }
+}
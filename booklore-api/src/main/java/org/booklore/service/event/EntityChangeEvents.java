@@ -0,0 +1,169 @@
+package org.booklore.service.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Hibernate's write events, registered with Hibernate once and passed on to the beans that keep something in
+ * memory in step with the database (the book list index, the authentication cache, book event recipients...).
+ * Every path that writes through JPA is seen, without callers having to remember to notify anyone.
+ * <p>
+ * Listeners are called during the flush, inside the transaction; work that depends on the change being visible
+ * belongs in {@link #afterCommit}. Bulk JPQL updates bypass these events.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EntityChangeEvents implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    public enum Change {
+        INSERTED,
+        UPDATED,
+        DELETED,
+        // one of the entity's collections was written; the entity is the collection's owner
+        COLLECTION_CHANGED
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void entityChanged(Object entity, Change change);
+    }
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Runs {@code action} after commit whenever a transaction wrote an entity {@code affects} accepts, once per
+     * transaction however many such entities it wrote. Outside a transaction it runs right away.
+     */
+    public void onCommit(Predicate<Object> affects, Runnable action) {
+        addListener((entity, change) -> {
+            if (affects.test(entity)) {
+                afterCommit(action);
+            }
+        });
+    }
+
+    /**
+     * Runs {@code action} once the current transaction commits, or right away outside a transaction. The same
+     * action registered twice in a transaction runs once.
+     */
+    public void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        pendingActions().actions.add(action);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(event.getEntity(), Change.INSERTED);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(event.getEntity(), Change.UPDATED);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(event.getEntity(), Change.DELETED);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        publish(event.getAffectedOwnerOrNull(), Change.COLLECTION_CHANGED);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        publish(event.getAffectedOwnerOrNull(), Change.COLLECTION_CHANGED);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        publish(event.getAffectedOwnerOrNull(), Change.COLLECTION_CHANGED);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void publish(Object entity, Change change) {
+        if (entity == null) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            listener.entityChanged(entity, change);
+        }
+    }
+
+    // the transaction's own synchronization, found among the current ones so a suspended outer transaction's
+    // actions stay with it
+    private PendingActions pendingActions() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingActions pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingActions pending = new PendingActions();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private class PendingActions implements TransactionSynchronization {
+
+        private final Set<Runnable> actions = new LinkedHashSet<>();
+
+        private EntityChangeEvents owner() {
+            return EntityChangeEvents.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            for (Runnable action : new ArrayList<>(actions)) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to apply a committed change: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+}
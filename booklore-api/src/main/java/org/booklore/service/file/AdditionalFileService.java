@@ -7,9 +7,9 @@ import org.booklore.model.entity.BookFileEntity;
 import org.booklore.repository.BookAdditionalFileRepository;
 import org.booklore.repository.BookRepository;
 import org.booklore.service.monitoring.MonitoringRegistrationService;
+import org.booklore.util.StreamingZipResource;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
@@ -18,18 +18,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 @Slf4j
 @AllArgsConstructor
@@ -134,36 +130,19 @@ public class AdditionalFileService {
     }
 
     private ResponseEntity<Resource> downloadFolderAsZip(BookFileEntity file, Path folderPath) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
-            // Get all files in the folder, sorted by name
-            List<Path> files = Files.list(folderPath)
-                    .filter(Files::isRegularFile)
-                    .sorted(Comparator.comparing(p -> p.getFileName().toString()))
-                    .toList();
-
-            for (Path audioFile : files) {
-                ZipEntry entry = new ZipEntry(audioFile.getFileName().toString());
-                zos.putNextEntry(entry);
-                Files.copy(audioFile, zos);
-                zos.closeEntry();
-            }
-        }
+        StreamingZipResource zip = new StreamingZipResource(file.getFileName() + ".zip").addFolder("", folderPath);
 
-        byte[] zipBytes = baos.toByteArray();
-        Resource resource = new ByteArrayResource(zipBytes);
-
-        String zipFileName = file.getFileName() + ".zip";
-        String encodedFilename = URLEncoder.encode(zipFileName, StandardCharsets.UTF_8).replace("+", "%20");
-        String fallbackFilename = NON_ASCII.matcher(zipFileName).replaceAll("_");
+        String encodedFilename = URLEncoder.encode(zip.getFilename(), StandardCharsets.UTF_8).replace("+", "%20");
+        String fallbackFilename = NON_ASCII.matcher(zip.getFilename()).replaceAll("_");
         String contentDisposition = String.format("attachment; filename=\"%s\"; filename*=UTF-8''%s",
                 fallbackFilename, encodedFilename);
 
         return ResponseEntity.ok()
                 .contentType(MediaType.valueOf("application/zip"))
+                .contentLength(zip.contentLength())
+                .eTag(zip.getETag())
+                .lastModified(zip.lastModified())
                 .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
-                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(zipBytes.length))
-                .body(resource);
+                .body(zip);
     }
 }
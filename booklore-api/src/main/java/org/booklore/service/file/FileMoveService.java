@@ -17,6 +17,7 @@ import org.booklore.repository.BookAdditionalFileRepository;
 import org.booklore.repository.BookRepository;
 import org.booklore.repository.LibraryRepository;
 import org.booklore.service.NotificationService;
+import org.booklore.service.book.BookListViewIndex;
 import org.booklore.service.metadata.sidecar.SidecarMetadataWriter;
 import org.booklore.service.monitoring.MonitoringRegistrationService;
 import org.springframework.stereotype.Service;
@@ -46,6 +47,7 @@ public class FileMoveService {
     private final EntityManager entityManager;
     private final TransactionTemplate transactionTemplate;
     private final SidecarMetadataWriter sidecarMetadataWriter;
+    private final BookListViewIndex bookListViewIndex;
 
 
     public void bulkMoveFiles(FileMoveRequest request) {
@@ -199,6 +201,7 @@ public class FileMoveService {
 
                     bookRepository.updateLibrary(bookEntity.getId(), targetLibrary.getId(), libraryPathEntity);
                 });
+                bookListViewIndex.invalidate(bookEntity.getId());
             } catch (Exception e) {
                 log.error("Database update failed after files were moved. Attempting to rollback file moves for book ID {}", bookId, e);
                 for (PlannedMove committed : committedMoves) {
@@ -357,6 +360,7 @@ public class FileMoveService {
                         bookFileRepository.updateFileNameAndSubPath(bookFile.getId(), newFileName, newFileSubPath);
                     }
                 });
+                bookListViewIndex.invalidate(finalBookWithFiles.getId());
             } catch (Exception e) {
                 log.error("Database update failed after files were moved. Attempting to rollback file moves for book ID {}", bookEntity.getId(), e);
                 for (PlannedMove committed : committedMoves) {
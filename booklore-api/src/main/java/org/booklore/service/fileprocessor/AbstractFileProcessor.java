@@ -50,10 +50,14 @@ public abstract class AbstractFileProcessor implements BookFileProcessor {
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     @Override
     public FileProcessResult processFile(LibraryFile libraryFile) {
-        Path path = libraryFile.getFullPath();
-        String hash = libraryFile.isFolderBased()
-                ? FileFingerprint.generateFolderHash(path)
-                : FileFingerprint.generateHash(path);
+        String hash = libraryFile.getHash();
+        if (hash == null) {
+            Path path = libraryFile.getFullPath();
+            hash = libraryFile.isFolderBased()
+                    ? FileFingerprint.generateFolderHash(path)
+                    : FileFingerprint.generateHash(path);
+            libraryFile.setHash(hash);
+        }
         Book book = createAndMapBook(libraryFile, hash);
         return new FileProcessResult(book, FileProcessStatus.NEW);
     }
@@ -575,6 +575,17 @@ public class CbxConversionService {
         zipOut.closeArchiveEntry();
     }
 
+    /**
+     * The book metadata a conversion embeds in the EPUB, without the identifier and timestamp generated per
+     * conversion. Converting the same archive again only gives a different book when this changes.
+     */
+    public String metadataFingerprint(BookEntity bookEntity) {
+        Map<String, Object> model = new TreeMap<>(createBookMetadataModel(bookEntity));
+        model.remove("identifier");
+        model.remove("modified");
+        return model.toString();
+    }
+
     private Map<String, Object> createBookMetadataModel(BookEntity bookEntity) {
         Map<String, Object> model = new HashMap<>();
 
@@ -627,18 +638,21 @@ public class CbxConversionService {
             if (metadata.getAuthors() != null && !metadata.getAuthors().isEmpty()) {
                 model.put("authors", metadata.getAuthors().stream()
                         .map(AuthorEntity::getName)
+                        .sorted()
                         .toList());
             }
 
             if (metadata.getCategories() != null && !metadata.getCategories().isEmpty()) {
                 model.put("categories", metadata.getCategories().stream()
                         .map(CategoryEntity::getName)
+                        .sorted()
                         .toList());
             }
 
             if (metadata.getTags() != null && !metadata.getTags().isEmpty()) {
                 model.put("tags", metadata.getTags().stream()
                         .map(TagEntity::getName)
+                        .sorted()
                         .toList());
             }
 
@@ -0,0 +1,338 @@
+package org.booklore.service.kobo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.booklore.model.dto.settings.KoboSettings;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookFileEntity;
+import org.booklore.model.enums.BookFileType;
+import org.booklore.util.FileUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Disk cache of the files sent to Kobo devices, so a book is converted to KEPUB, or from CBX to EPUB, once instead
+ * of on every download.
+ * <p>
+ * Entries are addressed by everything the conversion depends on: the source file's content hash and name, the
+ * converter and its settings, and for comics the metadata written into the EPUB. A changed file or setting simply
+ * misses, and the entry it replaces ages out. Concurrent requests for the same conversion wait for the one already
+ * running instead of starting their own. Hits mark the entry as used, and the least recently used entries are
+ * removed once the cache outgrows its size bound. With the cache disabled, or no data directory, conversions go to
+ * a temporary directory that is removed once the file has been sent.
+ */
+@Slf4j
+@Service
+public class KoboConversionCache {
+
+    private static final String CACHE_DIR = "kobo_cache";
+    private static final String STAGING_PREFIX = ".convert-";
+    // bump when a converter's output changes, so earlier conversions are no longer served
+    private static final int FORMAT_VERSION = 1;
+    // entries used this recently are kept even over the size bound, as they may still be being sent
+    private static final Duration IN_USE = Duration.ofMinutes(10);
+    // staging directories left behind by a crash are removed after this long
+    private static final Duration STALE_STAGING = Duration.ofDays(1);
+
+    private final KepubConversionService kepubConversionService;
+    private final CbxConversionService cbxConversionService;
+    private final boolean enabled;
+    private final Path cacheDir;
+    private final long maxSizeBytes;
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    public KoboConversionCache(AppProperties appProperties, KepubConversionService kepubConversionService,
+                               CbxConversionService cbxConversionService) {
+        AppProperties.KoboConversionCache settings = appProperties.getKoboConversionCache();
+        this.kepubConversionService = kepubConversionService;
+        this.cbxConversionService = cbxConversionService;
+        this.enabled = settings.isEnabled() && appProperties.getPathConfig() != null;
+        this.cacheDir = appProperties.getPathConfig() != null ? Paths.get(appProperties.getPathConfig(), CACHE_DIR) : null;
+        this.maxSizeBytes = settings.getMaxSizeMb() * 1024 * 1024;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The file to send to a Kobo device for the book: its conversion when the Kobo settings ask for one, otherwise
+     * the book file itself. Close the delivery once the file has been sent.
+     */
+    public Delivery prepare(BookEntity book, KoboSettings settings) throws Exception {
+        File source = new File(FileUtils.getBookFullPath(book));
+        Conversion conversion = conversionFor(book.getPrimaryBookFile(), settings);
+        if (conversion == null) {
+            return new Delivery(source, null);
+        }
+        if (!enabled) {
+            Path tempDir = Files.createTempDirectory("kobo-conversion");
+            try {
+                return new Delivery(convert(conversion, book, source, tempDir, settings), tempDir);
+            } catch (Exception e) {
+                deleteRecursively(tempDir);
+                throw e;
+            }
+        }
+        return new Delivery(getOrConvert(conversion, book, source, settings).toFile(), null);
+    }
+
+    /**
+     * Converts the book into the cache ahead of its first download, unless it is already there or isn't converted
+     * for Kobo devices at all.
+     */
+    public void preconvert(BookEntity book, KoboSettings settings) throws Exception {
+        Conversion conversion = conversionFor(book.getPrimaryBookFile(), settings);
+        if (enabled && conversion != null) {
+            getOrConvert(conversion, book, new File(FileUtils.getBookFullPath(book)), settings);
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the cache fits its size bound, along with abandoned staging
+     * directories.
+     */
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS, initialDelay = 1)
+    public synchronized void evict() {
+        if (!enabled || !Files.isDirectory(cacheDir)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<StoredEntry> entries = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(cacheDir)) {
+            dirs.filter(Files::isDirectory).forEach(dir -> {
+                if (dir.getFileName().toString().startsWith(STAGING_PREFIX)) {
+                    if (now - lastModified(dir) > STALE_STAGING.toMillis()) {
+                        deleteRecursively(dir);
+                    }
+                    return;
+                }
+                StoredEntry entry = readEntry(dir);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to scan Kobo conversion cache: {}", e.getMessage());
+            return;
+        }
+
+        long totalSize = entries.stream().mapToLong(StoredEntry::size).sum();
+        entries.sort(Comparator.comparingLong(StoredEntry::lastUsed));
+        Iterator<StoredEntry> leastRecentlyUsed = entries.iterator();
+        while (totalSize > maxSizeBytes && leastRecentlyUsed.hasNext()) {
+            StoredEntry entry = leastRecentlyUsed.next();
+            if (now - entry.lastUsed() < IN_USE.toMillis()) {
+                break;
+            }
+            deleteRecursively(entry.dir());
+            totalSize -= entry.size();
+        }
+    }
+
+    private Path getOrConvert(Conversion conversion, BookEntity book, File source, KoboSettings settings) throws Exception {
+        String key = sha256(cacheKey(conversion, book, source, settings));
+        Path entryDir = cacheDir.resolve(key);
+        Path cached = lookup(entryDir);
+        if (cached != null) {
+            log.debug("Serving {} conversion of book {} from cache", conversion, book.getId());
+            return cached;
+        }
+
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(key, result);
+        if (running != null) {
+            log.debug("Waiting for the running {} conversion of book {}", conversion, book.getId());
+            return await(running);
+        }
+        try {
+            // the conversion may have finished between the lookup and claiming the key
+            Path converted = lookup(entryDir);
+            if (converted == null) {
+                converted = convertIntoCache(conversion, book, source, settings, entryDir);
+                evict();
+            }
+            result.complete(converted);
+            return converted;
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, result);
+        }
+    }
+
+    private Path convertIntoCache(Conversion conversion, BookEntity book, File source, KoboSettings settings, Path entryDir) throws Exception {
+        Files.createDirectories(cacheDir);
+        Path staging = Files.createTempDirectory(cacheDir, STAGING_PREFIX);
+        try {
+            String fileName = convert(conversion, book, source, staging, settings).getName();
+            try (Stream<Path> leftovers = Files.list(staging)) {
+                leftovers.filter(path -> !path.getFileName().toString().equals(fileName)).forEach(KoboConversionCache::deleteRecursively);
+            }
+            Files.move(staging, entryDir, StandardCopyOption.ATOMIC_MOVE);
+            return entryDir.resolve(fileName);
+        } catch (Exception e) {
+            deleteRecursively(staging);
+            throw e;
+        }
+    }
+
+    private File convert(Conversion conversion, BookEntity book, File source, Path outputDir, KoboSettings settings) throws Exception {
+        return switch (conversion) {
+            case KEPUB -> kepubConversionService.convertEpubToKepub(source, outputDir.toFile(), settings.isForceEnableHyphenation());
+            case CBX_TO_EPUB -> cbxConversionService.convertCbxToEpub(source, outputDir.toFile(), book,
+                    settings.getConversionImageCompressionPercentage());
+        };
+    }
+
+    private String cacheKey(Conversion conversion, BookEntity book, File source, KoboSettings settings) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(source.toPath(), BasicFileAttributes.class);
+        StringBuilder key = new StringBuilder()
+                .append(FORMAT_VERSION).append('|')
+                .append(conversion).append('|')
+                // the output is named after the source, and that name is what the device receives
+                .append(source.getName()).append('|')
+                .append(attributes.size()).append('|');
+        String hash = book.getPrimaryBookFile().getCurrentHash();
+        if (hash != null) {
+            key.append(hash);
+        } else {
+            key.append(source.getAbsolutePath()).append('|').append(attributes.lastModifiedTime().toMillis());
+        }
+        switch (conversion) {
+            case KEPUB -> key.append("|hyphenate=").append(settings.isForceEnableHyphenation());
+            case CBX_TO_EPUB -> key.append("|compression=").append(settings.getConversionImageCompressionPercentage())
+                    .append('|').append(cbxConversionService.metadataFingerprint(book));
+        }
+        return key.toString();
+    }
+
+    private static Conversion conversionFor(BookFileEntity file, KoboSettings settings) {
+        if (file == null || settings == null) {
+            return null;
+        }
+        long sizeKb = file.getFileSizeKb() != null ? file.getFileSizeKb() : 0;
+        if (file.getBookType() == BookFileType.EPUB && settings.isConvertToKepub()
+                && sizeKb <= (long) settings.getConversionLimitInMb() * 1024) {
+            return Conversion.KEPUB;
+        }
+        if (file.getBookType() == BookFileType.CBX && settings.isConvertCbxToEpub()
+                && sizeKb <= (long) settings.getConversionLimitInMbForCbx() * 1024) {
+            return Conversion.CBX_TO_EPUB;
+        }
+        return null;
+    }
+
+    /**
+     * The converted file of the entry, marked as used, or null if there is no such entry.
+     */
+    private static Path lookup(Path entryDir) {
+        if (!Files.isDirectory(entryDir)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(entryDir)) {
+            Path file = files.filter(Files::isRegularFile).findFirst().orElse(null);
+            if (file != null) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+            return file;
+        } catch (IOException | UncheckedIOException e) {
+            // evicted while being looked up
+            log.debug("Kobo conversion cache entry {} unavailable: {}", entryDir, e.getMessage());
+            return null;
+        }
+    }
+
+    private static StoredEntry readEntry(Path dir) {
+        long size = 0;
+        long lastUsed = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                size += attributes.size();
+                lastUsed = Math.max(lastUsed, attributes.lastModifiedTime().toMillis());
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.debug("Skipping Kobo conversion cache entry {}: {}", dir, e.getMessage());
+            return null;
+        }
+        return new StoredEntry(dir, size, lastUsed);
+    }
+
+    private static Path await(CompletableFuture<Path> running) throws Exception {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteRecursively(Path path) {
+        try {
+            FileSystemUtils.deleteRecursively(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static String sha256(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private enum Conversion {
+        KEPUB, CBX_TO_EPUB
+    }
+
+    /**
+     * A file ready to be sent to a Kobo device. Closing it removes the temporary directory of an uncached conversion.
+     */
+    public record Delivery(File file, Path tempDir) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            if (tempDir != null) {
+                deleteRecursively(tempDir);
+            }
+        }
+    }
+
+    private record StoredEntry(Path dir, long size, long lastUsed) {
+    }
+}
@@ -2,7 +2,6 @@ package org.booklore.service.kobo;
 
 import org.booklore.config.security.service.AuthenticationService;
 import org.booklore.mapper.KoboReadingStateMapper;
-import org.booklore.model.dto.Book;
 import org.booklore.model.dto.kobo.*;
 import org.booklore.model.dto.settings.KoboSettings;
 import org.booklore.model.entity.*;
@@ -130,8 +129,7 @@ public class KoboEntitlementService {
         // Magic Shelves
         magicShelfRepository.findAllByUserId(userId).stream()
                 .map(magicShelf -> {
-                    List<Long> bookIds = magicShelfBookService.getBooksByMagicShelfId(userId, magicShelf.getId(), 0, Integer.MAX_VALUE)
-                            .stream().map(Book::getId).toList();
+                    List<Long> bookIds = magicShelfBookService.getBookIdsByMagicShelfId(userId, magicShelf.getId());
                     return buildKoboTag("BL-MS-" + magicShelf.getId(), magicShelf.getName(),
                             magicShelf.getCreatedAt().atOffset(ZoneOffset.UTC).toString(), magicShelf.getUpdatedAt().atOffset(ZoneOffset.UTC).toString(),
                             bookIds, koboBookIDs);
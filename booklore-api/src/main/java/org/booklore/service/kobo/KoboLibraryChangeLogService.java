@@ -0,0 +1,150 @@
+package org.booklore.service.kobo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.KoboLibraryBookEntity;
+import org.booklore.model.entity.ShelfEntity;
+import org.booklore.model.enums.ShelfType;
+import org.booklore.repository.BookRepository;
+import org.booklore.repository.KoboLibraryBookRepository;
+import org.booklore.repository.ShelfRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the per-user change log behind incremental Kobo syncs: one row per book that is or was on the user's
+ * Kobo shelf, re-versioned whenever the book is added, removed or its file or metadata changes. Changes are
+ * recorded lazily at the start of each sync, re-checking only the books {@link KoboLibraryChangeTracker} saw
+ * change, so a sync with nothing new neither loads the shelf nor writes anything.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KoboLibraryChangeLogService {
+
+    // a bigger backlog, such as a library rescan, is cheaper to reconcile against the whole shelf
+    private static final int MAX_PARTIAL_RECHECK = 1000;
+
+    private final KoboLibraryBookRepository koboLibraryBookRepository;
+    private final ShelfRepository shelfRepository;
+    private final BookRepository bookRepository;
+    private final KoboLibrarySnapshotService koboLibrarySnapshotService;
+    private final KoboLibraryChangeTracker changeTracker;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<Long, ReentrantLock> userLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Records what changed on the user's Kobo shelf since the last call and returns their latest version.
+     * Runs in its own transaction, so two devices of the same user syncing at once never hand out a version twice.
+     */
+    public long refresh(Long userId) {
+        ReentrantLock lock = userLocks.computeIfAbsent(userId, id -> new ReentrantLock());
+        lock.lock();
+        try {
+            KoboLibraryChangeTracker.Pending pending = changeTracker.pending(userId);
+            boolean admin = koboLibrarySnapshotService.isAdmin();
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            Long latest = template.execute(status -> {
+                if (pending.all() || pending.bookIds().size() > MAX_PARTIAL_RECHECK) {
+                    return reconcileShelf(userId, admin);
+                }
+                return reconcileBooks(userId, pending.bookIds(), admin);
+            });
+            changeTracker.reconciled(userId, pending.upTo());
+            return latest != null ? latest : 0L;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Change log entries newer than {@code afterVersion}, oldest first.
+     */
+    public Slice<KoboLibraryBookEntity> getChanges(Long userId, long afterVersion, int limit) {
+        return koboLibraryBookRepository.findByUserIdAndVersionGreaterThanOrderByVersionAsc(userId, afterVersion, PageRequest.of(0, limit));
+    }
+
+    private long reconcileShelf(Long userId, boolean admin) {
+        Set<BookEntity> shelfBooks = findKoboShelf(userId).map(ShelfEntity::getBookEntities).orElse(Set.of());
+        return record(userId, shelfBooks, koboLibraryBookRepository.findByUserId(userId), admin);
+    }
+
+    private long reconcileBooks(Long userId, Set<Long> bookIds, boolean admin) {
+        if (bookIds.isEmpty()) {
+            return koboLibraryBookRepository.findLatestVersion(userId);
+        }
+        Long shelfId = findKoboShelf(userId).map(ShelfEntity::getId).orElse(null);
+        List<BookEntity> shelfBooks = shelfId == null ? List.of() : bookRepository.findAllById(bookIds).stream()
+                .filter(book -> book.getShelves() != null && book.getShelves().stream().anyMatch(shelf -> shelfId.equals(shelf.getId())))
+                .toList();
+        return record(userId, shelfBooks, koboLibraryBookRepository.findByUserIdAndBookIdIn(userId, bookIds), admin);
+    }
+
+    /**
+     * Compares the books now on the shelf with their log entries and re-versions those that differ. Entries
+     * without a matching shelf book are marked removed, so {@code recorded} must only hold books that were checked.
+     */
+    private long record(Long userId, Collection<BookEntity> shelfBooks, List<KoboLibraryBookEntity> recorded, boolean admin) {
+        Map<Long, KoboLibraryBookEntity> recordedByBook = recorded.stream()
+                .collect(Collectors.toMap(KoboLibraryBookEntity::getBookId, Function.identity()));
+        List<BookEntity> syncedBooks = shelfBooks.stream()
+                .filter(book -> !Boolean.TRUE.equals(book.getDeleted()))
+                .filter(book -> koboLibrarySnapshotService.isSyncable(book, userId, admin))
+                .sorted(Comparator.comparing(BookEntity::getId))
+                .toList();
+
+        long version = koboLibraryBookRepository.findLatestVersion(userId);
+        List<KoboLibraryBookEntity> changed = new ArrayList<>();
+        for (BookEntity book : syncedBooks) {
+            String fileHash = book.getPrimaryBookFile().getCurrentHash();
+            Instant metadataUpdatedAt = book.getMetadataUpdatedAt();
+            KoboLibraryBookEntity entry = recordedByBook.remove(book.getId());
+            if (entry == null) {
+                entry = KoboLibraryBookEntity.builder().userId(userId).bookId(book.getId()).build();
+            } else if (entry.isOnShelf() && Objects.equals(entry.getFileHash(), fileHash)
+                    && Objects.equals(entry.getMetadataUpdatedAt(), metadataUpdatedAt)) {
+                continue;
+            }
+            version++;
+            if (!entry.isOnShelf()) {
+                entry.setOnShelf(true);
+                entry.setAddedVersion(version);
+            }
+            entry.setFileHash(fileHash);
+            entry.setMetadataUpdatedAt(metadataUpdatedAt);
+            entry.setVersion(version);
+            changed.add(entry);
+        }
+        for (KoboLibraryBookEntity entry : recordedByBook.values()) {
+            if (entry.isOnShelf()) {
+                entry.setOnShelf(false);
+                entry.setVersion(++version);
+                changed.add(entry);
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            koboLibraryBookRepository.saveAll(changed);
+            log.debug("Recorded {} Kobo library changes for user {}, now at version {}", changed.size(), userId, version);
+        }
+        return version;
+    }
+
+    private Optional<ShelfEntity> findKoboShelf(Long userId) {
+        return shelfRepository.findByUserIdAndName(userId, ShelfType.KOBO.getName());
+    }
+}
@@ -0,0 +1,95 @@
+package org.booklore.service.kobo;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.booklore.model.entity.AppSettingEntity;
+import org.booklore.model.entity.BookLoreUserEntity;
+import org.booklore.model.entity.UserPermissionsEntity;
+import org.booklore.service.book.BookListViewIndex;
+import org.booklore.service.event.EntityChangeEvents;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers which books changed since each user's Kobo library was last reconciled, so a sync only re-checks
+ * those. Book changes (files, metadata, shelf membership) come from the book list index change feed; changes
+ * that can affect any book, such as library access, permissions, Kobo settings or a shelf rename, ask for the
+ * whole shelf to be re-checked. Nothing is kept across restarts: each user's first sync re-checks their shelf.
+ */
+@Component
+@RequiredArgsConstructor
+public class KoboLibraryChangeTracker implements BookListViewIndex.ChangeListener {
+
+    // past this many tracked books the next sync of every user re-checks the whole shelf instead
+    private static final int MAX_TRACKED_BOOKS = 50_000;
+
+    private final EntityChangeEvents entityChangeEvents;
+    private final BookListViewIndex bookListViewIndex;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Long> bookChanges = new ConcurrentHashMap<>();
+    private final Map<Long, Long> reconciledSequences = new ConcurrentHashMap<>();
+    private volatile long lastFullChange;
+
+    @PostConstruct
+    void register() {
+        bookListViewIndex.addChangeListener(this);
+        // library assignments, admin rights and the CBX conversion settings decide which shelf books are synced
+        entityChangeEvents.onCommit(entity -> entity instanceof BookLoreUserEntity
+                || entity instanceof UserPermissionsEntity
+                || entity instanceof AppSettingEntity, this::allBooksChanged);
+    }
+
+    /**
+     * What changed since the user's library was last reconciled. Pass {@link Pending#upTo()} to
+     * {@link #reconciled} once the changes are recorded.
+     */
+    public Pending pending(Long userId) {
+        long upTo = sequence.get();
+        Long since = reconciledSequences.get(userId);
+        if (since == null || lastFullChange > since) {
+            return new Pending(true, Set.of(), upTo);
+        }
+        Set<Long> bookIds = new HashSet<>();
+        bookChanges.forEach((bookId, changedAt) -> {
+            if (changedAt > since) {
+                bookIds.add(bookId);
+            }
+        });
+        return new Pending(false, bookIds, upTo);
+    }
+
+    public void reconciled(Long userId, long upTo) {
+        reconciledSequences.merge(userId, upTo, Math::max);
+    }
+
+    @Override
+    public void booksChanged(Collection<Long> bookIds) {
+        long changedAt = sequence.incrementAndGet();
+        bookIds.forEach(bookId -> bookChanges.put(bookId, changedAt));
+        if (bookChanges.size() > MAX_TRACKED_BOOKS) {
+            bookChanges.clear();
+            allBooksChanged();
+        }
+    }
+
+    @Override
+    public void booksTouched(Collection<Long> bookIds) {
+        // reading progress is synced separately
+    }
+
+    @Override
+    public void allBooksChanged() {
+        lastFullChange = sequence.incrementAndGet();
+    }
+
+    /**
+     * @param all     whether the whole shelf has to be re-checked; {@code bookIds} is empty then
+     * @param bookIds books changed since the last reconciliation, on the user's shelf or not
+     */
+    public record Pending(boolean all, Set<Long> bookIds, long upTo) {
+    }
+}
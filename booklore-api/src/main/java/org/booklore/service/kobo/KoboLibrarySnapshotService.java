@@ -132,10 +132,10 @@ public class KoboLibrarySnapshotService {
 
     private List<KoboSnapshotBookEntity> mapBooksToKoboSnapshotBook(ShelfEntity shelf, KoboLibrarySnapshotEntity snapshot) {
         Long userId = snapshot.getUserId();
+        boolean admin = isAdmin();
 
         return shelf.getBookEntities().stream()
-                .filter(book -> isBookOwnedByUser(book, userId))
-                .filter(koboCompatibilityService::isBookSupportedForKobo)
+                .filter(book -> isSyncable(book, userId, admin))
                 .map(book -> {
                     KoboSnapshotBookEntity snapshotBook = mapper.toKoboSnapshotBook(book);
                     snapshotBook.setSnapshot(snapshot);
@@ -146,9 +146,21 @@ public class KoboLibrarySnapshotService {
                 .collect(Collectors.toList());
     }
 
-    private boolean isBookOwnedByUser(BookEntity book, Long userId) {
+    boolean isAdmin() {
         BookLoreUser user = authenticationService.getAuthenticatedUser();
-        if (user.getPermissions().isAdmin()) {
+        return user.getPermissions().isAdmin();
+    }
+
+    /**
+     * Whether a book on the user's Kobo shelf goes to their devices: it is in a library they can access and
+     * Kobo can read it.
+     */
+    boolean isSyncable(BookEntity book, Long userId, boolean admin) {
+        return isBookOwnedByUser(book, userId, admin) && koboCompatibilityService.isBookSupportedForKobo(book);
+    }
+
+    private boolean isBookOwnedByUser(BookEntity book, Long userId, boolean admin) {
+        if (admin) {
             return true;
         }
         return book.getLibrary()
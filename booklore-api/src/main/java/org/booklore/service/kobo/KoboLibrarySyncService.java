@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.booklore.model.dto.BookLoreUser;
 import org.booklore.model.dto.BookloreSyncToken;
 import org.booklore.model.dto.kobo.*;
+import org.booklore.model.entity.KoboLibraryBookEntity;
 import org.booklore.model.entity.KoboLibrarySnapshotEntity;
 import org.booklore.model.entity.KoboSnapshotBookEntity;
 import org.booklore.model.entity.UserBookProgressEntity;
@@ -15,6 +16,7 @@ import org.booklore.util.RequestUtils;
 import org.booklore.util.kobo.BookloreSyncTokenGenerator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +25,7 @@ import tools.jackson.databind.ObjectMapper;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @AllArgsConstructor
@@ -30,6 +33,8 @@ import java.util.stream.Collectors;
 @Slf4j
 public class KoboLibrarySyncService {
 
+    private static final int MAX_BOOKS_PER_SYNC = 5;
+
     private final BookloreSyncTokenGenerator tokenGenerator;
     private final KoboLibrarySnapshotService koboLibrarySnapshotService;
     private final KoboEntitlementService entitlementService;
@@ -38,20 +43,134 @@ public class KoboLibrarySyncService {
     private final KoboServerProxy koboServerProxy;
     private final ObjectMapper objectMapper;
     private final KoboSettingsService koboSettingsService;
+    private final KoboLibraryChangeLogService koboLibraryChangeLogService;
 
     @Transactional
     public ResponseEntity<?> syncLibrary(BookLoreUser user, String token) {
         HttpServletRequest request = RequestUtils.getCurrentRequest();
         BookloreSyncToken syncToken = Optional.ofNullable(tokenGenerator.fromRequestHeaders(request)).orElse(new BookloreSyncToken());
 
+        long latestVersion = koboLibraryChangeLogService.refresh(user.getId());
+        LibrarySyncPage page = needsSnapshotSync(syncToken, latestVersion)
+                ? syncFromSnapshots(user, token, syncToken, latestVersion)
+                : syncFromChangeLog(user, token, syncToken);
+
+        List<Entitlement> entitlements = new ArrayList<>(page.entitlements());
+        boolean shouldContinueSync = page.hasMore();
+
+        if (!shouldContinueSync) {
+            ResponseEntity<JsonNode> koboStoreResponse = koboServerProxy.proxyCurrentRequest(null, true);
+            Collection<Entitlement> syncResultsKobo = Optional.ofNullable(koboStoreResponse.getBody())
+                    .map(body -> {
+                        try {
+                            List<Entitlement> results = new ArrayList<>();
+                            if (body.isArray()) {
+                                for (JsonNode node : body) {
+                                    if (node.has("NewEntitlement")) {
+                                        results.add(objectMapper.treeToValue(node, NewEntitlement.class));
+                                    } else if (node.has("ChangedEntitlement")) {
+                                        results.add(objectMapper.treeToValue(node, ChangedEntitlement.class));
+                                    } else {
+                                        log.warn("Unknown entitlement type in Kobo response: {}", node);
+                                    }
+                                }
+                            }
+                            return results;
+                        } catch (Exception e) {
+                            log.error("Failed to map Kobo response to Entitlement objects", e);
+                            return Collections.<Entitlement>emptyList();
+                        }
+                    })
+                    .orElse(Collections.emptyList());
+
+            entitlements.addAll(syncResultsKobo);
+
+            shouldContinueSync = "continue".equalsIgnoreCase(
+                    Optional.ofNullable(koboStoreResponse.getHeaders().getFirst(KoboHeaders.X_KOBO_SYNC)).orElse("")
+            );
+
+            String koboSyncTokenHeader = koboStoreResponse.getHeaders().getFirst(KoboHeaders.X_KOBO_SYNCTOKEN);
+            syncToken = koboSyncTokenHeader != null ? tokenGenerator.fromBase64(koboSyncTokenHeader) : syncToken;
+        }
+
+        page.updateToken().accept(syncToken, shouldContinueSync);
+
+        return ResponseEntity.ok()
+                .header(KoboHeaders.X_KOBO_SYNC, shouldContinueSync ? "continue" : "")
+                .header(KoboHeaders.X_KOBO_SYNCTOKEN, tokenGenerator.toBase64(syncToken))
+                .body(entitlements);
+    }
+
+    /**
+     * The snapshot diff is the repair path: for devices last synced before the change log existed, to finish a
+     * snapshot sync already under way, and for devices claiming a version the log never reached (a restored
+     * database), which get the whole shelf again.
+     */
+    private boolean needsSnapshotSync(BookloreSyncToken syncToken, long latestVersion) {
+        Long lastVersion = syncToken.getLastSuccessfulLibraryVersion();
+        return syncToken.getOngoingSyncPointId() != null
+                || (lastVersion == null && syncToken.getLastSuccessfulSyncPointId() != null)
+                || (lastVersion != null && lastVersion > latestVersion);
+    }
+
+    /**
+     * Sends the change log entries newer than the device's version: books put on the shelf since as new, books it
+     * already has as changed or removed. Books added and removed again in between are skipped.
+     */
+    private LibrarySyncPage syncFromChangeLog(BookLoreUser user, String token, BookloreSyncToken syncToken) {
+        long since = Optional.ofNullable(syncToken.getLastSuccessfulLibraryVersion()).orElse(0L);
+        long cursor = Optional.ofNullable(syncToken.getOngoingLibraryVersion()).orElse(since);
+
+        Slice<KoboLibraryBookEntity> changes = koboLibraryChangeLogService.getChanges(user.getId(), cursor, MAX_BOOKS_PER_SYNC);
+        Set<Long> addedIds = new HashSet<>();
+        Set<Long> changedIds = new HashSet<>();
+        Set<Long> removedIds = new HashSet<>();
+        for (KoboLibraryBookEntity change : changes) {
+            cursor = change.getVersion();
+            if (change.isOnShelf()) {
+                (change.getAddedVersion() > since ? addedIds : changedIds).add(change.getBookId());
+            } else if (change.getAddedVersion() <= since) {
+                removedIds.add(change.getBookId());
+            }
+        }
+
+        List<Entitlement> entitlements = new ArrayList<>();
+        entitlements.addAll(entitlementService.generateNewEntitlements(addedIds, token));
+        entitlements.addAll(entitlementService.generateChangedEntitlements(changedIds, token, false));
+        entitlements.addAll(entitlementService.generateChangedEntitlements(removedIds, token, true));
+
+        boolean hasMore = changes.hasNext();
+        if (!hasMore) {
+            entitlements.addAll(syncReadingStatesToKobo(userBookProgressRepository.findAllKoboShelfBooksNeedingKoboSync(user.getId())));
+            entitlements.addAll(entitlementService.generateTags());
+        }
+
+        long reached = cursor;
+        return new LibrarySyncPage(entitlements, hasMore, (updated, shouldContinueSync) -> {
+            if (shouldContinueSync) {
+                updated.setOngoingLibraryVersion(reached);
+            } else {
+                updated.setOngoingLibraryVersion(null);
+                updated.setLastSuccessfulLibraryVersion(reached);
+            }
+        });
+    }
+
+    private LibrarySyncPage syncFromSnapshots(BookLoreUser user, String token, BookloreSyncToken syncToken, long latestVersion) {
         KoboLibrarySnapshotEntity currSnapshot = koboLibrarySnapshotService.findByIdAndUserId(syncToken.getOngoingSyncPointId(), user.getId()).orElseGet(() -> koboLibrarySnapshotService.create(user.getId()));
-        Optional<KoboLibrarySnapshotEntity> prevSnapshot = koboLibrarySnapshotService.findByIdAndUserId(syncToken.getLastSuccessfulSyncPointId(), user.getId());
+        Optional<KoboLibrarySnapshotEntity> prevSnapshot = syncToken.getLastSuccessfulLibraryVersion() != null
+                ? Optional.empty()
+                : koboLibrarySnapshotService.findByIdAndUserId(syncToken.getLastSuccessfulSyncPointId(), user.getId());
+        // the snapshot holds the shelf as of this version; anything recorded later reaches the device through the log
+        long snapshotVersion = syncToken.getOngoingSyncPointId() != null && syncToken.getOngoingLibraryVersion() != null
+                ? syncToken.getOngoingLibraryVersion()
+                : latestVersion;
 
         List<Entitlement> entitlements = new ArrayList<>();
         boolean shouldContinueSync = false;
 
         if (prevSnapshot.isPresent()) {
-            int maxRemaining = 5;
+            int maxRemaining = MAX_BOOKS_PER_SYNC;
             List<KoboSnapshotBookEntity> removedAll = new ArrayList<>();
             List<KoboSnapshotBookEntity> changedAll = new ArrayList<>();
 
@@ -84,14 +203,8 @@ public class KoboLibrarySyncService {
             entitlements.addAll(entitlementService.generateNewEntitlements(addedIds, token));
             entitlements.addAll(entitlementService.generateChangedEntitlements(changedIds, token, false));
             entitlements.addAll(entitlementService.generateChangedEntitlements(removedIds, token, true));
-
-
-            if (!shouldContinueSync) {
-                entitlements.addAll(syncReadingStatesToKobo(user.getId(), currSnapshot.getId()));
-                entitlements.addAll(entitlementService.generateTags());
-            }
         } else {
-            int maxRemaining = 5;
+            int maxRemaining = MAX_BOOKS_PER_SYNC;
             List<KoboSnapshotBookEntity> snapshotBookEntities = new ArrayList<>();
             while (maxRemaining > 0) {
                 Page<KoboSnapshotBookEntity> page = koboLibrarySnapshotService.getUnsyncedBooks(currSnapshot.getId(), PageRequest.of(0, maxRemaining));
@@ -102,67 +215,31 @@ public class KoboLibrarySyncService {
             }
             Set<Long> ids = snapshotBookEntities.stream().map(KoboSnapshotBookEntity::getBookId).collect(Collectors.toSet());
             entitlements.addAll(entitlementService.generateNewEntitlements(ids, token));
-
-            if (!shouldContinueSync) {
-                entitlements.addAll(syncReadingStatesToKobo(user.getId(), currSnapshot.getId()));
-                entitlements.addAll(entitlementService.generateTags());
-            }
         }
 
         if (!shouldContinueSync) {
-            ResponseEntity<JsonNode> koboStoreResponse = koboServerProxy.proxyCurrentRequest(null, true);
-            Collection<Entitlement> syncResultsKobo = Optional.ofNullable(koboStoreResponse.getBody())
-                    .map(body -> {
-                        try {
-                            List<Entitlement> results = new ArrayList<>();
-                            if (body.isArray()) {
-                                for (JsonNode node : body) {
-                                    if (node.has("NewEntitlement")) {
-                                        results.add(objectMapper.treeToValue(node, NewEntitlement.class));
-                                    } else if (node.has("ChangedEntitlement")) {
-                                        results.add(objectMapper.treeToValue(node, ChangedEntitlement.class));
-                                    } else {
-                                        log.warn("Unknown entitlement type in Kobo response: {}", node);
-                                    }
-                                }
-                            }
-                            return results;
-                        } catch (Exception e) {
-                            log.error("Failed to map Kobo response to Entitlement objects", e);
-                            return Collections.<Entitlement>emptyList();
-                        }
-                    })
-                    .orElse(Collections.emptyList());
-
-            entitlements.addAll(syncResultsKobo);
-
-            shouldContinueSync = "continue".equalsIgnoreCase(
-                    Optional.ofNullable(koboStoreResponse.getHeaders().getFirst(KoboHeaders.X_KOBO_SYNC)).orElse("")
-            );
-
-            String koboSyncTokenHeader = koboStoreResponse.getHeaders().getFirst(KoboHeaders.X_KOBO_SYNCTOKEN);
-            syncToken = koboSyncTokenHeader != null ? tokenGenerator.fromBase64(koboSyncTokenHeader) : syncToken;
+            entitlements.addAll(syncReadingStatesToKobo(userBookProgressRepository.findAllBooksNeedingKoboSync(user.getId(), currSnapshot.getId())));
+            entitlements.addAll(entitlementService.generateTags());
         }
 
-        if (shouldContinueSync) {
-            syncToken.setOngoingSyncPointId(currSnapshot.getId());
-        } else {
-            prevSnapshot.ifPresent(sp -> koboLibrarySnapshotService.deleteById(sp.getId()));
-            koboDeletedBookProgressRepository.deleteBySnapshotIdAndUserId(syncToken.getOngoingSyncPointId(), user.getId());
-            syncToken.setOngoingSyncPointId(null);
-            syncToken.setLastSuccessfulSyncPointId(currSnapshot.getId());
-        }
-
-        return ResponseEntity.ok()
-                .header(KoboHeaders.X_KOBO_SYNC, shouldContinueSync ? "continue" : "")
-                .header(KoboHeaders.X_KOBO_SYNCTOKEN, tokenGenerator.toBase64(syncToken))
-                .body(entitlements);
+        return new LibrarySyncPage(entitlements, shouldContinueSync, (updated, continueSync) -> {
+            if (continueSync) {
+                updated.setOngoingSyncPointId(currSnapshot.getId());
+                updated.setOngoingLibraryVersion(snapshotVersion);
+            } else {
+                // later syncs read the change log, so neither snapshot is needed anymore
+                prevSnapshot.ifPresent(sp -> koboLibrarySnapshotService.deleteById(sp.getId()));
+                koboLibrarySnapshotService.deleteById(currSnapshot.getId());
+                koboDeletedBookProgressRepository.deleteBySnapshotIdAndUserId(currSnapshot.getId(), user.getId());
+                updated.setOngoingSyncPointId(null);
+                updated.setLastSuccessfulSyncPointId(null);
+                updated.setOngoingLibraryVersion(null);
+                updated.setLastSuccessfulLibraryVersion(snapshotVersion);
+            }
+        });
     }
 
-    private List<ChangedReadingState> syncReadingStatesToKobo(Long userId, String snapshotId) {
-        List<UserBookProgressEntity> booksNeedingSync =
-                userBookProgressRepository.findAllBooksNeedingKoboSync(userId, snapshotId);
-
+    private List<ChangedReadingState> syncReadingStatesToKobo(List<UserBookProgressEntity> booksNeedingSync) {
         if (!koboSettingsService.getCurrentUserSettings().isTwoWayProgressSync()) {
             booksNeedingSync = booksNeedingSync.stream()
                     .filter(p -> needsStatusSync(p) || needsKoboProgressSync(p))
@@ -221,4 +298,12 @@ public class KoboLibrarySyncService {
 
         return false;
     }
-}
+
+    /**
+     * One response's worth of library entitlements, and how to record the sync position in the token once it is
+     * known whether the sync continues.
+     */
+    private record LibrarySyncPage(List<Entitlement> entitlements, boolean hasMore,
+                                   BiConsumer<BookloreSyncToken, Boolean> updateToken) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package org.booklore.service.kobo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.booklore.model.dto.settings.KoboSettings;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookMetadataEntity;
+import org.booklore.model.enums.ShelfType;
+import org.booklore.repository.BookRepository;
+import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.book.BookListViewIndex;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Converts books into {@link KoboConversionCache} in the background as they are put on a Kobo shelf, or change
+ * while on one, so a device's first download doesn't wait for kepubify or the CBX converter. Changed books come
+ * from the book list index change feed; a single thread works through them one at a time, so pre-conversion never
+ * takes more than one conversion's worth of CPU away from requests. Every Kobo shelf is gone through once at
+ * startup and whenever all books are reported changed.
+ */
+@Slf4j
+@Component
+public class KoboPreconverter implements BookListViewIndex.ChangeListener {
+
+    // changes beyond this many queued books are picked up by a rescan of the Kobo shelves instead
+    private static final int MAX_QUEUED_BOOKS = 10_000;
+    private static final int BATCH_SIZE = 100;
+    private static final long POLL_SECONDS = 1;
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
+
+    private final KoboConversionCache koboConversionCache;
+    private final BookRepository bookRepository;
+    private final AppSettingService appSettingService;
+    private final BookListViewIndex bookListViewIndex;
+    private final TransactionTemplate txTemplate;
+    private final boolean enabled;
+
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rescan = new AtomicBoolean(true);
+    private Thread worker;
+    private volatile boolean stopped;
+
+    public KoboPreconverter(AppProperties appProperties, KoboConversionCache koboConversionCache, BookRepository bookRepository,
+                            AppSettingService appSettingService, BookListViewIndex bookListViewIndex,
+                            PlatformTransactionManager transactionManager) {
+        this.koboConversionCache = koboConversionCache;
+        this.bookRepository = bookRepository;
+        this.appSettingService = appSettingService;
+        this.bookListViewIndex = bookListViewIndex;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.txTemplate.setReadOnly(true);
+        this.enabled = appProperties.getKoboConversionCache().isPreconvert() && koboConversionCache.isEnabled();
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        bookListViewIndex.addChangeListener(this);
+        worker = Thread.ofPlatform().name("kobo-preconvert").daemon().start(this::run);
+    }
+
+    @Override
+    public void booksChanged(Collection<Long> bookIds) {
+        for (Long bookId : bookIds) {
+            if (queued.size() >= MAX_QUEUED_BOOKS) {
+                rescan.set(true);
+                return;
+            }
+            if (queued.add(bookId)) {
+                queue.add(bookId);
+            }
+        }
+    }
+
+    @Override
+    public void booksTouched(Collection<Long> bookIds) {
+        // reading progress doesn't change what is sent to the device
+    }
+
+    @Override
+    public void allBooksChanged() {
+        rescan.set(true);
+    }
+
+    private void run() {
+        List<Long> batch = new ArrayList<>(BATCH_SIZE);
+        while (!stopped) {
+            try {
+                if (rescan.getAndSet(false)) {
+                    booksChanged(txTemplate.execute(status -> bookRepository.findIdsByShelfName(ShelfType.KOBO.getName())));
+                }
+                Long first = queue.poll(POLL_SECONDS, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                // a book changing again while it is converted is queued again
+                batch.forEach(queued::remove);
+                List<Long> onKoboShelf = txTemplate.execute(status -> bookRepository.findIdsByShelfNameAndIdIn(ShelfType.KOBO.getName(), batch));
+                for (Long bookId : onKoboShelf) {
+                    if (stopped) {
+                        return;
+                    }
+                    preconvert(bookId);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to look up books to convert for Kobo devices: {}", e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    private void preconvert(Long bookId) {
+        try {
+            KoboSettings koboSettings = appSettingService.getAppSettings().getKoboSettings();
+            // everything the conversion reads is loaded up front, so no connection is held while it runs
+            BookEntity book = txTemplate.execute(status -> bookRepository.findByIdWithBookFiles(bookId)
+                    .map(KoboPreconverter::loadForConversion)
+                    .orElse(null));
+            if (koboSettings == null || book == null || book.getPrimaryBookFile() == null) {
+                return;
+            }
+            koboConversionCache.preconvert(book, koboSettings);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Failed to convert book {} for Kobo devices: {}", bookId, e.getMessage());
+        }
+    }
+
+    // the CBX converter embeds the authors, categories and tags, which are not part of the fetch graph
+    private static BookEntity loadForConversion(BookEntity book) {
+        BookMetadataEntity metadata = book.getMetadata();
+        if (metadata != null) {
+            Hibernate.initialize(metadata.getAuthors());
+            Hibernate.initialize(metadata.getCategories());
+            Hibernate.initialize(metadata.getTags());
+        }
+        return book;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stopped = true;
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_WAIT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
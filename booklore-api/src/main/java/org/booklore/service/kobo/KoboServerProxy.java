@@ -136,9 +136,7 @@ public class KoboServerProxy {
             if (responseHeaders.getFirst(KoboHeaders.X_KOBO_SYNCTOKEN) != null && includeSyncToken && syncToken != null) {
                 String koboToken = responseHeaders.getFirst(KoboHeaders.X_KOBO_SYNCTOKEN);
                 if (koboToken != null) {
-                    BookloreSyncToken updated = BookloreSyncToken.builder()
-                            .ongoingSyncPointId(syncToken.getOngoingSyncPointId())
-                            .lastSuccessfulSyncPointId(syncToken.getLastSuccessfulSyncPointId())
+                    BookloreSyncToken updated = syncToken.toBuilder()
                             .rawKoboSyncToken(koboToken)
                             .build();
                     responseHeaders.set(KoboHeaders.X_KOBO_SYNCTOKEN, bookloreSyncTokenGenerator.toBase64(updated));
@@ -1,5 +1,6 @@
 package org.booklore.service.kobo;
 
+import org.booklore.service.book.BookMediaCacheValidator;
 import org.booklore.service.book.BookService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,8 +26,11 @@ public class KoboThumbnailService {
             log.warn("Thumbnail not found for bookId={}", coverHash);
             return ResponseEntity.notFound().build();
         }
+        // image ids are cover hashes, so the content behind one never changes
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_TYPE, "image/jpeg")
+                .header(HttpHeaders.CACHE_CONTROL, BookMediaCacheValidator.IMMUTABLE)
+                .eTag(coverHash)
                 .body(image);
     }
 
@@ -22,6 +22,7 @@ import org.booklore.util.BookFileGroupingUtils;
 import org.booklore.util.FileService;
 import org.booklore.util.FileUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.awt.image.BufferedImage;
@@ -62,6 +63,15 @@ public class FileAsBookProcessor {
         log.info("Finished processing library '{}'", libraryEntity.getName());
     }
 
+    /**
+     * Processes a single book group in its own transaction. Used by {@link LibraryScanPipeline} workers,
+     * which run outside the caller's transaction. Exceptions propagate so the pipeline can retry conflicts.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void processGroupInNewTransaction(List<LibraryFile> group, LibraryEntity libraryEntity) {
+        processGroup(group, libraryEntity);
+    }
+
     private void processGroupWithErrorHandling(List<LibraryFile> group, LibraryEntity libraryEntity) {
         try {
             processGroup(group, libraryEntity);
@@ -137,12 +147,13 @@ public class FileAsBookProcessor {
         String hash;
         Long fileSizeKb;
         if (file.isFolderBased()) {
-            hash = FileFingerprint.generateFolderHash(file.getFullPath());
+            hash = file.getHash() != null ? file.getHash() : FileFingerprint.generateFolderHash(file.getFullPath());
             fileSizeKb = FileUtils.getFolderSizeInKb(file.getFullPath());
         } else {
-            hash = FileFingerprint.generateHash(file.getFullPath());
+            hash = file.getHash() != null ? file.getHash() : FileFingerprint.generateHash(file.getFullPath());
             fileSizeKb = FileUtils.getFileSizeInKb(file.getFullPath());
         }
+        file.setHash(hash);
 
         BookFileEntity additionalFile = BookFileEntity.builder()
                 .book(bookEntity)
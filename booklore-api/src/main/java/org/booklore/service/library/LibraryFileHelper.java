@@ -1,41 +1,68 @@
 package org.booklore.service.library;
 
+import org.booklore.config.AppProperties;
 import org.booklore.model.dto.settings.LibraryFile;
 import org.booklore.model.entity.LibraryEntity;
 import org.booklore.model.entity.LibraryPathEntity;
 import org.booklore.model.enums.BookFileExtension;
 import org.booklore.model.enums.BookFileType;
 import org.booklore.util.FileUtils;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jspecify.annotations.NonNull;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.EnumSet;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class LibraryFileHelper {
 
     private static final int MIN_AUDIO_FILES_FOR_FOLDER_AUDIOBOOK = 2;
 
+    private final AppProperties appProperties;
+
     public List<LibraryFile> getAllLibraryFiles(LibraryEntity libraryEntity) throws IOException {
+        return getAllLibraryFiles(libraryEntity, file -> {
+        });
+    }
+
+    /**
+     * Walks the library like {@link #getAllLibraryFiles(LibraryEntity)} and also hands every file to {@code onFound}
+     * as soon as its directory has been listed, so a caller can start work on it while the walk goes on. The
+     * callback runs on the walk's worker threads, in no particular order, and must not block.
+     */
+    public List<LibraryFile> getAllLibraryFiles(LibraryEntity libraryEntity, Consumer<LibraryFile> onFound) throws IOException {
         List<LibraryFile> allFiles = new ArrayList<>();
-        for (LibraryPathEntity pathEntity : libraryEntity.getLibraryPaths()) {
-            allFiles.addAll(findLibraryFiles(pathEntity, libraryEntity));
+        try (ForkJoinPool pool = newWalkPool()) {
+            for (LibraryPathEntity pathEntity : libraryEntity.getLibraryPaths()) {
+                List<LibraryFile> pathFiles = new ArrayList<>();
+                walk(pool, pathEntity, libraryEntity, file -> {
+                    synchronized (pathFiles) {
+                        pathFiles.add(file);
+                    }
+                    onFound.accept(file);
+                });
+                // Directories finish in arbitrary order; sort so grouping and primary-file selection stay deterministic
+                pathFiles.sort(Comparator.comparing(LibraryFile::getFileSubPath).thenComparing(LibraryFile::getFileName));
+                allFiles.addAll(pathFiles);
+            }
         }
         return allFiles;
     }
@@ -44,6 +71,20 @@ public class LibraryFileHelper {
         return filterByAllowedFormats(getAllLibraryFiles(libraryEntity), libraryEntity.getAllowedFormats());
     }
 
+    /**
+     * {@link #getLibraryFiles(LibraryEntity)}, handing each file of an allowed format to {@code onFound} as it is found.
+     */
+    public List<LibraryFile> getLibraryFiles(LibraryEntity libraryEntity, Consumer<LibraryFile> onFound) throws IOException {
+        List<BookFileType> allowedFormats = libraryEntity.getAllowedFormats();
+        Set<BookFileType> allowed = allowedFormats == null || allowedFormats.isEmpty() ? null : new HashSet<>(allowedFormats);
+        List<LibraryFile> files = getAllLibraryFiles(libraryEntity, file -> {
+            if (allowed == null || allowed.contains(file.getBookFileType())) {
+                onFound.accept(file);
+            }
+        });
+        return filterByAllowedFormats(files, allowedFormats);
+    }
+
     List<LibraryFile> filterByAllowedFormats(List<LibraryFile> files, List<BookFileType> allowedFormats) {
         if (allowedFormats == null || allowedFormats.isEmpty()) {
             return files;
@@ -54,138 +95,193 @@ public class LibraryFileHelper {
                 .collect(java.util.stream.Collectors.toList());
     }
 
-    private List<LibraryFile> findLibraryFiles(LibraryPathEntity pathEntity, LibraryEntity libraryEntity) throws IOException {
+    private ForkJoinPool newWalkPool() {
+        return new ForkJoinPool(Math.max(1, appProperties.getLibraryScan().getWalkParallelism()));
+    }
+
+    private void walk(ForkJoinPool pool, LibraryPathEntity pathEntity, LibraryEntity libraryEntity, Consumer<LibraryFile> sink) {
         Path libraryPath = Path.of(pathEntity.getPath());
-        List<LibraryFile> libraryFiles = new ArrayList<>();
-
-        // Track directories that contain audio files for folder-based audiobook detection
-        Map<Path, List<Path>> dirAudioFiles = new HashMap<>();
-        Map<Path, Boolean> dirHasNonAudioBooks = new HashMap<>();
-        Set<Path> processedAsFolderAudiobook = new HashSet<>();
-
-        Files.walkFileTree(libraryPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
-            @Override
-            @NonNull
-            public FileVisitResult visitFile(@NonNull Path file, @NonNull BasicFileAttributes attrs) {
-                if (FileUtils.shouldIgnore(file) || !Files.isReadable(file) || !Files.isRegularFile(file)) {
-                    return FileVisitResult.CONTINUE;
-                }
+        if (FileUtils.shouldIgnore(libraryPath) || !Files.isReadable(libraryPath)) {
+            return;
+        }
+        BasicFileAttributes rootAttrs = readAttributes(libraryPath);
+        if (rootAttrs == null || !rootAttrs.isDirectory()) {
+            return;
+        }
+        pool.invoke(new DirectoryTask(new WalkContext(libraryPath, pathEntity, libraryEntity, sink), libraryPath, rootAttrs,
+                Ancestors.ROOT.with(rootAttrs.fileKey())));
+    }
+
+    /**
+     * Reads attributes following symlinks, like {@code Files.walkFileTree} with FOLLOW_LINKS. Broken links
+     * fall back to the link's own attributes so they are skipped as non-regular files rather than logged as failures.
+     */
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException ignored) {
+                log.error("Failed read path [{}]: {}", path, e.getMessage(), e);
+                return null;
+            }
+        }
+    }
 
-                String fileName = file.getFileName().toString();
-                Optional<BookFileExtension> bookExtension = BookFileExtension.fromFileName(fileName);
+    private record WalkContext(Path libraryPath, LibraryPathEntity pathEntity, LibraryEntity libraryEntity,
+                               Consumer<LibraryFile> sink) {
+    }
 
-                if (bookExtension.isEmpty()) {
-                    return FileVisitResult.CONTINUE;
-                }
+    /**
+     * File keys of the directories above the current one, used to stop at symlink loops the same way
+     * {@code Files.walkFileTree} does (only an ancestor counts as a loop, not a sibling reached twice).
+     */
+    private record Ancestors(Object fileKey, Ancestors parent) {
+        static final Ancestors ROOT = new Ancestors(null, null);
 
-                Path parentDir = file.getParent();
-                BookFileType fileType = bookExtension.get().getType();
-
-                if (fileType == BookFileType.AUDIOBOOK) {
-                    // Track audio files per directory for folder-based detection
-                    dirAudioFiles.computeIfAbsent(parentDir, k -> new ArrayList<>()).add(file);
-                } else {
-                    // Track that this directory has non-audio book files
-                    dirHasNonAudioBooks.put(parentDir, true);
-
-                    // Add non-audio files immediately
-                    libraryFiles.add(LibraryFile.builder()
-                            .libraryEntity(libraryEntity)
-                            .libraryPathEntity(pathEntity)
-                            .fileSubPath(FileUtils.getRelativeSubPath(pathEntity.getPath(), file))
-                            .fileName(fileName)
-                            .bookFileType(fileType)
-                            .build());
-                }
+        Ancestors with(Object key) {
+            return new Ancestors(key, this);
+        }
 
-                return FileVisitResult.CONTINUE;
+        boolean contains(Object key) {
+            if (key == null) {
+                return false;
+            }
+            for (Ancestors a = this; a != null; a = a.parent) {
+                if (key.equals(a.fileKey)) {
+                    return true;
+                }
             }
+            return false;
+        }
+    }
 
-            @Override
-            @NonNull
-            public FileVisitResult postVisitDirectory(@NonNull Path dir, IOException exc) throws IOException {
-                // Check if this directory should be treated as a folder-based audiobook
-                List<Path> audioFiles = dirAudioFiles.get(dir);
-                boolean hasNonAudioBooks = dirHasNonAudioBooks.getOrDefault(dir, false);
-
-                if (audioFiles != null && audioFiles.size() >= MIN_AUDIO_FILES_FOR_FOLDER_AUDIOBOOK && !hasNonAudioBooks) {
-                    // Don't treat library root as audiobook folder
-                    if (!dir.equals(libraryPath)) {
-                        if (FileUtils.isSeriesFolder(audioFiles)) {
-                            log.info("Detected series folder: {} ({} audio files with distinct titles)", dir.getFileName(), audioFiles.size());
-                            addIndividualAudioFiles(audioFiles, libraryEntity, pathEntity, libraryFiles);
-                        } else {
-                            log.info("Detected folder-based audiobook: {} ({} audio files)", dir.getFileName(), audioFiles.size());
-
-                            processedAsFolderAudiobook.add(dir);
-
-                            libraryFiles.add(LibraryFile.builder()
-                                    .libraryEntity(libraryEntity)
-                                    .libraryPathEntity(pathEntity)
-                                    .fileSubPath(FileUtils.getRelativeSubPath(pathEntity.getPath(), dir))
-                                    .fileName(dir.getFileName().toString())
-                                    .bookFileType(BookFileType.AUDIOBOOK)
-                                    .folderBased(true)
-                                    .build());
-                        }
-                    } else {
-                        // Library root - add individual audio files
-                        addIndividualAudioFiles(audioFiles, libraryEntity, pathEntity, libraryFiles);
+    /**
+     * Lists one directory, forks a task per subdirectory and emits the directory's own book files.
+     * Folder-audiobook detection only depends on a directory's direct children, so each directory
+     * can decide independently of the order in which its subdirectories finish.
+     */
+    private static final class DirectoryTask extends RecursiveAction {
+
+        private final WalkContext context;
+        private final Path dir;
+        private final BasicFileAttributes dirAttrs;
+        private final Ancestors ancestors;
+
+        private DirectoryTask(WalkContext context, Path dir, BasicFileAttributes dirAttrs, Ancestors ancestors) {
+            this.context = context;
+            this.dir = dir;
+            this.dirAttrs = dirAttrs;
+            this.ancestors = ancestors;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            List<LibraryFile> bookFiles = new ArrayList<>();
+            Map<Path, BasicFileAttributes> audioFiles = new LinkedHashMap<>();
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (FileUtils.shouldIgnore(entry)) {
+                        continue;
                     }
-                } else if (audioFiles != null) {
-                    // Not a folder-based audiobook - add individual audio files
-                    // But skip if parent was already processed as folder-based audiobook
-                    boolean parentIsAudiobookFolder = false;
-                    Path parent = dir.getParent();
-                    while (parent != null && parent.startsWith(libraryPath)) {
-                        if (processedAsFolderAudiobook.contains(parent)) {
-                            parentIsAudiobookFolder = true;
-                            break;
-                        }
-                        parent = parent.getParent();
+                    BasicFileAttributes attrs = readAttributes(entry);
+                    if (attrs == null) {
+                        continue;
                     }
-
-                    if (!parentIsAudiobookFolder) {
-                        addIndividualAudioFiles(audioFiles, libraryEntity, pathEntity, libraryFiles);
+                    if (attrs.isDirectory()) {
+                        if (!Files.isReadable(entry)) {
+                            continue;
+                        }
+                        if (ancestors.contains(attrs.fileKey())) {
+                            log.warn("Skipping symbolic link loop at [{}]", entry);
+                            continue;
+                        }
+                        DirectoryTask subtask = new DirectoryTask(context, entry, attrs, ancestors.with(attrs.fileKey()));
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    } else if (attrs.isRegularFile()) {
+                        visitFile(entry, attrs, bookFiles, audioFiles);
                     }
                 }
+            } catch (IOException e) {
+                log.error("Failed read path [{}]: {}", dir, e.getMessage(), e);
+            }
+
+            bookFiles.forEach(context.sink());
+            emitAudioFiles(audioFiles, !bookFiles.isEmpty());
 
-                return FileVisitResult.CONTINUE;
+            for (DirectoryTask subtask : subtasks) {
+                subtask.join();
             }
+        }
 
-            private void addIndividualAudioFiles(List<Path> audioFiles, LibraryEntity libraryEntity,
-                    LibraryPathEntity pathEntity, List<LibraryFile> libraryFiles) {
-                for (Path audioFile : audioFiles) {
-                    String fileName = audioFile.getFileName().toString();
-                    Optional<BookFileExtension> ext = BookFileExtension.fromFileName(fileName);
-
-                    libraryFiles.add(LibraryFile.builder()
-                            .libraryEntity(libraryEntity)
-                            .libraryPathEntity(pathEntity)
-                            .fileSubPath(FileUtils.getRelativeSubPath(pathEntity.getPath(), audioFile))
-                            .fileName(fileName)
-                            .bookFileType(ext.map(BookFileExtension::getType).orElse(BookFileType.AUDIOBOOK))
-                            .build());
-                }
+        private void visitFile(Path file, BasicFileAttributes attrs, List<LibraryFile> bookFiles,
+                               Map<Path, BasicFileAttributes> audioFiles) {
+            String fileName = file.getFileName().toString();
+            Optional<BookFileExtension> bookExtension = BookFileExtension.fromFileName(fileName);
+            // Extension check first: readability costs a syscall, and most files in a library are not books
+            if (bookExtension.isEmpty() || !Files.isReadable(file)) {
+                return;
             }
 
-            @Override
-            @NonNull
-            public FileVisitResult visitFileFailed(@NonNull Path file, IOException e) {
-                log.error("Failed read path [{}]: {}", file, e.getMessage(), e);
-                return FileVisitResult.CONTINUE;
+            BookFileType fileType = bookExtension.get().getType();
+            if (fileType == BookFileType.AUDIOBOOK) {
+                // Track audio files for folder-based detection once the whole directory is listed
+                audioFiles.put(file, attrs);
+            } else {
+                bookFiles.add(LibraryFile.builder()
+                        .libraryEntity(context.libraryEntity())
+                        .libraryPathEntity(context.pathEntity())
+                        .fileSubPath(FileUtils.getRelativeSubPath(context.pathEntity().getPath(), file))
+                        .fileName(fileName)
+                        .bookFileType(fileType)
+                        .attributes(attrs)
+                        .build());
             }
+        }
 
-            @Override
-            @NonNull
-            public FileVisitResult preVisitDirectory(@NonNull Path dir, @NonNull BasicFileAttributes attrs) throws IOException {
-                if (FileUtils.shouldIgnore(dir) || !Files.isReadable(dir)) {
-                    return FileVisitResult.SKIP_SUBTREE;
-                }
+        private void emitAudioFiles(Map<Path, BasicFileAttributes> audioFiles, boolean hasNonAudioBooks) {
+            if (audioFiles.isEmpty()) {
+                return;
+            }
+            if (audioFiles.size() < MIN_AUDIO_FILES_FOR_FOLDER_AUDIOBOOK || hasNonAudioBooks || dir.equals(context.libraryPath())) {
+                // Not a folder-based audiobook (or the library root) - add individual audio files
+                addIndividualAudioFiles(audioFiles);
+            } else if (FileUtils.isSeriesFolder(new ArrayList<>(audioFiles.keySet()))) {
+                log.info("Detected series folder: {} ({} audio files with distinct titles)", dir.getFileName(), audioFiles.size());
+                addIndividualAudioFiles(audioFiles);
+            } else {
+                log.info("Detected folder-based audiobook: {} ({} audio files)", dir.getFileName(), audioFiles.size());
+                context.sink().accept(LibraryFile.builder()
+                        .libraryEntity(context.libraryEntity())
+                        .libraryPathEntity(context.pathEntity())
+                        .fileSubPath(FileUtils.getRelativeSubPath(context.pathEntity().getPath(), dir))
+                        .fileName(dir.getFileName().toString())
+                        .bookFileType(BookFileType.AUDIOBOOK)
+                        .folderBased(true)
+                        .attributes(dirAttrs)
+                        .build());
+            }
+        }
 
-                return super.preVisitDirectory(dir, attrs);
+        private void addIndividualAudioFiles(Map<Path, BasicFileAttributes> audioFiles) {
+            for (Map.Entry<Path, BasicFileAttributes> entry : audioFiles.entrySet()) {
+                Path audioFile = entry.getKey();
+                String fileName = audioFile.getFileName().toString();
+                Optional<BookFileExtension> ext = BookFileExtension.fromFileName(fileName);
+
+                context.sink().accept(LibraryFile.builder()
+                        .libraryEntity(context.libraryEntity())
+                        .libraryPathEntity(context.pathEntity())
+                        .fileSubPath(FileUtils.getRelativeSubPath(context.pathEntity().getPath(), audioFile))
+                        .fileName(fileName)
+                        .bookFileType(ext.map(BookFileExtension::getType).orElse(BookFileType.AUDIOBOOK))
+                        .attributes(entry.getValue())
+                        .build());
             }
-        });
-        return libraryFiles;
+        }
     }
 }
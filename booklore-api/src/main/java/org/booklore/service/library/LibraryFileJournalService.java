@@ -0,0 +1,204 @@
+package org.booklore.service.library;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.model.dto.settings.LibraryFile;
+import org.booklore.model.entity.LibraryEntity;
+import org.booklore.model.entity.LibraryFileJournalEntity;
+import org.booklore.model.entity.LibraryPathEntity;
+import org.booklore.repository.LibraryFileJournalRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a per-library-path journal of (sub path, size, mtime, file key, hash) so rescans can tell which
+ * files changed since the previous scan without reloading every book or re-fingerprinting every file.
+ * A folder audiobook is journaled by the files it contains: their total size and latest mtime, as rewriting
+ * a track in place does not touch the folder's own mtime.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LibraryFileJournalService {
+
+    private final LibraryFileJournalRepository journalRepository;
+
+    public record FileStat(long size, long lastModified, String fileKey) {
+    }
+
+    public record ChangedFile(LibraryFile file, FileStat stat) {
+    }
+
+    public record JournalDiff(Map<String, LibraryFileJournalEntity> entries,
+                              List<ChangedFile> changedFiles,
+                              List<LibraryFileJournalEntity> removedEntries,
+                              int unchangedCount) {
+
+        /**
+         * True when every walked file matches its journal entry and nothing disappeared.
+         * An empty journal is never considered unchanged, so the first rescan always runs in full.
+         */
+        public boolean isUnchanged() {
+            return changedFiles.isEmpty() && removedEntries.isEmpty() && unchangedCount > 0;
+        }
+    }
+
+    /**
+     * Compares the walked files against the journal. Files whose stat matches their entry get the
+     * journaled hash attached, so downstream processing does not fingerprint them again.
+     */
+    @Transactional(readOnly = true)
+    public JournalDiff diff(LibraryEntity libraryEntity, List<LibraryFile> libraryFiles) {
+        List<Long> pathIds = libraryEntity.getLibraryPaths().stream()
+                .map(LibraryPathEntity::getId)
+                .toList();
+
+        Map<String, LibraryFileJournalEntity> entries = new HashMap<>();
+        for (LibraryFileJournalEntity entry : journalRepository.findByLibraryPathIdIn(pathIds)) {
+            entries.put(generateKey(entry.getLibraryPathId(), entry.getFileSubPath(), entry.getFileName()), entry);
+        }
+
+        Set<String> seenKeys = new HashSet<>(libraryFiles.size() * 2);
+        List<ChangedFile> changed = new ArrayList<>();
+        int unchanged = 0;
+
+        for (LibraryFile file : libraryFiles) {
+            String key = generateKey(file);
+            seenKeys.add(key);
+            FileStat stat = stat(file);
+            LibraryFileJournalEntity entry = entries.get(key);
+
+            if (entry != null && stat != null && matches(entry, stat, file.isFolderBased())) {
+                if (file.getHash() == null) {
+                    file.setHash(entry.getHash());
+                }
+                unchanged++;
+            } else {
+                changed.add(new ChangedFile(file, stat));
+            }
+        }
+
+        List<LibraryFileJournalEntity> removed = entries.entrySet().stream()
+                .filter(e -> !seenKeys.contains(e.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+
+        log.debug("Journal diff for library '{}': {} unchanged, {} changed, {} removed",
+                libraryEntity.getName(), unchanged, changed.size(), removed.size());
+        return new JournalDiff(entries, changed, removed, unchanged);
+    }
+
+    /**
+     * Writes the outcome of a scan back to the journal. Hashes computed while processing the changed
+     * files are picked up from their {@link LibraryFile}; files that were not hashed are stored without one.
+     */
+    @Transactional
+    public void record(JournalDiff diff) {
+        Instant now = Instant.now();
+        List<LibraryFileJournalEntity> toSave = new ArrayList<>();
+
+        for (ChangedFile changed : diff.changedFiles()) {
+            if (changed.stat() == null) {
+                continue;
+            }
+            LibraryFile file = changed.file();
+            LibraryFileJournalEntity entry = diff.entries().get(generateKey(file));
+            if (entry == null) {
+                entry = LibraryFileJournalEntity.builder()
+                        .libraryPathId(file.getLibraryPathEntity().getId())
+                        .fileSubPath(file.getFileSubPath() == null ? "" : file.getFileSubPath())
+                        .fileName(file.getFileName())
+                        .build();
+            }
+            entry.setFolderBased(file.isFolderBased());
+            entry.setFileSize(changed.stat().size());
+            entry.setLastModified(changed.stat().lastModified());
+            entry.setFileKey(changed.stat().fileKey());
+            entry.setHash(file.getHash());
+            entry.setUpdatedAt(now);
+            toSave.add(entry);
+        }
+
+        if (!toSave.isEmpty()) {
+            journalRepository.saveAll(toSave);
+        }
+        if (!diff.removedEntries().isEmpty()) {
+            journalRepository.deleteAllInBatch(diff.removedEntries());
+        }
+    }
+
+    private boolean matches(LibraryFileJournalEntity entry, FileStat stat, boolean folderBased) {
+        if (entry.isFolderBased() != folderBased
+                || entry.getFileSize() != stat.size()
+                || entry.getLastModified() != stat.lastModified()) {
+            return false;
+        }
+        // File keys (device + inode) are only compared when both sides have one; some filesystems don't expose them
+        return entry.getFileKey() == null || stat.fileKey() == null || Objects.equals(entry.getFileKey(), stat.fileKey());
+    }
+
+    private FileStat stat(LibraryFile file) {
+        if (file.isFolderBased()) {
+            return folderStat(file);
+        }
+        BasicFileAttributes attrs = file.getAttributes();
+        if (attrs == null) {
+            try {
+                attrs = Files.readAttributes(file.getFullPath(), BasicFileAttributes.class);
+            } catch (IOException e) {
+                log.debug("Failed to stat {}: {}", file.getFullPath(), e.getMessage());
+                return null;
+            }
+        }
+        Object fileKey = attrs.fileKey();
+        return new FileStat(attrs.size(), attrs.lastModifiedTime().toMillis(), fileKey == null ? null : fileKey.toString());
+    }
+
+    private FileStat folderStat(LibraryFile file) {
+        try {
+            BasicFileAttributes folderAttrs = Files.readAttributes(file.getFullPath(), BasicFileAttributes.class);
+            long size = 0;
+            long lastModified = folderAttrs.lastModifiedTime().toMillis();
+            // Recursive like FileUtils.getFolderSizeInKb, so files in disc subfolders (CD1/, CD2/) count too
+            List<Path> children;
+            try (Stream<Path> paths = Files.walk(file.getFullPath())) {
+                children = paths.toList();
+            }
+            for (Path child : children) {
+                BasicFileAttributes attrs = Files.readAttributes(child, BasicFileAttributes.class);
+                if (attrs.isRegularFile()) {
+                    size += attrs.size();
+                    lastModified = Math.max(lastModified, attrs.lastModifiedTime().toMillis());
+                }
+            }
+            Object fileKey = folderAttrs.fileKey();
+            return new FileStat(size, lastModified, fileKey == null ? null : fileKey.toString());
+        } catch (IOException e) {
+            log.debug("Failed to stat folder {}: {}", file.getFullPath(), e.getMessage());
+            return null;
+        }
+    }
+
+    private String generateKey(LibraryFile file) {
+        return generateKey(file.getLibraryPathEntity().getId(), file.getFileSubPath(), file.getFileName());
+    }
+
+    private String generateKey(Long libraryPathId, String subPath, String fileName) {
+        String safeSubPath = (subPath == null) ? "" : subPath;
+        return libraryPathId + ":" + safeSubPath + ":" + fileName;
+    }
+}
@@ -44,6 +44,8 @@ public class LibraryProcessingService {
     private final BookDeletionService bookDeletionService;
     private final LibraryFileHelper libraryFileHelper;
     private final BookGroupingService bookGroupingService;
+    private final LibraryScanPipeline libraryScanPipeline;
+    private final LibraryFileJournalService libraryFileJournalService;
     @PersistenceContext
     private final EntityManager entityManager;
 
@@ -52,12 +54,25 @@ public class LibraryProcessingService {
         LibraryEntity libraryEntity = libraryRepository.findById(libraryId).orElseThrow(() -> ApiError.LIBRARY_NOT_FOUND.createException(libraryId));
         notificationService.sendMessage(Topic.LOG, LogNotification.info("Started processing library: " + libraryEntity.getName()));
         try {
-            List<LibraryFile> libraryFiles = libraryFileHelper.getLibraryFiles(libraryEntity);
-            List<LibraryFile> newFiles = detectNewBookPaths(libraryFiles, libraryEntity);
+            Set<String> existingKeys = existingFileKeys(libraryEntity);
+            List<LibraryFile> libraryFiles;
+            // Files that are not books yet are fingerprinted while the walk is still listing the rest of the library
+            try (LibraryScanPipeline.EarlyFingerprints fingerprints = libraryScanPipeline.fingerprintAsFound()) {
+                libraryFiles = libraryFileHelper.getLibraryFiles(libraryEntity, file -> {
+                    if (!existingKeys.contains(generateUniqueKey(file))) {
+                        fingerprints.submit(file);
+                    }
+                });
+            }
+            LibraryFileJournalService.JournalDiff journalDiff = libraryFileJournalService.diff(libraryEntity, libraryFiles);
+            List<LibraryFile> newFiles = libraryFiles.stream()
+                    .filter(file -> !existingKeys.contains(generateUniqueKey(file)))
+                    .collect(Collectors.toList());
 
             // Use BookGroupingService for consistent grouping based on organization mode
             Map<String, List<LibraryFile>> groups = bookGroupingService.groupForInitialScan(newFiles, libraryEntity);
-            fileAsBookProcessor.processLibraryFilesGrouped(groups, libraryEntity);
+            libraryScanPipeline.process(groups, libraryEntity);
+            libraryFileJournalService.record(journalDiff);
 
             notificationService.sendMessage(Topic.LOG, LogNotification.info("Finished processing library: " + libraryEntity.getName()));
         } catch (IOException e) {
@@ -78,6 +93,20 @@ public class LibraryProcessingService {
         List<LibraryFile> filteredFiles = libraryFileHelper.filterByAllowedFormats(
                 allLibraryFiles, libraryEntity.getAllowedFormats());
 
+        // Nothing on disk changed since the last scan and every allowed file is already a book file:
+        // skip loading the library's books and diffing them entirely. The journal covers the allowed files only,
+        // the same list the initial scan journals and the book file count is compared against.
+        LibraryFileJournalService.JournalDiff journalDiff = libraryFileJournalService.diff(libraryEntity, filteredFiles);
+        if (journalDiff.isUnchanged()
+                && bookAdditionalFileRepository.countActiveBookFormatFilesByLibraryId(libraryEntity.getId()) == filteredFiles.size()) {
+            log.info("No file changes detected in library '{}' since last scan ({} files), skipping rescan",
+                    libraryEntity.getName(), journalDiff.unchangedCount());
+            notificationService.sendMessage(Topic.LOG, LogNotification.info("Finished refreshing library: " + libraryEntity.getName()));
+            return;
+        }
+        log.info("Library '{}' rescan: {} changed, {} removed, {} unchanged files since last scan",
+                libraryEntity.getName(), journalDiff.changedFiles().size(), journalDiff.removedEntries().size(), journalDiff.unchangedCount());
+
         int existingBookCount = libraryEntity.getBookEntities().size();
         if (existingBookCount > 0 && allLibraryFiles.isEmpty()) {
             String paths = libraryEntity.getLibraryPaths().stream()
@@ -119,6 +148,7 @@ public class LibraryProcessingService {
 
         // Process new book groups
         fileAsBookProcessor.processLibraryFilesGrouped(groupingResult.newBookGroups(), libraryEntity);
+        libraryFileJournalService.record(journalDiff);
 
         notificationService.sendMessage(Topic.LOG, LogNotification.info("Finished refreshing library: " + libraryEntity.getName()));
     }
@@ -156,6 +186,13 @@ public class LibraryProcessingService {
     }
 
     protected List<LibraryFile> detectNewBookPaths(List<LibraryFile> libraryFiles, LibraryEntity libraryEntity) {
+        Set<String> existingKeys = existingFileKeys(libraryEntity);
+        return libraryFiles.stream()
+                .filter(file -> !existingKeys.contains(generateUniqueKey(file)))
+                .collect(Collectors.toList());
+    }
+
+    private Set<String> existingFileKeys(LibraryEntity libraryEntity) {
         Set<String> existingKeys = libraryEntity.getBookEntities().stream()
                 .filter(book -> book.getBookFiles() != null && !book.getBookFiles().isEmpty())
                 .map(this::generateUniqueKey)
@@ -166,10 +203,7 @@ public class LibraryProcessingService {
                 .collect(Collectors.toSet());
 
         existingKeys.addAll(additionalFileKeys);
-
-        return libraryFiles.stream()
-                .filter(file -> !existingKeys.contains(generateUniqueKey(file)))
-                .collect(Collectors.toList());
+        return existingKeys;
     }
 
     private void autoAttachFile(BookEntity book, LibraryFile file) {
@@ -191,9 +225,13 @@ public class LibraryProcessingService {
             return;
         }
 
-        String hash = file.isFolderBased()
-                ? FileFingerprint.generateFolderHash(file.getFullPath())
-                : FileFingerprint.generateHash(file.getFullPath());
+        String hash = file.getHash();
+        if (hash == null) {
+            hash = file.isFolderBased()
+                    ? FileFingerprint.generateFolderHash(file.getFullPath())
+                    : FileFingerprint.generateHash(file.getFullPath());
+            file.setHash(hash);
+        }
         Long fileSizeKb = file.isFolderBased()
                 ? FileUtils.getFolderSizeInKb(file.getFullPath())
                 : FileUtils.getFileSizeInKb(file.getFullPath());
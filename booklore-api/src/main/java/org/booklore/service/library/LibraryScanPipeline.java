@@ -0,0 +1,202 @@
+package org.booklore.service.library;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.booklore.model.dto.settings.LibraryFile;
+import org.booklore.model.entity.LibraryEntity;
+import org.booklore.service.file.FileFingerprint;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Staged library scan: groups produced by the walker are fingerprinted and then extracted/persisted
+ * on virtual threads, with each stage capped by its own permit count and the number of groups in
+ * flight bounded so a huge library cannot flood memory.
+ * <p>
+ * Every group is persisted in its own transaction. Groups that collide on shared lookup rows
+ * (authors, categories, tags created concurrently by another worker) are retried serially once
+ * the parallel stage has drained.
+ * <p>
+ * A worker persisting a group holds two connections: its own transaction's and the one
+ * {@link org.booklore.service.fileprocessor.AbstractFileProcessor#processFile} opens for the book
+ * itself. Extraction is therefore capped at half the connection pool, less the caller's connection.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LibraryScanPipeline {
+
+    private final FileAsBookProcessor fileAsBookProcessor;
+    private final AppProperties appProperties;
+    private final DataSource dataSource;
+
+    public void process(Map<String, List<LibraryFile>> groups, LibraryEntity libraryEntity) {
+        AppProperties.LibraryScan config = appProperties.getLibraryScan();
+        int extractionParallelism = extractionParallelism(config);
+        if (extractionParallelism <= 1 || groups.size() <= 1) {
+            fileAsBookProcessor.processLibraryFilesGrouped(groups, libraryEntity);
+            return;
+        }
+
+        Semaphore fingerprintPermits = new Semaphore(Math.max(1, config.getFingerprintParallelism()));
+        Semaphore extractionPermits = new Semaphore(extractionParallelism);
+        Semaphore inFlight = new Semaphore(Math.max(1, config.getQueueCapacity()));
+        Queue<List<LibraryFile>> conflicts = new ConcurrentLinkedQueue<>();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        log.info("Scanning {} book groups in library '{}' (fingerprint={}, extraction={}, queue={})",
+                groups.size(), libraryEntity.getName(), config.getFingerprintParallelism(),
+                extractionParallelism, config.getQueueCapacity());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<LibraryFile> group : groups.values()) {
+                inFlight.acquireUninterruptibly();
+                executor.submit(() -> {
+                    try {
+                        if (withPermit(fingerprintPermits, () -> fingerprint(group))) {
+                            withPermit(extractionPermits, () -> extract(group, libraryEntity, conflicts, succeeded, failed));
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+
+        int retried = 0;
+        if (!conflicts.isEmpty()) {
+            log.info("Retrying {} book groups serially after concurrent lookup conflicts", conflicts.size());
+            for (List<LibraryFile> group : conflicts) {
+                try {
+                    fileAsBookProcessor.processGroupInNewTransaction(group, libraryEntity);
+                    retried++;
+                } catch (Exception e) {
+                    log.error("Failed to process file group {}: {}", fileNames(group), e.getMessage());
+                    failed.incrementAndGet();
+                }
+            }
+        }
+
+        log.info("Finished processing library '{}' ({} groups processed in parallel, {} of {} conflicting groups retried, {} failed)",
+                libraryEntity.getName(), succeeded.get(), retried, conflicts.size(), failed.get());
+    }
+
+    /**
+     * Fingerprints files handed over while the library walk is still running, so hashing overlaps with listing
+     * directories instead of waiting for the whole tree. Closing it waits for the hashes already started; files it
+     * had no room for keep a null hash and are fingerprinted by {@link #process} as usual.
+     */
+    public EarlyFingerprints fingerprintAsFound() {
+        AppProperties.LibraryScan config = appProperties.getLibraryScan();
+        return new EarlyFingerprints(new Semaphore(Math.max(1, config.getFingerprintParallelism())),
+                new Semaphore(Math.max(1, config.getQueueCapacity())));
+    }
+
+    public final class EarlyFingerprints implements AutoCloseable {
+
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        private final Semaphore fingerprintPermits;
+        private final Semaphore inFlight;
+
+        private EarlyFingerprints(Semaphore fingerprintPermits, Semaphore inFlight) {
+            this.fingerprintPermits = fingerprintPermits;
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * Never blocks: called from the walk's worker threads, it drops the file when the queue is full.
+         */
+        public void submit(LibraryFile file) {
+            if (file.getHash() != null || !inFlight.tryAcquire()) {
+                return;
+            }
+            executor.submit(() -> {
+                try {
+                    withPermit(fingerprintPermits, () -> fingerprint(List.of(file)));
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            executor.close();
+        }
+    }
+
+    private int extractionParallelism(AppProperties.LibraryScan config) {
+        int configured = config.getExtractionParallelism();
+        if (dataSource instanceof HikariDataSource hikari) {
+            int available = Math.max(1, (hikari.getMaximumPoolSize() - 1) / 2);
+            if (configured > available) {
+                log.debug("Capping extraction parallelism at {} for a pool of {} connections",
+                        available, hikari.getMaximumPoolSize());
+                return available;
+            }
+        }
+        return configured;
+    }
+
+    private void fingerprint(List<LibraryFile> group) {
+        for (LibraryFile file : group) {
+            if (file.getHash() != null) {
+                continue;
+            }
+            try {
+                file.setHash(file.isFolderBased()
+                        ? FileFingerprint.generateFolderHash(file.getFullPath())
+                        : FileFingerprint.generateHash(file.getFullPath()));
+            } catch (RuntimeException e) {
+                log.warn("Failed to fingerprint {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private void extract(List<LibraryFile> group, LibraryEntity libraryEntity, Queue<List<LibraryFile>> conflicts,
+                         AtomicInteger succeeded, AtomicInteger failed) {
+        try {
+            fileAsBookProcessor.processGroupInNewTransaction(group, libraryEntity);
+            succeeded.incrementAndGet();
+        } catch (DataIntegrityViolationException | TransientDataAccessException e) {
+            log.debug("Deferring file group {} after conflict: {}", fileNames(group), e.getMessage());
+            conflicts.add(group);
+        } catch (Exception e) {
+            log.error("Failed to process file group {}: {}", fileNames(group), e.getMessage());
+            failed.incrementAndGet();
+        }
+    }
+
+    private boolean withPermit(Semaphore permits, Runnable stage) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            stage.run();
+            return true;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static List<String> fileNames(List<LibraryFile> group) {
+        return group.stream().map(LibraryFile::getFileName).toList();
+    }
+}
@@ -16,6 +16,7 @@ import org.booklore.model.enums.ComicCreatorRole;
 import org.booklore.model.enums.MetadataReplaceMode;
 import org.booklore.repository.*;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.event.EntityChangeEvents;
 import org.booklore.service.file.FileFingerprint;
 import org.booklore.service.file.FileMoveService;
 import org.booklore.service.metadata.sidecar.SidecarMetadataWriter;
@@ -23,8 +24,12 @@ import org.booklore.service.metadata.writer.MetadataWriterFactory;
 import org.booklore.util.BookCoverUtils;
 import org.booklore.util.FileService;
 import org.booklore.util.MetadataChangeDetector;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.io.File;
@@ -60,6 +65,8 @@ public class BookMetadataUpdater {
     private final BookReviewUpdateService bookReviewUpdateService;
     private final FileMoveService fileMoveService;
     private final SidecarMetadataWriter sidecarMetadataWriter;
+    private final EntityChangeEvents entityChangeEvents;
+    private final PlatformTransactionManager transactionManager;
 
     @Transactional
     public void setBookMetadata(MetadataUpdateContext context) {
@@ -109,7 +116,10 @@ public class BookMetadataUpdater {
         updateMoodsIfNeeded(newMetadata, metadata, clearFlags, mergeMoods, replaceMode);
         updateTagsIfNeeded(newMetadata, metadata, clearFlags, mergeTags, replaceMode);
         bookReviewUpdateService.updateBookReviews(newMetadata, metadata, clearFlags, mergeCategories);
-        updateThumbnailIfNeeded(bookId, bookEntity, newMetadata, metadata, updateThumbnail, bookType);
+        String coverUrl = coverToDownload(newMetadata, metadata, updateThumbnail, bookType);
+        if (coverUrl != null && !context.isDeferFileUpdates() && downloadCover(bookId, bookType, coverUrl)) {
+            markCoverUpdated(bookEntity, bookType);
+        }
         updateAudiobookMetadataIfNeeded(bookEntity, newMetadata, metadata, clearFlags, replaceMode);
         updateComicMetadataIfNeeded(newMetadata, metadata, replaceMode);
         updateLocks(newMetadata, metadata);
@@ -123,55 +133,153 @@ public class BookMetadataUpdater {
             log.warn("Failed to calculate metadata match score for book ID {}: {}", bookId, e.getMessage());
         }
 
-        if (primaryFile != null && bookType != null && ((writeToFile.isAnyFormatEnabled() && hasValueChangesForFileWrite) || thumbnailRequiresUpdate)) {
-            metadataWriterFactory.getWriter(bookType).ifPresent(writer -> {
-                try {
-                    String thumbnailUrl = updateThumbnail ? newMetadata.getThumbnailUrl() : null;
-                    if ((StringUtils.hasText(thumbnailUrl) && isLocalOrPrivateUrl(thumbnailUrl) || Boolean.TRUE.equals(metadata.getCoverLocked()))) {
-                        log.debug("Blocked local/private thumbnail URL: {}", thumbnailUrl);
-                        thumbnailUrl = null;
-                    }
-                    File file = new File(bookEntity.getFullFilePath().toUri());
-                    writer.saveMetadataToFile(file, metadata, thumbnailUrl, clearFlags);
-                    updateFileNameIfConverted(primaryFile, file.toPath());
-                    String newHash = file.isDirectory()
-                            ? FileFingerprint.generateFolderHash(bookEntity.getFullFilePath())
-                            : FileFingerprint.generateHash(bookEntity.getFullFilePath());
-                    bookEntity.setMetadataForWriteUpdatedAt(Instant.now());
-                    primaryFile.setCurrentHash(newHash);
-                    bookRepository.save(bookEntity);
-                } catch (Exception e) {
-                    log.warn("Failed to write metadata for book ID {}: {}", bookId, e.getMessage());
+        boolean writeFile = primaryFile != null && bookType != null
+                && ((writeToFile.isAnyFormatEnabled() && hasValueChangesForFileWrite) || thumbnailRequiresUpdate);
+        String fileThumbnailUrl = updateThumbnail ? newMetadata.getThumbnailUrl() : null;
+        if ((StringUtils.hasText(fileThumbnailUrl) && isLocalOrPrivateUrl(fileThumbnailUrl) || Boolean.TRUE.equals(metadata.getCoverLocked()))) {
+            log.debug("Blocked local/private thumbnail URL: {}", fileThumbnailUrl);
+            fileThumbnailUrl = null;
+        }
+        boolean moveFiles = settings.isMoveFilesToLibraryPattern() && primaryFile != null;
+
+        if (context.isDeferFileUpdates()) {
+            FileUpdate update = new FileUpdate(bookId, bookType, coverUrl, writeFile, fileThumbnailUrl, clearFlags, moveFiles);
+            entityChangeEvents.afterCommit(() -> applyFileUpdate(update));
+            return;
+        }
+
+        if (writeFile && writeMetadataFile(bookEntity, primaryFile, bookType, fileThumbnailUrl, clearFlags)) {
+            bookRepository.save(bookEntity);
+        }
+        writeSidecar(bookEntity);
+        if (moveFiles) {
+            moveToLibraryPattern(metadata.getBook());
+        }
+    }
+
+    /**
+     * The file side of a deferred update, run once the metadata is committed. Downloads and file writes happen
+     * outside any transaction; the columns they change are saved afterwards in short transactions of their own.
+     */
+    private void applyFileUpdate(FileUpdate update) {
+        Long bookId = update.bookId();
+        TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+        txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        if (update.coverUrl() != null && downloadCover(bookId, update.bookType(), update.coverUrl())) {
+            txTemplate.executeWithoutResult(status -> bookRepository.findById(bookId)
+                    .ifPresent(book -> markCoverUpdated(book, update.bookType())));
+        }
+
+        boolean writeSidecar = sidecarMetadataWriter.isWriteOnUpdateEnabled();
+        if (!update.writeFile() && !writeSidecar && !update.moveFiles()) {
+            return;
+        }
+        TransactionTemplate readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readTemplate.setReadOnly(true);
+        BookEntity book = readTemplate.execute(status -> bookRepository.findByIdWithBookFiles(bookId)
+                .map(BookMetadataUpdater::loadForFileWrite)
+                .orElse(null));
+        if (book == null) {
+            return;
+        }
+
+        BookFileEntity primaryFile = book.getPrimaryBookFile();
+        if (update.writeFile() && primaryFile != null
+                && writeMetadataFile(book, primaryFile, update.bookType(), update.thumbnailUrl(), update.clearFlags())) {
+            txTemplate.executeWithoutResult(status -> bookRepository.findByIdWithBookFiles(bookId).ifPresent(saved -> {
+                BookFileEntity savedFile = saved.getPrimaryBookFile();
+                if (savedFile != null && Objects.equals(savedFile.getId(), primaryFile.getId())) {
+                    savedFile.setFileName(primaryFile.getFileName());
+                    savedFile.setCurrentHash(primaryFile.getCurrentHash());
                 }
-            });
+                saved.setMetadataForWriteUpdatedAt(book.getMetadataForWriteUpdatedAt());
+                bookRepository.save(saved);
+            }));
+        }
+        if (writeSidecar) {
+            writeSidecar(book);
         }
+        if (update.moveFiles()) {
+            txTemplate.executeWithoutResult(status -> bookRepository.findByIdWithBookFiles(bookId)
+                    .ifPresent(this::moveToLibraryPattern));
+        }
+    }
 
+    /**
+     * Loads what the file and sidecar writers read, so they can run on the book after its transaction closed.
+     */
+    private static BookEntity loadForFileWrite(BookEntity book) {
+        Hibernate.initialize(book.getLibraryPath());
+        BookMetadataEntity metadata = book.getMetadata();
+        Hibernate.initialize(metadata.getAuthors());
+        Hibernate.initialize(metadata.getCategories());
+        Hibernate.initialize(metadata.getMoods());
+        Hibernate.initialize(metadata.getTags());
+        ComicMetadataEntity comic = metadata.getComicMetadata();
+        if (comic != null) {
+            Hibernate.initialize(comic.getCharacters());
+            Hibernate.initialize(comic.getTeams());
+            Hibernate.initialize(comic.getLocations());
+            comic.getCreatorMappings().forEach(mapping -> Hibernate.initialize(mapping.getCreator()));
+        }
+        return book;
+    }
+
+    /**
+     * Writes the book's metadata into its file and records the file's new hash on the entity, returning false if
+     * nothing was written.
+     */
+    private boolean writeMetadataFile(BookEntity bookEntity, BookFileEntity primaryFile, BookFileType bookType,
+                                      String thumbnailUrl, MetadataClearFlags clearFlags) {
+        return metadataWriterFactory.getWriter(bookType).map(writer -> {
+            try {
+                File file = new File(bookEntity.getFullFilePath().toUri());
+                writer.saveMetadataToFile(file, bookEntity.getMetadata(), thumbnailUrl, clearFlags);
+                updateFileNameIfConverted(primaryFile, file.toPath());
+                String newHash = file.isDirectory()
+                        ? FileFingerprint.generateFolderHash(bookEntity.getFullFilePath())
+                        : FileFingerprint.generateHash(bookEntity.getFullFilePath());
+                bookEntity.setMetadataForWriteUpdatedAt(Instant.now());
+                primaryFile.setCurrentHash(newHash);
+                return true;
+            } catch (Exception e) {
+                log.warn("Failed to write metadata for book ID {}: {}", bookEntity.getId(), e.getMessage());
+                return false;
+            }
+        }).orElse(false);
+    }
+
+    private void writeSidecar(BookEntity bookEntity) {
         if (sidecarMetadataWriter.isWriteOnUpdateEnabled()) {
             try {
                 sidecarMetadataWriter.writeSidecarMetadata(bookEntity);
             } catch (Exception e) {
-                log.warn("Failed to write sidecar metadata for book ID {}: {}", bookId, e.getMessage());
+                log.warn("Failed to write sidecar metadata for book ID {}: {}", bookEntity.getId(), e.getMessage());
             }
         }
+    }
 
-        boolean moveFilesToLibraryPattern = settings.isMoveFilesToLibraryPattern();
-        if (moveFilesToLibraryPattern && primaryFile != null) {
-            try {
-                BookEntity book = metadata.getBook();
-                FileMoveResult result = fileMoveService.moveSingleFile(book);
-                if (result.isMoved()) {
-                    var bookPrimaryFile = book.getPrimaryBookFile();
-                    if (bookPrimaryFile != null) {
-                        bookPrimaryFile.setFileName(result.getNewFileName());
-                        bookPrimaryFile.setFileSubPath(result.getNewFileSubPath());
-                    }
+    private void moveToLibraryPattern(BookEntity book) {
+        try {
+            FileMoveResult result = fileMoveService.moveSingleFile(book);
+            if (result.isMoved()) {
+                var bookPrimaryFile = book.getPrimaryBookFile();
+                if (bookPrimaryFile != null) {
+                    bookPrimaryFile.setFileName(result.getNewFileName());
+                    bookPrimaryFile.setFileSubPath(result.getNewFileSubPath());
                 }
-            } catch (Exception e) {
-                log.warn("Failed to move files for book ID {} after metadata update: {}", bookId, e.getMessage());
             }
+        } catch (Exception e) {
+            log.warn("Failed to move files for book ID {} after metadata update: {}", book.getId(), e.getMessage());
         }
     }
 
+    private record FileUpdate(Long bookId, BookFileType bookType, String coverUrl, boolean writeFile, String thumbnailUrl,
+                              MetadataClearFlags clearFlags, boolean moveFiles) {
+    }
+
     private void updateBasicFields(BookMetadata m, BookMetadataEntity e, MetadataClearFlags clear, MetadataReplaceMode replaceMode) {
         if (clear == null) {
             clear = new MetadataClearFlags();
@@ -642,25 +750,40 @@ public class BookMetadataUpdater {
         }
     }
 
-    private void updateThumbnailIfNeeded(long bookId, BookEntity bookEntity, BookMetadata m, BookMetadataEntity e, boolean set, BookFileType bookType) {
+    /**
+     * The cover URL to download for the book, or null when the cover is locked, not to be replaced, or local.
+     */
+    private String coverToDownload(BookMetadata m, BookMetadataEntity e, boolean set, BookFileType bookType) {
         if (Boolean.TRUE.equals(e.getCoverLocked())) {
-            return;
+            return null;
         }
-        if (!set) return;
-        if (!StringUtils.hasText(m.getThumbnailUrl()) || isLocalOrPrivateUrl(m.getThumbnailUrl())) return;
+        if (!set) return null;
+        if (!StringUtils.hasText(m.getThumbnailUrl()) || isLocalOrPrivateUrl(m.getThumbnailUrl())) return null;
+        if (bookType == BookFileType.AUDIOBOOK && Boolean.TRUE.equals(e.getAudiobookCoverLocked())) return null;
+        return m.getThumbnailUrl();
+    }
+
+    private boolean downloadCover(long bookId, BookFileType bookType, String url) {
         try {
             if (bookType == BookFileType.AUDIOBOOK) {
-                if (Boolean.TRUE.equals(e.getAudiobookCoverLocked())) return;
-                fileService.createAudiobookThumbnailFromUrl(bookId, m.getThumbnailUrl());
-                bookEntity.getMetadata().setAudiobookCoverUpdatedOn(Instant.now());
+                fileService.createAudiobookThumbnailFromUrl(bookId, url);
             } else {
-                fileService.createThumbnailFromUrl(bookId, m.getThumbnailUrl());
-                bookEntity.getMetadata().setCoverUpdatedOn(Instant.now());
+                fileService.createThumbnailFromUrl(bookId, url);
             }
-            bookEntity.setBookCoverHash(BookCoverUtils.generateCoverHash());
+            return true;
         } catch (Exception ex) {
             log.warn("Failed to download cover for book {}: {}", bookId, ex.getMessage());
+            return false;
+        }
+    }
+
+    private void markCoverUpdated(BookEntity bookEntity, BookFileType bookType) {
+        if (bookType == BookFileType.AUDIOBOOK) {
+            bookEntity.getMetadata().setAudiobookCoverUpdatedOn(Instant.now());
+        } else {
+            bookEntity.getMetadata().setCoverUpdatedOn(Instant.now());
         }
+        bookEntity.setBookCoverHash(BookCoverUtils.generateCoverHash());
     }
 
     private void updateLocks(BookMetadata m, BookMetadataEntity e) {
@@ -0,0 +1,88 @@
+package org.booklore.service.metadata;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.booklore.model.dto.BookMetadata;
+import org.booklore.model.enums.MetadataProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Runs metadata fetches on virtual threads: several books at once, and every provider of a book at once.
+ * <p>
+ * How hard each provider is hit is left to {@link MetadataProviderRateLimiter}, so adding concurrency here never
+ * sends more requests to a provider than its budget allows; it only lets a slow provider overlap with the others.
+ */
+@Slf4j
+@Service
+public class MetadataFetchScheduler {
+
+    private final MetadataProviderRateLimiter rateLimiter;
+    private final int bookConcurrency;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("metadata-fetch-", 0).factory());
+
+    public MetadataFetchScheduler(MetadataProviderRateLimiter rateLimiter, AppProperties appProperties) {
+        this.rateLimiter = rateLimiter;
+        this.bookConcurrency = Math.max(1, appProperties.getMetadataFetch().getBookConcurrency());
+    }
+
+    /**
+     * Books a refresh should have in flight at the same time.
+     */
+    public int getBookConcurrency() {
+        return bookConcurrency;
+    }
+
+    /**
+     * Starts one book's fetch on its own virtual thread.
+     */
+    public <T> Future<T> submit(Callable<T> bookFetch) {
+        return executor.submit(bookFetch);
+    }
+
+    /**
+     * Queries all providers for one book in parallel and returns the results by provider, in the order the
+     * providers were given. A provider that fails or finds nothing is left out.
+     */
+    public Map<MetadataProvider, BookMetadata> fetchFromProviders(List<MetadataProvider> providers, Function<MetadataProvider, BookMetadata> fetch) {
+        Map<MetadataProvider, Future<BookMetadata>> futures = new LinkedHashMap<>();
+        for (MetadataProvider provider : providers) {
+            futures.putIfAbsent(provider, executor.submit(() -> rateLimiter.withPermit(provider, () -> fetch.apply(provider))));
+        }
+
+        Map<MetadataProvider, BookMetadata> results = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<MetadataProvider, Future<BookMetadata>> entry : futures.entrySet()) {
+                BookMetadata metadata = await(entry.getKey(), entry.getValue());
+                if (metadata != null) {
+                    results.putIfAbsent(metadata.getProvider() != null ? metadata.getProvider() : entry.getKey(), metadata);
+                }
+            }
+        } catch (InterruptedException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while fetching metadata");
+        }
+        return results;
+    }
+
+    private static BookMetadata await(MetadataProvider provider, Future<BookMetadata> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.warn("Fetching metadata from {} failed: {}", provider, e.getCause().getMessage(), e.getCause());
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
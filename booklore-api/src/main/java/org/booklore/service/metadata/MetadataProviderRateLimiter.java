@@ -0,0 +1,126 @@
+package org.booklore.service.metadata;
+
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.booklore.model.enums.MetadataProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Request budget for every metadata provider, shared by all fetches in the application.
+ * <p>
+ * Each provider has a token bucket that spaces out its HTTP requests, and a cap on how many fetches talk to it at
+ * the same time. Parsers take a token before each request instead of sleeping on their own, so the limits hold no
+ * matter how many books are being fetched concurrently.
+ */
+@Slf4j
+@Component
+public class MetadataProviderRateLimiter {
+
+    // requests per second and burst size; the scraped sites get the same pace the parsers used to sleep for
+    private static final Map<MetadataProvider, BucketSettings> BUCKET_SETTINGS = Map.of(
+            MetadataProvider.Amazon, new BucketSettings(1.0, 1),
+            MetadataProvider.GoodReads, new BucketSettings(1.0, 1),
+            MetadataProvider.Google, new BucketSettings(1 / 1.5, 1),
+            MetadataProvider.Hardcover, new BucketSettings(1 / 1.2, 1),
+            MetadataProvider.Comicvine, new BucketSettings(0.5, 1),
+            MetadataProvider.Ranobedb, new BucketSettings(2.0, 2),
+            MetadataProvider.Audible, new BucketSettings(1 / 1.5, 1)
+    );
+    private static final BucketSettings DEFAULT_BUCKET = new BucketSettings(2.0, 2);
+
+    private final Map<MetadataProvider, TokenBucket> buckets = new EnumMap<>(MetadataProvider.class);
+    private final Map<MetadataProvider, Semaphore> permits = new EnumMap<>(MetadataProvider.class);
+
+    public MetadataProviderRateLimiter(AppProperties appProperties) {
+        int providerConcurrency = Math.max(1, appProperties.getMetadataFetch().getProviderConcurrency());
+        for (MetadataProvider provider : MetadataProvider.values()) {
+            buckets.put(provider, new TokenBucket(BUCKET_SETTINGS.getOrDefault(provider, DEFAULT_BUCKET)));
+            permits.put(provider, new Semaphore(providerConcurrency, true));
+        }
+    }
+
+    /**
+     * Blocks until the provider's budget allows one more request. An interrupt ends the wait early and leaves the
+     * thread's interrupt flag set, so the request that follows fails fast.
+     */
+    public void acquire(MetadataProvider provider) {
+        long waitNanos = buckets.get(provider).reserve(System.nanoTime());
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(waitNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Holds back every request to the provider for the given time, for when it answered with a throttling error.
+     */
+    public void pause(MetadataProvider provider, Duration duration) {
+        log.debug("Pausing {} requests for {} ms", provider, duration.toMillis());
+        buckets.get(provider).pause(System.nanoTime(), duration.toNanos());
+    }
+
+    /**
+     * Runs a fetch against the provider once fewer than the configured number of fetches are using it.
+     */
+    public <T> T withPermit(MetadataProvider provider, Supplier<T> fetch) {
+        Semaphore semaphore = permits.get(provider);
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for " + provider);
+        }
+        try {
+            return fetch.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private record BucketSettings(double requestsPerSecond, int burst) {
+    }
+
+    /**
+     * A token bucket kept as the time its next token is due, so a request reserves its slot up front and waits
+     * outside the lock.
+     */
+    static final class TokenBucket {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private long nextTokenAt;
+
+        TokenBucket(double requestsPerSecond, int burst) {
+            this.intervalNanos = (long) (1_000_000_000L / requestsPerSecond);
+            this.burstNanos = (Math.max(1, burst) - 1) * intervalNanos;
+            this.nextTokenAt = System.nanoTime() - burstNanos;
+        }
+
+        private TokenBucket(BucketSettings settings) {
+            this(settings.requestsPerSecond(), settings.burst());
+        }
+
+        /**
+         * Takes a token and returns how long the caller has to wait before using it.
+         */
+        synchronized long reserve(long now) {
+            long earliest = Math.max(nextTokenAt, now - burstNanos);
+            nextTokenAt = earliest + intervalNanos;
+            return earliest - now;
+        }
+
+        synchronized void pause(long now, long pauseNanos) {
+            nextTokenAt = Math.max(nextTokenAt, now + pauseNanos);
+        }
+    }
+}
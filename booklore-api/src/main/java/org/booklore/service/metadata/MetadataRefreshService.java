@@ -2,6 +2,7 @@ package org.booklore.service.metadata;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
 import org.booklore.config.security.service.AuthenticationService;
 import org.booklore.exception.ApiError;
 import org.booklore.mapper.BookMapper;
@@ -24,19 +25,25 @@ import org.booklore.model.websocket.Topic;
 import org.booklore.repository.BookRepository;
 import org.booklore.repository.LibraryRepository;
 import org.booklore.repository.MetadataFetchJobRepository;
+import org.booklore.repository.MetadataFetchProposalRepository;
 import org.booklore.service.NotificationService;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.event.EntityChangeEvents;
 import org.booklore.service.metadata.parser.BookParser;
 import org.booklore.task.TaskCancellationManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.support.TransactionTemplate;
 import tools.jackson.core.JacksonException;
 import tools.jackson.databind.ObjectMapper;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -60,6 +67,10 @@ public class MetadataRefreshService {
     private final PlatformTransactionManager transactionManager;
     private final AuthenticationService authenticationService;
     private final TaskCancellationManager cancellationManager;
+    private final MetadataFetchScheduler fetchScheduler;
+    private final MetadataFetchProposalRepository proposalRepository;
+    private final AppProperties appProperties;
+    private final EntityChangeEvents entityChangeEvents;
 
 
     public void refreshMetadata(MetadataRefreshRequest request, String jobId) {
@@ -97,88 +108,13 @@ public class MetadataRefreshService {
                     .build();
             metadataFetchJobRepository.save(task);
 
-            TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
-            int completedCount = 0;
-
-            for (Long bookId : actualBookIds) {
-                if (cancellationManager.isTaskCancelled(jobId)) {
-                    log.info("RefreshMetadataTask {} was cancelled, stopping execution", jobId);
-                    cancelTask(task);
-                    cancellationManager.clearCancellation(jobId);
-                    return;
-                }
-
-                int finalCompletedCount = completedCount;
-                txTemplate.execute(status -> {
-                    BookEntity book = bookRepository.findAllWithMetadataByIds(Collections.singleton(bookId))
-                            .stream().findFirst()
-                            .orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
-                    try {
-                        if (book.getMetadata().areAllFieldsLocked()) {
-                            log.info("Skipping locked book: {}", getBookIdentifier(book));
-                            sendBatchProgressNotification(jobId, finalCompletedCount, totalBooks, "Skipped locked book: " + book.getMetadata().getTitle(), MetadataFetchTaskStatus.IN_PROGRESS, isReviewMode);
-                            return null;
-                        }
-
-                        MetadataRefreshOptions refreshOptions;
-                        List<MetadataProvider> providers;
-
-                        if (useRequestOptions) {
-                            refreshOptions = requestRefreshOptions;
-                            providers = fixedProviders;
-                        } else if (isLibraryRefresh) {
-                            refreshOptions = libraryRefreshOptions;
-                            providers = fixedProviders;
-                        } else {
-                            refreshOptions = resolveMetadataRefreshOptions(book.getLibrary().getId(), appSettings);
-                            providers = prepareProviders(refreshOptions);
-                        }
-
-                        reportProgressIfNeeded(task, jobId, finalCompletedCount, totalBooks, book, isReviewMode);
-                        Map<MetadataProvider, BookMetadata> metadataMap = fetchMetadataForBook(providers, book);
-                        if (providers.contains(GoodReads)) {
-                            try {
-                                Thread.sleep(ThreadLocalRandom.current().nextLong(500, 1500));
-                            } catch (InterruptedException e) {
-                                Thread.currentThread().interrupt();
-                                status.setRollbackOnly();
-                                return null;
-                            }
-                        }
-                        BookMetadata fetched = null;
-                        boolean bookReviewMode = false;
-                        if (refreshOptions != null) {
-                            fetched = buildFetchMetadata(bookMapper.toBook(book).getMetadata(), book.getId(), refreshOptions, metadataMap);
-                            bookReviewMode = Boolean.TRUE.equals(refreshOptions.getReviewBeforeApply());
-                        }
-
-                        if (bookReviewMode) {
-                            saveProposal(task, book.getId(), fetched);
-                        } else {
-                            // Use the replaceMode from options - allows user to control whether to replace existing or only fill missing
-                            MetadataReplaceMode replaceMode = refreshOptions.getReplaceMode() != null 
-                                    ? refreshOptions.getReplaceMode() 
-                                    : MetadataReplaceMode.REPLACE_MISSING;
-                            updateBookMetadata(book, fetched, refreshOptions.isRefreshCovers(), refreshOptions.isMergeCategories(), replaceMode);
-                        }
-
-                        sendBatchProgressNotification(jobId, finalCompletedCount + 1, totalBooks, "Processed: " + book.getMetadata().getTitle(), MetadataFetchTaskStatus.IN_PROGRESS, bookReviewMode);
-                    } catch (Exception e) {
-                        if (Thread.currentThread().isInterrupted()) {
-                            log.info("Processing interrupted for book: {}", getBookIdentifier(book));
-                            status.setRollbackOnly();
-                            return null;
-                        }
-                        log.error("Metadata update failed for book: {}", getBookIdentifier(book), e);
-                        sendBatchProgressNotification(jobId, finalCompletedCount, totalBooks, String.format("Failed to process: %s - %s", book.getMetadata().getTitle(), e.getMessage()), MetadataFetchTaskStatus.ERROR, isReviewMode);
-                    }
-                    bookRepository.saveAndFlush(book);
-                    return null;
-                });
-                completedCount++;
+            RefreshSettings settings = new RefreshSettings(appSettings, useRequestOptions ? requestRefreshOptions : libraryRefreshOptions, fixedProviders);
+            RefreshRun run = new RefreshRun(jobId, settings, totalBooks, isReviewMode);
+            if (!run.execute(actualBookIds)) {
+                return;
             }
 
-            completeTask(task, completedCount, totalBooks, isReviewMode);
+            run.complete();
             cancellationManager.clearCancellation(jobId);
             log.info("Metadata refresh task {} completed successfully", jobId);
 
@@ -216,34 +152,11 @@ public class MetadataRefreshService {
     }
 
     public Map<MetadataProvider, BookMetadata> fetchMetadataForBook(List<MetadataProvider> providers, Book book) {
-        return providers.stream()
-                .map(provider -> fetchTopMetadataFromAProvider(provider, book))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toMap(
-                        BookMetadata::getProvider,
-                        metadata -> metadata,
-                        (existing, replacement) -> existing
-                ));
+        return fetchScheduler.fetchFromProviders(providers, provider -> fetchTopMetadataFromAProvider(provider, book));
     }
 
     public Map<MetadataProvider, BookMetadata> fetchMetadataForBook(List<MetadataProvider> providers, BookEntity bookEntity) {
-        Book book = bookMapper.toBook(bookEntity);
-        return providers.stream()
-                .map(provider -> fetchTopMetadataFromAProvider(provider, book))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toMap(
-                        BookMetadata::getProvider,
-                        metadata -> metadata,
-                        (existing, replacement) -> existing
-                ));
-    }
-
-    private void reportProgressIfNeeded(MetadataFetchJobEntity task, String taskId, int completedCount, int total, BookEntity book, boolean isReviewMode) {
-        if (task == null) return;
-        task.setCompletedBooks(completedCount);
-        metadataFetchJobRepository.save(task);
-        String message = String.format("Processing '%s'", book.getMetadata().getTitle());
-        sendBatchProgressNotification(taskId, completedCount, total, message, MetadataFetchTaskStatus.IN_PROGRESS, isReviewMode);
+        return fetchMetadataForBook(providers, bookMapper.toBook(bookEntity));
     }
 
     private String getBookIdentifier(BookEntity book) {
@@ -260,30 +173,20 @@ public class MetadataRefreshService {
         notificationService.sendMessage(Topic.BOOK_METADATA_BATCH_PROGRESS, new MetadataBatchProgressNotification(taskId, current, total, message, status.name(), isReview));
     }
 
-    private void completeTask(MetadataFetchJobEntity task, int completed, int total, boolean isReviewMode) {
-        task.setStatus(MetadataFetchTaskStatus.COMPLETED);
-        task.setCompletedAt(Instant.now());
-        task.setCompletedBooks(completed);
-        metadataFetchJobRepository.save(task);
-        sendBatchProgressNotification(task.getTaskId(), completed, total, "Batch metadata fetch successfully completed!", MetadataFetchTaskStatus.COMPLETED, isReviewMode);
-    }
-
-    private void cancelTask(MetadataFetchJobEntity task) {
-        task.setStatus(MetadataFetchTaskStatus.CANCELLED);
-        task.setCompletedAt(Instant.now());
-        metadataFetchJobRepository.save(task);
-        sendBatchProgressNotification(task.getTaskId(), task.getCompletedBooks(), task.getTotalBooksCount(), "Task cancelled by user", MetadataFetchTaskStatus.CANCELLED, false);
-    }
-
-    private void saveProposal(MetadataFetchJobEntity job, Long bookId, BookMetadata metadata) throws JacksonException {
+    private void saveProposal(String jobId, Long bookId, BookMetadata metadata) throws JacksonException {
         MetadataFetchProposalEntity proposal = MetadataFetchProposalEntity.builder()
-                .job(job)
+                .job(metadataFetchJobRepository.getReferenceById(jobId))
                 .bookId(bookId)
                 .metadataJson(objectMapper.writeValueAsString(metadata))
                 .status(FetchedMetadataProposalStatus.FETCHED)
                 .fetchedAt(Instant.now())
                 .build();
-        job.getProposals().add(proposal);
+        proposalRepository.save(proposal);
+    }
+
+    private Map<Long, BookEntity> loadBooks(Collection<Long> bookIds) {
+        return bookRepository.findAllWithMetadataByIds(new HashSet<>(bookIds)).stream()
+                .collect(Collectors.toMap(BookEntity::getId, Function.identity()));
     }
 
 
@@ -310,16 +213,18 @@ public class MetadataRefreshService {
     public void updateBookMetadata(MetadataUpdateContext context) {
         if (context.getMetadataUpdateWrapper() != null && context.getMetadataUpdateWrapper().getMetadata() != null) {
             bookMetadataUpdater.setBookMetadata(context);
+            notificationService.sendMessage(Topic.BOOK_METADATA_UPDATE, toUpdateNotification(context.getBookEntity()));
+        }
+    }
 
-            Book book = bookMapper.toBookWithDescription(context.getBookEntity(), true);
-            
-            BookLoreUser user = authenticationService.getAuthenticatedUser();
-            if (user != null && book.getShelves() != null) {
-                book.setShelves(filterShelvesByUserId(book.getShelves(), user.getId()));
-            }
-            
-            notificationService.sendMessage(Topic.BOOK_METADATA_UPDATE, book);
+    private Book toUpdateNotification(BookEntity bookEntity) {
+        Book book = bookMapper.toBookWithDescription(bookEntity, true);
+
+        BookLoreUser user = authenticationService.getAuthenticatedUser();
+        if (user != null && book.getShelves() != null) {
+            book.setShelves(filterShelvesByUserId(book.getShelves(), user.getId()));
         }
+        return book;
     }
 
     public List<MetadataProvider> prepareProviders(MetadataRefreshOptions refreshOptions) {
@@ -774,4 +679,278 @@ public class MetadataRefreshService {
                 .filter(shelf -> userId.equals(shelf.getUserId()))
                 .collect(Collectors.toSet());
     }
+
+    /**
+     * One refresh job. Books are loaded and saved in batches, each batch in a single transaction flushed once, while
+     * the metadata of the books in between is fetched ahead on virtual threads. Entities and the database are only
+     * touched from the refreshing thread; fetches work on {@link Book} copies. A batch only writes the database: cover
+     * downloads, writes to the book files and the update notifications follow per book once it has committed, so the
+     * batch's connection is not held across them. Progress is saved and sent at most once per interval.
+     */
+    private final class RefreshRun {
+        private final String jobId;
+        private final RefreshSettings settings;
+        private final int totalBooks;
+        private final boolean isReviewMode;
+        private final int batchSize;
+        private final long progressIntervalNanos;
+        private final TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+        private final TransactionTemplate notificationTemplate = new TransactionTemplate(transactionManager);
+        private final Deque<QueuedFetch> inFlight = new ArrayDeque<>();
+        private final List<FetchedBook> fetched = new ArrayList<>();
+        private int completedCount;
+        private long lastProgressAt;
+        private boolean interrupted;
+
+        private RefreshRun(String jobId, RefreshSettings settings, int totalBooks, boolean isReviewMode) {
+            AppProperties.MetadataFetch fetchSettings = appProperties.getMetadataFetch();
+            this.jobId = jobId;
+            this.settings = settings;
+            this.totalBooks = totalBooks;
+            this.isReviewMode = isReviewMode;
+            this.batchSize = Math.max(1, fetchSettings.getApplyBatchSize());
+            this.progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, fetchSettings.getProgressIntervalMillis()));
+            this.lastProgressAt = System.nanoTime() - progressIntervalNanos;
+            notificationTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            notificationTemplate.setReadOnly(true);
+        }
+
+        /**
+         * Refreshes the books, returning false if the job was cancelled on the way.
+         */
+        private boolean execute(Collection<Long> bookIds) {
+            List<Long> ids = new ArrayList<>(bookIds);
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                if (stopIfCancelled()) {
+                    return false;
+                }
+                List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                List<PreparedBook> prepared = txTemplate.execute(status -> prepareBooks(chunk));
+                for (PreparedBook book : prepared) {
+                    inFlight.add(new QueuedFetch(book, fetchScheduler.submit(() -> fetchMetadataForBook(book.providers(), book.book()))));
+                    if (!awaitFetches(fetchScheduler.getBookConcurrency() - 1)) {
+                        return false;
+                    }
+                }
+            }
+            if (!awaitFetches(0)) {
+                return false;
+            }
+            saveFetched();
+            return true;
+        }
+
+        /**
+         * Works out what to fetch for each book, skipping books that are locked or gone.
+         */
+        private List<PreparedBook> prepareBooks(List<Long> bookIds) {
+            Map<Long, BookEntity> books = loadBooks(bookIds);
+            List<PreparedBook> prepared = new ArrayList<>();
+            for (Long bookId : bookIds) {
+                BookEntity book = books.get(bookId);
+                if (book == null) {
+                    bookFailed("Book ID: " + bookId, "Book not found");
+                    continue;
+                }
+                if (book.getMetadata().areAllFieldsLocked()) {
+                    log.info("Skipping locked book: {}", getBookIdentifier(book));
+                    bookDone("Skipped locked book: " + book.getMetadata().getTitle());
+                    continue;
+                }
+
+                MetadataRefreshOptions refreshOptions = settings.fixedOptions();
+                List<MetadataProvider> providers = settings.fixedProviders();
+                if (refreshOptions == null) {
+                    refreshOptions = resolveMetadataRefreshOptions(book.getLibrary().getId(), settings.appSettings());
+                    providers = prepareProviders(refreshOptions);
+                }
+                prepared.add(new PreparedBook(bookId, getBookIdentifier(book), book.getMetadata().getTitle(), bookMapper.toBook(book), refreshOptions, providers));
+            }
+            return prepared;
+        }
+
+        /**
+         * Waits for the oldest fetches until at most {@code maxInFlight} are left, saving the results whenever a
+         * batch is full. Returns false if the job was cancelled meanwhile.
+         */
+        private boolean awaitFetches(int maxInFlight) {
+            while (inFlight.size() > maxInFlight) {
+                if (stopIfCancelled()) {
+                    return false;
+                }
+                QueuedFetch queued = inFlight.poll();
+                try {
+                    fetched.add(new FetchedBook(queued.prepared(), queued.metadata().get()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException | CancellationException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    log.error("Metadata update failed for book: {}", queued.prepared().identifier(), cause);
+                    bookFailed(queued.prepared().title(), cause.getMessage());
+                }
+                if (fetched.size() >= batchSize) {
+                    saveFetched();
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Saves the fetched books in one transaction. If the batch fails as a whole, its books are saved one per
+         * transaction so a single bad book doesn't cost the others their update.
+         */
+        private void saveFetched() {
+            if (fetched.isEmpty()) {
+                return;
+            }
+            List<FetchedBook> batch = List.copyOf(fetched);
+            fetched.clear();
+            List<BookOutcome> outcomes;
+            try {
+                outcomes = txTemplate.execute(status -> applyBatch(batch));
+            } catch (RuntimeException e) {
+                if (batch.size() == 1) {
+                    log.error("Metadata update failed for book: {}", batch.getFirst().prepared().identifier(), e);
+                    bookFailed(batch.getFirst().prepared().title(), e.getMessage());
+                    return;
+                }
+                log.warn("Saving metadata for {} books failed, saving them one at a time: {}", batch.size(), e.getMessage());
+                for (FetchedBook book : batch) {
+                    fetched.add(book);
+                    saveFetched();
+                }
+                return;
+            }
+            report(outcomes);
+            if (interrupted) {
+                // cleared while the batch committed, so the books it applied still got their files written
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(new InterruptedException("Metadata refresh interrupted"));
+            }
+        }
+
+        private List<BookOutcome> applyBatch(List<FetchedBook> batch) {
+            Map<Long, BookEntity> books = loadBooks(batch.stream().map(book -> book.prepared().bookId()).toList());
+            List<BookOutcome> outcomes = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                FetchedBook fetchedBook = batch.get(i);
+                PreparedBook prepared = fetchedBook.prepared();
+                BookEntity book = books.get(prepared.bookId());
+                if (book == null) {
+                    outcomes.add(new BookOutcome(prepared.title(), "Book not found"));
+                    continue;
+                }
+                try {
+                    MetadataRefreshOptions refreshOptions = prepared.refreshOptions();
+                    BookMetadata metadata = buildFetchMetadata(prepared.book().getMetadata(), book.getId(), refreshOptions, fetchedBook.metadata());
+                    if (Boolean.TRUE.equals(refreshOptions.getReviewBeforeApply())) {
+                        saveProposal(jobId, book.getId(), metadata);
+                    } else {
+                        // Use the replaceMode from options - allows user to control whether to replace existing or only fill missing
+                        MetadataReplaceMode replaceMode = refreshOptions.getReplaceMode() != null
+                                ? refreshOptions.getReplaceMode()
+                                : MetadataReplaceMode.REPLACE_MISSING;
+                        bookMetadataUpdater.setBookMetadata(MetadataUpdateContext.builder()
+                                .bookEntity(book)
+                                .metadataUpdateWrapper(MetadataUpdateWrapper.builder().metadata(metadata).build())
+                                .updateThumbnail(refreshOptions.isRefreshCovers())
+                                .mergeCategories(refreshOptions.isMergeCategories())
+                                .replaceMode(replaceMode)
+                                .mergeMoods(true)
+                                .mergeTags(true)
+                                .deferFileUpdates(true)
+                                .build());
+                        Long bookId = book.getId();
+                        entityChangeEvents.afterCommit(() -> sendUpdateNotification(bookId));
+                    }
+                    outcomes.add(new BookOutcome(book.getMetadata().getTitle(), null));
+                } catch (Exception e) {
+                    if (Thread.interrupted()) {
+                        // commit what the batch applied so far; the rest of the job stops once it has
+                        log.info("Processing interrupted for book: {}", getBookIdentifier(book));
+                        interrupted = true;
+                        outcomes.add(new BookOutcome(book.getMetadata().getTitle(), "Interrupted"));
+                        // the books after it are never applied, but still get a status
+                        for (FetchedBook skipped : batch.subList(i + 1, batch.size())) {
+                            outcomes.add(new BookOutcome(skipped.prepared().title(), "Interrupted"));
+                        }
+                        break;
+                    }
+                    log.error("Metadata update failed for book: {}", getBookIdentifier(book), e);
+                    outcomes.add(new BookOutcome(book.getMetadata().getTitle(), e.getMessage()));
+                }
+            }
+            // one flush for the whole batch, so the updates go out as JDBC batches
+            bookRepository.flush();
+            return outcomes;
+        }
+
+        private void sendUpdateNotification(Long bookId) {
+            Book book = notificationTemplate.execute(status -> bookRepository.findByIdWithBookFiles(bookId)
+                    .map(MetadataRefreshService.this::toUpdateNotification)
+                    .orElse(null));
+            if (book != null) {
+                notificationService.sendMessage(Topic.BOOK_METADATA_UPDATE, book);
+            }
+        }
+
+        private void report(List<BookOutcome> outcomes) {
+            for (BookOutcome outcome : outcomes) {
+                if (outcome.error() != null) {
+                    bookFailed(outcome.title(), outcome.error());
+                } else {
+                    bookDone("Processed: " + outcome.title());
+                }
+            }
+        }
+
+        private void bookDone(String message) {
+            completedCount++;
+            long now = System.nanoTime();
+            if (now - lastProgressAt < progressIntervalNanos) {
+                return;
+            }
+            lastProgressAt = now;
+            metadataFetchJobRepository.updateProgress(jobId, completedCount);
+            sendBatchProgressNotification(jobId, completedCount, totalBooks, message, MetadataFetchTaskStatus.IN_PROGRESS, isReviewMode);
+        }
+
+        private void bookFailed(String title, String reason) {
+            sendBatchProgressNotification(jobId, completedCount, totalBooks, String.format("Failed to process: %s - %s", title, reason), MetadataFetchTaskStatus.ERROR, isReviewMode);
+            completedCount++;
+        }
+
+        private boolean stopIfCancelled() {
+            if (!cancellationManager.isTaskCancelled(jobId)) {
+                return false;
+            }
+            log.info("RefreshMetadataTask {} was cancelled, stopping execution", jobId);
+            inFlight.forEach(queued -> queued.metadata().cancel(true));
+            metadataFetchJobRepository.updateStatus(jobId, MetadataFetchTaskStatus.CANCELLED, Instant.now(), completedCount);
+            sendBatchProgressNotification(jobId, completedCount, totalBooks, "Task cancelled by user", MetadataFetchTaskStatus.CANCELLED, false);
+            cancellationManager.clearCancellation(jobId);
+            return true;
+        }
+
+        private void complete() {
+            metadataFetchJobRepository.updateStatus(jobId, MetadataFetchTaskStatus.COMPLETED, Instant.now(), completedCount);
+            sendBatchProgressNotification(jobId, completedCount, totalBooks, "Batch metadata fetch successfully completed!", MetadataFetchTaskStatus.COMPLETED, isReviewMode);
+        }
+    }
+
+    private record RefreshSettings(AppSettings appSettings, MetadataRefreshOptions fixedOptions, List<MetadataProvider> fixedProviders) {
+    }
+
+    private record PreparedBook(Long bookId, String identifier, String title, Book book, MetadataRefreshOptions refreshOptions, List<MetadataProvider> providers) {
+    }
+
+    private record QueuedFetch(PreparedBook prepared, Future<Map<MetadataProvider, BookMetadata>> metadata) {
+    }
+
+    private record FetchedBook(PreparedBook prepared, Map<MetadataProvider, BookMetadata> metadata) {
+    }
+
+    private record BookOutcome(String title, String error) {
+    }
 }
@@ -0,0 +1,283 @@
+package org.booklore.service.metadata;
+
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.booklore.model.enums.MetadataProvider;
+import org.jsoup.Connection;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Disk cache of metadata provider responses, shared by all parsers.
+ * <p>
+ * Responses are stored gzipped under the data directory, one file per provider and request, where the request is
+ * the URL or query a parser sends and so already holds the normalized search terms or external id. A fresh entry is
+ * returned without contacting the provider, and without taking a token from {@link MetadataProviderRateLimiter}.
+ * An expired entry is revalidated with {@code If-None-Match}/{@code If-Modified-Since} when the provider sent
+ * validators, so an unchanged page costs a 304 instead of a full download. Only successful responses are stored.
+ */
+@Slf4j
+@Service
+public class MetadataResponseCache {
+
+    private static final String CACHE_DIR = "metadata_cache";
+    private static final String ENTRY_SUFFIX = ".json.gz";
+    private static final Duration VOLATILE_TTL = Duration.ofDays(3);
+    private static final Set<MetadataProvider> VOLATILE_PROVIDERS = EnumSet.of(MetadataProvider.Amazon, MetadataProvider.GoodReads, MetadataProvider.Audible);
+    // expired entries are kept this many TTLs longer, so they can still be revalidated
+    private static final int REVALIDATION_TTLS = 4;
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path cacheDir;
+    private final long maxSizeBytes;
+    private final Map<MetadataProvider, Duration> ttls = new EnumMap<>(MetadataProvider.class);
+
+    public MetadataResponseCache(AppProperties appProperties, ObjectMapper objectMapper) {
+        AppProperties.MetadataCache settings = appProperties.getMetadataCache();
+        this.objectMapper = objectMapper;
+        this.enabled = settings.isEnabled() && appProperties.getPathConfig() != null;
+        this.cacheDir = appProperties.getPathConfig() != null ? Paths.get(appProperties.getPathConfig(), CACHE_DIR) : null;
+        this.maxSizeBytes = settings.getMaxSizeMb() * 1024 * 1024;
+        Duration defaultTtl = Duration.ofHours(settings.getTtlHours());
+        for (MetadataProvider provider : MetadataProvider.values()) {
+            Integer hours = settings.getProviderTtlHours().get(provider);
+            Duration ttl = VOLATILE_PROVIDERS.contains(provider) && VOLATILE_TTL.compareTo(defaultTtl) < 0 ? VOLATILE_TTL : defaultTtl;
+            ttls.put(provider, hours != null ? Duration.ofHours(hours) : ttl);
+        }
+    }
+
+    /**
+     * Returns the cached response for the request, or loads it and caches it when it succeeds.
+     *
+     * @param key    the request as sent, usually its URL; it is hashed, so it may contain API keys
+     * @param loader performs the request, adding the given validators to it
+     */
+    public Response fetch(MetadataProvider provider, String key, Loader loader) throws IOException {
+        if (!enabled) {
+            return loader.load(Validators.NONE);
+        }
+        Path file = entryPath(provider, key);
+        CacheEntry cached = read(file);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.storedAt() < ttls.get(provider).toMillis()) {
+            log.debug("{} response served from cache", provider);
+            return cached.toResponse();
+        }
+
+        Response response = loader.load(cached != null ? cached.validators() : Validators.NONE);
+        if (response.status() == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+            log.debug("{} response revalidated", provider);
+            write(file, new CacheEntry(now, cached.etag(), cached.lastModified(), cached.body()));
+            return cached.toResponse();
+        }
+        if (response.status() == HttpURLConnection.HTTP_OK && response.body() != null && !response.body().isEmpty()) {
+            write(file, new CacheEntry(now, response.etag(), response.lastModified(), response.body()));
+        }
+        return response;
+    }
+
+    /**
+     * Removes entries too old to be revalidated, then the oldest entries until the cache fits its size bound.
+     */
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS, initialDelay = 1)
+    public void evict() {
+        if (!enabled || !Files.isDirectory(cacheDir)) {
+            return;
+        }
+        List<StoredFile> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(cacheDir)) {
+            paths.filter(path -> path.getFileName().toString().endsWith(ENTRY_SUFFIX)).forEach(path -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    files.add(new StoredFile(path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                } catch (IOException e) {
+                    log.debug("Skipping metadata cache entry {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to scan metadata cache: {}", e.getMessage());
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long totalSize = 0;
+        List<StoredFile> retained = new ArrayList<>();
+        for (StoredFile file : files) {
+            Duration ttl = ttls.getOrDefault(providerOf(file.path()), Duration.ZERO);
+            if (now - file.storedAt() > ttl.toMillis() * REVALIDATION_TTLS) {
+                delete(file.path());
+            } else {
+                retained.add(file);
+                totalSize += file.size();
+            }
+        }
+
+        retained.sort(Comparator.comparingLong(StoredFile::storedAt));
+        Iterator<StoredFile> oldestFirst = retained.iterator();
+        while (totalSize > maxSizeBytes && oldestFirst.hasNext()) {
+            StoredFile file = oldestFirst.next();
+            delete(file.path());
+            totalSize -= file.size();
+        }
+    }
+
+    private MetadataProvider providerOf(Path entry) {
+        try {
+            return MetadataProvider.valueOf(entry.getParent().getFileName().toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Path entryPath(MetadataProvider provider, String key) {
+        return cacheDir.resolve(provider.name()).resolve(sha256(key) + ENTRY_SUFFIX);
+    }
+
+    private CacheEntry read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return objectMapper.readValue(in, CacheEntry.class);
+        } catch (IOException | JacksonException e) {
+            log.debug("Discarding unreadable metadata cache entry {}: {}", file, e.getMessage());
+            delete(file);
+            return null;
+        }
+    }
+
+    private void write(Path file, CacheEntry entry) {
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), "entry", ".tmp");
+            try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                objectMapper.writeValue(out, entry);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | JacksonException e) {
+            log.warn("Failed to write metadata cache entry {}: {}", file, e.getMessage());
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete metadata cache entry {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String sha256(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Performs a provider request on a cache miss.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        Response load(Validators validators) throws IOException;
+    }
+
+    /**
+     * The validators of a stale cached response, to be sent along with the request that refreshes it.
+     */
+    public record Validators(String etag, String lastModified) {
+        public static final Validators NONE = new Validators(null, null);
+
+        public HttpRequest.Builder applyTo(HttpRequest.Builder request) {
+            if (etag != null) {
+                request.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                request.header("If-Modified-Since", lastModified);
+            }
+            return request;
+        }
+
+        public Connection applyTo(Connection connection) {
+            if (etag != null) {
+                connection.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                connection.header("If-Modified-Since", lastModified);
+            }
+            return connection;
+        }
+    }
+
+    /**
+     * A provider response, either fresh or from the cache. Cached responses always have status 200.
+     */
+    public record Response(int status, String body, String etag, String lastModified) {
+
+        public static Response of(HttpResponse<String> response) {
+            return new Response(response.statusCode(), response.body(),
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+        }
+
+        public static Response of(Connection.Response response) {
+            return new Response(response.statusCode(), response.body(), response.header("ETag"), response.header("Last-Modified"));
+        }
+
+        /**
+         * Sends the request, turning an interrupt into an {@link InterruptedIOException} with the interrupt flag
+         * still set, so loaders only have to deal with {@link IOException}.
+         */
+        public static Response send(HttpClient httpClient, HttpRequest request) throws IOException {
+            try {
+                return of(httpClient.send(request, HttpResponse.BodyHandlers.ofString()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while requesting " + request.uri());
+            }
+        }
+    }
+
+    private record CacheEntry(long storedAt, String etag, String lastModified, String body) {
+
+        private Validators validators() {
+            return new Validators(etag, lastModified);
+        }
+
+        private Response toResponse() {
+            return new Response(HttpURLConnection.HTTP_OK, body, etag, lastModified);
+        }
+    }
+
+    private record StoredFile(Path path, long size, long storedAt) {
+    }
+}
@@ -6,6 +6,8 @@ import org.booklore.model.dto.BookReview;
 import org.booklore.model.dto.request.FetchMetadataRequest;
 import org.booklore.model.enums.MetadataProvider;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataProviderRateLimiter;
+import org.booklore.service.metadata.MetadataResponseCache;
 import org.booklore.util.BookUtils;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,7 +26,6 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -89,6 +90,8 @@ public class AmazonBookParser implements BookParser, DetailedMetadataProvider {
     private static final LocaleInfo DEFAULT_LOCALE_INFO = new LocaleInfo("en-US,en;q=0.9", Locale.US);
 
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
+    private final MetadataResponseCache responseCache;
 
     private record LocaleInfo(String acceptLanguage, Locale locale) {}
     private record TitleInfo(String title, String subtitle) {}
@@ -111,17 +114,14 @@ public class AmazonBookParser implements BookParser, DetailedMetadataProvider {
         }
         List<BookMetadata> results = new ArrayList<>();
         for (int i = 0; i < amazonBookIds.size() && results.size() < COUNT_DETAILED_METADATA_TO_GET; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
             try {
-                if (i > 0) {
-                    Thread.sleep(ThreadLocalRandom.current().nextLong(500, 1501));
-                }
                 BookMetadata metadata = getBookMetadata(amazonBookIds.get(i));
                 if (metadata != null) {
                     results.add(metadata);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
             } catch (Exception e) {
                 log.error("Error fetching metadata for ASIN: {}", amazonBookIds.get(i), e);
             }
@@ -791,43 +791,47 @@ public class AmazonBookParser implements BookParser, DetailedMetadataProvider {
 
     private Document fetchDocument(String url) {
         try {
-            String domain = appSettingService.getAppSettings().getMetadataProviderSettings().getAmazon().getDomain();
-            String amazonCookie = appSettingService.getAppSettings().getMetadataProviderSettings().getAmazon().getCookie();
-
-            LocaleInfo localeInfo = getLocaleInfoForDomain(domain);
-
-            Connection connection = Jsoup.connect(url)
-                    .header("accept", "text/html, application/json")
-                    .header("accept-language", localeInfo.acceptLanguage)
-                    .header("content-type", "application/json")
-                    .header("device-memory", "8")
-                    .header("downlink", "10")
-                    .header("dpr", "2")
-                    .header("ect", "4g")
-                    .header("origin", "https://www.amazon." + domain)
-                    .header("priority", "u=1, i")
-                    .header("rtt", "50")
-                    .header("sec-ch-device-memory", "8")
-                    .header("sec-ch-dpr", "2")
-                    .header("sec-ch-ua", "\"Google Chrome\";v=\"137\", \"Chromium\";v=\"137\", \"Not_A Brand\";v=\"24\"")
-                    .header("sec-ch-ua-mobile", "?0")
-                    .header("sec-ch-ua-platform", "\"macOS\"")
-                    .header("sec-ch-viewport-width", "1170")
-                    .header("sec-fetch-dest", "empty")
-                    .header("sec-fetch-mode", "cors")
-                    .header("sec-fetch-site", "same-origin")
-                    .header("user-agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/137.0.0.0 Safari/537.36")
-                    .header("viewport-width", "1170")
-                    .header("x-amz-amabot-click-attributes", "disable")
-                    .header("x-requested-with", "XMLHttpRequest")
-                    .method(Connection.Method.GET);
-
-            if (amazonCookie != null && !amazonCookie.isBlank()) {
-                connection.header("cookie", amazonCookie);
-            }
-
-            Connection.Response response = connection.execute();
-            return response.parse();
+            MetadataResponseCache.Response response = responseCache.fetch(MetadataProvider.Amazon, url, validators -> {
+                rateLimiter.acquire(MetadataProvider.Amazon);
+                String domain = appSettingService.getAppSettings().getMetadataProviderSettings().getAmazon().getDomain();
+                String amazonCookie = appSettingService.getAppSettings().getMetadataProviderSettings().getAmazon().getCookie();
+
+                LocaleInfo localeInfo = getLocaleInfoForDomain(domain);
+
+                Connection connection = Jsoup.connect(url)
+                        .header("accept", "text/html, application/json")
+                        .header("accept-language", localeInfo.acceptLanguage)
+                        .header("content-type", "application/json")
+                        .header("device-memory", "8")
+                        .header("downlink", "10")
+                        .header("dpr", "2")
+                        .header("ect", "4g")
+                        .header("origin", "https://www.amazon." + domain)
+                        .header("priority", "u=1, i")
+                        .header("rtt", "50")
+                        .header("sec-ch-device-memory", "8")
+                        .header("sec-ch-dpr", "2")
+                        .header("sec-ch-ua", "\"Google Chrome\";v=\"137\", \"Chromium\";v=\"137\", \"Not_A Brand\";v=\"24\"")
+                        .header("sec-ch-ua-mobile", "?0")
+                        .header("sec-ch-ua-platform", "\"macOS\"")
+                        .header("sec-ch-viewport-width", "1170")
+                        .header("sec-fetch-dest", "empty")
+                        .header("sec-fetch-mode", "cors")
+                        .header("sec-fetch-site", "same-origin")
+                        .header("user-agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/137.0.0.0 Safari/537.36")
+                        .header("viewport-width", "1170")
+                        .header("x-amz-amabot-click-attributes", "disable")
+                        .header("x-requested-with", "XMLHttpRequest")
+                        .method(Connection.Method.GET);
+
+                if (amazonCookie != null && !amazonCookie.isBlank()) {
+                    connection.header("cookie", amazonCookie);
+                }
+
+                validators.applyTo(connection);
+                return MetadataResponseCache.Response.of(connection.execute());
+            });
+            return Jsoup.parse(response.body(), url);
         } catch (HttpStatusException e) {
             if (e.getStatusCode() == 503) {
                 log.info("Amazon service unavailable (503). Please note: this is NOT a Booklore bug. Likely causes include: rate-limiting or failed captcha. Action required: Update cookies or select an alternative metadata source in the Metadata 2 UI. URL: {}", url);
@@ -8,6 +8,8 @@ import org.booklore.model.dto.BookMetadata;
 import org.booklore.model.dto.request.FetchMetadataRequest;
 import org.booklore.model.enums.MetadataProvider;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataProviderRateLimiter;
+import org.booklore.service.metadata.MetadataResponseCache;
 import org.booklore.util.BookUtils;
 import org.jsoup.Connection;
 import org.jsoup.HttpStatusException;
@@ -25,8 +27,6 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -37,7 +37,6 @@ import java.util.stream.Collectors;
 public class AudibleParser implements BookParser, DetailedMetadataProvider {
 
     private static final int COUNT_DETAILED_METADATA_TO_GET = 3;
-    private static final long MIN_REQUEST_INTERVAL_MS = 1500;
     private static final String DEFAULT_DOMAIN = "com";
 
     private static final Pattern NON_ALPHANUMERIC_PATTERN = Pattern.compile("[^\\p{L}\\p{M}0-9]");
@@ -61,7 +60,8 @@ public class AudibleParser implements BookParser, DetailedMetadataProvider {
 
     private final AppSettingService appSettingService;
     private final ObjectMapper objectMapper;
-    private final AtomicLong lastRequestTime = new AtomicLong(0);
+    private final MetadataProviderRateLimiter rateLimiter;
+    private final MetadataResponseCache responseCache;
 
     private record LocaleInfo(String acceptLanguage, Locale locale) {}
 
@@ -82,17 +82,14 @@ public class AudibleParser implements BookParser, DetailedMetadataProvider {
         }
         List<BookMetadata> results = new ArrayList<>();
         for (int i = 0; i < audibleIds.size() && results.size() < COUNT_DETAILED_METADATA_TO_GET; i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
             try {
-                if (i > 0) {
-                    Thread.sleep(ThreadLocalRandom.current().nextLong(500, 1501));
-                }
                 BookMetadata metadata = getBookMetadata(audibleIds.get(i));
                 if (metadata != null) {
                     results.add(metadata);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
             } catch (Exception e) {
                 log.error("Error fetching metadata for Audible ID: {}", audibleIds.get(i), e);
             }
@@ -215,7 +212,6 @@ public class AudibleParser implements BookParser, DetailedMetadataProvider {
 
         List<String> bookIds = new ArrayList<>();
         try {
-            enforceRateLimit();
             Document doc = fetchDocument(queryUrl);
 
             Elements allLinks = doc.select("a[href*='/pd/']");
@@ -245,7 +241,6 @@ public class AudibleParser implements BookParser, DetailedMetadataProvider {
         String url = "https://www.audible." + domain + "/pd/" + audibleId;
 
         try {
-            enforceRateLimit();
             Document doc = fetchDocument(url);
             return buildBookMetadataFromJsonLd(doc, audibleId);
         } catch (Exception e) {
@@ -536,28 +531,32 @@ public class AudibleParser implements BookParser, DetailedMetadataProvider {
 
     private Document fetchDocument(String url) {
         try {
-            String domain = getDomain();
-            LocaleInfo localeInfo = DOMAIN_LOCALE_MAP.getOrDefault(domain, DEFAULT_LOCALE_INFO);
-
-            Connection connection = Jsoup.connect(url)
-                    .header("accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8")
-                    .header("accept-language", localeInfo.acceptLanguage)
-                    .header("cache-control", "no-cache")
-                    .header("pragma", "no-cache")
-                    .header("sec-ch-ua", "\"Google Chrome\";v=\"137\", \"Chromium\";v=\"137\", \"Not_A Brand\";v=\"24\"")
-                    .header("sec-ch-ua-mobile", "?0")
-                    .header("sec-ch-ua-platform", "\"macOS\"")
-                    .header("sec-fetch-dest", "document")
-                    .header("sec-fetch-mode", "navigate")
-                    .header("sec-fetch-site", "none")
-                    .header("sec-fetch-user", "?1")
-                    .header("upgrade-insecure-requests", "1")
-                    .header("user-agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/137.0.0.0 Safari/537.36")
-                    .timeout(30000)
-                    .method(Connection.Method.GET);
-
-            Connection.Response response = connection.execute();
-            return response.parse();
+            MetadataResponseCache.Response response = responseCache.fetch(MetadataProvider.Audible, url, validators -> {
+                rateLimiter.acquire(MetadataProvider.Audible);
+                String domain = getDomain();
+                LocaleInfo localeInfo = DOMAIN_LOCALE_MAP.getOrDefault(domain, DEFAULT_LOCALE_INFO);
+
+                Connection connection = Jsoup.connect(url)
+                        .header("accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8")
+                        .header("accept-language", localeInfo.acceptLanguage)
+                        .header("cache-control", "no-cache")
+                        .header("pragma", "no-cache")
+                        .header("sec-ch-ua", "\"Google Chrome\";v=\"137\", \"Chromium\";v=\"137\", \"Not_A Brand\";v=\"24\"")
+                        .header("sec-ch-ua-mobile", "?0")
+                        .header("sec-ch-ua-platform", "\"macOS\"")
+                        .header("sec-fetch-dest", "document")
+                        .header("sec-fetch-mode", "navigate")
+                        .header("sec-fetch-site", "none")
+                        .header("sec-fetch-user", "?1")
+                        .header("upgrade-insecure-requests", "1")
+                        .header("user-agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/137.0.0.0 Safari/537.36")
+                        .timeout(30000)
+                        .method(Connection.Method.GET);
+
+                validators.applyTo(connection);
+                return MetadataResponseCache.Response.of(connection.execute());
+            });
+            return Jsoup.parse(response.body(), url);
         } catch (HttpStatusException e) {
             log.error("HTTP error fetching Audible URL. Status={}, URL=[{}]", e.getStatusCode(), url);
             throw new RuntimeException(e);
@@ -567,22 +566,6 @@ public class AudibleParser implements BookParser, DetailedMetadataProvider {
         }
     }
 
-    private void enforceRateLimit() {
-        long now = System.currentTimeMillis();
-        long lastRequest = lastRequestTime.get();
-        long elapsed = now - lastRequest;
-
-        if (elapsed < MIN_REQUEST_INTERVAL_MS) {
-            try {
-                Thread.sleep(MIN_REQUEST_INTERVAL_MS - elapsed);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-
-        lastRequestTime.set(System.currentTimeMillis());
-    }
-
     private String getDomain() {
         var settings = appSettingService.getAppSettings().getMetadataProviderSettings();
         if (settings != null && settings.getAudible() != null && settings.getAudible().getDomain() != null) {
@@ -11,11 +11,14 @@ import org.booklore.model.dto.response.comicvineapi.ComicvineApiResponse;
 import org.booklore.model.dto.response.comicvineapi.ComicvineIssueResponse;
 import org.booklore.model.enums.MetadataProvider;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataProviderRateLimiter;
+import org.booklore.service.metadata.MetadataResponseCache;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -46,7 +49,6 @@ public class ComicvineBookParser implements BookParser, DetailedMetadataProvider
     private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
     private static final Pattern SPECIAL_ISSUE_PATTERN = Pattern.compile("(annual|special|one-?shot)\\s+(\\d+)", Pattern.CASE_INSENSITIVE);
     private static final Pattern YEAR_PATTERN = Pattern.compile("\\(?(\\d{4})\\)?");
-    private static final long MIN_REQUEST_INTERVAL_MS = 2000;
 
     private static final String VOLUME_FIELDS = "id,name,publisher,start_year,count_of_issues,description,deck,image,site_detail_url,aliases,first_issue,last_issue";
     private static final String ISSUE_LIST_FIELDS = "api_detail_url,cover_date,store_date,description,deck,id,image,issue_number,name,volume,site_detail_url,aliases,person_credits,character_credits,team_credits,story_arc_credits,location_credits";
@@ -59,11 +61,12 @@ public class ComicvineBookParser implements BookParser, DetailedMetadataProvider
 
     private final ObjectMapper objectMapper;
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
+    private final MetadataResponseCache responseCache;
     private final HttpClient httpClient = HttpClient.newHttpClient();
 
     private final AtomicBoolean rateLimited = new AtomicBoolean(false);
     private final AtomicLong rateLimitResetTime = new AtomicLong(0);
-    private final AtomicLong lastRequestTime = new AtomicLong(0);
     private final AtomicLong apiCallCounter = new AtomicLong(0);
     private final Map<String, CachedVolumes> volumeCache = new java.util.concurrent.ConcurrentHashMap<>();
 
@@ -447,49 +450,50 @@ public class ComicvineBookParser implements BookParser, DetailedMetadataProvider
             }
         }
 
-        long now = System.currentTimeMillis();
-        long timeSinceLastRequest = now - lastRequestTime.get();
-        if (timeSinceLastRequest < MIN_REQUEST_INTERVAL_MS) {
-            long sleepTime = MIN_REQUEST_INTERVAL_MS - timeSinceLastRequest;
-            log.debug("Rate limiting: sleeping {}ms before next request", sleepTime);
-            try {
-                Thread.sleep(sleepTime);
-            } catch (InterruptedException ignored) {
-                Thread.currentThread().interrupt();
-            }
-        }
-        lastRequestTime.set(System.currentTimeMillis());
-        
-        long callNumber = apiCallCounter.incrementAndGet();
         String endpoint = extractEndpointFromUri(uri);
 
         try {
-            log.debug("ComicVine API call #{} to {}", callNumber, endpoint);
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(uri)
-                    .header("User-Agent", "BookLore/1.0 (Book and Comic Metadata Fetcher; +https://github.com/booklore-app/booklore)")
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            log.debug("ComicVine API call #{} completed: status={}, size={}bytes", 
-                    callNumber, response.statusCode(), response.body() != null ? response.body().length() : 0);
-
-            if (response.statusCode() == 200) {
+            MetadataResponseCache.Response response = responseCache.fetch(MetadataProvider.Comicvine, uri.toString(), validators -> {
+                rateLimiter.acquire(MetadataProvider.Comicvine);
+                long callNumber = apiCallCounter.incrementAndGet();
+                log.debug("ComicVine API call #{} to {}", callNumber, endpoint);
+                HttpRequest request = validators.applyTo(HttpRequest.newBuilder())
+                        .uri(uri)
+                        .header("User-Agent", "BookLore/1.0 (Book and Comic Metadata Fetcher; +https://github.com/booklore-app/booklore)")
+                        .GET()
+                        .build();
+
+                HttpResponse<String> httpResponse;
+                try {
+                    httpResponse = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("ComicVine request interrupted");
+                }
+                log.debug("ComicVine API call #{} completed: status={}, size={}bytes",
+                        callNumber, httpResponse.statusCode(), httpResponse.body() != null ? httpResponse.body().length() : 0);
+                if (httpResponse.statusCode() == 420 || httpResponse.statusCode() == 429) {
+                    handleRateLimit(httpResponse);
+                }
+                return MetadataResponseCache.Response.of(httpResponse);
+            });
+
+            if (response.status() == 200) {
                 return objectMapper.readValue(response.body(), responseType);
-            } else if (response.statusCode() == 420 || response.statusCode() == 429) {
-                handleRateLimit(response);
+            } else if (response.status() == 420 || response.status() == 429) {
                 return null;
-            } else if (response.statusCode() >= 500 && retriesLeft > 0) {
+            } else if (response.status() >= 500 && retriesLeft > 0) {
                 log.warn("ComicVine API returned status {}. Retrying... ({} retries left)", 
-                         response.statusCode(), retriesLeft);
+                         response.status(), retriesLeft);
                 try {
                     Thread.sleep(2000);
                 } catch (InterruptedException ignored) {}
                 return sendRequestWithRetry(uri, responseType, retriesLeft - 1);
             } else {
-                log.error("Comicvine API returned status code {}. Body: {}", response.statusCode(), response.body());
+                log.error("Comicvine API returned status code {}. Body: {}", response.status(), response.body());
             }
+        } catch (InterruptedIOException e) {
+            log.error("Request interrupted", e);
         } catch (IOException e) {
             if (retriesLeft > 0) {
                 log.warn("IOException during ComicVine request. Retrying... ({} retries left)", retriesLeft, e);
@@ -500,9 +504,6 @@ public class ComicvineBookParser implements BookParser, DetailedMetadataProvider
             } else {
                 log.error("Error fetching data from Comicvine API after retries", e);
             }
-        } catch (InterruptedException e) {
-            log.error("Request interrupted", e);
-            Thread.currentThread().interrupt();
         }
         return null;
     }
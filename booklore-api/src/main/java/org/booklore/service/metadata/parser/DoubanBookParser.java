@@ -8,6 +8,7 @@ import org.booklore.model.dto.BookReview;
 import org.booklore.model.dto.request.FetchMetadataRequest;
 import org.booklore.model.enums.MetadataProvider;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataResponseCache;
 import org.booklore.util.BookUtils;
 import org.jsoup.Connection;
 import org.jsoup.Jsoup;
@@ -50,6 +51,7 @@ public class DoubanBookParser implements BookParser {
     // Pattern for yyyy-MM-dd (or yyyy/M/d) date formats
     private static final Pattern DATE_YMD_PATTERN = Pattern.compile("(\\d{4})[-/](\\d{1,2})[-/](\\d{1,2})");
     private final AppSettingService appSettingService;
+    private final MetadataResponseCache responseCache;
 
     @Override
     public BookMetadata fetchTopMetadata(Book book, FetchMetadataRequest fetchMetadataRequest) {
@@ -685,32 +687,32 @@ public class DoubanBookParser implements BookParser {
 
     private Document fetchDocument(String url) {
         try {
-            Connection connection = Jsoup.connect(url)
-                    .header("accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.7")
-                    .header("accept-language", "en-US,en;q=0.9,zh-CN;q=0.8,zh;q=0.7,fr-CH;q=0.6,fr;q=0.5")
-                    .header("accept-encoding", "identity")
-                    .header("cache-control", "no-cache")
-                    .header("origin", "https://www.douban.com")
-                    .header("sec-ch-ua", "\"Not;A=Brand\";v=\"99\", \"Microsoft Edge\";v=\"139\", \"Chromium\";v=\"139\"")
-                    .header("sec-ch-ua-mobile", "?0")
-                    .header("sec-ch-ua-platform", "\"Windows\"")
-                    .header("sec-fetch-dest", "empty")
-                    .header("sec-fetch-mode", "cors")
-                    .header("sec-fetch-site", "same-origin")
-                    .header("sec-fetch-user", "?1")
-                    .header("upgrade-insecure-requests", "1")
-                    .header("user-agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/139.0.0.0 Safari/537.36 Edg/139.0.0.0")
-                    .timeout(15000)
-                    .method(Connection.Method.GET)
-                    .ignoreContentType(true)
-                    .maxBodySize(0)
-                    .followRedirects(true);
-
-            Connection.Response response = connection.execute();
-
-            // Get the response content
-            String html = response.body();
-            return Jsoup.parse(html, response.url().toString());
+            MetadataResponseCache.Response response = responseCache.fetch(MetadataProvider.Douban, url, validators -> {
+                Connection connection = Jsoup.connect(url)
+                        .header("accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.7")
+                        .header("accept-language", "en-US,en;q=0.9,zh-CN;q=0.8,zh;q=0.7,fr-CH;q=0.6,fr;q=0.5")
+                        .header("accept-encoding", "identity")
+                        .header("cache-control", "no-cache")
+                        .header("origin", "https://www.douban.com")
+                        .header("sec-ch-ua", "\"Not;A=Brand\";v=\"99\", \"Microsoft Edge\";v=\"139\", \"Chromium\";v=\"139\"")
+                        .header("sec-ch-ua-mobile", "?0")
+                        .header("sec-ch-ua-platform", "\"Windows\"")
+                        .header("sec-fetch-dest", "empty")
+                        .header("sec-fetch-mode", "cors")
+                        .header("sec-fetch-site", "same-origin")
+                        .header("sec-fetch-user", "?1")
+                        .header("upgrade-insecure-requests", "1")
+                        .header("user-agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/139.0.0.0 Safari/537.36 Edg/139.0.0.0")
+                        .timeout(15000)
+                        .method(Connection.Method.GET)
+                        .ignoreContentType(true)
+                        .maxBodySize(0)
+                        .followRedirects(true);
+
+                validators.applyTo(connection);
+                return MetadataResponseCache.Response.of(connection.execute());
+            });
+            return Jsoup.parse(response.body(), url);
         } catch (IOException e) {
             log.error("Error parsing url: {}", url, e);
             throw new RuntimeException(e);
@@ -6,6 +6,8 @@ import org.booklore.model.dto.BookReview;
 import org.booklore.model.dto.request.FetchMetadataRequest;
 import org.booklore.model.enums.MetadataProvider;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataProviderRateLimiter;
+import org.booklore.service.metadata.MetadataResponseCache;
 import org.booklore.util.BookUtils;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,12 +24,10 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -46,6 +46,8 @@ public class GoodReadsParser implements BookParser, DetailedMetadataProvider {
     private static final Pattern BOOK_SHOW_ID_PATTERN = Pattern.compile("/book/show/(\\d+)");
 
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
+    private final MetadataResponseCache responseCache;
 
     private record TitleInfo(String title, String subtitle) {}
 
@@ -148,7 +150,6 @@ public class GoodReadsParser implements BookParser, DetailedMetadataProvider {
                 if (detailedMetadata != null) {
                     fetchedMetadata.add(detailedMetadata);
                 }
-                Thread.sleep(ThreadLocalRandom.current().nextLong(500, 1501));
             } catch (Exception e) {
                 log.error("Error fetching metadata for book: {}", preview.getGoodreadsId(), e);
             }
@@ -511,7 +512,6 @@ public class GoodReadsParser implements BookParser, DetailedMetadataProvider {
                 metadataPreviews.add(previewMetadata);
             }
 
-            Thread.sleep(Duration.ofSeconds(1));
             return metadataPreviews;
 
         } catch (Exception e) {
@@ -602,33 +602,38 @@ public class GoodReadsParser implements BookParser, DetailedMetadataProvider {
 
     private Document fetchDoc(String url) {
         try {
-            Connection.Response response = Jsoup.connect(url)
-                    .header("accept", "text/html, application/json")
-                    .header("accept-language", "en-US,en;q=0.9")
-                    .header("content-type", "application/json")
-                    .header("device-memory", "8")
-                    .header("downlink", "10")
-                    .header("dpr", "2")
-                    .header("ect", "4g")
-                    .header("origin", "https://www.amazon.com")
-                    .header("priority", "u=1, i")
-                    .header("rtt", "50")
-                    .header("sec-ch-device-memory", "8")
-                    .header("sec-ch-dpr", "2")
-                    .header("sec-ch-ua", "\"Google Chrome\";v=\"131\", \"Chromium\";v=\"131\", \"Not_A Brand\";v=\"24\"")
-                    .header("sec-ch-ua-mobile", "?0")
-                    .header("sec-ch-ua-platform", "\"macOS\"")
-                    .header("sec-ch-viewport-width", "1170")
-                    .header("sec-fetch-dest", "empty")
-                    .header("sec-fetch-mode", "cors")
-                    .header("sec-fetch-site", "same-origin")
-                    .header("user-agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/131.0.0.0 Safari/537.36")
-                    .header("viewport-width", "1170")
-                    .header("x-amz-amabot-click-attributes", "disable")
-                    .header("x-requested-with", "XMLHttpRequest")
-                    .method(Connection.Method.GET)
-                    .execute();
-            return response.parse();
+            MetadataResponseCache.Response response = responseCache.fetch(MetadataProvider.GoodReads, url, validators -> {
+                rateLimiter.acquire(MetadataProvider.GoodReads);
+                Connection connection = Jsoup.connect(url)
+                        .header("accept", "text/html, application/json")
+                        .header("accept-language", "en-US,en;q=0.9")
+                        .header("content-type", "application/json")
+                        .header("device-memory", "8")
+                        .header("downlink", "10")
+                        .header("dpr", "2")
+                        .header("ect", "4g")
+                        .header("origin", "https://www.amazon.com")
+                        .header("priority", "u=1, i")
+                        .header("rtt", "50")
+                        .header("sec-ch-device-memory", "8")
+                        .header("sec-ch-dpr", "2")
+                        .header("sec-ch-ua", "\"Google Chrome\";v=\"131\", \"Chromium\";v=\"131\", \"Not_A Brand\";v=\"24\"")
+                        .header("sec-ch-ua-mobile", "?0")
+                        .header("sec-ch-ua-platform", "\"macOS\"")
+                        .header("sec-ch-viewport-width", "1170")
+                        .header("sec-fetch-dest", "empty")
+                        .header("sec-fetch-mode", "cors")
+                        .header("sec-fetch-site", "same-origin")
+                        .header("user-agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/131.0.0.0 Safari/537.36")
+                        .header("viewport-width", "1170")
+                        .header("x-amz-amabot-click-attributes", "disable")
+                        .header("x-requested-with", "XMLHttpRequest")
+                        .method(Connection.Method.GET);
+
+                validators.applyTo(connection);
+                return MetadataResponseCache.Response.of(connection.execute());
+            });
+            return Jsoup.parse(response.body(), url);
         } catch (IOException e) {
             log.error("Error parsing url: {}", url, e);
             throw new RuntimeException(e);
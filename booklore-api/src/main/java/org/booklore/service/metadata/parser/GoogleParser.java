@@ -8,6 +8,8 @@ import org.booklore.model.dto.response.GoogleBooksApiResponse;
 import org.booklore.model.dto.settings.MetadataProviderSettings;
 import org.booklore.model.enums.MetadataProvider;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataProviderRateLimiter;
+import org.booklore.service.metadata.MetadataResponseCache;
 import org.booklore.util.BookUtils;
 import org.jsoup.Jsoup;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,15 +18,14 @@ import org.springframework.web.util.UriComponentsBuilder;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -38,25 +39,27 @@ public class GoogleParser implements BookParser {
     private static final Pattern YEAR_MONTH_PATTERN = Pattern.compile("^(\\d{4})-(\\d{2})$");
     private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
     private static final Pattern SPECIAL_CHARACTERS_PATTERN = Pattern.compile("[.,\\-\\[\\]{}()!@#$%^&*_=+|~`<>?/\";:]");
-    private static final long MIN_REQUEST_INTERVAL_MS = 1500;
     private static final int MAX_SEARCH_TERM_LENGTH = 60;
     private static final int MAX_RESULTS = 20;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private final ObjectMapper objectMapper;
     private final AppSettingService appSettingService;
     private final HttpClient httpClient;
+    private final MetadataProviderRateLimiter rateLimiter;
+    private final MetadataResponseCache responseCache;
     private static final String GOOGLE_BOOKS_API_URL = "https://www.googleapis.com/books/v1/volumes";
-    private final AtomicLong lastRequestTime = new AtomicLong(0);
 
     @Autowired
-    public GoogleParser(ObjectMapper objectMapper, AppSettingService appSettingService) {
-        this(objectMapper, appSettingService, HttpClient.newHttpClient());
+    public GoogleParser(ObjectMapper objectMapper, AppSettingService appSettingService, MetadataProviderRateLimiter rateLimiter, MetadataResponseCache responseCache) {
+        this(objectMapper, appSettingService, HttpClient.newHttpClient(), rateLimiter, responseCache);
     }
 
-    public GoogleParser(ObjectMapper objectMapper, AppSettingService appSettingService, HttpClient httpClient) {
+    public GoogleParser(ObjectMapper objectMapper, AppSettingService appSettingService, HttpClient httpClient, MetadataProviderRateLimiter rateLimiter, MetadataResponseCache responseCache) {
         this.objectMapper = objectMapper;
         this.appSettingService = appSettingService;
         this.httpClient = httpClient;
+        this.rateLimiter = rateLimiter;
+        this.responseCache = responseCache;
     }
 
     @Override
@@ -143,8 +146,6 @@ public class GoogleParser implements BookParser {
 
     private List<BookMetadata> fetchFromApi(String query, boolean isIsbnSearch) {
         try {
-            waitForRateLimit();
-
             // Use smaller maxResults for ISBN searches (typically return 1-3 results)
             // Use larger maxResults for title/author searches to find best match
             int maxResults = isIsbnSearch ? 5 : MAX_RESULTS;
@@ -157,26 +158,27 @@ public class GoogleParser implements BookParser {
 
             log.info("Google Books API URL: {}", uri);
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(uri)
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            MetadataResponseCache.Response response = responseCache.fetch(MetadataProvider.Google, uri.toString(), validators -> {
+                rateLimiter.acquire(MetadataProvider.Google);
+                HttpRequest request = validators.applyTo(HttpRequest.newBuilder())
+                        .uri(uri)
+                        .GET()
+                        .build();
+                return MetadataResponseCache.Response.send(httpClient, request);
+            });
 
             return handleApiResponse(response);
+        } catch (InterruptedIOException e) {
+            log.error("Request to Google Books API was interrupted");
+            return List.of();
         } catch (IOException e) {
             log.error("IO error while fetching metadata from Google Books API: {}", e.getMessage());
             return List.of();
-        } catch (InterruptedException e) {
-            log.error("Request to Google Books API was interrupted");
-            Thread.currentThread().interrupt();
-            return List.of();
         }
     }
 
-    private List<BookMetadata> handleApiResponse(HttpResponse<String> response) throws IOException {
-        int statusCode = response.statusCode();
+    private List<BookMetadata> handleApiResponse(MetadataResponseCache.Response response) throws IOException {
+        int statusCode = response.status();
         
         if (statusCode == 200) {
             List<BookMetadata> results = parseGoogleBooksApiResponse(response.body());
@@ -599,19 +601,6 @@ public class GoogleParser implements BookParser {
         return builder.build().toUri().toString();
     }
 
-    private void waitForRateLimit() {
-        long now = System.currentTimeMillis();
-        long timeSinceLastRequest = now - lastRequestTime.get();
-        if (timeSinceLastRequest < MIN_REQUEST_INTERVAL_MS) {
-            try {
-                Thread.sleep(MIN_REQUEST_INTERVAL_MS - timeSinceLastRequest);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-        lastRequestTime.set(System.currentTimeMillis());
-    }
-
     /**
      * Sort results by metadata completeness.
      * Items with more populated fields come first.
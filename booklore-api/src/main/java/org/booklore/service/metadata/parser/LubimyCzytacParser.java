@@ -7,6 +7,8 @@ import org.booklore.model.dto.BookMetadata;
 import org.booklore.model.dto.request.FetchMetadataRequest;
 import org.booklore.model.enums.MetadataProvider;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataResponseCache;
+import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -42,6 +44,7 @@ public class LubimyCzytacParser implements BookParser {
     private static final Pattern WHITESPACE_HYPHEN_PATTERN = Pattern.compile("[\\s-]");
 
     private final AppSettingService appSettingService;
+    private final MetadataResponseCache responseCache;
 
     @Override
     public List<BookMetadata> fetchMetadata(Book book, FetchMetadataRequest fetchMetadataRequest) {
@@ -148,10 +151,14 @@ public class LubimyCzytacParser implements BookParser {
     private Document fetchWithRetry(String url) {
         for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
             try {
-                return Jsoup.connect(url)
-                        .userAgent(USER_AGENT)
-                        .timeout(CONNECTION_TIMEOUT_MS)
-                        .get();
+                MetadataResponseCache.Response response = responseCache.fetch(MetadataProvider.Lubimyczytac, url, validators -> {
+                    Connection connection = Jsoup.connect(url)
+                            .userAgent(USER_AGENT)
+                            .timeout(CONNECTION_TIMEOUT_MS);
+                    validators.applyTo(connection);
+                    return MetadataResponseCache.Response.of(connection.execute());
+                });
+                return Jsoup.parse(response.body(), url);
 
             } catch (IOException e) {
                 if (!isConnectivityError(e)) {
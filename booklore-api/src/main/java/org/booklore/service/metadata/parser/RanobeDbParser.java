@@ -9,6 +9,8 @@ import org.booklore.model.dto.response.ranobedbapi.RanobedbBookResponse;
 import org.booklore.model.dto.response.ranobedbapi.RanobedbSearchResponse;
 import org.booklore.model.enums.MetadataProvider;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataProviderRateLimiter;
+import org.booklore.service.metadata.MetadataResponseCache;
 import org.booklore.util.BookUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -18,13 +20,11 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -37,14 +37,11 @@ public class RanobeDbParser implements BookParser {
     private static final String RANOBEDB_IMAGE_URL = "https://images.ranobedb.org/";
 
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
+    private final MetadataResponseCache responseCache;
     private final HttpClient httpClient = HttpClient.newHttpClient();
-    
-    // Rate limiter: 2 requests per second
-    private static final int MAX_REQUESTS_PER_SECOND = 2;
-    private static final long RATE_LIMIT_WINDOW_MS = 1000; // 1 second in milliseconds
+
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
-    private final AtomicLong lastRequestTime = new AtomicLong(0);
-    private final AtomicLong tokenCount = new AtomicLong(MAX_REQUESTS_PER_SECOND);
 
     @Override
     public List<BookMetadata> fetchMetadata(Book book, FetchMetadataRequest fetchMetadataRequest) {
@@ -68,56 +65,10 @@ public class RanobeDbParser implements BookParser {
         return metadataList.isEmpty() ? null : metadataList.getFirst();
     }
     
-    private void waitForRateLimit() {
-        while (true) {
-            long currentTime = System.currentTimeMillis();
-            long lastTime = lastRequestTime.get();
-            long timeSinceLastRequest = currentTime - lastTime;
-            
-            // Refill tokens based on time elapsed
-            if (timeSinceLastRequest >= RATE_LIMIT_WINDOW_MS) {
-                // More than 1 second has passed, refill to max tokens
-                if (lastRequestTime.compareAndSet(lastTime, currentTime)) {
-                    tokenCount.set(MAX_REQUESTS_PER_SECOND);
-                }
-            } else {
-                // Calculate how many tokens to add based on time elapsed
-                long tokensToAdd = (timeSinceLastRequest * MAX_REQUESTS_PER_SECOND) / RATE_LIMIT_WINDOW_MS;
-                if (tokensToAdd > 0) {
-                    long currentTokens = tokenCount.get();
-                    long newTokens = Math.min(currentTokens + tokensToAdd, MAX_REQUESTS_PER_SECOND);
-                    tokenCount.compareAndSet(currentTokens, newTokens);
-                }
-            }
-            
-            // Try to consume a token
-            long currentTokens = tokenCount.get();
-            if (currentTokens > 0) {
-                if (tokenCount.compareAndSet(currentTokens, currentTokens - 1)) {
-                    lastRequestTime.set(System.currentTimeMillis());
-                    return; // Successfully acquired a token
-                }
-            } else {
-                // No tokens available, wait before retrying
-                try {
-                    long waitTime = RATE_LIMIT_WINDOW_MS / MAX_REQUESTS_PER_SECOND;
-                    Thread.sleep(waitTime);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.warn("Rate limiter interrupted", e);
-                    return;
-                }
-            }
-        }
-    }
-
     public List<BookMetadata> getMetadataListByTerm(String term, Boolean fetchTop) {
       log.info("Ranobedb: Fetching metadata for term: '{}'", term);
 
       try {
-          // Apply rate limiting before making the API request
-          waitForRateLimit();
-          
           URI uri = UriComponentsBuilder.fromUriString(RANOBEDB_URL)
                   .path("/books")
                   .queryParam("q", term)
@@ -130,27 +81,33 @@ public class RanobeDbParser implements BookParser {
                   .build()
                   .toUri();
 
-          HttpRequest request = HttpRequest.newBuilder()
-                  .uri(uri)
-                  .header("User-Agent", "BookLore/1.0 (Book and Comic Metadata Fetcher; +https://github.com/booklore-app/booklore)")
-                  .GET()
-                  .build();
+          MetadataResponseCache.Response response = sendRequest(uri);
 
-          HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-          if (response.statusCode() == 200) {
+          if (response.status() == 200) {
               List<BookMetadata> metadataList = parseRanobeDbApiResponse(response.body(), fetchTop);
               log.error("Ranobedb: Found {} results for term: '{}'", metadataList.size(), term);
               return metadataList;
           } else {
-              log.error("Ranobedb Search API returned status code {}", response.statusCode());
+              log.error("Ranobedb Search API returned status code {}", response.status());
           }
-      } catch (IOException | InterruptedException e) {
+      } catch (IOException e) {
           log.error("Error fetching metadata from Ranobedb Search API", e);
       }
       return Collections.emptyList();
     }
 
+    private MetadataResponseCache.Response sendRequest(URI uri) throws IOException {
+        return responseCache.fetch(MetadataProvider.Ranobedb, uri.toString(), validators -> {
+            rateLimiter.acquire(MetadataProvider.Ranobedb);
+            HttpRequest request = validators.applyTo(HttpRequest.newBuilder())
+                    .uri(uri)
+                    .header("User-Agent", "BookLore/1.0 (Book and Comic Metadata Fetcher; +https://github.com/booklore-app/booklore)")
+                    .GET()
+                    .build();
+            return MetadataResponseCache.Response.send(httpClient, request);
+        });
+    }
+
     private String getSearchTerm(Book book, FetchMetadataRequest request) {
         if (request.getTitle() != null && !request.getTitle().isEmpty()) {
             return request.getTitle();
@@ -178,24 +135,15 @@ public class RanobeDbParser implements BookParser {
     private BookMetadata searchResultToBookMetadata(int bookId) {
 
         try {
-            // Apply rate limiting before making the API request
-            waitForRateLimit();
-            
             log.info("Ranobedb: Fetching metadata for book id: '{}'", bookId);
             URI uri = UriComponentsBuilder.fromUriString(RANOBEDB_URL)
                     .pathSegment("book", String.valueOf(bookId))
                     .build()
                     .toUri();
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(uri)
-                    .header("User-Agent", "BookLore/1.0 (Book and Comic Metadata Fetcher; +https://github.com/booklore-app/booklore)")
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            MetadataResponseCache.Response response = sendRequest(uri);
 
-            if (response.statusCode() == 200) {
+            if (response.status() == 200) {
                 RanobedbBookResponse responstObj = OBJECT_MAPPER.readValue(response.body(), RanobedbBookResponse.class);
                 RanobedbBookResponse.Book book = responstObj.getBook();
                 if (book == null) {
@@ -266,9 +214,9 @@ public class RanobeDbParser implements BookParser {
                     .publishedDate(englishRelease != null ? parseDate(englishRelease.getReleaseDate()) : parseDate(book.getCReleaseDate()))
                     .build();
             } else {
-                log.error("Ranobedb Get Book API returned status code {}", response.statusCode());
+                log.error("Ranobedb Get Book API returned status code {}", response.status());
             }
-        } catch (IOException | InterruptedException e) {
+        } catch (IOException e) {
             log.error("Error fetching metadata from Ranobedb Search API", e);
         }
         
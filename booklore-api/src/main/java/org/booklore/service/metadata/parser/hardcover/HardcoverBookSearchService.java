@@ -1,6 +1,9 @@
 package org.booklore.service.metadata.parser.hardcover;
 
+import org.booklore.model.enums.MetadataProvider;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataProviderRateLimiter;
+import org.booklore.service.metadata.MetadataResponseCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
@@ -8,7 +11,9 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
+import tools.jackson.databind.ObjectMapper;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
@@ -23,13 +28,19 @@ public class HardcoverBookSearchService {
 
     private final RestClient restClient;
     private final AppSettingService appSettingService;
+    private final MetadataProviderRateLimiter rateLimiter;
+    private final MetadataResponseCache responseCache;
+    private final ObjectMapper objectMapper;
     private final AtomicLong requestDelayMs = new AtomicLong(INITIAL_DELAY_MS);
-    private final AtomicLong lastRequestTime = new AtomicLong(0);
     private final AtomicLong successCount = new AtomicLong(0);
 
     @Autowired
-    public HardcoverBookSearchService(AppSettingService appSettingService) {
+    public HardcoverBookSearchService(AppSettingService appSettingService, MetadataProviderRateLimiter rateLimiter,
+                                      MetadataResponseCache responseCache, ObjectMapper objectMapper) {
         this.appSettingService = appSettingService;
+        this.rateLimiter = rateLimiter;
+        this.responseCache = responseCache;
+        this.objectMapper = objectMapper;
         this.restClient = RestClient.builder()
                 .baseUrl("https://api.hardcover.app/v1/graphql")
                 .build();
@@ -80,28 +91,33 @@ public class HardcoverBookSearchService {
     }
 
     private <T> T executeRequest(GraphQLRequest body, Class<T> responseType, String apiToken) {
-        enforceRateLimit();
-
         try {
-            T response = restClient.post()
-                    .uri("")
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken)
-                    .body(body)
-                    .retrieve()
-                    .body(responseType);
-
-            successCount.incrementAndGet();
-            if (successCount.get() % 5 == 0) {
-                reduceDelay();
-            }
-            return response;
-
+            // GraphQL queries are POSTs without validators, so a cached answer is reused until it expires
+            MetadataResponseCache.Response response = responseCache.fetch(MetadataProvider.Hardcover, objectMapper.writeValueAsString(body), validators -> {
+                rateLimiter.acquire(MetadataProvider.Hardcover);
+                String json = restClient.post()
+                        .uri("")
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken)
+                        .body(body)
+                        .retrieve()
+                        .body(String.class);
+
+                successCount.incrementAndGet();
+                if (successCount.get() % 5 == 0) {
+                    reduceDelay();
+                }
+                // GraphQL reports errors with status 200; give those another status so they aren't cached
+                int status = json != null && !json.contains("\"errors\"") ? 200 : 502;
+                return new MetadataResponseCache.Response(status, json, null, null);
+            });
+            return response.body() != null ? objectMapper.readValue(response.body(), responseType) : null;
         } catch (RestClientResponseException e) {
             successCount.set(0);
             if (e.getStatusCode().value() == 429 || e.getResponseBodyAsString().contains("Throttled")) {
                 increaseDelay();
-                log.warn("Hardcover API throttled, increased delay to {}ms", requestDelayMs.get());
+                rateLimiter.pause(MetadataProvider.Hardcover, Duration.ofMillis(requestDelayMs.get()));
+                log.warn("Hardcover API throttled, pausing requests for {}ms", requestDelayMs.get());
             } else {
                 log.error("Hardcover API error: {}", e.getMessage());
             }
@@ -109,23 +125,6 @@ public class HardcoverBookSearchService {
         } catch (Exception e) {
             log.error("Hardcover API request failed: {}", e.getMessage());
             return null;
-        } finally {
-            lastRequestTime.set(System.currentTimeMillis());
-        }
-    }
-
-    private void enforceRateLimit() {
-        long now = System.currentTimeMillis();
-        long last = lastRequestTime.get();
-        long delay = requestDelayMs.get();
-        long elapsed = now - last;
-
-        if (elapsed < delay) {
-            try {
-                Thread.sleep(delay - elapsed);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
         }
     }
 
@@ -15,6 +15,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
 import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.booklore.model.MetadataClearFlags;
 import org.booklore.model.dto.settings.MetadataPersistenceSettings;
 import org.booklore.model.entity.*;
@@ -35,11 +38,11 @@ import java.nio.file.StandardOpenOption;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 @Slf4j
@@ -49,6 +52,7 @@ public class CbxMetadataWriter implements MetadataWriter {
 
     private static final Pattern VALID_FILENAME_PATTERN = Pattern.compile("^[\\w./\\\\-]+$");
     private static final int BUFFER_SIZE = 8192;
+    private static final Set<String> COMPRESSED_IMAGE_EXTENSIONS = Set.of(".jpg", ".jpeg", ".png", ".webp", ".gif", ".avif", ".heic", ".jxl");
 
     // Cache JAXBContext for performance
     private static final JAXBContext JAXB_CONTEXT;
@@ -79,7 +83,8 @@ public class CbxMetadataWriter implements MetadataWriter {
             return;
         }
 
-        Path backupPath = createBackupFile(file);
+        // CBZ and CB7 are written to a temp file and moved into place, so only the in-place RAR update needs a backup
+        Path backupPath = isCbr ? createBackupFile(file) : null;
         Path extractDir = null;
         Path tempArchive = null;
         boolean writeSucceeded = false;
@@ -153,8 +158,8 @@ public class CbxMetadataWriter implements MetadataWriter {
     }
 
     private ComicInfo loadFromZip(File file) throws Exception {
-        try (ZipFile zipFile = new ZipFile(file)) {
-            ZipEntry xmlEntry = findComicInfoEntry(zipFile);
+        try (ZipFile zipFile = openZip(file)) {
+            ZipArchiveEntry xmlEntry = findComicInfoEntry(zipFile);
             if (xmlEntry != null) {
                 try (InputStream stream = zipFile.getInputStream(xmlEntry)) {
                     return parseComicInfo(stream);
@@ -523,18 +528,37 @@ public class CbxMetadataWriter implements MetadataWriter {
     private Path updateZipArchive(File originalFile, byte[] xmlContent) throws Exception {
         // Create temp file in same directory as original for true atomic move on same filesystem
         Path tempArchive = Files.createTempFile(originalFile.toPath().getParent(), ".cbx_edit_", ".cbz");
-        rebuildZipWithNewXml(originalFile.toPath(), tempArchive, xmlContent);
-        replaceFileAtomic(tempArchive, originalFile.toPath());
+        try {
+            try (ZipFile zipFile = openZip(originalFile)) {
+                ZipArchiveEntry existingXml = findComicInfoEntry(zipFile);
+                String xmlEntryName = existingXml != null ? existingXml.getName() : "ComicInfo.xml";
+                // pages are copied compressed as they are, only ComicInfo.xml is written anew
+                ZipEntryRewriter.rewrite(zipFile, tempArchive, Map.of(xmlEntryName, xmlContent), entryName -> {
+                    if (isPathSafe(entryName)) return true;
+                    log.warn("Skipping unsafe ZIP entry name: {}", entryName);
+                    return false;
+                });
+            }
+            replaceFileAtomic(tempArchive, originalFile.toPath());
+        } catch (Exception e) {
+            Files.deleteIfExists(tempArchive);
+            throw e;
+        }
         return null;
     }
 
     private Path convert7zToZip(File original7z, byte[] xmlContent) throws Exception {
         // Create temp file in same directory as original for true atomic move on same filesystem
         Path tempZip = Files.createTempFile(original7z.toPath().getParent(), ".cbx_edit_", ".cbz");
-        repack7zToZipWithXml(original7z, tempZip, xmlContent);
+        try {
+            repack7zToZipWithXml(original7z, tempZip, xmlContent);
 
-        Path targetPath = original7z.toPath().resolveSibling(removeFileExtension(original7z.getName()) + ".cbz");
-        replaceFileAtomic(tempZip, targetPath);
+            Path targetPath = original7z.toPath().resolveSibling(removeFileExtension(original7z.getName()) + ".cbz");
+            replaceFileAtomic(tempZip, targetPath);
+        } catch (Exception e) {
+            Files.deleteIfExists(tempZip);
+            throw e;
+        }
 
         try {
             Files.deleteIfExists(original7z.toPath());
@@ -545,9 +569,12 @@ public class CbxMetadataWriter implements MetadataWriter {
 
     private void repack7zToZipWithXml(File source7z, Path targetZip, byte[] xmlContent) throws Exception {
         try (SevenZFile archive = SevenZFile.builder().setFile(source7z).get();
-             ZipOutputStream zipOutput = new ZipOutputStream(Files.newOutputStream(targetZip))) {
+             ZipArchiveOutputStream zipOutput = new ZipArchiveOutputStream(targetZip)) {
 
-            for (SevenZArchiveEntry entry : archive.getEntries()) {
+            // entries are read in archive order so solid blocks are decompressed once
+            byte[] buffer = new byte[BUFFER_SIZE];
+            SevenZArchiveEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
                 if (entry.isDirectory()) continue;
                 String entryName = entry.getName();
                 if (isComicInfoXml(entryName)) continue;
@@ -556,16 +583,25 @@ public class CbxMetadataWriter implements MetadataWriter {
                     continue;
                 }
 
-                zipOutput.putNextEntry(new ZipEntry(entryName));
-                try (InputStream entryStream = archive.getInputStream(entry)) {
-                    if (entryStream != null) copyStream(entryStream, zipOutput);
+                ZipArchiveEntry zipEntry = new ZipArchiveEntry(entryName);
+                // pages are already compressed images, deflating them again costs CPU and saves next to nothing
+                zipEntry.setMethod(isCompressedImage(entryName) ? ZipArchiveEntry.STORED : ZipArchiveEntry.DEFLATED);
+                if (entry.getHasLastModifiedDate()) {
+                    zipEntry.setTime(entry.getLastModifiedDate().getTime());
                 }
-                zipOutput.closeEntry();
+                zipOutput.putArchiveEntry(zipEntry);
+                int bytesRead;
+                while ((bytesRead = archive.read(buffer)) != -1) {
+                    zipOutput.write(buffer, 0, bytesRead);
+                }
+                zipOutput.closeArchiveEntry();
             }
 
-            zipOutput.putNextEntry(new ZipEntry("ComicInfo.xml"));
+            ZipArchiveEntry xmlEntry = new ZipArchiveEntry("ComicInfo.xml");
+            zipOutput.putArchiveEntry(xmlEntry);
             zipOutput.write(xmlContent);
-            zipOutput.closeEntry();
+            zipOutput.closeArchiveEntry();
+            zipOutput.finish();
         }
     }
 
@@ -735,10 +771,17 @@ public class CbxMetadataWriter implements MetadataWriter {
         }
     }
 
-    private ZipEntry findComicInfoEntry(ZipFile zipFile) {
-        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    private ZipFile openZip(File file) throws IOException {
+        return ZipFile.builder()
+                .setFile(file)
+                .setIgnoreLocalFileHeader(true)
+                .get();
+    }
+
+    private ZipArchiveEntry findComicInfoEntry(ZipFile zipFile) {
+        Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
         while (entries.hasMoreElements()) {
-            ZipEntry entry = entries.nextElement();
+            ZipArchiveEntry entry = entries.nextElement();
             String entryName = entry.getName();
             if (isComicInfoXml(entryName)) return entry;
         }
@@ -771,6 +814,12 @@ public class CbxMetadataWriter implements MetadataWriter {
         return "comicinfo.xml".equals(lowerCase) || lowerCase.endsWith("/comicinfo.xml");
     }
 
+    private static boolean isCompressedImage(String entryName) {
+        String lowerCase = entryName.toLowerCase(Locale.ROOT);
+        int dot = lowerCase.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED_IMAGE_EXTENSIONS.contains(lowerCase.substring(dot));
+    }
+
     private static boolean isPathSafe(String entryName) {
         if (entryName == null || entryName.isBlank()) return false;
         String normalized = entryName.replace('\\', '/');
@@ -784,34 +833,6 @@ public class CbxMetadataWriter implements MetadataWriter {
         return true;
     }
 
-    private void rebuildZipWithNewXml(Path sourceZip, Path targetZip, byte[] xmlContent) throws Exception {
-        try (ZipFile zipFile = new ZipFile(sourceZip.toFile());
-             ZipOutputStream zipOutput = new ZipOutputStream(Files.newOutputStream(targetZip))) {
-            ZipEntry existingXml = findComicInfoEntry(zipFile);
-            Enumeration<? extends ZipEntry> entries = zipFile.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry entry = entries.nextElement();
-                String entryName = entry.getName();
-                if (existingXml != null && entryName.equals(existingXml.getName())) {
-                    continue;
-                }
-                if (!isPathSafe(entryName)) {
-                    log.warn("Skipping unsafe ZIP entry name: {}", entryName);
-                    continue;
-                }
-                zipOutput.putNextEntry(new ZipEntry(entryName));
-                try (InputStream entryStream = zipFile.getInputStream(entry)) {
-                    copyStream(entryStream, zipOutput);
-                }
-                zipOutput.closeEntry();
-            }
-            String xmlEntryName = (existingXml != null ? existingXml.getName() : "ComicInfo.xml");
-            zipOutput.putNextEntry(new ZipEntry(xmlEntryName));
-            zipOutput.write(xmlContent);
-            zipOutput.closeEntry();
-        }
-    }
-
     private void copyStream(InputStream input, OutputStream output) throws IOException {
         byte[] buffer = new byte[BUFFER_SIZE];
         int bytesRead;
@@ -2,8 +2,8 @@ package org.booklore.service.metadata.writer;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.lingala.zip4j.ZipFile;
-import net.lingala.zip4j.model.ZipParameters;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.lang3.StringUtils;
 import org.booklore.model.MetadataClearFlags;
 import org.booklore.model.dto.settings.MetadataPersistenceSettings;
@@ -24,12 +24,14 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -39,10 +41,7 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.util.Comparator;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
 
 @Slf4j
 @Component
@@ -58,28 +57,16 @@ public class EpubMetadataWriter implements MetadataWriter {
             return;
         }
 
-        File backupFile = new File(epubFile.getParentFile(), epubFile.getName() + ".bak");
-        try {
-            Files.copy(epubFile.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException ex) {
-            log.warn("Failed to create backup of EPUB {}: {}", epubFile.getName(), ex.getMessage());
-            return;
-        }
-        Path tempDir = null;
-        try {
-            tempDir = Files.createTempDirectory("epub_edit_" + UUID.randomUUID());
-            try (ZipFile zipFile = new ZipFile(epubFile)) {
-                zipFile.extractAll(tempDir.toString());
-            }
-
-            File opfFile = findOpfFile(tempDir.toFile());
-            if (opfFile == null) {
+        Path tempEpub = null;
+        try (ZipFile zipFile = openEpub(epubFile)) {
+            String opfEntryName = findOpfEntryName(zipFile);
+            if (opfEntryName == null) {
                 log.warn("Could not locate OPF file in EPUB");
                 return;
             }
 
-            DocumentBuilder builder = SecureXmlUtils.createSecureDocumentBuilder(true);
-            Document opfDoc = builder.parse(opfFile);
+            Document opfDoc = parseEntry(zipFile, opfEntryName, true);
+            Map<String, byte[]> replacements = new LinkedHashMap<>();
 
             NodeList metadataList = opfDoc.getElementsByTagNameNS(OPF_NS, "metadata");
             Element metadataElement = (Element) metadataList.item(0);
@@ -205,7 +192,7 @@ public class EpubMetadataWriter implements MetadataWriter {
             if (StringUtils.isNotBlank(thumbnailUrl)) {
                 byte[] coverData = loadImage(thumbnailUrl);
                 if (coverData != null) {
-                    applyCoverImageToEpub(tempDir, opfDoc, coverData);
+                    replacements.put(findCoverEntryName(opfEntryName, opfDoc), coverData);
                     hasChanges[0] = true;
                 }
             }
@@ -215,43 +202,26 @@ public class EpubMetadataWriter implements MetadataWriter {
                 cleanupCalibreArtifacts(metadataElement, opfDoc);
                 organizeMetadataElements(metadataElement);
                 removeEmptyTextNodes(opfDoc);
-                Transformer transformer = TransformerFactory.newInstance().newTransformer();
-                transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-                transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-                transformer.transform(new DOMSource(opfDoc), new StreamResult(opfFile));
-
-                File tempEpub = new File(epubFile.getParentFile(), epubFile.getName() + ".tmp");
-                try (ZipFile tempZipFile = new ZipFile(tempEpub)) {
-                    addFolderContentsToZip(tempZipFile, tempDir.toFile(), tempDir.toFile());
-                }
-
-                if (!epubFile.delete()) throw new IOException("Could not delete original EPUB");
-                if (!tempEpub.renameTo(epubFile)) throw new IOException("Could not rename temp EPUB");
+                replacements.put(opfEntryName, serializeOpf(opfDoc));
 
-                log.info("Metadata updated in EPUB: {}", epubFile.getName());
+                tempEpub = Files.createTempFile(epubFile.toPath().getParent(), ".epub_edit_", ".tmp");
+                ZipEntryRewriter.rewrite(zipFile, tempEpub, replacements);
             } else {
                 log.info("No changes detected. Skipping EPUB write for: {}", epubFile.getName());
             }
         } catch (Exception e) {
             log.warn("Failed to write metadata to EPUB file {}: {}", epubFile.getName(), e.getMessage(), e);
-            if (backupFile.exists()) {
-                try {
-                    Files.copy(backupFile.toPath(), epubFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                    log.info("Restored EPUB from backup: {}", epubFile.getName());
-                } catch (IOException io) {
-                    log.error("Failed to restore EPUB from backup for {}: {}", epubFile.getName(), io.getMessage(), io);
-                }
-            }
-        } finally {
-            if (tempDir != null) {
-                deleteDirectoryRecursively(tempDir);
-            }
-            if (backupFile.exists()) {
-                try {
-                    Files.delete(backupFile.toPath());
-                } catch (IOException ex) {
-                    log.warn("Failed to delete backup for {}: {}", epubFile.getName(), ex.getMessage());
-                }
+            deleteTempFile(tempEpub);
+            return;
+        }
+
+        if (tempEpub != null) {
+            try {
+                ZipEntryRewriter.replaceFile(tempEpub, epubFile.toPath());
+                log.info("Metadata updated in EPUB: {}", epubFile.getName());
+            } catch (IOException e) {
+                log.warn("Failed to replace EPUB file {}: {}", epubFile.getName(), e.getMessage(), e);
+                deleteTempFile(tempEpub);
             }
         }
     }
@@ -352,48 +322,30 @@ public class EpubMetadataWriter implements MetadataWriter {
     }
 
     private void replaceCoverImageInternal(BookEntity bookEntity, byte[] coverData, String source) {
-        Path tempDir = null;
+        File epubFile = bookEntity.getFullFilePath().toFile();
+        Path tempEpub = null;
         try {
-            File epubFile = new File(bookEntity.getFullFilePath().toUri());
-            tempDir = Files.createTempDirectory("epub_cover_" + UUID.randomUUID());
-
-            try (ZipFile zipFile = new ZipFile(epubFile)) {
-                zipFile.extractAll(tempDir.toString());
-            }
-
-            File opfFile = findOpfFile(tempDir.toFile());
-            if (opfFile == null) {
-                log.warn("OPF file not found in EPUB: {}", epubFile.getName());
-                return;
-            }
-
-            DocumentBuilder builder = SecureXmlUtils.createSecureDocumentBuilder(true);
-            Document opfDoc = builder.parse(opfFile);
-
-            applyCoverImageToEpub(tempDir, opfDoc, coverData);
+            try (ZipFile zipFile = openEpub(epubFile)) {
+                String opfEntryName = findOpfEntryName(zipFile);
+                if (opfEntryName == null) {
+                    log.warn("OPF file not found in EPUB: {}", epubFile.getName());
+                    return;
+                }
 
-            removeEmptyTextNodes(opfDoc);
-            Transformer transformer = TransformerFactory.newInstance().newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-            transformer.transform(new DOMSource(opfDoc), new StreamResult(opfFile));
+                Document opfDoc = parseEntry(zipFile, opfEntryName, true);
+                String coverEntryName = findCoverEntryName(opfEntryName, opfDoc);
 
-            File tempEpub = new File(epubFile.getParentFile(), epubFile.getName() + ".tmp");
-            try (ZipFile tempZipFile = new ZipFile(tempEpub)) {
-                addFolderContentsToZip(tempZipFile, tempDir.toFile(), tempDir.toFile());
+                // the OPF itself is unchanged, only the image behind the existing cover item is swapped
+                tempEpub = Files.createTempFile(epubFile.toPath().getParent(), ".epub_cover_", ".tmp");
+                ZipEntryRewriter.rewrite(zipFile, tempEpub, Map.of(coverEntryName, coverData));
             }
-
-            if (!epubFile.delete()) throw new IOException("Could not delete original EPUB");
-            if (!tempEpub.renameTo(epubFile)) throw new IOException("Could not rename temp EPUB");
+            ZipEntryRewriter.replaceFile(tempEpub, epubFile.toPath());
 
             log.info("Cover image updated in EPUB from {}: {}", source, epubFile.getName());
 
         } catch (Exception e) {
             log.warn("Failed to update EPUB cover image from {}: {}", source, e.getMessage(), e);
-        } finally {
-            if (tempDir != null) {
-                deleteDirectoryRecursively(tempDir);
-            }
+            deleteTempFile(tempEpub);
         }
     }
 
@@ -402,7 +354,7 @@ public class EpubMetadataWriter implements MetadataWriter {
         return BookFileType.EPUB;
     }
 
-    private void applyCoverImageToEpub(Path tempDir, Document opfDoc, byte[] coverData) throws IOException {
+    private String findCoverEntryName(String opfEntryName, Document opfDoc) throws IOException {
         NodeList manifestList = opfDoc.getElementsByTagNameNS(OPF_NS, "manifest");
         if (manifestList.getLength() == 0) {
             throw new IOException("No <manifest> element found in OPF document.");
@@ -466,51 +418,100 @@ public class EpubMetadataWriter implements MetadataWriter {
             throw new IOException("Cover item has no href attribute");
         }
 
-        Path opfPath;
-        try {
-            opfPath = findOpfPath(tempDir);
-        } catch (ParserConfigurationException | SAXException e) {
-            throw new IOException("Failed to parse container.xml to locate OPF path", e);
+        int slash = opfEntryName.lastIndexOf('/');
+        String opfDir = slash >= 0 ? opfEntryName.substring(0, slash + 1) : "";
+        String coverEntryName = normalizeEntryName(opfDir + decodedCoverHref);
+        if (coverEntryName == null) {
+            throw new IOException("Cover href points outside the EPUB: " + coverHref);
         }
+        return coverEntryName;
+    }
 
-        Path opfDir = opfPath.getParent();
-        Path coverFilePath = opfDir.resolve(decodedCoverHref).normalize();
-
-        Files.createDirectories(coverFilePath.getParent());
-        Files.write(coverFilePath, coverData);
+    private ZipFile openEpub(File epubFile) throws IOException {
+        return ZipFile.builder()
+                .setFile(epubFile)
+                .setIgnoreLocalFileHeader(true)
+                .get();
     }
 
-    private Path findOpfPath(Path tempDir) throws IOException, ParserConfigurationException, SAXException {
-        Path containerXml = tempDir.resolve("META-INF/container.xml");
-        if (!Files.exists(containerXml)) {
-            throw new IOException("container.xml not found at expected location: " + containerXml);
+    /**
+     * The OPF named by {@code META-INF/container.xml}, or the first {@code .opf} entry when the container is
+     * missing or broken.
+     */
+    private String findOpfEntryName(ZipFile zipFile) {
+        if (zipFile.getEntry("META-INF/container.xml") != null) {
+            try {
+                Document containerDoc = parseEntry(zipFile, "META-INF/container.xml", false);
+                Node rootfile = containerDoc.getElementsByTagName("rootfile").item(0);
+                if (rootfile != null) {
+                    String fullPath = normalizeEntryName(((Element) rootfile).getAttribute("full-path"));
+                    if (fullPath != null && zipFile.getEntry(fullPath) != null) {
+                        return fullPath;
+                    }
+                }
+            } catch (IOException | ParserConfigurationException | SAXException e) {
+                log.debug("Failed to read container.xml, looking for the OPF by extension: {}", e.getMessage());
+            }
         }
-
-        DocumentBuilder builder = SecureXmlUtils.createSecureDocumentBuilder(false);
-        Document containerDoc = builder.parse(containerXml.toFile());
-        Node rootfile = containerDoc.getElementsByTagName("rootfile").item(0);
-        if (rootfile == null) {
-            throw new IOException("No <rootfile> found in container.xml");
+        Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
+        while (entries.hasMoreElements()) {
+            ZipArchiveEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && entry.getName().endsWith(".opf")) {
+                return entry.getName();
+            }
         }
+        return null;
+    }
 
-        String opfPath = ((Element) rootfile).getAttribute("full-path");
-        if (opfPath.isBlank()) {
-            throw new IOException("Missing or empty 'full-path' attribute in <rootfile>");
+    private Document parseEntry(ZipFile zipFile, String entryName, boolean namespaceAware) throws IOException, ParserConfigurationException, SAXException {
+        DocumentBuilder builder = SecureXmlUtils.createSecureDocumentBuilder(namespaceAware);
+        try (InputStream in = zipFile.getInputStream(zipFile.getEntry(entryName))) {
+            return builder.parse(in);
         }
+    }
 
-        return tempDir.resolve(opfPath).normalize();
+    private byte[] serializeOpf(Document opfDoc) throws TransformerException {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transformer.transform(new DOMSource(opfDoc), new StreamResult(out));
+        return out.toByteArray();
     }
 
-    private File findOpfFile(File rootDir) {
-        File[] matches = rootDir.listFiles(path -> path.isFile() && path.getName().endsWith(".opf"));
-        if (matches != null && matches.length > 0) return matches[0];
-        for (File file : Objects.requireNonNull(rootDir.listFiles())) {
-            if (file.isDirectory()) {
-                File child = findOpfFile(file);
-                if (child != null) return child;
+    /**
+     * Resolves {@code .} and {@code ..} segments of a ZIP entry path, or returns null if it escapes the archive root.
+     */
+    private static String normalizeEntryName(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        Deque<String> segments = new ArrayDeque<>();
+        for (String segment : name.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment)) {
+                if (segments.isEmpty()) {
+                    return null;
+                }
+                segments.removeLast();
+            } else {
+                segments.addLast(segment);
             }
         }
-        return null;
+        return segments.isEmpty() ? null : String.join("/", segments);
+    }
+
+    private void deleteTempFile(Path tempFile) {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary EPUB {}: {}", tempFile, e.getMessage());
+        }
     }
 
     private byte[] loadImage(String pathOrUrl) {
@@ -522,19 +523,6 @@ public class EpubMetadataWriter implements MetadataWriter {
         }
     }
 
-    private void addFolderContentsToZip(ZipFile zipFile, File baseDir, File currentDir) throws IOException {
-        File[] files = Objects.requireNonNull(currentDir.listFiles());
-        for (File file : files) {
-            if (file.isDirectory()) {
-                addFolderContentsToZip(zipFile, baseDir, file);
-            } else {
-                ZipParameters params = new ZipParameters();
-                params.setFileNameInZip(baseDir.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/'));
-                zipFile.addFile(file, params);
-            }
-        }
-    }
-
     private void removeMetaByName(Element metadataElement, String name) {
         NodeList metas = metadataElement.getElementsByTagNameNS("*", "meta");
         for (int i = metas.getLength() - 1; i >= 0; i--) {
@@ -659,22 +647,6 @@ public class EpubMetadataWriter implements MetadataWriter {
         return null;
     }
 
-    private void deleteDirectoryRecursively(Path dir) {
-        try (var pathStream = Files.walk(dir)) {
-            pathStream
-                    .sorted(Comparator.reverseOrder())
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            log.warn("Failed to delete temp file/directory: {}", path, e);
-                        }
-                    });
-        } catch (IOException e) {
-            log.warn("Failed to clean up temporary directory: {}", dir, e);
-        }
-    }
-
     public boolean shouldSaveMetadataToFile(File epubFile) {
         MetadataPersistenceSettings.SaveToOriginalFile settings = appSettingService.getAppSettings().getMetadataPersistenceSettings().getSaveToOriginalFile();
 
@@ -0,0 +1,118 @@
+package org.booklore.service.metadata.writer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Rewrites a ZIP archive with a few entries replaced, copying every other entry's compressed bytes as they are.
+ * <p>
+ * Unchanged entries are never inflated or deflated again, so saving a small metadata file into a large archive
+ * costs one sequential copy of the archive. Entries keep their physical order, which keeps an EPUB's
+ * {@code mimetype} entry first, and replaced entries keep their original compression method.
+ */
+@Slf4j
+final class ZipEntryRewriter {
+
+    private ZipEntryRewriter() {
+    }
+
+    /**
+     * Writes {@code source} to {@code target} with the entries named in {@code replacements} swapped for the given
+     * content. Replacements that don't match an existing entry are appended at the end.
+     */
+    static void rewrite(ZipFile source, Path target, Map<String, byte[]> replacements) throws IOException {
+        rewrite(source, target, replacements, entryName -> true);
+    }
+
+    /**
+     * Like {@link #rewrite(ZipFile, Path, Map)}, leaving out the unchanged entries {@code keep} rejects.
+     */
+    static void rewrite(ZipFile source, Path target, Map<String, byte[]> replacements, Predicate<String> keep) throws IOException {
+        Map<String, byte[]> pending = new LinkedHashMap<>(replacements);
+        try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(target)) {
+            Enumeration<ZipArchiveEntry> entries = source.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                if (replacements.containsKey(entry.getName())) {
+                    byte[] replacement = pending.remove(entry.getName());
+                    if (replacement != null) {
+                        writeEntry(out, entry.getName(), entry.getMethod(), replacement);
+                    } else {
+                        log.debug("Dropping duplicate ZIP entry {}", entry.getName());
+                    }
+                } else if (keep.test(entry.getName())) {
+                    try (InputStream raw = source.getRawInputStream(entry)) {
+                        out.addRawArchiveEntry(entry, raw);
+                    }
+                }
+            }
+            for (Map.Entry<String, byte[]> added : pending.entrySet()) {
+                writeEntry(out, added.getKey(), ZipArchiveEntry.DEFLATED, added.getValue());
+            }
+            out.finish();
+        }
+    }
+
+    /**
+     * Moves a rewritten archive over the original, atomically where the file system allows it. The rewritten file
+     * takes over the original's permissions, owner and group first, since a temp file is created owner-only.
+     */
+    static void replaceFile(Path source, Path target) throws IOException {
+        copyPosixAttributes(target, source);
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void copyPosixAttributes(Path from, Path to) throws IOException {
+        PosixFileAttributeView fromView = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        PosixFileAttributeView toView = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+        if (fromView == null || toView == null || !Files.exists(from)) {
+            return;
+        }
+        PosixFileAttributes attributes = fromView.readAttributes();
+        toView.setPermissions(attributes.permissions());
+        try {
+            toView.setGroup(attributes.group());
+            toView.setOwner(attributes.owner());
+        } catch (IOException e) {
+            // only root can give a file away, the permissions above are what matters to other readers
+            log.debug("Could not keep owner of {}: {}", from, e.getMessage());
+        }
+    }
+
+    private static void writeEntry(ZipArchiveOutputStream out, String name, int method, byte[] content) throws IOException {
+        ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        if (method == ZipArchiveEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setMethod(ZipArchiveEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc.getValue());
+        } else {
+            entry.setMethod(ZipArchiveEntry.DEFLATED);
+        }
+        out.putArchiveEntry(entry);
+        out.write(content);
+        out.closeArchiveEntry();
+    }
+}
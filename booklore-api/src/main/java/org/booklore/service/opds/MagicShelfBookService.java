@@ -7,7 +7,6 @@ import org.booklore.mapper.BookMapper;
 import org.booklore.mapper.custom.BookLoreUserTransformer;
 import org.booklore.model.dto.Book;
 import org.booklore.model.dto.BookLoreUser;
-import org.booklore.model.dto.GroupRule;
 import org.booklore.model.dto.Library;
 import org.booklore.model.entity.BookEntity;
 import org.booklore.model.entity.BookLoreUserEntity;
@@ -16,17 +15,22 @@ import org.booklore.repository.BookRepository;
 import org.booklore.repository.MagicShelfRepository;
 import org.booklore.repository.UserRepository;
 import org.booklore.service.BookRuleEvaluatorService;
+import org.booklore.service.MagicShelfMembershipService;
+import org.booklore.service.book.BookListViewIndex;
 import org.booklore.service.restriction.ContentRestrictionService;
+import org.booklore.service.rule.BookRuleMatcher;
+import org.booklore.service.rule.CompiledRule;
+import org.booklore.service.rule.MagicShelfRuleCompiler;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import tools.jackson.databind.ObjectMapper;
 
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -34,6 +38,8 @@ import java.util.stream.Collectors;
 @Service
 public class MagicShelfBookService {
 
+    private static final int LOAD_BATCH_SIZE = 1000;
+
     private final MagicShelfRepository magicShelfRepository;
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
@@ -41,20 +47,23 @@ public class MagicShelfBookService {
     private final BookLoreUserTransformer bookLoreUserTransformer;
     private final BookRuleEvaluatorService ruleEvaluatorService;
     private final ContentRestrictionService contentRestrictionService;
-    private final ObjectMapper objectMapper;
+    private final MagicShelfRuleCompiler ruleCompiler;
+    private final BookListViewIndex bookListViewIndex;
+    private final MagicShelfMembershipService membershipService;
 
     public Page<Book> getBooksByMagicShelfId(Long userId, Long magicShelfId, int page, int size) {
         MagicShelfEntity shelf = validateMagicShelfAccess(userId, magicShelfId);
         try {
-            GroupRule groupRule = objectMapper.readValue(shelf.getFilterJson(), GroupRule.class);
-            Specification<BookEntity> specification = ruleEvaluatorService.toSpecification(groupRule, userId);
-            specification = specification.and(createLibraryFilterSpecification(userId));
+            CompiledRule.Group rule = ruleCompiler.compile(shelf);
             Pageable pageable = PageRequest.of(Math.max(page, 0), size);
+            List<Long> matchingIds = findMatchingIdsInIndex(shelf, rule, userId);
+            if (matchingIds != null) {
+                return loadPage(matchingIds, userId, pageable);
+            }
 
-            Page<BookEntity> booksPage = bookRepository.findAll(specification, pageable);
+            Page<BookEntity> booksPage = bookRepository.findAll(createSpecification(rule, userId), pageable);
 
-            List<BookEntity> filteredEntities = contentRestrictionService.applyRestrictions(booksPage.getContent(), userId);
-            List<Book> books = filteredEntities.stream()
+            List<Book> books = booksPage.getContent().stream()
                     .map(bookMapper::toBook)
                     .map(book -> filterBook(book, userId))
                     .toList();
@@ -65,6 +74,83 @@ public class MagicShelfBookService {
         }
     }
 
+    /**
+     * Ids of the shelf's books the user may see, in id order, for callers that don't need the books themselves.
+     * Shelves answered from the index or from their materialized membership are resolved without loading any.
+     */
+    public List<Long> getBookIdsByMagicShelfId(Long userId, Long magicShelfId) {
+        MagicShelfEntity shelf = validateMagicShelfAccess(userId, magicShelfId);
+        try {
+            CompiledRule.Group rule = ruleCompiler.compile(shelf);
+            List<Long> matchingIds = findMatchingIdsInIndex(shelf, rule, userId);
+            if (matchingIds != null) {
+                return matchingIds;
+            }
+            return bookRepository.findAll(createSpecification(rule, userId), Sort.by("id")).stream()
+                    .map(BookEntity::getId)
+                    .toList();
+        } catch (Exception e) {
+            log.error("Failed to parse or execute magic shelf rules", e);
+            throw new RuntimeException("Failed to parse or execute magic shelf rules: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Matches the shelf against the in-memory book list index, either with the compiled rule or with the shelf's
+     * materialized membership. Library access and content restrictions are applied here, before any paging, so
+     * pages are full and totals exact. Returns null when the shelf has to be queried from the database.
+     */
+    private List<Long> findMatchingIdsInIndex(MagicShelfEntity shelf, CompiledRule.Group rule, Long userId) {
+        boolean materialized = !rule.inMemoryCapable() && userId != null && membershipService.isEnabled();
+        if (!rule.inMemoryCapable() && !materialized) {
+            return null;
+        }
+        Predicate<Book> permitted = contentRestrictionService.bookRestrictionFilter(userId);
+        Set<Long> libraryIds = getUserLibraryIds(userId);
+        BookListViewIndex.Snapshot snapshot = bookListViewIndex.snapshot();
+
+        List<Long> matchingIds = new ArrayList<>();
+        if (materialized) {
+            // Look the members up in the index instead of testing every book in it against the member set
+            for (Long bookId : membershipService.getBookIds(shelf, rule, userId)) {
+                int index = snapshot.indexOf(bookId);
+                if (index >= 0 && snapshot.inLibraries(index, libraryIds) && permitted.test(snapshot.rows()[index])) {
+                    matchingIds.add(bookId);
+                }
+            }
+            return matchingIds;
+        }
+        Predicate<Book> matches = BookRuleMatcher.toPredicate(rule).and(permitted);
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (snapshot.inLibraries(i, libraryIds) && matches.test(snapshot.rows()[i])) {
+                matchingIds.add(snapshot.ids()[i]);
+            }
+        }
+        return matchingIds;
+    }
+
+    /**
+     * Loads only the requested page of the matched ids from the database.
+     */
+    private Page<Book> loadPage(List<Long> matchingIds, Long userId, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), matchingIds.size());
+        int to = (int) Math.min((long) from + pageable.getPageSize(), matchingIds.size());
+        List<Long> pageIds = matchingIds.subList(from, to);
+
+        List<BookEntity> entities = new ArrayList<>(pageIds.size());
+        for (int start = 0; start < pageIds.size(); start += LOAD_BATCH_SIZE) {
+            List<Long> batch = pageIds.subList(start, Math.min(start + LOAD_BATCH_SIZE, pageIds.size()));
+            entities.addAll(bookRepository.findAllWithMetadataByIds(new HashSet<>(batch)));
+        }
+        entities.sort(Comparator.comparing(BookEntity::getId));
+
+        List<Book> books = entities.stream()
+                .map(bookMapper::toBook)
+                .map(book -> filterBook(book, userId))
+                .toList();
+        return new PageImpl<>(books, pageable, matchingIds.size());
+    }
+
     public String getMagicShelfName(Long magicShelfId) {
         return magicShelfRepository.findById(magicShelfId)
                 .map(s -> s.getName() + " - Magic Shelf")
@@ -101,23 +187,39 @@ public class MagicShelfBookService {
         return shelf;
     }
 
+    private Specification<BookEntity> createSpecification(CompiledRule.Group rule, Long userId) {
+        Specification<BookEntity> specification = ruleEvaluatorService.toSpecification(rule, userId);
+        specification = specification.and(createLibraryFilterSpecification(userId));
+        Specification<BookEntity> restrictions = contentRestrictionService.restrictionSpecification(userId);
+        if (restrictions != null) {
+            specification = specification.and(restrictions);
+        }
+        return specification;
+    }
+
     private Specification<BookEntity> createLibraryFilterSpecification(Long userId) {
         return (root, query, cb) -> {
-            BookLoreUserEntity entity = userRepository.findById(userId)
-                    .orElseThrow(() -> ApiError.USER_NOT_FOUND.createException(userId));
+            Set<Long> userLibraryIds = getUserLibraryIds(userId);
+            return userLibraryIds == null ? cb.conjunction() : root.get("library").get("id").in(userLibraryIds);
+        };
+    }
 
-            BookLoreUser user = bookLoreUserTransformer.toDTO(entity);
+    /**
+     * @return the libraries the user may see, or null for admins
+     */
+    private Set<Long> getUserLibraryIds(Long userId) {
+        BookLoreUserEntity entity = userRepository.findById(userId)
+                .orElseThrow(() -> ApiError.USER_NOT_FOUND.createException(userId));
 
-            if (user.getPermissions() != null && user.getPermissions().isAdmin()) {
-                return cb.conjunction();
-            }
+        BookLoreUser user = bookLoreUserTransformer.toDTO(entity);
 
-            Set<Long> userLibraryIds = user.getAssignedLibraries().stream()
-                    .map(Library::getId)
-                    .collect(Collectors.toSet());
+        if (user.getPermissions() != null && user.getPermissions().isAdmin()) {
+            return null;
+        }
 
-            return root.get("library").get("id").in(userLibraryIds);
-        };
+        return user.getAssignedLibraries().stream()
+                .map(Library::getId)
+                .collect(Collectors.toSet());
     }
 
     private Book filterBook(Book dto, Long userId) {
@@ -13,19 +13,23 @@ import org.booklore.repository.BookOpdsRepository;
 import org.booklore.repository.ShelfRepository;
 import org.booklore.repository.UserRepository;
 import org.booklore.repository.BookRepository;
-import org.booklore.util.BookUtils;
 import org.booklore.service.library.LibraryService;
 import org.booklore.service.restriction.ContentRestrictionService;
+import org.booklore.service.search.BookSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -41,6 +45,7 @@ public class OpdsBookService {
     private final ShelfRepository shelfRepository;
     private final LibraryService libraryService;
     private final ContentRestrictionService contentRestrictionService;
+    private final BookSearchIndex bookSearchIndex;
 
     public List<Library> getAccessibleLibraries(Long userId) {
         if (userId == null) {
@@ -80,7 +85,7 @@ public class OpdsBookService {
         if (shelfIds != null && !shelfIds.isEmpty()) {
             validateShelfAccess(shelfIds, user.getId(), isAdmin);
             Page<Book> books = query != null && !query.isBlank()
-                    ? searchByMetadataInShelvesPageInternal(BookUtils.normalizeForSearch(query), shelfIds, page, size, userId)
+                    ? searchByMetadataInShelvesPageInternal(query, shelfIds, page, size, userId)
                     : getBooksByShelfIdsPageInternal(shelfIds, page, size, userId);
             return applyBookFilters(books, userId);
         }
@@ -88,19 +93,19 @@ public class OpdsBookService {
         if (libraryId != null) {
             validateLibraryAccess(libraryId, userLibraryIds, isAdmin);
             Page<Book> books = query != null && !query.isBlank()
-                    ? searchByMetadataInLibrariesPageInternal(BookUtils.normalizeForSearch(query), Set.of(libraryId), page, size, userId)
+                    ? searchByMetadataInLibrariesPageInternal(query, Set.of(libraryId), page, size, userId)
                     : getBooksByLibraryIdsPageInternal(Set.of(libraryId), page, size, userId);
             return applyBookFilters(books, userId);
         }
 
         if (isAdmin) {
             return query != null && !query.isBlank()
-                    ? searchByMetadataPageInternal(BookUtils.normalizeForSearch(query), page, size, null)
+                    ? searchByMetadataPageInternal(query, page, size, null)
                     : getAllBooksPageInternal(page, size, null);
         }
 
         Page<Book> books = query != null && !query.isBlank()
-                ? searchByMetadataInLibrariesPageInternal(BookUtils.normalizeForSearch(query), userLibraryIds, page, size, userId)
+                ? searchByMetadataInLibrariesPageInternal(query, userLibraryIds, page, size, userId)
                 : getBooksByLibraryIdsPageInternal(userLibraryIds, page, size, userId);
         return applyBookFilters(books, userId);
     }
@@ -215,20 +220,21 @@ public class OpdsBookService {
                 return new PageImpl<>(List.of(), pageable, 0);
             }
             List<BookEntity> books = bookOpdsRepository.findAllWithFullMetadataByIds(idPage.getContent());
-            return createPageFromEntities(books, idPage, pageable, null);
+            return createPageFromEntities(books, idPage, pageable);
         }
 
         Set<Long> libraryIds = user.getAssignedLibraries().stream()
                 .map(Library::getId)
                 .collect(Collectors.toSet());
 
-        Page<Long> idPage = bookOpdsRepository.findBookIdsByAuthorNameAndLibraryIds(authorName, libraryIds, pageable);
+        Page<Long> idPage = findBookIds(userId, pageable, OpdsBookSpecification.inLibraries(libraryIds).and(OpdsBookSpecification.byAuthor(authorName)),
+                OpdsBookSpecification.RECENT_FIRST, () -> bookOpdsRepository.findBookIdsByAuthorNameAndLibraryIds(authorName, libraryIds, pageable));
         if (idPage.isEmpty()) {
             return new PageImpl<>(List.of(), pageable, 0);
         }
 
         List<BookEntity> books = bookOpdsRepository.findAllWithFullMetadataByIdsAndLibraryIds(idPage.getContent(), libraryIds);
-        Page<Book> booksPage = createPageFromEntities(books, idPage, pageable, userId);
+        Page<Book> booksPage = createPageFromEntities(books, idPage, pageable);
         return applyBookFilters(booksPage, userId);
     }
 
@@ -269,129 +275,149 @@ public class OpdsBookService {
                 return new PageImpl<>(List.of(), pageable, 0);
             }
             List<BookEntity> books = bookOpdsRepository.findAllWithFullMetadataByIds(idPage.getContent());
-            return createPageFromEntities(books, idPage, pageable, null);
+            return createPageFromEntities(books, idPage, pageable);
         }
 
         Set<Long> libraryIds = user.getAssignedLibraries().stream()
                 .map(Library::getId)
                 .collect(Collectors.toSet());
 
-        Page<Long> idPage = bookOpdsRepository.findBookIdsBySeriesNameAndLibraryIds(seriesName, libraryIds, pageable);
+        Page<Long> idPage = findBookIds(userId, pageable, OpdsBookSpecification.inLibraries(libraryIds).and(OpdsBookSpecification.inSeries(seriesName)),
+                OpdsBookSpecification.SERIES_ORDER, () -> bookOpdsRepository.findBookIdsBySeriesNameAndLibraryIds(seriesName, libraryIds, pageable));
         if (idPage.isEmpty()) {
             return new PageImpl<>(List.of(), pageable, 0);
         }
 
         List<BookEntity> books = bookOpdsRepository.findAllWithFullMetadataByIdsAndLibraryIds(idPage.getContent(), libraryIds);
-        Page<Book> booksPage = createPageFromEntities(books, idPage, pageable, userId);
+        Page<Book> booksPage = createPageFromEntities(books, idPage, pageable);
         return applyBookFilters(booksPage, userId);
     }
 
     private Page<Book> getAllBooksPageInternal(int page, int size, Long userId) {
         Pageable pageable = PageRequest.of(Math.max(page, 0), size);
 
-        Page<Long> idPage = bookOpdsRepository.findBookIds(pageable);
+        Page<Long> idPage = findBookIds(userId, pageable, OpdsBookSpecification.all(),
+                OpdsBookSpecification.RECENT_FIRST, () -> bookOpdsRepository.findBookIds(pageable));
         if (idPage.isEmpty()) {
             return new PageImpl<>(List.of(), pageable, 0);
         }
 
         List<BookEntity> books = bookOpdsRepository.findAllWithMetadataByIds(idPage.getContent());
-        return createPageFromEntities(books, idPage, pageable, userId);
+        return createPageFromEntities(books, idPage, pageable);
     }
 
     private Page<Book> getRecentBooksPageInternal(int page, int size, Long userId) {
         Pageable pageable = PageRequest.of(Math.max(page, 0), size);
 
-        Page<Long> idPage = bookOpdsRepository.findRecentBookIds(pageable);
+        Page<Long> idPage = findBookIds(userId, pageable, OpdsBookSpecification.all(),
+                OpdsBookSpecification.RECENT_FIRST, () -> bookOpdsRepository.findRecentBookIds(pageable));
         if (idPage.isEmpty()) {
             return new PageImpl<>(List.of(), pageable, 0);
         }
 
         List<BookEntity> books = bookOpdsRepository.findAllWithMetadataByIds(idPage.getContent());
-        return createPageFromEntities(books, idPage, pageable, userId);
+        return createPageFromEntities(books, idPage, pageable);
     }
 
     private Page<Book> getBooksByLibraryIdsPageInternal(Set<Long> libraryIds, int page, int size, Long userId) {
         Pageable pageable = PageRequest.of(Math.max(page, 0), size);
 
-        Page<Long> idPage = bookOpdsRepository.findBookIdsByLibraryIds(libraryIds, pageable);
+        Page<Long> idPage = findBookIds(userId, pageable, OpdsBookSpecification.inLibraries(libraryIds),
+                OpdsBookSpecification.RECENT_FIRST, () -> bookOpdsRepository.findBookIdsByLibraryIds(libraryIds, pageable));
         if (idPage.isEmpty()) {
             return new PageImpl<>(List.of(), pageable, 0);
         }
 
         List<BookEntity> books = bookOpdsRepository.findAllWithMetadataByIdsAndLibraryIds(idPage.getContent(), libraryIds);
-        return createPageFromEntities(books, idPage, pageable, userId);
+        return createPageFromEntities(books, idPage, pageable);
     }
 
     private Page<Book> getRecentBooksByLibraryIdsPageInternal(Set<Long> libraryIds, int page, int size, Long userId) {
         Pageable pageable = PageRequest.of(Math.max(page, 0), size);
 
-        Page<Long> idPage = bookOpdsRepository.findRecentBookIdsByLibraryIds(libraryIds, pageable);
+        Page<Long> idPage = findBookIds(userId, pageable, OpdsBookSpecification.inLibraries(libraryIds),
+                OpdsBookSpecification.RECENT_FIRST, () -> bookOpdsRepository.findRecentBookIdsByLibraryIds(libraryIds, pageable));
         if (idPage.isEmpty()) {
             return new PageImpl<>(List.of(), pageable, 0);
         }
 
         List<BookEntity> books = bookOpdsRepository.findAllWithMetadataByIdsAndLibraryIds(idPage.getContent(), libraryIds);
-        return createPageFromEntities(books, idPage, pageable, userId);
+        return createPageFromEntities(books, idPage, pageable);
     }
 
     private Page<Book> getBooksByShelfIdPageInternal(Long shelfId, int page, int size, Long userId) {
         Pageable pageable = PageRequest.of(Math.max(page, 0), size);
 
-        Page<Long> idPage = bookOpdsRepository.findBookIdsByShelfId(shelfId, pageable);
+        Page<Long> idPage = findBookIds(userId, pageable, OpdsBookSpecification.inShelves(Set.of(shelfId)),
+                OpdsBookSpecification.RECENT_FIRST, () -> bookOpdsRepository.findBookIdsByShelfId(shelfId, pageable));
         if (idPage.isEmpty()) {
             return new PageImpl<>(List.of(), pageable, 0);
         }
 
         List<BookEntity> books = bookOpdsRepository.findAllWithMetadataByIdsAndShelfId(idPage.getContent(), shelfId);
-        return createPageFromEntities(books, idPage, pageable, userId);
+        return createPageFromEntities(books, idPage, pageable);
     }
 
     private Page<Book> getBooksByShelfIdsPageInternal(Set<Long> shelfIds, int page, int size, Long userId) {
         Pageable pageable = PageRequest.of(Math.max(page, 0), size);
 
-        Page<Long> idPage = bookOpdsRepository.findBookIdsByShelfIds(shelfIds, pageable);
+        Page<Long> idPage = findBookIds(userId, pageable, OpdsBookSpecification.inShelves(shelfIds),
+                OpdsBookSpecification.RECENT_FIRST, () -> bookOpdsRepository.findBookIdsByShelfIds(shelfIds, pageable));
         if (idPage.isEmpty()) {
             return new PageImpl<>(List.of(), pageable, 0);
         }
 
         List<BookEntity> books = bookOpdsRepository.findAllWithMetadataByIdsAndShelfIds(idPage.getContent(), shelfIds);
-        return createPageFromEntities(books, idPage, pageable, userId);
+        return createPageFromEntities(books, idPage, pageable);
     }
 
-    private Page<Book> searchByMetadataPageInternal(String text, int page, int size, Long userId) {
-        Pageable pageable = PageRequest.of(Math.max(page, 0), size);
+    private Page<Book> searchByMetadataPageInternal(String query, int page, int size, Long userId) {
+        return searchPageInternal(query, null, page, size, userId,
+                bookOpdsRepository::findAllWithFullMetadataByIds);
+    }
 
-        Page<Long> idPage = bookOpdsRepository.findBookIdsByMetadataSearch(text, pageable);
-        if (idPage.isEmpty()) {
-            return new PageImpl<>(List.of(), pageable, 0);
-        }
+    private Page<Book> searchByMetadataInLibrariesPageInternal(String query, Set<Long> libraryIds, int page, int size, Long userId) {
+        return searchPageInternal(query, OpdsBookSpecification.inLibraries(libraryIds), page, size, userId,
+                ids -> bookOpdsRepository.findAllWithFullMetadataByIdsAndLibraryIds(ids, libraryIds));
+    }
 
-        List<BookEntity> books = bookOpdsRepository.findAllWithFullMetadataByIds(idPage.getContent());
-        return createPageFromEntities(books, idPage, pageable, userId);
+    private Page<Book> searchByMetadataInShelvesPageInternal(String query, Set<Long> shelfIds, int page, int size, Long userId) {
+        return searchPageInternal(query, OpdsBookSpecification.inShelves(shelfIds), page, size, userId,
+                ids -> bookOpdsRepository.findAllWithFullMetadataByIdsAndShelfIds(ids, shelfIds));
     }
 
-    private Page<Book> searchByMetadataInLibrariesPageInternal(String text, Set<Long> libraryIds, int page, int size, Long userId) {
+    /**
+     * Pages through the search index matches in rank order, keeping those in scope, all books for a null scope, and,
+     * when the user has content restrictions, allowed by them. The books in scope are one id query, handed to the
+     * index so out-of-scope books don't take up its result limit.
+     */
+    private Page<Book> searchPageInternal(String query, Specification<BookEntity> scope, int page, int size, Long userId,
+                                          Function<List<Long>, List<BookEntity>> loader) {
         Pageable pageable = PageRequest.of(Math.max(page, 0), size);
 
-        Page<Long> idPage = bookOpdsRepository.findBookIdsByMetadataSearchAndLibraryIds(text, libraryIds, pageable);
-        if (idPage.isEmpty()) {
-            return new PageImpl<>(List.of(), pageable, 0);
+        Specification<BookEntity> restrictions = userId == null ? null : contentRestrictionService.restrictionSpecification(userId);
+        Predicate<Long> allowed = bookId -> true;
+        if (scope != null || restrictions != null) {
+            Specification<BookEntity> specification = OpdsBookSpecification.notDeleted();
+            if (scope != null) {
+                specification = specification.and(scope);
+            }
+            if (restrictions != null) {
+                specification = specification.and(restrictions);
+            }
+            Set<Long> inScope = new HashSet<>(bookOpdsRepository.findIds(specification));
+            allowed = inScope::contains;
         }
+        List<Long> matches = bookSearchIndex.search(query, allowed);
 
-        List<BookEntity> books = bookOpdsRepository.findAllWithFullMetadataByIdsAndLibraryIds(idPage.getContent(), libraryIds);
-        return createPageFromEntities(books, idPage, pageable, userId);
-    }
-
-    private Page<Book> searchByMetadataInShelvesPageInternal(String text, Set<Long> shelfIds, int page, int size, Long userId) {
-        Pageable pageable = PageRequest.of(Math.max(page, 0), size);
-
-        Page<Long> idPage = bookOpdsRepository.findBookIdsByMetadataSearchAndShelfIds(text, shelfIds, pageable);
-        if (idPage.isEmpty()) {
-            return new PageImpl<>(List.of(), pageable, 0);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        List<Long> pageIds = matches.subList(from, Math.min(from + pageable.getPageSize(), matches.size()));
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, matches.size());
         }
 
-        List<BookEntity> books = bookOpdsRepository.findAllWithFullMetadataByIdsAndShelfIds(idPage.getContent(), shelfIds);
-        return createPageFromEntities(books, idPage, pageable, userId);
+        Page<Long> idPage = new PageImpl<>(pageIds, pageable, matches.size());
+        return createPageFromEntities(loader.apply(pageIds), idPage, pageable);
     }
 
     private void validateShelfAccess(Long shelfId, Long userId, boolean isAdmin) {
@@ -443,7 +469,20 @@ public class OpdsBookService {
         }
     }
 
-    private Page<Book> createPageFromEntities(List<BookEntity> books, Page<Long> idPage, Pageable pageable, Long userId) {
+    /**
+     * Pages through book ids with the repository query, or, when the user has content restrictions, with the same
+     * filter as a specification so the restrictions are applied in the database and pages stay full.
+     */
+    private Page<Long> findBookIds(Long userId, Pageable pageable, Specification<BookEntity> filter, Sort sort, Supplier<Page<Long>> unrestricted) {
+        Specification<BookEntity> restrictions = userId == null ? null : contentRestrictionService.restrictionSpecification(userId);
+        if (restrictions == null) {
+            return unrestricted.get();
+        }
+        Specification<BookEntity> specification = OpdsBookSpecification.notDeleted().and(filter).and(restrictions);
+        return bookOpdsRepository.findIds(specification, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort));
+    }
+
+    private Page<Book> createPageFromEntities(List<BookEntity> books, Page<Long> idPage, Pageable pageable) {
         Map<Long, BookEntity> bookMap = books.stream()
                 .collect(Collectors.toMap(BookEntity::getId, Function.identity()));
 
@@ -452,10 +491,6 @@ public class OpdsBookService {
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
 
-        if (userId != null) {
-            orderedEntities = contentRestrictionService.applyRestrictions(orderedEntities, userId);
-        }
-
         List<Book> sortedBooks = orderedEntities.stream()
                 .map(bookMapper::toBook)
                 .toList();
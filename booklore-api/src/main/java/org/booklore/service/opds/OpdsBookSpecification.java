@@ -0,0 +1,75 @@
+package org.booklore.service.opds;
+
+import jakarta.persistence.criteria.*;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookMetadataEntity;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+/**
+ * Specification forms of the {@link org.booklore.repository.BookOpdsRepository} id queries, used when a feed has
+ * to be combined with a user's content restrictions. Joins to collections are done in subqueries so ids stay
+ * unique without {@code DISTINCT}.
+ */
+public class OpdsBookSpecification {
+
+    public static final Sort RECENT_FIRST = Sort.by(Sort.Order.desc("addedOn"));
+    public static final Sort SERIES_ORDER = Sort.by(Sort.Order.asc("metadata.seriesNumber").nullsLast(), Sort.Order.desc("addedOn"));
+
+    private OpdsBookSpecification() {
+    }
+
+    public static Specification<BookEntity> notDeleted() {
+        return (root, query, cb) -> cb.or(
+                cb.isNull(root.get("deleted")),
+                cb.equal(root.get("deleted"), false)
+        );
+    }
+
+    public static Specification<BookEntity> all() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    public static Specification<BookEntity> inLibraries(Collection<Long> libraryIds) {
+        return (root, query, cb) -> root.get("library").get("id").in(libraryIds);
+    }
+
+    public static Specification<BookEntity> inShelves(Collection<Long> shelfIds) {
+        return (root, query, cb) -> {
+            Subquery<Long> sub = query.subquery(Long.class);
+            Root<BookEntity> subRoot = sub.from(BookEntity.class);
+            Join<Object, Object> shelves = subRoot.join("shelves", JoinType.INNER);
+            sub.select(cb.literal(1L)).where(
+                    cb.equal(subRoot.get("id"), root.get("id")),
+                    shelves.get("id").in(shelfIds)
+            );
+            return cb.exists(sub);
+        };
+    }
+
+    public static Specification<BookEntity> withIds(Collection<Long> bookIds) {
+        return (root, query, cb) -> root.get("id").in(bookIds);
+    }
+
+    public static Specification<BookEntity> byAuthor(String authorName) {
+        return (root, query, cb) -> {
+            Subquery<Long> sub = query.subquery(Long.class);
+            Root<BookMetadataEntity> metadata = sub.from(BookMetadataEntity.class);
+            Join<Object, Object> authors = metadata.join("authors", JoinType.INNER);
+            sub.select(cb.literal(1L)).where(
+                    cb.equal(metadata.get("bookId"), root.get("id")),
+                    cb.equal(authors.get("name"), authorName)
+            );
+            return cb.exists(sub);
+        };
+    }
+
+    public static Specification<BookEntity> inSeries(String seriesName) {
+        return (root, query, cb) -> {
+            Join<BookEntity, BookMetadataEntity> metadata = root.join("metadata", JoinType.INNER);
+            return cb.equal(metadata.get("seriesName"), seriesName);
+        };
+    }
+}
@@ -18,6 +18,7 @@ import org.booklore.model.enums.ReadStatus;
 import org.booklore.model.enums.ResetProgressType;
 import org.booklore.model.enums.UserPermission;
 import org.booklore.repository.*;
+import org.booklore.service.book.BookListViewIndex;
 import org.booklore.service.hardcover.HardcoverSyncService;
 import org.booklore.service.kobo.KoboReadingStateService;
 import lombok.RequiredArgsConstructor;
@@ -46,6 +47,7 @@ public class ReadingProgressService {
     private final AuthenticationService authenticationService;
     private final KoboReadingStateService koboReadingStateService;
     private final HardcoverSyncService hardcoverSyncService;
+    private final BookListViewIndex bookListViewIndex;
 
     // ==================== Methods from UserProgressService ====================
 
@@ -450,6 +452,7 @@ public class ReadingProgressService {
                 bookIds.forEach(koboReadingStateService::deleteReadingState);
             }
         }
+        bookListViewIndex.touch(userId, bookIdList);
     }
 
     private void validateResetPermission(List<Long> bookIds, BookLoreUser user, ResetProgressType type) {
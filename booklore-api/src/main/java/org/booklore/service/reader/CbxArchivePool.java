@@ -0,0 +1,159 @@
+package org.booklore.service.reader;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.booklore.config.AppProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Keeps comic ZIP archives open between page requests, so serving a page doesn't re-read the central directory.
+ * <p>
+ * Handles are keyed by path, modification time and the encoding options the archive was read with, bounded in
+ * number and closed after sitting idle. Reading entries from a {@link ZipFile} is safe from several threads, so
+ * a handle is shared; one evicted while in use is closed when its last user releases it.
+ */
+@Slf4j
+@Component
+public class CbxArchivePool {
+
+    private final Cache<Key, PooledArchive> archives;
+
+    public CbxArchivePool(AppProperties appProperties) {
+        AppProperties.CbxReader settings = appProperties.getCbxReader();
+        this.archives = Caffeine.newBuilder()
+                .maximumSize(settings.getArchivePoolSize())
+                .expireAfterAccess(Duration.ofSeconds(settings.getArchiveIdleSeconds()))
+                .removalListener((Key key, PooledArchive archive, RemovalCause cause) -> {
+                    if (archive != null) {
+                        log.debug("Releasing pooled archive {} ({})", key.path(), cause);
+                        archive.evict();
+                    }
+                })
+                .build();
+    }
+
+    public <T> T withZipFile(Path cbxPath, Charset charset, boolean useUnicodeExtraFields, ArchiveAction<T> action) throws IOException {
+        Key key = new Key(cbxPath.toString(), Files.getLastModifiedTime(cbxPath).toMillis(), charset, useUnicodeExtraFields);
+        PooledArchive pooled;
+        try {
+            pooled = archives.get(key, ignored -> open(cbxPath, charset, useUnicodeExtraFields));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (!pooled.acquire()) {
+            // evicted between lookup and acquire; read from a private handle instead
+            try (PooledArchive unpooled = openArchive(cbxPath, charset, useUnicodeExtraFields)) {
+                return action.apply(unpooled.zipFile, unpooled.channel);
+            }
+        }
+        try {
+            return action.apply(pooled.zipFile, pooled.channel);
+        } finally {
+            pooled.release();
+        }
+    }
+
+    @PreDestroy
+    void closeAll() {
+        archives.invalidateAll();
+        archives.cleanUp();
+    }
+
+    private PooledArchive open(Path cbxPath, Charset charset, boolean useUnicodeExtraFields) {
+        try {
+            log.debug("Opening archive {} into the archive pool", cbxPath.getFileName());
+            return openArchive(cbxPath, charset, useUnicodeExtraFields);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static PooledArchive openArchive(Path cbxPath, Charset charset, boolean useUnicodeExtraFields) throws IOException {
+        ZipFile zipFile = ZipFile.builder()
+                .setPath(cbxPath)
+                .setCharset(charset)
+                .setUseUnicodeExtraFields(useUnicodeExtraFields)
+                .setIgnoreLocalFileHeader(true)
+                .get();
+        try {
+            return new PooledArchive(zipFile, FileChannel.open(cbxPath, StandardOpenOption.READ));
+        } catch (IOException e) {
+            zipFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Work done against an open archive. The channel reads the raw archive file, for copying stored entries
+     * without going through the ZIP input streams.
+     */
+    @FunctionalInterface
+    public interface ArchiveAction<T> {
+        T apply(ZipFile zipFile, FileChannel channel) throws IOException;
+    }
+
+    private record Key(String path, long lastModified, Charset charset, boolean useUnicodeExtraFields) {
+    }
+
+    private static final class PooledArchive implements AutoCloseable {
+        private final ZipFile zipFile;
+        private final FileChannel channel;
+        private int users;
+        private boolean evicted;
+
+        private PooledArchive(ZipFile zipFile, FileChannel channel) {
+            this.zipFile = zipFile;
+            this.channel = channel;
+        }
+
+        private synchronized boolean acquire() {
+            if (evicted) {
+                return false;
+            }
+            users++;
+            return true;
+        }
+
+        private synchronized void release() {
+            users--;
+            if (evicted && users == 0) {
+                close();
+            }
+        }
+
+        private synchronized void evict() {
+            evicted = true;
+            if (users == 0) {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                zipFile.close();
+            } catch (IOException e) {
+                log.warn("Failed to close pooled archive: {}", e.getMessage());
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close pooled archive channel: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.booklore.service.reader;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.booklore.util.FileService;
+import org.booklore.util.Md5Util;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Pages of solid 7z and RAR archives extracted to disk, enabled with {@code app.cbx-reader.extract-solid-archives}.
+ * <p>
+ * Reading one entry from a solid archive decompresses everything before it, so paging through a book costs a
+ * quadratic amount of decompression. Instead the first page request extracts every page in a single pass, and
+ * later requests are served from the files. A bounded number of archives stay extracted; the least recently read
+ * one is deleted when another is extracted. The directory is cleared on startup since nothing tracks it across
+ * restarts.
+ */
+@Slf4j
+@Component
+public class CbxExtractedPageCache {
+
+    private static final String PAGE_EXTENSION = ".page";
+
+    private final FileService fileService;
+    private final boolean enabled;
+    private final Cache<Key, ExtractedArchive> archives;
+
+    public CbxExtractedPageCache(AppProperties appProperties, FileService fileService) {
+        AppProperties.CbxReader settings = appProperties.getCbxReader();
+        this.fileService = fileService;
+        this.enabled = settings.isExtractSolidArchives();
+        this.archives = Caffeine.newBuilder()
+                .maximumSize(settings.getExtractedArchiveLimit())
+                .removalListener((Key key, ExtractedArchive archive, RemovalCause cause) -> {
+                    if (archive != null && archive.directory() != null) {
+                        delete(archive.directory());
+                    }
+                })
+                .build();
+    }
+
+    @PostConstruct
+    void clearLeftovers() {
+        if (enabled) {
+            delete(Path.of(fileService.getCbxCachePath()));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The extracted file of the page at {@code pageIndex} (zero based, in reading order), extracting the whole
+     * archive first if needed. Empty if extraction is disabled or failed, in which case the caller reads the
+     * archive directly.
+     */
+    public Optional<Path> getPage(Path cbxPath, long lastModified, int pageIndex, Extractor extractor) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Key key = new Key(cbxPath.toString(), lastModified);
+        ExtractedArchive archive = archives.get(key, ignored -> extract(cbxPath, lastModified, extractor));
+        if (archive.directory() == null) {
+            return Optional.empty();
+        }
+        Path page = pagePath(archive.directory(), pageIndex);
+        return Files.isRegularFile(page) ? Optional.of(page) : Optional.empty();
+    }
+
+    private ExtractedArchive extract(Path cbxPath, long lastModified, Extractor extractor) {
+        Path root = Path.of(fileService.getCbxCachePath());
+        Path target = root.resolve(Md5Util.md5Hex(cbxPath.toAbsolutePath().toString()) + "-" + lastModified);
+        Path staging = null;
+        try {
+            Files.createDirectories(root);
+            staging = Files.createTempDirectory(root, "extract-");
+            long start = System.currentTimeMillis();
+            Path stagingDirectory = staging;
+            extractor.extract(pageIndex -> pagePath(stagingDirectory, pageIndex));
+            delete(target);
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Extracted {} in {} ms", cbxPath.getFileName(), System.currentTimeMillis() - start);
+            return new ExtractedArchive(target);
+        } catch (Exception e) {
+            log.warn("Failed to extract {}, serving pages from the archive: {}", cbxPath.getFileName(), e.getMessage());
+            if (staging != null) {
+                delete(staging);
+            }
+            // remembered as failed so every page request doesn't retry the extraction
+            return new ExtractedArchive(null);
+        }
+    }
+
+    private static Path pagePath(Path directory, int pageIndex) {
+        return directory.resolve(pageIndex + PAGE_EXTENSION);
+    }
+
+    private static void delete(Path directory) {
+        try {
+            FileSystemUtils.deleteRecursively(directory);
+        } catch (IOException e) {
+            log.debug("Failed to delete extracted pages in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every page of an archive, given where the page at each index goes.
+     */
+    @FunctionalInterface
+    public interface Extractor {
+        void extract(PageTarget target) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface PageTarget {
+        Path pathFor(int pageIndex);
+    }
+
+    private record Key(String path, long lastModified) {
+    }
+
+    private record ExtractedArchive(Path directory) {
+    }
+}
@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
 import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.commons.compress.archivers.EntryStreamOffsets;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.pdfbox.io.IOUtils;
 import org.booklore.exception.ApiError;
@@ -18,16 +19,22 @@ import org.booklore.util.FileUtils;
 import org.booklore.util.UnrarHelper;
 import org.springframework.stereotype.Service;
 
+import java.io.EOFException;
+import java.io.FilterOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -49,28 +56,39 @@ public class CbxReaderService {
             Charset.forName("CP437"),
             Charset.forName("MS932")
     };
-    private static final int MAX_CACHE_ENTRIES = 50;
     private static final int BUFFER_SIZE = 8192;
     private static final Pattern NUMERIC_PATTERN = Pattern.compile("(\\d+)|(\\D+)");
     private static final Set<String> SYSTEM_FILES = Set.of(".ds_store", "thumbs.db", "desktop.ini");
     private static final Pattern DIGIT_PATTERN = Pattern.compile("\\d+");
 
     private final BookRepository bookRepository;
-    private final Map<String, CachedArchiveMetadata> archiveCache = new ConcurrentHashMap<>();
+    private final ReaderMetadataCache metadataCache;
+    private final CbxArchivePool archivePool;
+    private final CbxExtractedPageCache extractedPageCache;
 
-    private static class CachedArchiveMetadata {
+    private static class CachedArchiveMetadata implements ReaderMetadataCache.CachedMetadata {
         final List<String> imageEntries;
         final long lastModified;
         final Charset successfulEncoding;
         final boolean useUnicodeExtraFields;
-        volatile long lastAccessed;
+        final int weight;
 
         CachedArchiveMetadata(List<String> imageEntries, long lastModified, Charset successfulEncoding, boolean useUnicodeExtraFields) {
             this.imageEntries = List.copyOf(imageEntries);
             this.lastModified = lastModified;
             this.successfulEncoding = successfulEncoding;
             this.useUnicodeExtraFields = useUnicodeExtraFields;
-            this.lastAccessed = System.currentTimeMillis();
+            this.weight = 64 + imageEntries.stream().mapToInt(entry -> 48 + entry.length() * 2).sum();
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public int weight() {
+            return weight;
         }
     }
 
@@ -132,8 +150,40 @@ public class CbxReaderService {
         Path cbxPath = getBookPath(bookId, bookType);
         CachedArchiveMetadata metadata = getCachedMetadata(cbxPath);
         validatePageRequest(bookId, page, metadata.imageEntries);
+        // every fallback below starts the page over, which is only possible while nothing has been sent
+        TrackingOutputStream out = new TrackingOutputStream(outputStream);
+        Optional<Path> extracted = getExtractedPage(cbxPath, metadata, page - 1);
+        if (extracted.isPresent() && copyExtractedPage(extracted.get(), out)) {
+            return;
+        }
+        String entryName = metadata.imageEntries.get(page - 1);
+        streamEntryFromArchive(cbxPath, entryName, out, metadata);
+    }
+
+    /**
+     * Where the page's bytes sit unmodified in the book file, if they do: a stored (uncompressed) CBZ entry. Lets
+     * the caller hand the byte range to the container to send directly.
+     * <p>
+     * Extracted pages of solid archives are not offered: the container opens the file only after the request
+     * returns, and an eviction in between would delete it. {@link #streamPageImage} opens them up front instead.
+     */
+    public Optional<PageRange> findPageRange(Long bookId, String bookType, int page) throws IOException {
+        Path cbxPath = getBookPath(bookId, bookType);
+        CachedArchiveMetadata metadata = getCachedMetadata(cbxPath);
+        validatePageRequest(bookId, page, metadata.imageEntries);
+
+        if (metadata.successfulEncoding == null || !isZip(cbxPath)) {
+            return Optional.empty();
+        }
         String entryName = metadata.imageEntries.get(page - 1);
-        streamEntryFromArchive(cbxPath, entryName, outputStream, metadata);
+        return archivePool.<Optional<PageRange>>withZipFile(cbxPath, metadata.successfulEncoding, metadata.useUnicodeExtraFields, (zipFile, channel) -> {
+            ZipArchiveEntry entry = zipFile.getEntry(entryName);
+            long offset = entry != null ? storedDataOffset(zipFile, entry) : -1;
+            return offset >= 0 ? Optional.of(new PageRange(cbxPath, offset, entry.getCompressedSize())) : Optional.empty();
+        });
+    }
+
+    public record PageRange(Path file, long offset, long length) {
     }
 
     private Path getBookPath(Long bookId, String bookType) {
@@ -160,45 +210,18 @@ public class CbxReaderService {
     }
 
     private CachedArchiveMetadata getCachedMetadata(Path cbxPath) throws IOException {
-        String cacheKey = cbxPath.toString();
-        long currentModified = Files.getLastModifiedTime(cbxPath).toMillis();
-        CachedArchiveMetadata cached = archiveCache.get(cacheKey);
-        if (cached != null && cached.lastModified == currentModified) {
-            cached.lastAccessed = System.currentTimeMillis();
-            log.debug("Cache hit for archive: {}", cbxPath.getFileName());
-            return cached;
-        }
-        log.debug("Cache miss for archive: {}, scanning...", cbxPath.getFileName());
-        CachedArchiveMetadata newMetadata = scanArchiveMetadata(cbxPath);
-        archiveCache.put(cacheKey, newMetadata);
-        evictOldestCacheEntries();
-        return newMetadata;
+        return metadataCache.get(CachedArchiveMetadata.class, cbxPath, previous -> scanArchiveMetadata(cbxPath, previous));
     }
 
     private List<String> getImageEntriesFromArchiveCached(Path cbxPath) throws IOException {
         return getCachedMetadata(cbxPath).imageEntries;
     }
 
-    private void evictOldestCacheEntries() {
-        if (archiveCache.size() <= MAX_CACHE_ENTRIES) {
-            return;
-        }
-        List<String> keysToRemove = archiveCache.entrySet().stream()
-                .sorted(Comparator.comparingLong(e -> e.getValue().lastAccessed))
-                .limit(archiveCache.size() - MAX_CACHE_ENTRIES)
-                .map(Map.Entry::getKey)
-                .toList();
-        keysToRemove.forEach(key -> {
-            archiveCache.remove(key);
-            log.debug("Evicted cache entry: {}", key);
-        });
-    }
-
-    private CachedArchiveMetadata scanArchiveMetadata(Path cbxPath) throws IOException {
+    private CachedArchiveMetadata scanArchiveMetadata(Path cbxPath, CachedArchiveMetadata oldCache) throws IOException {
         String filename = cbxPath.getFileName().toString().toLowerCase();
         long lastModified = Files.getLastModifiedTime(cbxPath).toMillis();
         if (filename.endsWith(CBZ_EXTENSION)) {
-            return scanZipMetadata(cbxPath, lastModified);
+            return scanZipMetadata(cbxPath, lastModified, oldCache);
         } else if (filename.endsWith(CB7_EXTENSION)) {
             List<String> entries = getImageEntriesFrom7z(cbxPath);
             return new CachedArchiveMetadata(entries, lastModified, null, false);
@@ -210,9 +233,7 @@ public class CbxReaderService {
         }
     }
 
-    private CachedArchiveMetadata scanZipMetadata(Path cbxPath, long lastModified) throws IOException {
-        String cacheKey = cbxPath.toString();
-        CachedArchiveMetadata oldCache = archiveCache.get(cacheKey);
+    private CachedArchiveMetadata scanZipMetadata(Path cbxPath, long lastModified, CachedArchiveMetadata oldCache) throws IOException {
         if (oldCache != null && oldCache.successfulEncoding != null) {
             try {
                 List<String> entries = getImageEntriesFromZipWithEncoding(cbxPath, oldCache.successfulEncoding, true, oldCache.useUnicodeExtraFields);
@@ -284,30 +305,40 @@ public class CbxReaderService {
     private void streamEntryFromZip(Path cbxPath, String entryName, OutputStream outputStream, CachedArchiveMetadata metadata) throws IOException {
         Charset encoding = metadata != null ? metadata.successfulEncoding : null;
         boolean useUnicode = metadata != null && metadata.useUnicodeExtraFields;
+        TrackingOutputStream out = TrackingOutputStream.of(outputStream);
 
         if (encoding != null) {
-            if (tryStreamEntry(cbxPath, entryName, outputStream, encoding, true, useUnicode)) return;
-            if (tryStreamEntry(cbxPath, entryName, outputStream, encoding, false, useUnicode)) return;
+            try {
+                if (archivePool.withZipFile(cbxPath, encoding, useUnicode, (zipFile, channel) -> copyEntry(zipFile, channel, entryName, out))) {
+                    return;
+                }
+            } catch (Exception e) {
+                out.failIfWritten(e);
+                log.trace("Pooled archive read failed for {}: {}", cbxPath.getFileName(), e.getMessage());
+            }
+            if (tryStreamEntry(cbxPath, entryName, out, encoding, true, useUnicode)) return;
+            if (tryStreamEntry(cbxPath, entryName, out, encoding, false, useUnicode)) return;
                     }
         
         for (Charset charset : ENCODINGS_TO_TRY) {
             if (charset.equals(encoding)) continue; // Skip failed cached encoding if we want, or retry it with different flags? 
             
-            if (tryStreamEntry(cbxPath, entryName, outputStream, charset, true, true)) return;
-            if (tryStreamEntry(cbxPath, entryName, outputStream, charset, false, true)) return;
-            if (tryStreamEntry(cbxPath, entryName, outputStream, charset, true, false)) return;
-            if (tryStreamEntry(cbxPath, entryName, outputStream, charset, false, false)) return;
+            if (tryStreamEntry(cbxPath, entryName, out, charset, true, true)) return;
+            if (tryStreamEntry(cbxPath, entryName, out, charset, false, true)) return;
+            if (tryStreamEntry(cbxPath, entryName, out, charset, true, false)) return;
+            if (tryStreamEntry(cbxPath, entryName, out, charset, false, false)) return;
         }
 
         throw new IOException("Unable to find entry in ZIP archive: " + entryName);
     }
     
-    private boolean tryStreamEntry(Path cbxPath, String entryName, OutputStream outputStream, Charset charset, boolean useFastPath, boolean useUnicode) {
+    private boolean tryStreamEntry(Path cbxPath, String entryName, TrackingOutputStream outputStream, Charset charset, boolean useFastPath, boolean useUnicode) throws IOException {
         try {
             if (streamEntryFromZipWithEncoding(cbxPath, entryName, outputStream, charset, useFastPath, useUnicode)) {
                 return true;
             }
         } catch (Exception e) {
+             outputStream.failIfWritten(e);
              log.trace("Stream strategy failed ({}, Fast={}, Unicode={}): {}", charset, useFastPath, useUnicode, e.getMessage());
         }
         return false;
@@ -315,6 +346,113 @@ public class CbxReaderService {
     
 
 
+    private boolean copyEntry(org.apache.commons.compress.archivers.zip.ZipFile zipFile, FileChannel channel, String entryName, OutputStream outputStream) throws IOException {
+        ZipArchiveEntry entry = zipFile.getEntry(entryName);
+        if (entry == null) {
+            return false;
+        }
+        long offset = storedDataOffset(zipFile, entry);
+        if (offset >= 0) {
+            // stored entries are the image bytes as-is, so skip the ZIP streams and let the kernel copy them
+            transfer(channel, offset, entry.getCompressedSize(), outputStream);
+        } else {
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                IOUtils.copy(in, outputStream);
+            }
+        }
+        return true;
+    }
+
+    private static long storedDataOffset(org.apache.commons.compress.archivers.zip.ZipFile zipFile, ZipArchiveEntry entry) throws IOException {
+        if (entry.getMethod() != ZipArchiveEntry.STORED || entry.getGeneralPurposeBit().usesEncryption() || entry.getCompressedSize() < 0) {
+            return -1;
+        }
+        if (entry.getDataOffset() == EntryStreamOffsets.OFFSET_UNKNOWN) {
+            // archives are opened without reading local headers; opening the raw stream resolves the offset
+            try (InputStream ignored = zipFile.getRawInputStream(entry)) {
+                // nothing to read
+            }
+        }
+        return entry.getDataOffset();
+    }
+
+    private static void transfer(FileChannel channel, long offset, long length, OutputStream outputStream) throws IOException {
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                throw new EOFException("Archive ended before the entry was fully read");
+            }
+            position += sent;
+        }
+    }
+
+    private Optional<Path> getExtractedPage(Path cbxPath, CachedArchiveMetadata metadata, int pageIndex) {
+        if (!extractedPageCache.isEnabled() || isZip(cbxPath)) {
+            return Optional.empty();
+        }
+        return extractedPageCache.getPage(cbxPath, metadata.lastModified, pageIndex,
+                target -> extractAllPages(cbxPath, metadata.imageEntries, target));
+    }
+
+    private boolean copyExtractedPage(Path page, TrackingOutputStream outputStream) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(page, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // evicted in the meantime
+            log.debug("Extracted page {} is gone, reading the archive", page);
+            return false;
+        }
+        // once open, the page stays readable until the response is written even if it's evicted and deleted
+        try (channel) {
+            transfer(channel, 0, channel.size(), outputStream);
+            return true;
+        }
+    }
+
+    private void extractAllPages(Path cbxPath, List<String> imageEntries, CbxExtractedPageCache.PageTarget target) throws IOException {
+        Map<String, Integer> pageIndexByEntry = new HashMap<>();
+        for (int i = 0; i < imageEntries.size(); i++) {
+            pageIndexByEntry.put(imageEntries.get(i), i);
+        }
+        String filename = cbxPath.getFileName().toString().toLowerCase();
+        if (filename.endsWith(CB7_EXTENSION)) {
+            try (SevenZFile sevenZFile = SevenZFile.builder().setPath(cbxPath).get()) {
+                SevenZArchiveEntry entry;
+                while ((entry = sevenZFile.getNextEntry()) != null) {
+                    Integer pageIndex = pageIndexByEntry.get(entry.getName());
+                    if (pageIndex != null) {
+                        try (OutputStream out = Files.newOutputStream(target.pathFor(pageIndex))) {
+                            copySevenZEntry(sevenZFile, out, entry.getSize());
+                        }
+                    }
+                }
+            }
+        } else if (filename.endsWith(CBR_EXTENSION)) {
+            try (Archive archive = new Archive(cbxPath.toFile())) {
+                for (FileHeader header : archive.getFileHeaders()) {
+                    Integer pageIndex = pageIndexByEntry.get(header.getFileName());
+                    if (pageIndex != null) {
+                        try (OutputStream out = Files.newOutputStream(target.pathFor(pageIndex))) {
+                            archive.extractFile(header, out);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to extract RAR archive: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static boolean isZip(Path cbxPath) {
+        return cbxPath.getFileName().toString().toLowerCase().endsWith(CBZ_EXTENSION);
+    }
+
     private void streamEntryFromArchive(Path cbxPath, String entryName, OutputStream outputStream, CachedArchiveMetadata metadata) throws IOException {
         String filename = cbxPath.getFileName().toString().toLowerCase();
         if (filename.endsWith(CBZ_EXTENSION)) {
@@ -419,7 +557,7 @@ public class CbxReaderService {
                 }
             }
         } catch (Exception e) {
-            if (UnrarHelper.isAvailable()) {
+            if (UnrarHelper.isAvailable() && !TrackingOutputStream.of(outputStream).hasWritten()) {
                 log.info("junrar failed for {}, falling back to unrar CLI: {}", cbxPath.getFileName(), e.getMessage());
                 UnrarHelper.extractEntry(cbxPath, entryName, outputStream);
                 return;
@@ -496,4 +634,45 @@ public class CbxReaderService {
             return s1.compareToIgnoreCase(s2);
         });
     }
+
+    /**
+     * Remembers whether anything was written, so a failed read is only retried another way while the response
+     * can still be started over.
+     */
+    private static final class TrackingOutputStream extends FilterOutputStream {
+
+        private boolean written;
+
+        private TrackingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        private static TrackingOutputStream of(OutputStream out) {
+            return out instanceof TrackingOutputStream tracking ? tracking : new TrackingOutputStream(out);
+        }
+
+        private boolean hasWritten() {
+            return written;
+        }
+
+        private void failIfWritten(Exception e) throws IOException {
+            if (written) {
+                throw e instanceof IOException io ? io : new IOException("Failed while sending the page: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            written = true;
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                written = true;
+            }
+            out.write(b, off, len);
+        }
+    }
 }
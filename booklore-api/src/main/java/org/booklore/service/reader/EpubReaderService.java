@@ -36,7 +36,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 @Slf4j
@@ -52,7 +51,6 @@ public class EpubReaderService {
     private static final String XHTML_NS = "http://www.w3.org/1999/xhtml";
     private static final String EPUB_NS = "http://www.idpf.org/2007/ops";
 
-    private static final int MAX_CACHE_ENTRIES = 50;
     private static final int BUFFER_SIZE = 65536; // 64KB buffer for I/O
     private static final Charset[] ENCODINGS_TO_TRY = {
             StandardCharsets.UTF_8,
@@ -100,21 +98,20 @@ public class EpubReaderService {
     }
 
     private final BookRepository bookRepository;
-    private final Map<String, CachedEpubMetadata> metadataCache = new ConcurrentHashMap<>();
+    private final ReaderMetadataCache metadataCache;
 
-    private static class CachedEpubMetadata {
+    private static class CachedEpubMetadata implements ReaderMetadataCache.CachedMetadata {
         final EpubBookInfo bookInfo;
         final long lastModified;
         final Charset successfulEncoding;
         final Set<String> validPaths; // Pre-computed valid paths for O(1) lookup
         final Map<String, EpubManifestItem> manifestByHref; // O(1) lookup by href
-        volatile long lastAccessed;
+        final int weight;
 
         CachedEpubMetadata(EpubBookInfo bookInfo, long lastModified, Charset encoding) {
             this.bookInfo = bookInfo;
             this.lastModified = lastModified;
             this.successfulEncoding = encoding;
-            this.lastAccessed = System.currentTimeMillis();
 
             Set<String> paths = new HashSet<>(bookInfo.getManifest().size() + 2);
             paths.add(CONTAINER_PATH);
@@ -130,10 +127,36 @@ public class EpubReaderService {
 
             this.validPaths = Collections.unmodifiableSet(paths);
             this.manifestByHref = Collections.unmodifiableMap(byHref);
+
+            // manifest hrefs are held three times (manifest, path set, href map)
+            int estimate = 256 + (bookInfo.getSpine() != null ? bookInfo.getSpine().size() * 96 : 0) + tocWeight(bookInfo.getToc());
+            for (EpubManifestItem item : bookInfo.getManifest()) {
+                estimate += 192 + (item.getHref() != null ? item.getHref().length() * 2 : 0);
+            }
+            this.weight = estimate;
+        }
+
+        private static int tocWeight(EpubTocItem item) {
+            if (item == null) {
+                return 0;
+            }
+            int weight = 96 + (item.getLabel() != null ? item.getLabel().length() * 2 : 0);
+            if (item.getChildren() != null) {
+                for (EpubTocItem child : item.getChildren()) {
+                    weight += tocWeight(child);
+                }
+            }
+            return weight;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
         }
 
-        void touch() {
-            this.lastAccessed = System.currentTimeMillis();
+        @Override
+        public int weight() {
+            return weight;
         }
     }
 
@@ -183,7 +206,6 @@ public class EpubReaderService {
         Path epubPath = getBookPath(bookId, bookType);
         try {
             CachedEpubMetadata metadata = getCachedMetadata(epubPath);
-            metadata.touch();
             String normalizedPath = normalizePath(filePath, metadata.bookInfo.getRootPath());
             EpubManifestItem item = metadata.manifestByHref.get(normalizedPath);
             return item != null ? item.getMediaType() : guessContentType(filePath);
@@ -200,7 +222,6 @@ public class EpubReaderService {
         Path epubPath = getBookPath(bookId, bookType);
         try {
             CachedEpubMetadata metadata = getCachedMetadata(epubPath);
-            metadata.touch();
             String normalizedPath = normalizePath(filePath, metadata.bookInfo.getRootPath());
 
             // O(1) lookup instead of O(n) stream filter
@@ -227,36 +248,8 @@ public class EpubReaderService {
     }
 
     private CachedEpubMetadata getCachedMetadata(Path epubPath) throws IOException {
-        String cacheKey = epubPath.toString();
-        long currentModified = Files.getLastModifiedTime(epubPath).toMillis();
-        CachedEpubMetadata cached = metadataCache.get(cacheKey);
-
-        if (cached != null && cached.lastModified == currentModified) {
-            cached.lastAccessed = System.currentTimeMillis();
-            log.debug("Cache hit for EPUB: {}", epubPath.getFileName());
-            return cached;
-        }
-
-        log.debug("Cache miss for EPUB: {}, parsing...", epubPath.getFileName());
-        CachedEpubMetadata newMetadata = parseEpubMetadata(epubPath, currentModified);
-        metadataCache.put(cacheKey, newMetadata);
-        evictOldestCacheEntries();
-        return newMetadata;
-    }
-
-    private void evictOldestCacheEntries() {
-        if (metadataCache.size() <= MAX_CACHE_ENTRIES) {
-            return;
-        }
-        List<String> keysToRemove = metadataCache.entrySet().stream()
-                .sorted(Comparator.comparingLong(e -> e.getValue().lastAccessed))
-                .limit(metadataCache.size() - MAX_CACHE_ENTRIES)
-                .map(Map.Entry::getKey)
-                .toList();
-        keysToRemove.forEach(key -> {
-            metadataCache.remove(key);
-            log.debug("Evicted EPUB cache entry: {}", key);
-        });
+        return metadataCache.get(CachedEpubMetadata.class, epubPath,
+                previous -> parseEpubMetadata(epubPath, Files.getLastModifiedTime(epubPath).toMillis()));
     }
 
     private CachedEpubMetadata parseEpubMetadata(Path epubPath, long lastModified) throws IOException {
@@ -0,0 +1,159 @@
+package org.booklore.service.reader;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.booklore.config.AppProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps recently read PDFs open so rendering a page doesn't re-parse the whole document each time.
+ * <p>
+ * Documents are keyed by path and modification time, so a replaced file is opened fresh and the outdated handle
+ * ages out. A {@link PDDocument} is not thread-safe: callers get exclusive use of a document for the duration of
+ * {@link #withDocument}. Every caller holds a lease on the document while it waits for and uses it; eviction
+ * never waits for a caller, it only marks the document, which is closed when the last lease is released.
+ */
+@Slf4j
+@Component
+public class PdfDocumentPool {
+
+    private final Cache<Key, PooledDocument> documents;
+
+    public PdfDocumentPool(AppProperties appProperties) {
+        AppProperties.PdfReader settings = appProperties.getPdfReader();
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(settings.getDocumentPoolSize())
+                .expireAfterAccess(Duration.ofSeconds(settings.getDocumentIdleSeconds()))
+                .removalListener((Key key, PooledDocument document, RemovalCause cause) -> {
+                    if (document != null) {
+                        log.debug("Closing pooled PDF {} ({})", key.path(), cause);
+                        document.evict();
+                    }
+                })
+                .build();
+    }
+
+    public <T> T withDocument(Path pdfPath, DocumentAction<T> action) throws IOException {
+        Key key = new Key(pdfPath.toString(), Files.getLastModifiedTime(pdfPath).toMillis());
+        PooledDocument pooled;
+        try {
+            pooled = documents.get(key, ignored -> open(pdfPath));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (!pooled.acquire()) {
+            // evicted between lookup and lease; use a private copy rather than racing the pool
+            try (PDDocument document = load(pdfPath)) {
+                return action.apply(document);
+            }
+        }
+        try {
+            pooled.lock.lock();
+            try {
+                return action.apply(pooled.document);
+            } finally {
+                pooled.lock.unlock();
+            }
+        } finally {
+            pooled.release();
+        }
+    }
+
+    @PreDestroy
+    void closeAll() {
+        documents.invalidateAll();
+        documents.cleanUp();
+    }
+
+    private PooledDocument open(Path pdfPath) {
+        try {
+            log.debug("Opening PDF {} into the document pool", pdfPath.getFileName());
+            return new PooledDocument(load(pdfPath));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static PDDocument load(Path pdfPath) throws IOException {
+        RandomAccessReadBufferedFile randomAccessRead = new RandomAccessReadBufferedFile(pdfPath.toFile());
+        try {
+            return Loader.loadPDF(randomAccessRead);
+        } catch (IOException e) {
+            randomAccessRead.close();
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface DocumentAction<T> {
+        T apply(PDDocument document) throws IOException;
+    }
+
+    private record Key(String path, long lastModified) {
+    }
+
+    private static final class PooledDocument {
+        private final PDDocument document;
+        private final ReentrantLock lock = new ReentrantLock();
+        private int leases;
+        private boolean evicted;
+
+        private PooledDocument(PDDocument document) {
+            this.document = document;
+        }
+
+        /**
+         * Returns false once the document has been evicted.
+         */
+        private synchronized boolean acquire() {
+            if (evicted) {
+                return false;
+            }
+            leases++;
+            return true;
+        }
+
+        private void release() {
+            boolean last;
+            synchronized (this) {
+                last = --leases == 0 && evicted;
+            }
+            if (last) {
+                close();
+            }
+        }
+
+        private void evict() {
+            boolean idle;
+            synchronized (this) {
+                evicted = true;
+                idle = leases == 0;
+            }
+            if (idle) {
+                close();
+            }
+        }
+
+        private void close() {
+            try {
+                document.close();
+            } catch (IOException e) {
+                log.warn("Failed to close pooled PDF: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.booklore.service.reader;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.util.FileService;
+import org.booklore.util.Md5Util;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Rendered PDF pages on disk under {@link FileService#getPdfCachePath()}, one directory per document and one JPEG
+ * per page and resolution. File names carry the source file's modification time, so pages of a replaced PDF are
+ * never served and simply age out.
+ * <p>
+ * The cache is bounded by the {@code pdf_cache_size_in_mb} setting. Hits refresh the file's modification time and
+ * eviction removes the least recently used pages until the cache is back under 90% of the limit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PdfPageCache {
+
+    private static final String PAGE_EXTENSION = ".jpg";
+    private static final double EVICTION_TARGET = 0.9;
+
+    private final FileService fileService;
+    private final AppSettingService appSettingService;
+
+    private final AtomicLong totalSize = new AtomicLong(-1);
+    private final Object evictionMonitor = new Object();
+
+    /**
+     * Copies the cached page to the output, returning false if it isn't cached.
+     */
+    public boolean copyTo(Path pdfPath, long lastModified, int page, int dpi, OutputStream outputStream) throws IOException {
+        Path file = pagePath(pdfPath, lastModified, page, dpi);
+        try {
+            Files.copy(file, outputStream);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Failed to touch cached PDF page {}: {}", file, e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * False when {@code pdf_cache_size_in_mb} is 0 or unset, so nothing rendered ahead of time would be kept.
+     */
+    public boolean isEnabled() {
+        return maxSize() > 0;
+    }
+
+    public boolean contains(Path pdfPath, long lastModified, int page, int dpi) {
+        return Files.exists(pagePath(pdfPath, lastModified, page, dpi));
+    }
+
+    /**
+     * Stores a rendered page. The bytes are written to a temporary file and moved into place, so readers never see
+     * a partial page.
+     */
+    public void put(Path pdfPath, long lastModified, int page, int dpi, byte[] image) {
+        long maxSize = maxSize();
+        if (maxSize <= 0) {
+            return;
+        }
+        long sizeBefore = currentSize();
+        Path file = pagePath(pdfPath, lastModified, page, dpi);
+        long replaced;
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), "page-", ".tmp");
+            try {
+                Files.write(temp, image);
+                replaced = sizeOf(file);
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to cache rendered PDF page {} of {}: {}", page, pdfPath.getFileName(), e.getMessage());
+            return;
+        }
+
+        long added = image.length - replaced;
+        if (sizeBefore + added > maxSize) {
+            evict(maxSize);
+        } else {
+            totalSize.addAndGet(added);
+        }
+    }
+
+    /**
+     * Size of a page about to be overwritten, which no longer counts once the new one is in place.
+     */
+    private static long sizeOf(Path file) throws IOException {
+        try {
+            return Files.size(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private Path pagePath(Path pdfPath, long lastModified, int page, int dpi) {
+        String document = Md5Util.md5Hex(pdfPath.toAbsolutePath().toString());
+        return Path.of(fileService.getPdfCachePath(), document, lastModified + "-" + page + "-" + dpi + PAGE_EXTENSION);
+    }
+
+    private long maxSize() {
+        Integer sizeInMb = appSettingService.getAppSettings().getPdfCacheSizeInMb();
+        return sizeInMb != null ? sizeInMb * 1024L * 1024L : 0;
+    }
+
+    private long currentSize() {
+        long size = totalSize.get();
+        if (size < 0) {
+            synchronized (evictionMonitor) {
+                if (totalSize.get() < 0) {
+                    totalSize.set(scan().stream().mapToLong(CachedPage::size).sum());
+                }
+            }
+            size = totalSize.get();
+        }
+        return size;
+    }
+
+    private void evict(long maxSize) {
+        synchronized (evictionMonitor) {
+            List<CachedPage> pages = scan();
+            long size = pages.stream().mapToLong(CachedPage::size).sum();
+            long target = (long) (maxSize * EVICTION_TARGET);
+            pages.sort(Comparator.comparing(CachedPage::lastModified));
+            int removed = 0;
+            for (CachedPage page : pages) {
+                if (size <= target) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(page.path());
+                    size -= page.size();
+                    removed++;
+                } catch (IOException e) {
+                    log.debug("Failed to evict cached PDF page {}: {}", page.path(), e.getMessage());
+                }
+            }
+            totalSize.set(size);
+            deleteEmptyDirectories();
+            log.debug("Evicted {} rendered PDF pages, cache is now {} bytes", removed, size);
+        }
+    }
+
+    private List<CachedPage> scan() {
+        Path root = Path.of(fileService.getPdfCachePath());
+        List<CachedPage> pages = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return pages;
+        }
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (file.getFileName().toString().endsWith(PAGE_EXTENSION)) {
+                        pages.add(new CachedPage(file, attributes.size(), attributes.lastModifiedTime()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to scan PDF page cache: {}", e.getMessage());
+        }
+        return pages;
+    }
+
+    private void deleteEmptyDirectories() {
+        try (Stream<Path> directories = Files.list(Path.of(fileService.getPdfCachePath()))) {
+            directories.filter(Files::isDirectory).forEach(directory -> {
+                try {
+                    Files.delete(directory);
+                } catch (DirectoryNotEmptyException ignored) {
+                    // still holds pages
+                } catch (IOException e) {
+                    log.debug("Failed to remove PDF cache directory {}: {}", directory, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Failed to list PDF page cache: {}", e.getMessage());
+        }
+    }
+
+    private record CachedPage(Path path, long size, FileTime lastModified) {
+    }
+}
@@ -1,15 +1,17 @@
 package org.booklore.service.reader;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
+import org.booklore.config.AppProperties;
 import org.booklore.exception.ApiError;
 import org.booklore.model.dto.response.PdfBookInfo;
 import org.booklore.model.dto.response.PdfOutlineItem;
@@ -22,16 +24,16 @@ import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -40,23 +42,77 @@ import java.util.stream.IntStream;
 @RequiredArgsConstructor
 public class PdfReaderService {
 
-    private static final int MAX_CACHE_ENTRIES = 50;
-    private static final float DEFAULT_DPI = 200f;
+    private static final int DEFAULT_DPI = 200;
+    private static final int MIN_DPI = 50;
+    private static final int MAX_DPI = 300;
+    // width requests are rounded up to a multiple of this, so nearby widths share cached renders
+    private static final int DPI_STEP = 25;
+    private static final int PRERENDER_QUEUE_SIZE = 32;
 
     private final BookRepository bookRepository;
-    private final Map<String, CachedPdfMetadata> metadataCache = new ConcurrentHashMap<>();
+    private final ReaderMetadataCache metadataCache;
+    private final PdfDocumentPool documentPool;
+    private final PdfPageCache pageCache;
+    private final AppProperties appProperties;
 
-    private static class CachedPdfMetadata {
+    private final Set<String> prerendering = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor prerenderExecutor;
+
+    private static class CachedPdfMetadata implements ReaderMetadataCache.CachedMetadata {
         final int pageCount;
         final long lastModified;
         final List<PdfOutlineItem> outline;
-        volatile long lastAccessed;
+        final float[] pageWidths; // in points, as displayed (rotation applied)
+        final int weight;
 
-        CachedPdfMetadata(int pageCount, long lastModified, List<PdfOutlineItem> outline) {
+        CachedPdfMetadata(int pageCount, long lastModified, List<PdfOutlineItem> outline, float[] pageWidths) {
             this.pageCount = pageCount;
             this.lastModified = lastModified;
             this.outline = outline;
-            this.lastAccessed = System.currentTimeMillis();
+            this.pageWidths = pageWidths;
+            this.weight = 64 + pageWidths.length * 4 + outlineWeight(outline);
+        }
+
+        private static int outlineWeight(List<PdfOutlineItem> items) {
+            if (items == null) {
+                return 0;
+            }
+            int weight = 0;
+            for (PdfOutlineItem item : items) {
+                weight += 64 + (item.getTitle() != null ? item.getTitle().length() * 2 : 0) + outlineWeight(item.getChildren());
+            }
+            return weight;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public int weight() {
+            return weight;
+        }
+    }
+
+    @PostConstruct
+    void startPrerenderer() {
+        int threads = Math.max(1, appProperties.getPdfReader().getPrerenderThreads());
+        prerenderExecutor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(PRERENDER_QUEUE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-prerender");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        prerenderExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stopPrerenderer() {
+        if (prerenderExecutor != null) {
+            prerenderExecutor.shutdownNow();
         }
     }
 
@@ -96,10 +152,25 @@ public class PdfReaderService {
     }
 
     public void streamPageImage(Long bookId, String bookType, int page, OutputStream outputStream) throws IOException {
+        streamPageImage(bookId, bookType, page, null, outputStream);
+    }
+
+    /**
+     * Streams the page as a JPEG, rendered at a resolution that covers {@code width} pixels, or at the default
+     * resolution when no width is given. Renders are cached on disk, and the following pages are rendered in the
+     * background at the same width.
+     */
+    public void streamPageImage(Long bookId, String bookType, int page, Integer width, OutputStream outputStream) throws IOException {
         Path pdfPath = getBookPath(bookId, bookType);
         CachedPdfMetadata metadata = getCachedMetadata(pdfPath);
         validatePageRequest(bookId, page, metadata.pageCount);
-        renderPageToStream(pdfPath, page, outputStream);
+        int dpi = resolveDpi(metadata, page, width);
+        if (!pageCache.copyTo(pdfPath, metadata.lastModified, page, dpi, outputStream)) {
+            byte[] image = renderPage(pdfPath, page, dpi);
+            pageCache.put(pdfPath, metadata.lastModified, page, dpi, image);
+            outputStream.write(image);
+        }
+        prerenderFollowingPages(pdfPath, metadata, page, width);
     }
 
     private Path getBookPath(Long bookId, String bookType) {
@@ -127,19 +198,7 @@ public class PdfReaderService {
     }
 
     private CachedPdfMetadata getCachedMetadata(Path pdfPath) throws IOException {
-        String cacheKey = pdfPath.toString();
-        long currentModified = Files.getLastModifiedTime(pdfPath).toMillis();
-        CachedPdfMetadata cached = metadataCache.get(cacheKey);
-        if (cached != null && cached.lastModified == currentModified) {
-            cached.lastAccessed = System.currentTimeMillis();
-            log.debug("Cache hit for PDF: {}", pdfPath.getFileName());
-            return cached;
-        }
-        log.debug("Cache miss for PDF: {}, scanning...", pdfPath.getFileName());
-        CachedPdfMetadata newMetadata = scanPdfMetadata(pdfPath);
-        metadataCache.put(cacheKey, newMetadata);
-        evictOldestCacheEntries();
-        return newMetadata;
+        return metadataCache.get(CachedPdfMetadata.class, pdfPath, previous -> scanPdfMetadata(pdfPath));
     }
 
     private CachedPdfMetadata scanPdfMetadata(Path pdfPath) throws IOException {
@@ -147,12 +206,15 @@ public class PdfReaderService {
             throw new FileNotFoundException("PDF file is not readable: " + pdfPath);
         }
         long lastModified = Files.getLastModifiedTime(pdfPath).toMillis();
-        try (RandomAccessReadBufferedFile randomAccessRead = new RandomAccessReadBufferedFile(pdfPath.toFile());
-             PDDocument document = Loader.loadPDF(randomAccessRead)) {
+        return documentPool.withDocument(pdfPath, document -> {
             int pageCount = document.getNumberOfPages();
+            float[] pageWidths = new float[pageCount];
+            for (int i = 0; i < pageCount; i++) {
+                pageWidths[i] = displayedWidth(document.getPage(i));
+            }
             List<PdfOutlineItem> outline = extractOutline(document);
-            return new CachedPdfMetadata(pageCount, lastModified, outline);
-        }
+            return new CachedPdfMetadata(pageCount, lastModified, outline, pageWidths);
+        });
     }
 
     private List<PdfOutlineItem> extractOutline(PDDocument document) {
@@ -216,37 +278,64 @@ public class PdfReaderService {
         }
     }
 
-    private void evictOldestCacheEntries() {
-        if (metadataCache.size() <= MAX_CACHE_ENTRIES) {
-            return;
+    private static float displayedWidth(PDPage page) {
+        PDRectangle cropBox = page.getCropBox();
+        return page.getRotation() % 180 == 0 ? cropBox.getWidth() : cropBox.getHeight();
+    }
+
+    private static int resolveDpi(CachedPdfMetadata metadata, int page, Integer width) {
+        float pageWidth = metadata.pageWidths[page - 1];
+        if (width == null || width <= 0 || pageWidth <= 0) {
+            return DEFAULT_DPI;
         }
-        List<String> keysToRemove = metadataCache.entrySet().stream()
-                .sorted(Comparator.comparingLong(e -> e.getValue().lastAccessed))
-                .limit(metadataCache.size() - MAX_CACHE_ENTRIES)
-                .map(Map.Entry::getKey)
-                .toList();
-        keysToRemove.forEach(key -> {
-            metadataCache.remove(key);
-            log.debug("Evicted cache entry: {}", key);
-        });
+        int dpi = (int) Math.ceil(width * 72.0 / pageWidth / DPI_STEP) * DPI_STEP;
+        return Math.clamp(dpi, MIN_DPI, MAX_DPI);
     }
 
-    private void renderPageToStream(Path pdfPath, int page, OutputStream outputStream) throws IOException {
-        try (RandomAccessReadBufferedFile randomAccessRead = new RandomAccessReadBufferedFile(pdfPath.toFile());
-             PDDocument document = Loader.loadPDF(randomAccessRead)) {
-            PDFRenderer renderer = new PDFRenderer(document);
-            BufferedImage image = null;
-            try {
-                image = renderer.renderImageWithDPI(page - 1, DEFAULT_DPI, ImageType.RGB);
-                ImageIO.write(image, "JPEG", outputStream);
-            } finally {
-                if (image != null) {
-                    image.flush();
-                }
-            }
+    private byte[] renderPage(Path pdfPath, int page, int dpi) throws IOException {
+        BufferedImage image = null;
+        try {
+            // only the render needs the document; encoding happens after it is released to other readers
+            image = documentPool.withDocument(pdfPath, document ->
+                    new PDFRenderer(document).renderImageWithDPI(page - 1, dpi, ImageType.RGB));
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ImageIO.write(image, "JPEG", output);
+            return output.toByteArray();
         } catch (IOException e) {
             log.error("Failed to render PDF page {} from {}", page, pdfPath, e);
             throw e;
+        } finally {
+            if (image != null) {
+                image.flush();
+            }
+        }
+    }
+
+    private void prerenderFollowingPages(Path pdfPath, CachedPdfMetadata metadata, int page, Integer width) {
+        if (!pageCache.isEnabled()) {
+            return;
+        }
+        int lastPage = Math.min(metadata.pageCount, page + appProperties.getPdfReader().getPrerenderPages());
+        for (int next = page + 1; next <= lastPage; next++) {
+            int nextPage = next;
+            int dpi = resolveDpi(metadata, nextPage, width);
+            String key = pdfPath + ":" + metadata.lastModified + ":" + nextPage + ":" + dpi;
+            if (pageCache.contains(pdfPath, metadata.lastModified, nextPage, dpi) || !prerendering.add(key)) {
+                continue;
+            }
+            try {
+                prerenderExecutor.execute(() -> {
+                    try {
+                        pageCache.put(pdfPath, metadata.lastModified, nextPage, dpi, renderPage(pdfPath, nextPage, dpi));
+                    } catch (Exception e) {
+                        log.debug("Failed to pre-render page {} of {}: {}", nextPage, pdfPath.getFileName(), e.getMessage());
+                    } finally {
+                        prerendering.remove(key);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                prerendering.remove(key);
+            }
         }
     }
 }
@@ -0,0 +1,102 @@
+package org.booklore.service.reader;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Shared cache for the metadata the readers extract from book files (archive page lists, PDF page counts and
+ * outlines, EPUB manifests), bounded by the estimated heap size of the entries rather than their count.
+ * <p>
+ * Entries are keyed by metadata type and file path and are reloaded when the file's modification time changes.
+ * Concurrent misses for the same file share a single load. Hit, miss and eviction counts are published to
+ * Micrometer as the {@code reader.metadata} cache.
+ */
+@Slf4j
+@Component
+public class ReaderMetadataCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "reader.metadata";
+
+    private final Cache<Key, CachedMetadata> cache;
+
+    public ReaderMetadataCache(AppProperties appProperties) {
+        long maxWeight = appProperties.getReaderCache().getMaxSizeMb() * 1024L * 1024L;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((Key key, CachedMetadata value) -> Math.max(1, value.weight()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached metadata of the given type for the file, loading it if it isn't cached or the file was
+     * modified since. The loader receives the outdated entry, if any, so it can reuse hints such as the encoding
+     * that worked last time.
+     */
+    public <T extends CachedMetadata> T get(Class<T> type, Path file, Loader<T> loader) throws IOException {
+        Key key = new Key(type, file.toString());
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+        T previous = null;
+        CachedMetadata current = cache.policy().getIfPresentQuietly(key);
+        if (current != null && current.lastModified() != lastModified) {
+            log.debug("Cached {} for {} is outdated, reloading", type.getSimpleName(), file.getFileName());
+            previous = type.cast(current);
+            cache.asMap().remove(key, current);
+        }
+
+        T stale = previous;
+        try {
+            return type.cast(cache.get(key, ignored -> {
+                log.debug("Cache miss for {}: {}, scanning...", type.getSimpleName(), file.getFileName());
+                try {
+                    return loader.load(stale);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Metadata extracted from a single book file.
+     */
+    public interface CachedMetadata {
+
+        /**
+         * Modification time of the file the metadata was read from, in epoch millis.
+         */
+        long lastModified();
+
+        /**
+         * Rough heap footprint in bytes, used to bound the cache.
+         */
+        int weight();
+    }
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load(T previous) throws IOException;
+    }
+
+    private record Key(Class<?> type, String path) {
+    }
+}
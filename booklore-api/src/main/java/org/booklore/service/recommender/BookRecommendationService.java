@@ -24,12 +24,15 @@ import java.util.stream.Collectors;
 public class BookRecommendationService {
 
     private final BookSimilarityService similarityService;
+    private final BookSimilarityIndex similarityIndex;
     private final BookRepository bookRepository;
     private final BookQueryService bookQueryService;
     private final BookMapper bookMapper;
     private final AuthenticationService authenticationService;
 
     private static final int MAX_BOOKS_PER_AUTHOR = 3;
+    // nearest neighbours by embedding that are re-ranked with the full similarity score
+    private static final int CANDIDATE_POOL_SIZE = 200;
 
     public List<BookRecommendation> getRecommendations(Long bookId, int limit) {
         BookEntity book = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
@@ -89,7 +92,14 @@ public class BookRecommendationService {
     protected List<BookRecommendation> findSimilarBooks(Long bookId, int limit) {
         BookEntity target = bookRepository.findById(bookId).orElseThrow(() -> ApiError.BOOK_NOT_FOUND.createException(bookId));
 
-        List<BookEntity> candidates = bookQueryService.getAllFullBookEntities();
+        List<Long> candidateIds = similarityIndex.findNearest(bookId, CANDIDATE_POOL_SIZE, 0.0).stream()
+                .map(BookSimilarityIndex.Neighbor::bookId)
+                .toList();
+        List<BookEntity> candidates = candidateIds.isEmpty()
+                ? List.of()
+                : bookRepository.findAllFullBooksByIds(candidateIds).stream()
+                        .filter(candidate -> !Boolean.TRUE.equals(candidate.getDeleted()))
+                        .toList();
 
         String targetSeriesName = Optional.ofNullable(target.getMetadata())
                 .map(BookMetadataEntity::getSeriesName)
@@ -0,0 +1,292 @@
+package org.booklore.service.recommender;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.model.entity.AuthorEntity;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookMetadataEntity;
+import org.booklore.model.entity.CategoryEntity;
+import org.booklore.repository.BookRepository;
+import org.booklore.service.book.BookListViewIndex;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Nearest-neighbour index over the {@link BookVectorService} embeddings of all books, so finding similar books no
+ * longer means scoring every book in the database.
+ * <p>
+ * Embeddings are packed into an {@link HnswGraph} for approximate search, and an inverted index on author, category
+ * and series names adds every book sharing one of those with the target as an exact candidate. The index is built
+ * lazily on first use (or handed the embeddings computed by the recommendation task) and kept current from the book
+ * list index change feed: changed books are re-embedded in the background and replace their old node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSimilarityIndex implements BookListViewIndex.ChangeListener {
+
+    private static final int MAX_LINKS = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int EF_SEARCH = 64;
+    // names shared by more books than this (a "Fiction" category) don't narrow anything down; the graph covers them
+    private static final int MAX_POSTING_SIZE = 1000;
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final BookVectorService vectorService;
+    private final BookListViewIndex bookListViewIndex;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object buildMonitor = new Object();
+    private final Set<Long> changedBookIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean built;
+
+    private HnswGraph graph;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<Long, Integer> nodesByBookId = new HashMap<>();
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+
+    @PostConstruct
+    void register() {
+        bookListViewIndex.addChangeListener(this);
+    }
+
+    /**
+     * Replaces the index with the given books, reusing embeddings the caller already computed where available.
+     */
+    public void rebuild(Collection<BookEntity> books, Map<Long, double[]> embeddings) {
+        List<IndexedBook> indexed = new ArrayList<>(books.size());
+        for (BookEntity book : books) {
+            double[] embedding = embeddings != null ? embeddings.get(book.getId()) : null;
+            IndexedBook entry = toIndexedBook(book, embedding);
+            if (entry != null) {
+                indexed.add(entry);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            reset();
+            indexed.forEach(this::insert);
+            built = true;
+            log.info("Built book similarity index with {} books", entries.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code k} books most similar to the given one by embedding cosine, excluding books from the same series,
+     * best first. Candidates are every book sharing a (not too common) author, category or series name, plus the
+     * approximate nearest neighbours from the graph, all scored exactly.
+     */
+    public List<Neighbor> findNearest(Long bookId, int k, double minScore) {
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            Integer node = nodesByBookId.get(bookId);
+            if (node == null) {
+                return List.of();
+            }
+            Entry target = entries.get(node);
+            float[] query = graph.vector(node);
+
+            Map<Integer, Float> scores = new HashMap<>();
+            for (String key : target.keys()) {
+                Set<Integer> posting = postings.get(key);
+                if (posting == null || posting.size() > MAX_POSTING_SIZE) continue;
+                for (int candidate : posting) {
+                    scores.computeIfAbsent(candidate, c -> graph.score(query, c));
+                }
+            }
+
+            int sameSeries = target.series() != null ? postings.getOrDefault(seriesKey(target.series()), Set.of()).size() : 0;
+            int wanted = k + sameSeries + 1;
+            for (HnswGraph.Candidate candidate : graph.search(query, wanted, Math.max(EF_SEARCH, wanted))) {
+                scores.putIfAbsent(candidate.node(), candidate.score());
+            }
+
+            return scores.entrySet().stream()
+                    .filter(e -> e.getKey().intValue() != node && !graph.isDeleted(e.getKey()))
+                    .filter(e -> target.series() == null || !target.series().equals(entries.get(e.getKey()).series()))
+                    .filter(e -> e.getValue() > minScore)
+                    .sorted(Map.Entry.<Integer, Float>comparingByValue().reversed())
+                    .limit(k)
+                    .map(e -> new Neighbor(entries.get(e.getKey()).bookId(), e.getValue()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksChanged(Collection<Long> bookIds) {
+        if (built) {
+            changedBookIds.addAll(bookIds);
+        }
+    }
+
+    @Override
+    public void allBooksChanged() {
+        built = false;
+        changedBookIds.clear();
+    }
+
+    @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
+    public void applyPendingChanges() {
+        if (!built || changedBookIds.isEmpty()) {
+            return;
+        }
+        List<Long> bookIds = new ArrayList<>(changedBookIds);
+        changedBookIds.removeAll(bookIds);
+
+        Map<Long, IndexedBook> updated = new HashMap<>();
+        for (int start = 0; start < bookIds.size(); start += LOAD_BATCH_SIZE) {
+            List<Long> batch = bookIds.subList(start, Math.min(start + LOAD_BATCH_SIZE, bookIds.size()));
+            for (BookEntity book : bookRepository.findAllFullBooksByIds(batch)) {
+                if (!Boolean.TRUE.equals(book.getDeleted())) {
+                    IndexedBook indexed = toIndexedBook(book, null);
+                    if (indexed != null) {
+                        updated.put(book.getId(), indexed);
+                    }
+                }
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Long bookId : bookIds) {
+                IndexedBook book = updated.get(bookId);
+                Integer node = nodesByBookId.get(bookId);
+                if (node != null && book != null && isUnchanged(node, book)) {
+                    continue;
+                }
+                if (node != null) {
+                    delete(node);
+                }
+                if (book != null) {
+                    insert(book);
+                }
+            }
+            if (graph != null && graph.deletedCount() > graph.size() / 4) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        synchronized (buildMonitor) {
+            if (!built) {
+                rebuild(bookRepository.findAllFullBooks(), null);
+            }
+        }
+    }
+
+    private IndexedBook toIndexedBook(BookEntity book, double[] embedding) {
+        if (book.getMetadata() == null) {
+            return null;
+        }
+        double[] source = embedding != null ? embedding : vectorService.generateEmbedding(book);
+        float[] vector = new float[source.length];
+        boolean empty = true;
+        for (int i = 0; i < source.length; i++) {
+            vector[i] = (float) source[i];
+            empty &= vector[i] == 0f;
+        }
+        if (empty) {
+            return null;
+        }
+
+        BookMetadataEntity metadata = book.getMetadata();
+        String series = metadata.getSeriesName() != null ? metadata.getSeriesName().toLowerCase() : null;
+        Set<String> keys = new HashSet<>();
+        if (metadata.getAuthors() != null) {
+            metadata.getAuthors().stream()
+                    .map(AuthorEntity::getName)
+                    .filter(Objects::nonNull)
+                    .forEach(name -> keys.add("author:" + name.toLowerCase()));
+        }
+        if (metadata.getCategories() != null) {
+            metadata.getCategories().stream()
+                    .map(CategoryEntity::getName)
+                    .filter(Objects::nonNull)
+                    .forEach(name -> keys.add("category:" + name.toLowerCase()));
+        }
+        if (series != null) {
+            keys.add(seriesKey(series));
+        }
+        return new IndexedBook(new Entry(book.getId(), series, Set.copyOf(keys)), vector);
+    }
+
+    private void insert(IndexedBook book) {
+        if (graph == null) {
+            graph = new HnswGraph(book.vector().length, MAX_LINKS, EF_CONSTRUCTION, 42L);
+        }
+        int node = graph.add(book.vector());
+        entries.add(book.entry());
+        nodesByBookId.put(book.entry().bookId(), node);
+        for (String key : book.entry().keys()) {
+            postings.computeIfAbsent(key, ignored -> new HashSet<>()).add(node);
+        }
+    }
+
+    private void delete(int node) {
+        Entry entry = entries.get(node);
+        graph.remove(node);
+        nodesByBookId.remove(entry.bookId());
+        for (String key : entry.keys()) {
+            Set<Integer> posting = postings.get(key);
+            if (posting != null) {
+                posting.remove(node);
+                if (posting.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    private boolean isUnchanged(int node, IndexedBook book) {
+        return entries.get(node).equals(book.entry()) && Arrays.equals(graph.vector(node), book.vector());
+    }
+
+    private void compact() {
+        List<IndexedBook> live = new ArrayList<>(nodesByBookId.size());
+        for (int node : nodesByBookId.values()) {
+            live.add(new IndexedBook(entries.get(node), graph.vector(node)));
+        }
+        reset();
+        live.forEach(this::insert);
+        log.debug("Compacted book similarity index to {} books", entries.size());
+    }
+
+    private void reset() {
+        graph = null;
+        entries.clear();
+        nodesByBookId.clear();
+        postings.clear();
+    }
+
+    private static String seriesKey(String series) {
+        return "series:" + series;
+    }
+
+    public record Neighbor(Long bookId, double score) {
+    }
+
+    private record Entry(Long bookId, String series, Set<String> keys) {
+    }
+
+    private record IndexedBook(Entry entry, float[] vector) {
+    }
+}
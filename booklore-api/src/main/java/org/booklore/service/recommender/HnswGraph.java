@@ -0,0 +1,241 @@
+package org.booklore.service.recommender;
+
+import java.util.*;
+
+/**
+ * Hierarchical navigable small world graph over unit length float vectors, scored by dot product (cosine
+ * similarity). Vectors are packed into one float array and nodes are dense ints in insertion order. Removal is a
+ * tombstone: the node keeps routing searches but is dropped from results, so callers rebuild once too many pile up.
+ * <p>
+ * Not thread-safe. Searches don't mutate the graph and may run concurrently with each other, but not with writes.
+ */
+final class HnswGraph {
+
+    private static final int MAX_LEVEL = 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int dimension;
+    private final int maxLinks;
+    private final int maxLinksLevel0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private float[] vectors;
+    private int[][][] links;
+    private final BitSet deleted = new BitSet();
+    private int size;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int topLevel = -1;
+
+    HnswGraph(int dimension, int maxLinks, int efConstruction, long seed) {
+        this.dimension = dimension;
+        this.maxLinks = maxLinks;
+        this.maxLinksLevel0 = maxLinks * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(maxLinks);
+        this.random = new Random(seed);
+        this.vectors = new float[dimension * INITIAL_CAPACITY];
+        this.links = new int[INITIAL_CAPACITY][][];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    boolean isDeleted(int node) {
+        return deleted.get(node);
+    }
+
+    float[] vector(int node) {
+        return Arrays.copyOfRange(vectors, node * dimension, (node + 1) * dimension);
+    }
+
+    float score(float[] query, int node) {
+        int offset = node * dimension;
+        float dot = 0;
+        for (int i = 0; i < dimension; i++) {
+            dot += query[i] * vectors[offset + i];
+        }
+        return dot;
+    }
+
+    /**
+     * Inserts a vector and links it into every level up to its randomly drawn one.
+     *
+     * @return the new node
+     */
+    int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of dimension " + dimension + " but got " + vector.length);
+        }
+        int node = size;
+        ensureCapacity(node + 1);
+        System.arraycopy(vector, 0, vectors, node * dimension, dimension);
+
+        int level = randomLevel();
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            // slot 0 holds the number of links in use
+            nodeLinks[l] = new int[(l == 0 ? maxLinksLevel0 : maxLinks) + 1];
+        }
+        links[node] = nodeLinks;
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = topLevel; l > level; l--) {
+            current = greedySearch(vector, current, l);
+        }
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            List<Candidate> nearest = searchLayer(vector, current, efConstruction, l);
+            int capacity = l == 0 ? maxLinksLevel0 : maxLinks;
+            for (int i = 0; i < Math.min(capacity, nearest.size()); i++) {
+                int neighbour = nearest.get(i).node();
+                link(node, neighbour, l);
+                link(neighbour, node, l);
+            }
+            current = nearest.getFirst().node();
+        }
+
+        if (level > topLevel) {
+            topLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    void remove(int node) {
+        if (!deleted.get(node)) {
+            deleted.set(node);
+            deletedCount++;
+        }
+    }
+
+    /**
+     * The approximate {@code k} nearest live nodes to the query, best first.
+     */
+    List<Candidate> search(float[] query, int k, int ef) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        int current = entryPoint;
+        for (int l = topLevel; l > 0; l--) {
+            current = greedySearch(query, current, l);
+        }
+        return searchLayer(query, current, Math.max(ef, k), 0).stream()
+                .filter(candidate -> !deleted.get(candidate.node()))
+                .limit(k)
+                .toList();
+    }
+
+    private int greedySearch(float[] query, int entry, int level) {
+        int current = entry;
+        float best = score(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                float score = score(query, neighbours[i]);
+                if (score > best) {
+                    best = score;
+                    current = neighbours[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score).reversed());
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+
+        Candidate start = new Candidate(entry, score(query, entry));
+        visited.set(entry);
+        frontier.add(start);
+        results.add(start);
+
+        while (!frontier.isEmpty()) {
+            Candidate closest = frontier.poll();
+            if (results.size() >= ef && closest.score() < results.peek().score()) {
+                break;
+            }
+            int[] neighbours = links[closest.node()][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                float score = score(query, neighbour);
+                if (results.size() < ef || score > results.peek().score()) {
+                    Candidate candidate = new Candidate(neighbour, score);
+                    frontier.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        return sorted;
+    }
+
+    private void link(int from, int to, int level) {
+        int[] neighbours = links[from][level];
+        int count = neighbours[0];
+        if (count < neighbours.length - 1) {
+            neighbours[count + 1] = to;
+            neighbours[0] = count + 1;
+            return;
+        }
+
+        // full: replace the weakest link if the new one is closer
+        float[] origin = vector(from);
+        int weakest = -1;
+        float weakestScore = score(origin, to);
+        for (int i = 1; i <= count; i++) {
+            float score = score(origin, neighbours[i]);
+            if (score < weakestScore) {
+                weakestScore = score;
+                weakest = i;
+            }
+        }
+        if (weakest > 0) {
+            neighbours[weakest] = to;
+        }
+    }
+
+    private int randomLevel() {
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        return Math.min(level, MAX_LEVEL);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= links.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, links.length * 2);
+        links = Arrays.copyOf(links, newCapacity);
+        vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+    }
+
+    record Candidate(int node, float score) {
+    }
+}
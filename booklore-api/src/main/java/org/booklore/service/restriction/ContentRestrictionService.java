@@ -1,21 +1,36 @@
 package org.booklore.service.restriction;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.booklore.exception.ApiError;
+import org.booklore.model.dto.Book;
+import org.booklore.model.dto.BookMetadata;
 import org.booklore.model.dto.ContentRestriction;
 import org.booklore.model.entity.BookEntity;
 import org.booklore.model.entity.BookLoreUserEntity;
 import org.booklore.model.entity.BookMetadataEntity;
+import org.booklore.model.entity.CategoryEntity;
+import org.booklore.model.entity.MoodEntity;
+import org.booklore.model.entity.TagEntity;
 import org.booklore.model.entity.UserContentRestrictionEntity;
 import org.booklore.model.enums.ContentRestrictionMode;
 import org.booklore.model.enums.ContentRestrictionType;
 import org.booklore.repository.UserContentRestrictionRepository;
 import org.booklore.repository.UserRepository;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -93,29 +108,126 @@ public class ContentRestrictionService {
     }
 
     public List<BookEntity> applyRestrictions(List<BookEntity> books, Long userId) {
-        List<UserContentRestrictionEntity> restrictions = restrictionRepository.findByUserId(userId);
+        Predicate<BookEntity> permitted = restrictionFilter(userId, book -> ContentFacets.of(book.getMetadata()));
+        return permitted == null ? books : books.stream().filter(permitted).collect(Collectors.toList());
+    }
 
-        if (restrictions.isEmpty()) {
-            return books;
+    /**
+     * Same rules as {@link #applyRestrictions(List, Long)}, evaluated against already-mapped books
+     * such as the rows served from the book list index.
+     */
+    public List<Book> applyRestrictionsToBooks(List<Book> books, Long userId) {
+        Predicate<Book> permitted = bookRestrictionFilter(userId);
+        return books.stream().filter(permitted).collect(Collectors.toList());
+    }
+
+    /**
+     * The user's restrictions as a reusable predicate over mapped books, for callers that filter incrementally.
+     */
+    public Predicate<Book> bookRestrictionFilter(Long userId) {
+        Predicate<Book> permitted = restrictionFilter(userId, book -> ContentFacets.of(book.getMetadata()));
+        return permitted == null ? book -> true : permitted;
+    }
+
+    /**
+     * The user's restrictions as a query specification, so paged queries filter in the database and return full
+     * pages with exact totals. Evaluates the same rules as {@link #applyRestrictions(List, Long)}.
+     *
+     * @return the restriction specification, or null if the user has no restrictions
+     */
+    public Specification<BookEntity> restrictionSpecification(Long userId) {
+        RestrictionRules rules = loadRules(userId);
+        if (rules == null) {
+            return null;
         }
 
-        Set<String> excludedCategories = getValuesForTypeAndMode(restrictions, ContentRestrictionType.CATEGORY, ContentRestrictionMode.EXCLUDE);
-        Set<String> excludedTags = getValuesForTypeAndMode(restrictions, ContentRestrictionType.TAG, ContentRestrictionMode.EXCLUDE);
-        Set<String> excludedMoods = getValuesForTypeAndMode(restrictions, ContentRestrictionType.MOOD, ContentRestrictionMode.EXCLUDE);
-        Set<String> excludedContentRatings = getValuesForTypeAndMode(restrictions, ContentRestrictionType.CONTENT_RATING, ContentRestrictionMode.EXCLUDE);
+        return (root, query, cb) -> {
+            Join<BookEntity, BookMetadataEntity> metadata = root.join("metadata", JoinType.LEFT);
+            List<jakarta.persistence.criteria.Predicate> predicates = new ArrayList<>();
+
+            if (!rules.excludedCategories().isEmpty()) {
+                predicates.add(cb.not(hasAnyName(query, cb, root, "categories", rules.excludedCategories())));
+            }
+            if (!rules.excludedTags().isEmpty()) {
+                predicates.add(cb.not(hasAnyName(query, cb, root, "tags", rules.excludedTags())));
+            }
+            if (!rules.excludedMoods().isEmpty()) {
+                predicates.add(cb.not(hasAnyName(query, cb, root, "moods", rules.excludedMoods())));
+            }
+            if (!rules.excludedContentRatings().isEmpty()) {
+                Expression<String> contentRating = metadata.get("contentRating");
+                predicates.add(cb.or(cb.isNull(contentRating), cb.not(cb.lower(contentRating).in(rules.excludedContentRatings()))));
+            }
+
+            if (rules.hasAllowList()) {
+                predicates.add(cb.isNotNull(metadata.get("bookId")));
+                if (!rules.allowedCategories().isEmpty()) {
+                    predicates.add(hasAnyName(query, cb, root, "categories", rules.allowedCategories()));
+                }
+                if (!rules.allowedTags().isEmpty()) {
+                    predicates.add(hasAnyName(query, cb, root, "tags", rules.allowedTags()));
+                }
+                if (!rules.allowedMoods().isEmpty()) {
+                    predicates.add(hasAnyName(query, cb, root, "moods", rules.allowedMoods()));
+                }
+                if (!rules.allowedContentRatings().isEmpty()) {
+                    Expression<String> contentRating = metadata.get("contentRating");
+                    predicates.add(cb.lower(contentRating).in(rules.allowedContentRatings()));
+                }
+            }
 
-        Set<String> allowedCategories = getValuesForTypeAndMode(restrictions, ContentRestrictionType.CATEGORY, ContentRestrictionMode.ALLOW_ONLY);
-        Set<String> allowedTags = getValuesForTypeAndMode(restrictions, ContentRestrictionType.TAG, ContentRestrictionMode.ALLOW_ONLY);
-        Set<String> allowedMoods = getValuesForTypeAndMode(restrictions, ContentRestrictionType.MOOD, ContentRestrictionMode.ALLOW_ONLY);
-        Set<String> allowedContentRatings = getValuesForTypeAndMode(restrictions, ContentRestrictionType.CONTENT_RATING, ContentRestrictionMode.ALLOW_ONLY);
+            if (rules.maxAgeRating() != null) {
+                Expression<Integer> ageRating = metadata.get("ageRating");
+                predicates.add(cb.or(cb.isNull(ageRating), cb.lessThan(ageRating, rules.maxAgeRating())));
+            }
 
-        Integer maxAgeRating = getMaxAgeRating(restrictions);
+            return cb.and(predicates.toArray(new jakarta.persistence.criteria.Predicate[0]));
+        };
+    }
 
-        return books.stream()
-                .filter(book -> !hasExcludedContent(book, excludedCategories, excludedTags, excludedMoods, excludedContentRatings))
-                .filter(book -> matchesAllowList(book, allowedCategories, allowedTags, allowedMoods, allowedContentRatings))
-                .filter(book -> isWithinAgeRating(book, maxAgeRating))
-                .collect(Collectors.toList());
+    private static jakarta.persistence.criteria.Predicate hasAnyName(CriteriaQuery<?> query, CriteriaBuilder cb, Root<BookEntity> root,
+                                                                     String collection, Set<String> names) {
+        Subquery<Long> sub = query.subquery(Long.class);
+        Root<BookMetadataEntity> metadata = sub.from(BookMetadataEntity.class);
+        Join<BookMetadataEntity, Object> value = metadata.join(collection, JoinType.INNER);
+        sub.select(cb.literal(1L)).where(
+                cb.equal(metadata.get("bookId"), root.get("id")),
+                cb.lower(value.get("name")).in(names)
+        );
+        return cb.exists(sub);
+    }
+
+    private <T> Predicate<T> restrictionFilter(Long userId, Function<T, ContentFacets> facets) {
+        RestrictionRules rules = loadRules(userId);
+        if (rules == null) {
+            return null;
+        }
+
+        return book -> {
+            ContentFacets metadata = facets.apply(book);
+            return !hasExcludedContent(metadata, rules.excludedCategories(), rules.excludedTags(), rules.excludedMoods(), rules.excludedContentRatings())
+                    && matchesAllowList(metadata, rules.allowedCategories(), rules.allowedTags(), rules.allowedMoods(), rules.allowedContentRatings())
+                    && isWithinAgeRating(metadata, rules.maxAgeRating());
+        };
+    }
+
+    private RestrictionRules loadRules(Long userId) {
+        List<UserContentRestrictionEntity> restrictions = restrictionRepository.findByUserId(userId);
+
+        if (restrictions.isEmpty()) {
+            return null;
+        }
+
+        return new RestrictionRules(
+                getValuesForTypeAndMode(restrictions, ContentRestrictionType.CATEGORY, ContentRestrictionMode.EXCLUDE),
+                getValuesForTypeAndMode(restrictions, ContentRestrictionType.TAG, ContentRestrictionMode.EXCLUDE),
+                getValuesForTypeAndMode(restrictions, ContentRestrictionType.MOOD, ContentRestrictionMode.EXCLUDE),
+                getValuesForTypeAndMode(restrictions, ContentRestrictionType.CONTENT_RATING, ContentRestrictionMode.EXCLUDE),
+                getValuesForTypeAndMode(restrictions, ContentRestrictionType.CATEGORY, ContentRestrictionMode.ALLOW_ONLY),
+                getValuesForTypeAndMode(restrictions, ContentRestrictionType.TAG, ContentRestrictionMode.ALLOW_ONLY),
+                getValuesForTypeAndMode(restrictions, ContentRestrictionType.MOOD, ContentRestrictionMode.ALLOW_ONLY),
+                getValuesForTypeAndMode(restrictions, ContentRestrictionType.CONTENT_RATING, ContentRestrictionMode.ALLOW_ONLY),
+                getMaxAgeRating(restrictions));
     }
 
     private Set<String> getValuesForTypeAndMode(List<UserContentRestrictionEntity> restrictions,
@@ -143,42 +255,41 @@ public class ContentRestrictionService {
                 .orElse(null);
     }
 
-    private boolean hasExcludedContent(BookEntity book,
+    private boolean hasExcludedContent(ContentFacets metadata,
                                        Set<String> excludedCategories,
                                        Set<String> excludedTags,
                                        Set<String> excludedMoods,
                                        Set<String> excludedContentRatings) {
-        BookMetadataEntity metadata = book.getMetadata();
         if (metadata == null) {
             return false;
         }
 
-        if (!excludedCategories.isEmpty() && metadata.getCategories() != null) {
-            boolean hasExcludedCategory = metadata.getCategories().stream()
-                    .anyMatch(c -> excludedCategories.contains(c.getName().toLowerCase()));
+        if (!excludedCategories.isEmpty() && metadata.categories() != null) {
+            boolean hasExcludedCategory = metadata.categories().stream()
+                    .anyMatch(c -> excludedCategories.contains(c.toLowerCase()));
             if (hasExcludedCategory) {
                 return true;
             }
         }
 
-        if (!excludedTags.isEmpty() && metadata.getTags() != null) {
-            boolean hasExcludedTag = metadata.getTags().stream()
-                    .anyMatch(t -> excludedTags.contains(t.getName().toLowerCase()));
+        if (!excludedTags.isEmpty() && metadata.tags() != null) {
+            boolean hasExcludedTag = metadata.tags().stream()
+                    .anyMatch(t -> excludedTags.contains(t.toLowerCase()));
             if (hasExcludedTag) {
                 return true;
             }
         }
 
-        if (!excludedMoods.isEmpty() && metadata.getMoods() != null) {
-            boolean hasExcludedMood = metadata.getMoods().stream()
-                    .anyMatch(m -> excludedMoods.contains(m.getName().toLowerCase()));
+        if (!excludedMoods.isEmpty() && metadata.moods() != null) {
+            boolean hasExcludedMood = metadata.moods().stream()
+                    .anyMatch(m -> excludedMoods.contains(m.toLowerCase()));
             if (hasExcludedMood) {
                 return true;
             }
         }
 
-        if (!excludedContentRatings.isEmpty() && metadata.getContentRating() != null) {
-            if (excludedContentRatings.contains(metadata.getContentRating().toLowerCase())) {
+        if (!excludedContentRatings.isEmpty() && metadata.contentRating() != null) {
+            if (excludedContentRatings.contains(metadata.contentRating().toLowerCase())) {
                 return true;
             }
         }
@@ -186,13 +297,11 @@ public class ContentRestrictionService {
         return false;
     }
 
-    private boolean matchesAllowList(BookEntity book,
+    private boolean matchesAllowList(ContentFacets metadata,
                                      Set<String> allowedCategories,
                                      Set<String> allowedTags,
                                      Set<String> allowedMoods,
                                      Set<String> allowedContentRatings) {
-        BookMetadataEntity metadata = book.getMetadata();
-
         if (allowedCategories.isEmpty() && allowedTags.isEmpty() && allowedMoods.isEmpty() && allowedContentRatings.isEmpty()) {
             return true;
         }
@@ -202,43 +311,43 @@ public class ContentRestrictionService {
         }
 
         if (!allowedCategories.isEmpty()) {
-            if (metadata.getCategories() == null || metadata.getCategories().isEmpty()) {
+            if (metadata.categories() == null || metadata.categories().isEmpty()) {
                 return false;
             }
-            boolean hasAllowedCategory = metadata.getCategories().stream()
-                    .anyMatch(c -> allowedCategories.contains(c.getName().toLowerCase()));
+            boolean hasAllowedCategory = metadata.categories().stream()
+                    .anyMatch(c -> allowedCategories.contains(c.toLowerCase()));
             if (!hasAllowedCategory) {
                 return false;
             }
         }
 
         if (!allowedTags.isEmpty()) {
-            if (metadata.getTags() == null || metadata.getTags().isEmpty()) {
+            if (metadata.tags() == null || metadata.tags().isEmpty()) {
                 return false;
             }
-            boolean hasAllowedTag = metadata.getTags().stream()
-                    .anyMatch(t -> allowedTags.contains(t.getName().toLowerCase()));
+            boolean hasAllowedTag = metadata.tags().stream()
+                    .anyMatch(t -> allowedTags.contains(t.toLowerCase()));
             if (!hasAllowedTag) {
                 return false;
             }
         }
 
         if (!allowedMoods.isEmpty()) {
-            if (metadata.getMoods() == null || metadata.getMoods().isEmpty()) {
+            if (metadata.moods() == null || metadata.moods().isEmpty()) {
                 return false;
             }
-            boolean hasAllowedMood = metadata.getMoods().stream()
-                    .anyMatch(m -> allowedMoods.contains(m.getName().toLowerCase()));
+            boolean hasAllowedMood = metadata.moods().stream()
+                    .anyMatch(m -> allowedMoods.contains(m.toLowerCase()));
             if (!hasAllowedMood) {
                 return false;
             }
         }
 
         if (!allowedContentRatings.isEmpty()) {
-            if (metadata.getContentRating() == null) {
+            if (metadata.contentRating() == null) {
                 return false;
             }
-            if (!allowedContentRatings.contains(metadata.getContentRating().toLowerCase())) {
+            if (!allowedContentRatings.contains(metadata.contentRating().toLowerCase())) {
                 return false;
             }
         }
@@ -246,17 +355,56 @@ public class ContentRestrictionService {
         return true;
     }
 
-    private boolean isWithinAgeRating(BookEntity book, Integer maxAgeRating) {
+    private boolean isWithinAgeRating(ContentFacets metadata, Integer maxAgeRating) {
         if (maxAgeRating == null) {
             return true;
         }
 
-        BookMetadataEntity metadata = book.getMetadata();
-        if (metadata == null || metadata.getAgeRating() == null) {
+        if (metadata == null || metadata.ageRating() == null) {
             return true;
         }
 
-        return metadata.getAgeRating() < maxAgeRating;
+        return metadata.ageRating() < maxAgeRating;
+    }
+
+    private record RestrictionRules(Set<String> excludedCategories, Set<String> excludedTags, Set<String> excludedMoods,
+                                    Set<String> excludedContentRatings, Set<String> allowedCategories, Set<String> allowedTags,
+                                    Set<String> allowedMoods, Set<String> allowedContentRatings, Integer maxAgeRating) {
+
+        boolean hasAllowList() {
+            return !allowedCategories.isEmpty() || !allowedTags.isEmpty() || !allowedMoods.isEmpty() || !allowedContentRatings.isEmpty();
+        }
+    }
+
+    /**
+     * The metadata fields restrictions are evaluated against, taken either from an entity or a mapped DTO.
+     */
+    private record ContentFacets(Collection<String> categories, Collection<String> tags, Collection<String> moods,
+                                 String contentRating, Integer ageRating) {
+
+        static ContentFacets of(BookMetadataEntity metadata) {
+            if (metadata == null) {
+                return null;
+            }
+            return new ContentFacets(
+                    names(metadata.getCategories(), CategoryEntity::getName),
+                    names(metadata.getTags(), TagEntity::getName),
+                    names(metadata.getMoods(), MoodEntity::getName),
+                    metadata.getContentRating(),
+                    metadata.getAgeRating());
+        }
+
+        static ContentFacets of(BookMetadata metadata) {
+            if (metadata == null) {
+                return null;
+            }
+            return new ContentFacets(metadata.getCategories(), metadata.getTags(), metadata.getMoods(),
+                    metadata.getContentRating(), metadata.getAgeRating());
+        }
+
+        private static <E> Collection<String> names(Collection<E> values, Function<E, String> name) {
+            return values == null ? null : values.stream().map(name).toList();
+        }
     }
 
     private ContentRestriction toDto(UserContentRestrictionEntity entity) {
@@ -0,0 +1,287 @@
+package org.booklore.service.rule;
+
+import org.booklore.model.dto.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory backend for compiled magic shelf rules, evaluated against list-view {@link Book} rows such as the ones
+ * held by {@code BookListViewIndex}.
+ * <p>
+ * Only fields that survive the list-view projection and don't depend on the reading user are supported; anything
+ * else (reading state, series composites, metadata presence, stripped fields) marks the rule as not
+ * {@link CompiledRule#inMemoryCapable()} and has to go through SQL. Null handling follows SQL: a comparison against
+ * a missing value is unknown, negating unknown stays unknown, and only rows that end up true match.
+ */
+public final class BookRuleMatcher {
+
+    private enum Kind {TEXT, INTEGRAL, DECIMAL, DATE, FLAG, COLLECTION}
+
+    private static final Map<RuleField, Kind> KINDS = new EnumMap<>(RuleField.class);
+
+    static {
+        for (RuleField field : List.of(RuleField.TITLE, RuleField.PUBLISHER, RuleField.LANGUAGE, RuleField.SERIES_NAME,
+                RuleField.ISBN13, RuleField.ISBN10, RuleField.NARRATOR, RuleField.CONTENT_RATING)) {
+            KINDS.put(field, Kind.TEXT);
+        }
+        for (RuleField field : List.of(RuleField.LIBRARY, RuleField.PAGE_COUNT, RuleField.AGE_RATING,
+                RuleField.AMAZON_REVIEW_COUNT, RuleField.GOODREADS_REVIEW_COUNT, RuleField.HARDCOVER_REVIEW_COUNT)) {
+            KINDS.put(field, Kind.INTEGRAL);
+        }
+        for (RuleField field : List.of(RuleField.SERIES_NUMBER, RuleField.METADATA_SCORE, RuleField.AMAZON_RATING,
+                RuleField.GOODREADS_RATING, RuleField.HARDCOVER_RATING, RuleField.RANOBEDB_RATING)) {
+            KINDS.put(field, Kind.DECIMAL);
+        }
+        KINDS.put(RuleField.PUBLISHED_DATE, Kind.DATE);
+        KINDS.put(RuleField.ADDED_ON, Kind.DATE);
+        KINDS.put(RuleField.IS_PHYSICAL, Kind.FLAG);
+        for (RuleField field : List.of(RuleField.AUTHORS, RuleField.CATEGORIES, RuleField.GENRE, RuleField.MOODS,
+                RuleField.TAGS, RuleField.SHELF)) {
+            KINDS.put(field, Kind.COLLECTION);
+        }
+    }
+
+    private BookRuleMatcher() {
+    }
+
+    public static Predicate<Book> toPredicate(CompiledRule.Group rule) {
+        if (!rule.inMemoryCapable()) {
+            throw new IllegalArgumentException("Rule references fields that can only be evaluated in SQL");
+        }
+        return book -> Boolean.TRUE.equals(evaluate(rule, book));
+    }
+
+    static boolean supports(RuleField field, RuleOperator operator, Object value) {
+        Kind kind = field == null ? null : KINDS.get(field);
+        if (kind == null || operator == null) return false;
+        if (operator == RuleOperator.IS_EMPTY || operator == RuleOperator.IS_NOT_EMPTY) return true;
+        if (kind == Kind.COLLECTION) {
+            return operator != RuleOperator.GREATER_THAN && operator != RuleOperator.GREATER_THAN_EQUAL_TO
+                    && operator != RuleOperator.LESS_THAN && operator != RuleOperator.LESS_THAN_EQUAL_TO
+                    && operator != RuleOperator.IN_BETWEEN && operator != RuleOperator.WITHIN_LAST
+                    && operator != RuleOperator.OLDER_THAN && operator != RuleOperator.THIS_PERIOD
+                    && value != null;
+        }
+        Object normalized = RuleValues.normalizeValue(value, field);
+        return switch (operator) {
+            case EQUALS, NOT_EQUALS -> switch (kind) {
+                case TEXT -> value != null && !(normalized instanceof Number);
+                case INTEGRAL, FLAG -> value != null;
+                case DECIMAL -> normalized instanceof Number;
+                case DATE -> field == RuleField.PUBLISHED_DATE && normalized != null;
+                default -> false;
+            };
+            case CONTAINS, DOES_NOT_CONTAIN, STARTS_WITH, ENDS_WITH ->
+                    value != null && (kind == Kind.TEXT || kind == Kind.INTEGRAL);
+            case GREATER_THAN, GREATER_THAN_EQUAL_TO, LESS_THAN, LESS_THAN_EQUAL_TO ->
+                    value != null && (kind == Kind.INTEGRAL || kind == Kind.DECIMAL || field == RuleField.PUBLISHED_DATE);
+            case IN_BETWEEN -> kind == Kind.INTEGRAL || kind == Kind.DECIMAL || field == RuleField.PUBLISHED_DATE;
+            case INCLUDES_ANY, INCLUDES_ALL, EXCLUDES_ALL ->
+                    value != null && (kind == Kind.TEXT || kind == Kind.INTEGRAL);
+            case WITHIN_LAST, OLDER_THAN, THIS_PERIOD -> kind == Kind.DATE;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return true, false, or null when the rule compares against a missing value
+     */
+    static Boolean evaluate(CompiledRule rule, Book book) {
+        return switch (rule) {
+            case CompiledRule.Group group -> evaluateGroup(group, book);
+            case CompiledRule.Condition condition -> evaluateCondition(condition, book);
+        };
+    }
+
+    private static Boolean evaluateGroup(CompiledRule.Group group, Book book) {
+        if (group.rules().isEmpty()) return true;
+
+        boolean and = group.join() == JoinType.AND;
+        boolean unknown = false;
+        for (CompiledRule rule : group.rules()) {
+            Boolean result = evaluate(rule, book);
+            if (result == null) {
+                unknown = true;
+            } else if (result != and) {
+                // false settles an AND group, true settles an OR group
+                return result;
+            }
+        }
+        return unknown ? null : and;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Boolean evaluateCondition(CompiledRule.Condition rule, Book book) {
+        Object fieldValue = fieldValue(rule.field(), book);
+        if (KINDS.get(rule.field()) == Kind.COLLECTION) {
+            return evaluateCollection(rule, fieldValue == null ? Set.of() : (Set<String>) fieldValue);
+        }
+
+        return switch (rule.operator()) {
+            case EQUALS -> isEqual(rule, fieldValue);
+            case NOT_EQUALS -> not(isEqual(rule, fieldValue));
+            case CONTAINS -> matchesText(fieldValue, text -> text.contains(lower(rule.value())));
+            case DOES_NOT_CONTAIN -> not(matchesText(fieldValue, text -> text.contains(lower(rule.value()))));
+            case STARTS_WITH -> matchesText(fieldValue, text -> text.startsWith(lower(rule.value())));
+            case ENDS_WITH -> matchesText(fieldValue, text -> text.endsWith(lower(rule.value())));
+            case GREATER_THAN -> compare(rule, fieldValue, c -> c > 0);
+            case GREATER_THAN_EQUAL_TO -> compare(rule, fieldValue, c -> c >= 0);
+            case LESS_THAN -> compare(rule, fieldValue, c -> c < 0);
+            case LESS_THAN_EQUAL_TO -> compare(rule, fieldValue, c -> c <= 0);
+            case IN_BETWEEN -> isBetween(rule, fieldValue);
+            // boxed so the switch stays Boolean-typed; a primitive arm would unbox the null results
+            case IS_EMPTY -> Boolean.valueOf(fieldValue == null || fieldValue.toString().trim().isEmpty());
+            case IS_NOT_EMPTY -> Boolean.valueOf(fieldValue != null && !fieldValue.toString().trim().isEmpty());
+            case INCLUDES_ANY, INCLUDES_ALL -> isListed(rule, fieldValue);
+            case EXCLUDES_ALL -> not(isListed(rule, fieldValue));
+            case WITHIN_LAST -> compareInstant(fieldValue, RuleValues.relativeDateThreshold(rule), c -> c >= 0);
+            case OLDER_THAN -> compareInstant(fieldValue, RuleValues.relativeDateThreshold(rule), c -> c < 0);
+            case THIS_PERIOD -> compareInstant(fieldValue, RuleValues.periodStart(rule), c -> c >= 0);
+        };
+    }
+
+    private static boolean evaluateCollection(CompiledRule.Condition rule, Set<String> names) {
+        Set<String> lowerNames = names.stream().map(String::toLowerCase).collect(Collectors.toSet());
+        List<String> values = rule.values().stream().map(String::toLowerCase).toList();
+        return switch (rule.operator()) {
+            case EQUALS, INCLUDES_ANY -> values.isEmpty() || values.stream().anyMatch(lowerNames::contains);
+            case NOT_EQUALS, EXCLUDES_ALL -> !values.isEmpty() && values.stream().noneMatch(lowerNames::contains);
+            case INCLUDES_ALL -> lowerNames.containsAll(values);
+            case CONTAINS -> lowerNames.stream().anyMatch(name -> name.contains(lower(rule.value())));
+            case DOES_NOT_CONTAIN -> lowerNames.stream().noneMatch(name -> name.contains(lower(rule.value())));
+            case STARTS_WITH -> lowerNames.stream().anyMatch(name -> name.startsWith(lower(rule.value())));
+            case ENDS_WITH -> lowerNames.stream().anyMatch(name -> name.endsWith(lower(rule.value())));
+            case IS_EMPTY -> lowerNames.isEmpty();
+            case IS_NOT_EMPTY -> !lowerNames.isEmpty();
+            default -> true;
+        };
+    }
+
+    private static Boolean isEqual(CompiledRule.Condition rule, Object fieldValue) {
+        if (fieldValue == null) return null;
+        Object value = RuleValues.normalizeValue(rule.value(), rule.field());
+        if (value instanceof Boolean) {
+            return value.equals(fieldValue);
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.equals(toDateTime(fieldValue));
+        }
+        if (value instanceof Number number) {
+            return ((Number) fieldValue).doubleValue() == number.doubleValue();
+        }
+        return lower(fieldValue).equals(value.toString().toLowerCase());
+    }
+
+    private static Boolean matchesText(Object fieldValue, Predicate<String> test) {
+        return fieldValue == null ? null : test.test(lower(fieldValue));
+    }
+
+    private static Boolean isListed(CompiledRule.Condition rule, Object fieldValue) {
+        if (fieldValue == null) return null;
+        String text = lower(fieldValue);
+        return rule.values().stream().anyMatch(value -> value.toLowerCase().equals(text));
+    }
+
+    private static Boolean compare(CompiledRule.Condition rule, Object fieldValue, IntPredicate test) {
+        Object value = RuleValues.normalizeValue(rule.value(), rule.field());
+        if (value instanceof LocalDateTime dateTime) {
+            return fieldValue == null ? null : test.test(toDateTime(fieldValue).compareTo(dateTime));
+        }
+        if (!(value instanceof Number number)) return true;
+        return fieldValue == null ? null : test.test(Double.compare(((Number) fieldValue).doubleValue(), number.doubleValue()));
+    }
+
+    private static Boolean isBetween(CompiledRule.Condition rule, Object fieldValue) {
+        Object start = RuleValues.normalizeValue(rule.valueStart(), rule.field());
+        Object end = RuleValues.normalizeValue(rule.valueEnd(), rule.field());
+        if (start == null || end == null) return true;
+
+        if (start instanceof LocalDateTime startDate && end instanceof LocalDateTime endDate) {
+            if (fieldValue == null) return null;
+            LocalDateTime date = toDateTime(fieldValue);
+            return !date.isBefore(startDate) && !date.isAfter(endDate);
+        }
+        if (!(start instanceof Number startNumber) || !(end instanceof Number endNumber)) return true;
+        if (fieldValue == null) return null;
+        double number = ((Number) fieldValue).doubleValue();
+        return number >= startNumber.doubleValue() && number <= endNumber.doubleValue();
+    }
+
+    private static Boolean compareInstant(Object fieldValue, Instant threshold, IntPredicate test) {
+        if (threshold == null) return true;
+        if (fieldValue == null) return null;
+        Instant instant = fieldValue instanceof Instant value
+                ? value
+                : toDateTime(fieldValue).atZone(ZoneId.systemDefault()).toInstant();
+        return test.test(instant.compareTo(threshold));
+    }
+
+    private static Boolean not(Boolean value) {
+        return value == null ? null : !value;
+    }
+
+    private static String lower(Object value) {
+        return value.toString().toLowerCase();
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        return switch (value) {
+            case LocalDate date -> date.atStartOfDay();
+            case LocalDateTime dateTime -> dateTime;
+            case Instant instant -> LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+            default -> throw new IllegalArgumentException("Not a date: " + value);
+        };
+    }
+
+    private static Object fieldValue(RuleField field, Book book) {
+        switch (field) {
+            case LIBRARY:
+                return book.getLibraryId();
+            case SHELF:
+                return book.getShelves() == null ? null : book.getShelves().stream()
+                        .map(shelf -> String.valueOf(shelf.getId()))
+                        .collect(Collectors.toSet());
+            case IS_PHYSICAL:
+                return book.getIsPhysical();
+            case ADDED_ON:
+                return book.getAddedOn();
+            case METADATA_SCORE:
+                return book.getMetadataMatchScore();
+            default:
+                break;
+        }
+
+        BookMetadata metadata = book.getMetadata();
+        if (metadata == null) return null;
+        return switch (field) {
+            case TITLE -> metadata.getTitle();
+            case PUBLISHER -> metadata.getPublisher();
+            case LANGUAGE -> metadata.getLanguage();
+            case SERIES_NAME -> metadata.getSeriesName();
+            case ISBN13 -> metadata.getIsbn13();
+            case ISBN10 -> metadata.getIsbn10();
+            case NARRATOR -> metadata.getNarrator();
+            case CONTENT_RATING -> metadata.getContentRating();
+            case PAGE_COUNT -> metadata.getPageCount();
+            case AGE_RATING -> metadata.getAgeRating();
+            case AMAZON_REVIEW_COUNT -> metadata.getAmazonReviewCount();
+            case GOODREADS_REVIEW_COUNT -> metadata.getGoodreadsReviewCount();
+            case HARDCOVER_REVIEW_COUNT -> metadata.getHardcoverReviewCount();
+            case SERIES_NUMBER -> metadata.getSeriesNumber();
+            case AMAZON_RATING -> metadata.getAmazonRating();
+            case GOODREADS_RATING -> metadata.getGoodreadsRating();
+            case HARDCOVER_RATING -> metadata.getHardcoverRating();
+            case RANOBEDB_RATING -> metadata.getRanobedbRating();
+            case PUBLISHED_DATE -> metadata.getPublishedDate();
+            case AUTHORS -> metadata.getAuthors();
+            case CATEGORIES, GENRE -> metadata.getCategories();
+            case MOODS -> metadata.getMoods();
+            case TAGS -> metadata.getTags();
+            default -> throw new IllegalArgumentException("Field is not available in memory: " + field);
+        };
+    }
+}
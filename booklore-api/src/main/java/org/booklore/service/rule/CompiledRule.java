@@ -0,0 +1,52 @@
+package org.booklore.service.rule;
+
+import org.booklore.model.dto.JoinType;
+import org.booklore.model.dto.RuleField;
+import org.booklore.model.dto.RuleOperator;
+
+import java.util.List;
+
+/**
+ * Immutable, typed form of a magic shelf {@code GroupRule}. Built once by {@link MagicShelfRuleCompiler} and then
+ * evaluated any number of times, either as SQL through {@code BookRuleEvaluatorService} or in memory through
+ * {@link BookRuleMatcher}.
+ */
+public sealed interface CompiledRule permits CompiledRule.Group, CompiledRule.Condition {
+
+    /**
+     * Whether {@link BookRuleMatcher} can evaluate this rule against list-view rows with the same result as SQL.
+     */
+    boolean inMemoryCapable();
+
+    record Group(JoinType join, List<CompiledRule> rules, boolean inMemoryCapable) implements CompiledRule {
+
+        public Group(JoinType join, List<CompiledRule> rules) {
+            this(join, List.copyOf(rules), rules.stream().allMatch(CompiledRule::inMemoryCapable));
+        }
+
+        public static Group empty() {
+            return new Group(JoinType.AND, List.of());
+        }
+    }
+
+    /**
+     * A single leaf rule. {@code value}, {@code valueStart} and {@code valueEnd} keep the JSON scalar or list they
+     * were written as; {@code values} is {@code value} flattened to strings for the list operators.
+     */
+    record Condition(RuleField field, RuleOperator operator, Object value, Object valueStart, Object valueEnd,
+                     List<String> values, boolean inMemoryCapable) implements CompiledRule {
+
+        public Condition(RuleField field, RuleOperator operator, Object value, Object valueStart, Object valueEnd) {
+            this(field, operator, value, valueStart, valueEnd, toStringList(value),
+                    BookRuleMatcher.supports(field, operator, value));
+        }
+
+        private static List<String> toStringList(Object value) {
+            if (value == null) return List.of();
+            if (value instanceof List<?> list) {
+                return list.stream().map(String::valueOf).toList();
+            }
+            return List.of(value.toString());
+        }
+    }
+}
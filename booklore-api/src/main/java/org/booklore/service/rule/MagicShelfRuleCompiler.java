@@ -0,0 +1,107 @@
+package org.booklore.service.rule;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.model.dto.GroupRule;
+import org.booklore.model.dto.JoinType;
+import org.booklore.model.dto.Rule;
+import org.booklore.model.entity.MagicShelfEntity;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Turns magic shelf rule JSON into a {@link CompiledRule} tree. The JSON is walked once per compile, and compiled
+ * shelves are cached by id and {@code updatedAt}, so Kobo sync and OPDS, which evaluate the same shelves over and
+ * over, skip parsing entirely.
+ */
+@Slf4j
+@Component
+public class MagicShelfRuleCompiler {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, CachedRule> shelfRules;
+
+    public MagicShelfRuleCompiler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.shelfRules = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+    }
+
+    public CompiledRule.Group compile(MagicShelfEntity shelf) {
+        if (shelf.getId() == null) {
+            return compile(shelf.getFilterJson());
+        }
+        CachedRule cached = shelfRules.getIfPresent(shelf.getId());
+        if (cached != null && cached.isCurrent(shelf)) {
+            return cached.rule();
+        }
+        CompiledRule.Group rule = compile(shelf.getFilterJson());
+        shelfRules.put(shelf.getId(), new CachedRule(shelf.getUpdatedAt(), shelf.getFilterJson(), rule));
+        return rule;
+    }
+
+    public CompiledRule.Group compile(String filterJson) {
+        return compileGroup(objectMapper.readTree(filterJson));
+    }
+
+    public CompiledRule.Group compile(GroupRule groupRule) {
+        if (groupRule == null) {
+            return CompiledRule.Group.empty();
+        }
+        return compileGroup(objectMapper.valueToTree(groupRule));
+    }
+
+    public void evict(Long shelfId) {
+        shelfRules.invalidate(shelfId);
+    }
+
+    private CompiledRule.Group compileGroup(JsonNode node) {
+        JoinType join = node.hasNonNull("join") ? objectMapper.treeToValue(node.get("join"), JoinType.class) : null;
+        JsonNode rules = node.get("rules");
+        if (rules == null || !rules.isArray()) {
+            return new CompiledRule.Group(join, List.of());
+        }
+
+        List<CompiledRule> compiled = new ArrayList<>(rules.size());
+        for (JsonNode ruleNode : rules) {
+            if (ruleNode == null || ruleNode.isNull()) continue;
+
+            if ("group".equals(ruleNode.path("type").asText())) {
+                compiled.add(compileGroup(ruleNode));
+                continue;
+            }
+            try {
+                Rule rule = objectMapper.treeToValue(ruleNode, Rule.class);
+                if (rule.getField() == null || rule.getOperator() == null) continue;
+                compiled.add(new CompiledRule.Condition(rule.getField(), rule.getOperator(),
+                        immutable(rule.getValue()), immutable(rule.getValueStart()), immutable(rule.getValueEnd())));
+            } catch (Exception e) {
+                log.error("Failed to parse rule: {}, error: {}", ruleNode, e.getMessage(), e);
+            }
+        }
+        return new CompiledRule.Group(join, compiled);
+    }
+
+    private static Object immutable(Object value) {
+        if (value instanceof List<?> list) {
+            return Collections.unmodifiableList(new ArrayList<>(list));
+        }
+        return value;
+    }
+
+    private record CachedRule(LocalDateTime updatedAt, String filterJson, CompiledRule.Group rule) {
+
+        // updated_at only has second precision in some databases, so the JSON itself is compared as well
+        boolean isCurrent(MagicShelfEntity shelf) {
+            return Objects.equals(updatedAt, shelf.getUpdatedAt()) && Objects.equals(filterJson, shelf.getFilterJson());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.booklore.service.rule;
+
+import org.booklore.model.dto.RuleField;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Set;
+
+/**
+ * Value coercion shared by the SQL and in-memory rule backends, so both read a rule's operands the same way.
+ */
+public final class RuleValues {
+
+    private static final Set<RuleField> NUMERIC_FIELDS = Set.of(
+            RuleField.METADATA_SCORE, RuleField.FILE_SIZE, RuleField.PAGE_COUNT,
+            RuleField.SERIES_NUMBER, RuleField.SERIES_TOTAL, RuleField.AGE_RATING,
+            RuleField.PERSONAL_RATING, RuleField.READING_PROGRESS, RuleField.AUDIOBOOK_DURATION,
+            RuleField.AMAZON_RATING, RuleField.AMAZON_REVIEW_COUNT,
+            RuleField.GOODREADS_RATING, RuleField.GOODREADS_REVIEW_COUNT,
+            RuleField.HARDCOVER_RATING, RuleField.HARDCOVER_REVIEW_COUNT,
+            RuleField.LUBIMYCZYTAC_RATING, RuleField.RANOBEDB_RATING,
+            RuleField.AUDIBLE_RATING, RuleField.AUDIBLE_REVIEW_COUNT,
+            RuleField.AUDIOBOOK_CHAPTER_COUNT, RuleField.AUDIOBOOK_BITRATE
+    );
+
+    private RuleValues() {
+    }
+
+    public static Object normalizeValue(Object value, RuleField field) {
+        if (value == null) return null;
+
+        if (field == RuleField.PUBLISHED_DATE) {
+            return parseDate(value);
+        }
+
+        if (field == RuleField.DATE_FINISHED || field == RuleField.LAST_READ_TIME || field == RuleField.ADDED_ON) {
+            LocalDateTime parsed = parseDate(value);
+            if (parsed != null) {
+                return parsed.atZone(ZoneId.systemDefault()).toInstant();
+            }
+            return null;
+        }
+
+        if (field == RuleField.READ_STATUS) {
+            return value.toString();
+        }
+
+        if (field == RuleField.ABRIDGED || field == RuleField.IS_PHYSICAL) {
+            return Boolean.valueOf(value.toString());
+        }
+
+        if (value instanceof Number) {
+            return value;
+        }
+
+        if (isNumericField(field)) {
+            try {
+                return Double.parseDouble(value.toString());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        return value.toString().toLowerCase();
+    }
+
+    public static LocalDateTime parseDate(Object value) {
+        if (value == null) return null;
+        if (value instanceof LocalDateTime) return (LocalDateTime) value;
+
+        try {
+            return LocalDateTime.parse(value.toString(), DateTimeFormatter.ISO_DATE_TIME);
+        } catch (Exception e) {
+            try {
+                return LocalDate.parse(value.toString()).atStartOfDay();
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Start of the window for {@code within_last} / {@code older_than}: {@code value} units back from now, where
+     * the unit is carried in {@code valueEnd} and defaults to days.
+     */
+    public static Instant relativeDateThreshold(CompiledRule.Condition rule) {
+        if (rule.value() == null) return null;
+        int amount;
+        try {
+            amount = ((Number) rule.value()).intValue();
+        } catch (ClassCastException e) {
+            try {
+                amount = Integer.parseInt(rule.value().toString());
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+        String unit = rule.valueEnd() != null ? rule.valueEnd().toString().toLowerCase() : "days";
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime threshold = switch (unit) {
+            case "weeks" -> now.minusWeeks(amount);
+            case "months" -> now.minusMonths(amount);
+            case "years" -> now.minusYears(amount);
+            default -> now.minusDays(amount);
+        };
+        return threshold.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Start of the current week, month or year for {@code this_period}; defaults to year.
+     */
+    public static Instant periodStart(CompiledRule.Condition rule) {
+        return currentPeriodStart(rule).atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Start of the period after the current one for {@code this_period}, when the current period's books drop out.
+     */
+    public static Instant nextPeriodStart(CompiledRule.Condition rule) {
+        LocalDate start = currentPeriodStart(rule);
+        LocalDate next = switch (period(rule)) {
+            case "week" -> start.plusWeeks(1);
+            case "month" -> start.plusMonths(1);
+            default -> start.plusYears(1);
+        };
+        return next.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static LocalDate currentPeriodStart(CompiledRule.Condition rule) {
+        LocalDate now = LocalDate.now();
+        return switch (period(rule)) {
+            case "week" -> now.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case "month" -> now.withDayOfMonth(1);
+            default -> now.withDayOfYear(1);
+        };
+    }
+
+    private static String period(CompiledRule.Condition rule) {
+        return rule.value() != null ? rule.value().toString().toLowerCase() : "year";
+    }
+
+    public static boolean isNumericField(RuleField field) {
+        return field != null && NUMERIC_FIELDS.contains(field);
+    }
+}
@@ -0,0 +1,478 @@
+package org.booklore.service.search;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.booklore.config.AppProperties;
+import org.booklore.model.entity.*;
+import org.booklore.repository.BookRepository;
+import org.booklore.service.book.BookListViewIndex;
+import org.booklore.util.BookUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full-text index over book metadata (title, subtitle, authors, series, publisher, tags, categories, ISBNs and
+ * description) behind the web, mobile and OPDS searches, so a search no longer means a {@code LIKE} scan of every
+ * book. See {@link InvertedIndex} for ranking and {@link SearchAnalyzer} for how text is matched.
+ * <p>
+ * The index lives in memory and is saved to {@code search_index} under the data directory every few minutes and on
+ * shutdown, so a restart serves searches from the saved copy right away. It is opened, or built when there is no
+ * usable copy, in the background once the application is up; searches until then run the {@code LIKE} query over
+ * the metadata search text instead of waiting. A marker file exists while the application runs; finding it at
+ * startup means the last run didn't shut down cleanly, and every book is checked against the saved copy in the
+ * background. Otherwise only books added or removed while the application was down are.
+ * <p>
+ * Committed changes arrive through the book list index change feed and are applied in the background; a search
+ * applies a small backlog itself first so an edit shows up in the next search. Renaming an author, tag, category
+ * or library re-checks every book. Books are re-analyzed only when their indexed text actually changed.
+ */
+@Slf4j
+@Component
+public class BookSearchIndex implements BookListViewIndex.ChangeListener {
+
+    private static final String INDEX_DIRECTORY = "search_index";
+    private static final String INDEX_FILE = "books.idx.gz";
+    private static final String RUNNING_MARKER = "running";
+    private static final int LOAD_BATCH_SIZE = 500;
+    // pending changes a search applies itself; larger backlogs (a library scan) are left to the background
+    private static final int INLINE_UPDATE_LIMIT = 50;
+
+    private final BookRepository bookRepository;
+    private final BookListViewIndex bookListViewIndex;
+    private final PlatformTransactionManager transactionManager;
+    private final AppProperties.Search settings;
+    private final Path directory;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // serializes everything that changes the index; searches only take the read lock
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private final Set<Long> changedBookIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+    private volatile boolean recheckAll;
+    private volatile boolean modified;
+
+    private InvertedIndex index = new InvertedIndex();
+
+    public BookSearchIndex(BookRepository bookRepository, BookListViewIndex bookListViewIndex,
+                           PlatformTransactionManager transactionManager, AppProperties appProperties) {
+        this.bookRepository = bookRepository;
+        this.bookListViewIndex = bookListViewIndex;
+        this.transactionManager = transactionManager;
+        this.settings = appProperties.getSearch();
+        this.directory = appProperties.getPathConfig() != null && settings.isPersist()
+                ? Paths.get(appProperties.getPathConfig(), INDEX_DIRECTORY)
+                : null;
+    }
+
+    @PostConstruct
+    void register() {
+        bookListViewIndex.addChangeListener(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void openInBackground() {
+        Thread.ofPlatform().name("search-index").daemon().start(() -> {
+            try {
+                ensureReady();
+            } catch (RuntimeException e) {
+                log.error("Failed to open the search index, searches use the database until it is rebuilt", e);
+            }
+        });
+    }
+
+    /**
+     * Ids of the active books matching every word of the query that {@code allowed} accepts, best match first, at
+     * most {@link AppProperties.Search#getMaxResults()} of them. Callers pass their library, shelf and content
+     * restrictions as {@code allowed}, so books they can't show don't take up the limit, and keep this order.
+     */
+    public List<Long> search(String query, Predicate<Long> allowed) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        if (!ready) {
+            return searchDatabase(query, allowed);
+        }
+        if (!recheckAll && !changedBookIds.isEmpty() && changedBookIds.size() <= INLINE_UPDATE_LIMIT && updateLock.tryLock()) {
+            try {
+                applyPendingChanges();
+            } finally {
+                updateLock.unlock();
+            }
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(query, settings.getMaxResults(), settings.isTypoTolerance(), allowed::test).stream()
+                    .map(InvertedIndex.Hit::bookId)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the index from scratch and saves it.
+     */
+    public void rebuild() {
+        updateLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            recheckAll = false;
+            markRunning();
+            InvertedIndex fresh = new InvertedIndex();
+            List<Long> bookIds = inReadOnlyTransaction(bookRepository::findAllActiveBookIds);
+            forEachBatch(bookIds, (batch, documents) -> documents.forEach(fresh::add));
+            lock.writeLock().lock();
+            try {
+                index = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            modified = true;
+            log.info("Built search index with {} books in {} ms", fresh.size(), System.currentTimeMillis() - start);
+            save();
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void booksChanged(Collection<Long> bookIds) {
+        changedBookIds.addAll(bookIds);
+    }
+
+    @Override
+    public void booksTouched(Collection<Long> bookIds) {
+        // reading progress and ratings aren't searchable
+    }
+
+    @Override
+    public void allBooksChanged() {
+        recheckAll = true;
+    }
+
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
+    public void applyPendingChanges() {
+        if (!ready || (changedBookIds.isEmpty() && !recheckAll)) {
+            return;
+        }
+        updateLock.lock();
+        try {
+            if (recheckAll) {
+                recheckAll = false;
+                changedBookIds.clear();
+                recheck(allBookIds());
+                return;
+            }
+            List<Long> bookIds = new ArrayList<>(changedBookIds);
+            changedBookIds.removeAll(bookIds);
+            try {
+                recheck(bookIds);
+            } catch (RuntimeException e) {
+                changedBookIds.addAll(bookIds);
+                throw e;
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelay = 5, initialDelay = 5, timeUnit = TimeUnit.MINUTES)
+    public void saveIfModified() {
+        if (ready && modified) {
+            updateLock.lock();
+            try {
+                save();
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!ready || directory == null) {
+            return;
+        }
+        updateLock.lock();
+        try {
+            if (modified) {
+                save();
+            }
+            // a failed save leaves the marker, so the next start re-checks the older copy on disk
+            if (!modified) {
+                Files.deleteIfExists(directory.resolve(RUNNING_MARKER));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to remove search index marker: {}", e.getMessage());
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * The matches of the {@code LIKE} query searches ran before the index, most recently added first, read a page at
+     * a time until enough are allowed.
+     */
+    private List<Long> searchDatabase(String query, Predicate<Long> allowed) {
+        String text = BookUtils.normalizeForSearch(query.trim());
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        int maxResults = settings.getMaxResults();
+        List<Long> matches = new ArrayList<>();
+        Pageable pageable = PageRequest.of(0, Math.max(maxResults, 1));
+        Slice<Long> slice;
+        do {
+            slice = bookRepository.findBookIdsByMetadataSearch(text, pageable);
+            for (Long bookId : slice) {
+                if (allowed.test(bookId)) {
+                    matches.add(bookId);
+                    if (matches.size() >= maxResults) {
+                        return matches;
+                    }
+                }
+            }
+            pageable = slice.nextPageable();
+        } while (slice.hasNext());
+        return matches;
+    }
+
+    private void ensureReady() {
+        if (ready) {
+            return;
+        }
+        updateLock.lock();
+        try {
+            if (ready) {
+                return;
+            }
+            boolean crashed = directory != null && Files.exists(directory.resolve(RUNNING_MARKER));
+            markRunning();
+            InvertedIndex saved = load();
+            if (saved == null) {
+                rebuild();
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                index = saved;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            log.info("Loaded search index with {} books", saved.size());
+
+            if (crashed) {
+                log.info("Application did not shut down cleanly, re-checking every book in the search index");
+                recheck(allBookIds());
+            } else {
+                Set<Long> activeIds = new HashSet<>(inReadOnlyTransaction(bookRepository::findAllActiveBookIds));
+                Set<Long> indexedIds = indexedBookIds();
+                Set<Long> differing = new HashSet<>(activeIds);
+                differing.removeAll(indexedIds);
+                indexedIds.stream().filter(id -> !activeIds.contains(id)).forEach(differing::add);
+                recheck(differing);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * Re-indexes the given books whose text changed and drops those that are gone or deleted.
+     */
+    private void recheck(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        int[] changed = new int[1];
+        forEachBatch(new ArrayList<>(bookIds), (batch, documents) -> {
+            lock.writeLock().lock();
+            try {
+                for (Long bookId : batch) {
+                    Map<SearchField, String> fields = documents.get(bookId);
+                    if (fields == null) {
+                        changed[0] += index.remove(bookId) ? 1 : 0;
+                    } else if (!index.isCurrent(bookId, fields)) {
+                        index.add(bookId, fields);
+                        changed[0]++;
+                    }
+                }
+                if (index.deletedCount() > index.size() / 4) {
+                    index.compact();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+        if (changed[0] > 0) {
+            modified = true;
+            log.debug("Updated {} of {} re-checked books in the search index", changed[0], bookIds.size());
+        }
+    }
+
+    private void forEachBatch(List<Long> bookIds, BiConsumer<List<Long>, Map<Long, Map<SearchField, String>>> action) {
+        for (int start = 0; start < bookIds.size(); start += LOAD_BATCH_SIZE) {
+            List<Long> batch = bookIds.subList(start, Math.min(start + LOAD_BATCH_SIZE, bookIds.size()));
+            // One short transaction per batch keeps the persistence context from holding the whole library
+            Map<Long, Map<SearchField, String>> documents = inReadOnlyTransaction(() -> bookRepository.findAllFullBooksByIds(batch).stream()
+                    .filter(book -> !Boolean.TRUE.equals(book.getDeleted()) && book.getMetadata() != null)
+                    .collect(Collectors.toMap(BookEntity::getId, book -> toFields(book.getMetadata()), (a, b) -> a)));
+            action.accept(batch, documents);
+        }
+    }
+
+    static Map<SearchField, String> toFields(BookMetadataEntity metadata) {
+        Map<SearchField, String> fields = new EnumMap<>(SearchField.class);
+        put(fields, SearchField.TITLE, metadata.getTitle());
+        put(fields, SearchField.SUBTITLE, metadata.getSubtitle());
+        put(fields, SearchField.AUTHORS, names(metadata.getAuthors(), AuthorEntity::getName));
+        put(fields, SearchField.SERIES, metadata.getSeriesName());
+        put(fields, SearchField.PUBLISHER, metadata.getPublisher());
+        put(fields, SearchField.TAGS, names(metadata.getTags(), TagEntity::getName));
+        put(fields, SearchField.CATEGORIES, names(metadata.getCategories(), CategoryEntity::getName));
+        put(fields, SearchField.ISBN, join(metadata.getIsbn13(), metadata.getIsbn10()));
+        put(fields, SearchField.DESCRIPTION, metadata.getDescription());
+        return fields;
+    }
+
+    private static void put(Map<SearchField, String> fields, SearchField field, String value) {
+        if (value != null && !value.isBlank()) {
+            fields.put(field, value);
+        }
+    }
+
+    private static <T> String names(Collection<T> entities, Function<T, String> name) {
+        if (entities == null || entities.isEmpty()) {
+            return null;
+        }
+        // sorted so the text, and with it the change check, doesn't depend on set order
+        return entities.stream().map(name).filter(Objects::nonNull).sorted().collect(Collectors.joining(" \n "));
+    }
+
+    private static String join(String... values) {
+        return Arrays.stream(values).filter(Objects::nonNull).collect(Collectors.joining(" "));
+    }
+
+    private List<Long> allBookIds() {
+        Set<Long> ids = new LinkedHashSet<>(inReadOnlyTransaction(bookRepository::findAllActiveBookIds));
+        ids.addAll(indexedBookIds());
+        return new ArrayList<>(ids);
+    }
+
+    private Set<Long> indexedBookIds() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(index.bookIds());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private InvertedIndex load() {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file), 1 << 16)))) {
+            InvertedIndex saved = InvertedIndex.read(in);
+            if (saved == null) {
+                log.info("Search index on disk was written by another version, rebuilding it");
+            }
+            return saved;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read search index {}, rebuilding it: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void save() {
+        if (directory == null) {
+            modified = false;
+            return;
+        }
+        Path file = directory.resolve(INDEX_FILE);
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            index.compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // writers are held off by the update lock, so searches can go on while the file is written
+        lock.readLock().lock();
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16)))) {
+                index.write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+            log.debug("Saved search index with {} books in {} ms", index.size(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.warn("Failed to save search index to {}: {}", file, e.getMessage());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void markRunning() {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path marker = directory.resolve(RUNNING_MARKER);
+            if (!Files.exists(marker)) {
+                Files.createFile(marker);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to create search index marker: {}", e.getMessage());
+        }
+    }
+
+    private <T> T inReadOnlyTransaction(Supplier<T> action) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        return template.execute(status -> action.get());
+    }
+}
@@ -0,0 +1,58 @@
+package org.booklore.service.search;
+
+import lombok.RequiredArgsConstructor;
+import org.booklore.config.security.service.AuthenticationService;
+import org.booklore.model.dto.Book;
+import org.booklore.model.dto.BookLoreUser;
+import org.booklore.model.dto.Library;
+import org.booklore.service.book.BookListViewIndex;
+import org.booklore.service.book.BookService;
+import org.booklore.service.restriction.ContentRestrictionService;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Web search: {@link BookSearchIndex} matches, best first, as list-view rows from the {@link BookListViewIndex}
+ * narrowed to what the user may see, with their reading state layered on like the book list.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookSearchService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private final BookSearchIndex bookSearchIndex;
+    private final BookListViewIndex bookListViewIndex;
+    private final BookService bookService;
+    private final AuthenticationService authenticationService;
+    private final ContentRestrictionService contentRestrictionService;
+
+    public List<Book> searchBooks(String query, Integer limit) {
+        BookLoreUser user = authenticationService.getAuthenticatedUser();
+        boolean isAdmin = user.getPermissions().isAdmin();
+        Set<Long> libraryIds = isAdmin ? null : user.getAssignedLibraries().stream()
+                .map(Library::getId)
+                .collect(Collectors.toSet());
+        // null for admins, who may see every book
+        Predicate<Book> permitted = isAdmin ? null : contentRestrictionService.bookRestrictionFilter(user.getId());
+        int max = limit != null ? Math.min(limit, MAX_LIMIT) : DEFAULT_LIMIT;
+
+        BookListViewIndex.Snapshot snapshot = bookListViewIndex.snapshot();
+        List<Long> matches = bookSearchIndex.search(query, bookId -> {
+            int index = snapshot.indexOf(bookId);
+            return index >= 0 && snapshot.inLibraries(index, libraryIds) && (permitted == null || permitted.test(snapshot.copy(index)));
+        });
+        List<Book> books = new ArrayList<>(Math.min(max, matches.size()));
+        for (Long bookId : matches.subList(0, Math.min(max, matches.size()))) {
+            books.add(snapshot.copy(snapshot.indexOf(bookId)));
+        }
+        bookService.enrichWithUserState(books, user, false);
+        return books;
+    }
+}
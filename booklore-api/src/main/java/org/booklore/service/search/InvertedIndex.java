@@ -0,0 +1,449 @@
+package org.booklore.service.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.LongPredicate;
+
+/**
+ * Inverted index from analyzed terms to the books and fields they occur in, ranked with BM25F: per-field term
+ * frequencies are normalized by field length, weighted by {@link SearchField#boost()} and summed before saturation.
+ * <p>
+ * Books are dense int documents in insertion order. A posting list holds one entry per document and field, packed as
+ * the document and {@code field << 24 | frequency}; a document's entries are contiguous because it is added in one
+ * go. Replacing or removing a book is a tombstone: its entries stay until {@link #compact()} drops them, and term
+ * document frequencies keep counting them in the meantime, like segment deletes in Lucene.
+ * <p>
+ * Not thread-safe. Searches don't mutate the index and may run concurrently with each other, but not with writes.
+ */
+final class InvertedIndex {
+
+    /**
+     * Bump whenever {@link SearchAnalyzer}, {@link SearchField} or the layout written by {@link #write} changes, so
+     * older copies on disk are rebuilt instead of read.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x424c5349;
+    private static final int FIELD_COUNT = SearchField.VALUES.length;
+    private static final int MAX_FREQUENCY = (1 << 24) - 1;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_SCAN = 5000;
+    private static final int MAX_EXPANSIONS = 50;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int TWO_TYPOS_LENGTH = 8;
+    private static final float PREFIX_WEIGHT = 0.8f;
+    private static final float FUZZY_WEIGHT = 0.6f;
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> docsByBookId = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final long[] fieldLengthTotals = new long[FIELD_COUNT];
+    private long[] bookIds = new long[64];
+    private long[] hashes = new long[64];
+    private int[] fieldLengths = new int[64 * FIELD_COUNT];
+    private int docCount;
+    private int liveCount;
+
+    /**
+     * Indexes a book, replacing what was indexed for it before. Fields missing from the map are empty.
+     */
+    void add(long bookId, Map<SearchField, String> fields) {
+        remove(bookId);
+        int doc = newDoc(bookId, hash(fields));
+        for (SearchField field : SearchField.VALUES) {
+            List<String> fieldTerms = SearchAnalyzer.terms(fields.get(field));
+            if (fieldTerms.isEmpty()) {
+                continue;
+            }
+            Map<String, Integer> frequencies = new LinkedHashMap<>();
+            fieldTerms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            fieldLengths[doc * FIELD_COUNT + field.ordinal()] = fieldTerms.size();
+            fieldLengthTotals[field.ordinal()] += fieldTerms.size();
+            frequencies.forEach((term, frequency) -> terms.computeIfAbsent(term, t -> new Postings())
+                    .add(doc, field.ordinal() << 24 | Math.min(frequency, MAX_FREQUENCY)));
+        }
+    }
+
+    /**
+     * Whether the book is indexed with exactly these field values.
+     */
+    boolean isCurrent(long bookId, Map<SearchField, String> fields) {
+        Integer doc = docsByBookId.get(bookId);
+        return doc != null && hashes[doc] == hash(fields);
+    }
+
+    boolean remove(long bookId) {
+        Integer doc = docsByBookId.remove(bookId);
+        if (doc == null) {
+            return false;
+        }
+        live.clear(doc);
+        liveCount--;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            fieldLengthTotals[field] -= fieldLengths[doc * FIELD_COUNT + field];
+        }
+        return true;
+    }
+
+    Set<Long> bookIds() {
+        return Collections.unmodifiableSet(docsByBookId.keySet());
+    }
+
+    int size() {
+        return liveCount;
+    }
+
+    int deletedCount() {
+        return docCount - liveCount;
+    }
+
+    /**
+     * Books matching every word of the query, best first, at most {@code limit} of them. A word matches its own term
+     * and, for the last word while it may still be being typed, terms starting with it. With {@code typoTolerance},
+     * a word matching nothing as typed matches terms one edit away (two for long words) that share its first letter.
+     */
+    List<Hit> search(String query, int limit, boolean typoTolerance) {
+        return search(query, limit, typoTolerance, bookId -> true);
+    }
+
+    /**
+     * Like {@link #search(String, int, boolean)}, leaving out books {@code allowed} rejects before the limit is
+     * applied, so a caller narrowing the matches down still gets up to {@code limit} of them.
+     */
+    List<Hit> search(String query, int limit, boolean typoTolerance, LongPredicate allowed) {
+        List<String> words = SearchAnalyzer.words(query);
+        if (words.isEmpty() || liveCount == 0 || limit <= 0) {
+            return List.of();
+        }
+        boolean lastWordOpen = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        Map<String, String> wordsByTerm = new LinkedHashMap<>();
+        for (String word : words) {
+            wordsByTerm.putIfAbsent(SearchAnalyzer.stem(word), word);
+        }
+        String lastWord = words.getLast();
+
+        Map<Integer, Float> scores = null;
+        for (Map.Entry<String, String> entry : wordsByTerm.entrySet()) {
+            String term = entry.getKey();
+            String word = entry.getValue();
+            Map<String, Float> expansions = new LinkedHashMap<>();
+            if (terms.containsKey(term)) {
+                expansions.put(term, 1f);
+            }
+            if (lastWordOpen && word.equals(lastWord)) {
+                prefixMatches(word).forEach(match -> expansions.putIfAbsent(match, PREFIX_WEIGHT));
+            }
+            if (expansions.isEmpty() && typoTolerance) {
+                fuzzyMatches(term).forEach(match -> expansions.putIfAbsent(match, FUZZY_WEIGHT));
+            }
+            if (expansions.isEmpty()) {
+                return List.of();
+            }
+
+            Map<Integer, Float> termScores = new HashMap<>();
+            expansions.forEach((match, weight) -> score(terms.get(match), weight, termScores));
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((doc, score) -> score + termScores.get(doc));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(scores.size());
+        scores.forEach((doc, score) -> {
+            if (allowed.test(bookIds[doc])) {
+                hits.add(new Hit(bookIds[doc], score));
+            }
+        });
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparing(Comparator.comparingLong(Hit::bookId).reversed()));
+        return hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * Drops the entries of removed and replaced books and renumbers the rest.
+     */
+    void compact() {
+        if (deletedCount() == 0) {
+            return;
+        }
+        int[] remap = new int[docCount];
+        long[] compactIds = new long[Math.max(64, liveCount)];
+        long[] compactHashes = new long[compactIds.length];
+        int[] compactLengths = new int[compactIds.length * FIELD_COUNT];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (!live.get(doc)) {
+                remap[doc] = -1;
+                continue;
+            }
+            remap[doc] = next;
+            compactIds[next] = bookIds[doc];
+            compactHashes[next] = hashes[doc];
+            System.arraycopy(fieldLengths, doc * FIELD_COUNT, compactLengths, next * FIELD_COUNT, FIELD_COUNT);
+            next++;
+        }
+
+        Iterator<Postings> postings = terms.values().iterator();
+        while (postings.hasNext()) {
+            Postings posting = postings.next();
+            posting.remap(remap);
+            if (posting.size == 0) {
+                postings.remove();
+            }
+        }
+
+        bookIds = compactIds;
+        hashes = compactHashes;
+        fieldLengths = compactLengths;
+        docCount = next;
+        live.clear();
+        live.set(0, next);
+        docsByBookId.clear();
+        for (int doc = 0; doc < next; doc++) {
+            docsByBookId.put(bookIds[doc], doc);
+        }
+    }
+
+    /**
+     * Writes the live books; the index must be {@link #compact() compacted} first.
+     */
+    void write(DataOutputStream out) throws IOException {
+        if (deletedCount() > 0) {
+            throw new IllegalStateException("Index has " + deletedCount() + " deleted books, compact it first");
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(docCount);
+        for (int doc = 0; doc < docCount; doc++) {
+            out.writeLong(bookIds[doc]);
+            out.writeLong(hashes[doc]);
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                out.writeInt(fieldLengths[doc * FIELD_COUNT + field]);
+            }
+        }
+        out.writeInt(terms.size());
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            Postings posting = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeInt(posting.size);
+            for (int i = 0; i < posting.size; i++) {
+                out.writeInt(posting.docs[i]);
+                out.writeInt(posting.fieldFrequencies[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #write}, or returns null if it was written in another format.
+     */
+    static InvertedIndex read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            return null;
+        }
+        InvertedIndex index = new InvertedIndex();
+        int docs = in.readInt();
+        for (int i = 0; i < docs; i++) {
+            int doc = index.newDoc(in.readLong(), in.readLong());
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                int length = in.readInt();
+                index.fieldLengths[doc * FIELD_COUNT + field] = length;
+                index.fieldLengthTotals[field] += length;
+            }
+        }
+        int termCount = in.readInt();
+        for (int i = 0; i < termCount; i++) {
+            String term = in.readUTF();
+            int size = in.readInt();
+            Postings posting = new Postings();
+            for (int entry = 0; entry < size; entry++) {
+                int doc = in.readInt();
+                int fieldFrequency = in.readInt();
+                if (doc < 0 || doc >= docs || (fieldFrequency >>> 24) >= FIELD_COUNT) {
+                    throw new IOException("Corrupt search index entry for term '" + term + "'");
+                }
+                posting.add(doc, fieldFrequency);
+            }
+            index.terms.put(term, posting);
+        }
+        return index;
+    }
+
+    private int newDoc(long bookId, long hash) {
+        if (docCount == bookIds.length) {
+            int capacity = bookIds.length * 2;
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            fieldLengths = Arrays.copyOf(fieldLengths, capacity * FIELD_COUNT);
+        }
+        int doc = docCount++;
+        bookIds[doc] = bookId;
+        hashes[doc] = hash;
+        Arrays.fill(fieldLengths, doc * FIELD_COUNT, (doc + 1) * FIELD_COUNT, 0);
+        live.set(doc);
+        liveCount++;
+        docsByBookId.put(bookId, doc);
+        return doc;
+    }
+
+    private void score(Postings posting, float weight, Map<Integer, Float> scores) {
+        int documentFrequency = Math.min(posting.documentFrequency, liveCount);
+        float idf = (float) Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        int i = 0;
+        while (i < posting.size) {
+            int doc = posting.docs[i];
+            float frequency = 0;
+            for (; i < posting.size && posting.docs[i] == doc; i++) {
+                int field = posting.fieldFrequencies[i] >>> 24;
+                int count = posting.fieldFrequencies[i] & MAX_FREQUENCY;
+                float averageLength = Math.max(1f, (float) fieldLengthTotals[field] / liveCount);
+                float norm = 1 - B + B * fieldLengths[doc * FIELD_COUNT + field] / averageLength;
+                frequency += SearchField.VALUES[field].boost() * count / norm;
+            }
+            if (live.get(doc)) {
+                float score = weight * idf * frequency / (K1 + frequency);
+                scores.merge(doc, score, Math::max);
+            }
+        }
+    }
+
+    private List<String> prefixMatches(String prefix) {
+        if (prefix.length() < MIN_PREFIX_LENGTH) {
+            return List.of();
+        }
+        List<Map.Entry<String, Postings>> matches = new ArrayList<>();
+        for (Map.Entry<String, Postings> entry : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            matches.add(entry);
+            if (matches.size() >= MAX_PREFIX_SCAN) {
+                break;
+            }
+        }
+        return mostFrequent(matches);
+    }
+
+    private List<String> fuzzyMatches(String term) {
+        if (term.length() < MIN_FUZZY_LENGTH) {
+            return List.of();
+        }
+        int maxEdits = term.length() >= TWO_TYPOS_LENGTH ? 2 : 1;
+        String first = term.substring(0, 1);
+        List<Map.Entry<String, Postings>> matches = new ArrayList<>();
+        for (Map.Entry<String, Postings> entry : terms.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+            String candidate = entry.getKey();
+            if (Math.abs(candidate.length() - term.length()) <= maxEdits && editDistance(term, candidate, maxEdits) <= maxEdits) {
+                matches.add(entry);
+            }
+        }
+        return mostFrequent(matches);
+    }
+
+    private static List<String> mostFrequent(List<Map.Entry<String, Postings>> matches) {
+        if (matches.size() > MAX_EXPANSIONS) {
+            matches.sort(Comparator.comparingInt((Map.Entry<String, Postings> entry) -> entry.getValue().documentFrequency).reversed());
+        }
+        return matches.stream().limit(MAX_EXPANSIONS).map(Map.Entry::getKey).toList();
+    }
+
+    /**
+     * Optimal string alignment distance (insertions, deletions, substitutions and swaps of adjacent letters), or
+     * {@code max + 1} as soon as it is known to exceed {@code max}.
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    distance = Math.min(distance, previous2[j - 2] + 1);
+                }
+                current[j] = distance;
+                rowMin = Math.min(rowMin, distance);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    private static long hash(Map<SearchField, String> fields) {
+        long hash = 0xcbf29ce484222325L;
+        for (SearchField field : SearchField.VALUES) {
+            String value = fields.get(field);
+            if (value != null) {
+                for (int i = 0; i < value.length(); i++) {
+                    hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+                }
+            }
+            hash = (hash ^ 0xffff) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    record Hit(long bookId, float score) {
+    }
+
+    private static final class Postings {
+
+        private int[] docs = new int[2];
+        private int[] fieldFrequencies = new int[2];
+        private int size;
+        private int documentFrequency;
+
+        void add(int doc, int fieldFrequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                fieldFrequencies = Arrays.copyOf(fieldFrequencies, size * 2);
+            }
+            if (size == 0 || docs[size - 1] != doc) {
+                documentFrequency++;
+            }
+            docs[size] = doc;
+            fieldFrequencies[size] = fieldFrequency;
+            size++;
+        }
+
+        void remap(int[] remap) {
+            int kept = 0;
+            documentFrequency = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc < 0) {
+                    continue;
+                }
+                if (kept == 0 || docs[kept - 1] != doc) {
+                    documentFrequency++;
+                }
+                docs[kept] = doc;
+                fieldFrequencies[kept] = fieldFrequencies[i];
+                kept++;
+            }
+            size = kept;
+            if (size < docs.length / 4) {
+                docs = Arrays.copyOf(docs, Math.max(2, size));
+                fieldFrequencies = Arrays.copyOf(fieldFrequencies, Math.max(2, size));
+            }
+        }
+    }
+}
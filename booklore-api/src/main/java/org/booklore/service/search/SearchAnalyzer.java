@@ -0,0 +1,113 @@
+package org.booklore.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Turns metadata and queries into index terms: accents are folded (é to e, ø to o, ß to ss), text is lowercased and
+ * split on anything that isn't a letter or digit, apostrophes are dropped so "Tolkien's" stays one word, and a light
+ * plural stemmer maps "stories" and "story" to the same term. Indexing and querying must go through the same steps,
+ * so any change here has to bump {@link InvertedIndex#FORMAT_VERSION}.
+ */
+final class SearchAnalyzer {
+
+    static final int MAX_TERM_LENGTH = 64;
+
+    private SearchAnalyzer() {
+    }
+
+    /**
+     * Folded words of the text, in order, before stemming.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return words;
+        }
+        String folded = fold(text);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (c != '\'' && c != '’') {
+                addWord(words, word);
+            }
+        }
+        addWord(words, word);
+        return words;
+    }
+
+    /**
+     * Index terms of the text, in order; repeated words repeat.
+     */
+    static List<String> terms(String text) {
+        List<String> words = words(text);
+        words.replaceAll(SearchAnalyzer::stem);
+        return words;
+    }
+
+    /**
+     * Strips plural endings the way the S-stemmer does: "ies" to "y", "es" to "e" and a trailing "s", leaving
+     * endings such as "ss" and "us" and words shorter than four letters alone. Only plain ASCII words are touched,
+     * so numbers and other scripts pass through.
+     */
+    static String stem(String word) {
+        int length = word.length();
+        if (length < 4 || !isLatinWord(word)) {
+            return word;
+        }
+        if (word.endsWith("ies") && !word.endsWith("eies") && !word.endsWith("aies")) {
+            return word.substring(0, length - 3) + "y";
+        }
+        if (word.endsWith("es") && !word.endsWith("aes") && !word.endsWith("ees") && !word.endsWith("oes")) {
+            return word.substring(0, length - 1);
+        }
+        if (word.endsWith("s") && !word.endsWith("us") && !word.endsWith("ss")) {
+            return word.substring(0, length - 1);
+        }
+        return word;
+    }
+
+    static String fold(String text) {
+        String s = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case 'ø', 'Ø' -> folded.append('o');
+                case 'ł', 'Ł' -> folded.append('l');
+                case 'æ', 'Æ' -> folded.append("ae");
+                case 'œ', 'Œ' -> folded.append("oe");
+                case 'ß' -> folded.append("ss");
+                case 'đ', 'Đ' -> folded.append('d');
+                case 'þ', 'Þ' -> folded.append("th");
+                default -> {
+                    if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                        folded.append(c);
+                    }
+                }
+            }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static void addWord(List<String> words, StringBuilder word) {
+        if (!word.isEmpty()) {
+            words.add(word.length() > MAX_TERM_LENGTH ? word.substring(0, MAX_TERM_LENGTH) : word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static boolean isLatinWord(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
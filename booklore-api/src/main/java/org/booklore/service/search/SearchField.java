@@ -0,0 +1,30 @@
+package org.booklore.service.search;
+
+/**
+ * Metadata fields the search index covers, with the weight a match in each carries. Term statistics are kept per
+ * field, so a word in a short title outranks the same word buried in a long description. The order is part of the
+ * on-disk format.
+ */
+enum SearchField {
+    TITLE(5f),
+    SUBTITLE(2f),
+    AUTHORS(4f),
+    SERIES(3f),
+    PUBLISHER(1.5f),
+    TAGS(1.5f),
+    CATEGORIES(1.5f),
+    ISBN(4f),
+    DESCRIPTION(0.5f);
+
+    static final SearchField[] VALUES = values();
+
+    private final float boost;
+
+    SearchField(float boost) {
+        this.boost = boost;
+    }
+
+    float boost() {
+        return boost;
+    }
+}
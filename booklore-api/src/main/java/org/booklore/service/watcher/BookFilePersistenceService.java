@@ -6,10 +6,9 @@ import org.booklore.model.entity.BookEntity;
 import org.booklore.model.entity.BookFileEntity;
 import org.booklore.model.entity.LibraryEntity;
 import org.booklore.model.entity.LibraryPathEntity;
-import org.booklore.model.websocket.Topic;
 import org.booklore.repository.BookFileRepository;
 import org.booklore.repository.BookRepository;
-import org.booklore.service.NotificationService;
+import org.booklore.service.event.BookEventBroadcaster;
 import org.booklore.util.FileUtils;
 import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
@@ -22,9 +21,6 @@ import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.*;
 
-import static org.booklore.model.enums.PermissionType.ADMIN;
-import static org.booklore.model.enums.PermissionType.MANAGE_LIBRARY;
-
 @Slf4j
 @Service
 @AllArgsConstructor
@@ -33,7 +29,7 @@ public class BookFilePersistenceService {
     private final EntityManager entityManager;
     private final BookRepository bookRepository;
     private final BookFileRepository bookFileRepository;
-    private final NotificationService notificationService;
+    private final BookEventBroadcaster bookEventBroadcaster;
     private final BookMapper bookMapper;
 
     @Transactional
@@ -55,7 +51,7 @@ public class BookFilePersistenceService {
         } else {
             log.info("[FILE_CREATE] Book with hash '{}' already exists at same path. Skipping update.", currentHash);
         }
-        notificationService.sendMessageToPermissions(Topic.BOOK_ADD, bookMapper.toBookWithDescription(book, false), Set.of(ADMIN, MANAGE_LIBRARY));
+        bookEventBroadcaster.broadcastBookAddEvent(bookMapper.toBookWithDescription(book, false));
     }
 
     String findMatchingLibraryPath(LibraryEntity libraryEntity, Path filePath) {
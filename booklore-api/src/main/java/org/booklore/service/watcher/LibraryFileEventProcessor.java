@@ -9,6 +9,7 @@ import org.booklore.model.enums.PermissionType;
 import org.booklore.model.websocket.Topic;
 import org.booklore.repository.LibraryRepository;
 import org.booklore.service.NotificationService;
+import org.booklore.service.event.BookEventBroadcaster;
 import org.booklore.util.FileUtils;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
@@ -38,6 +39,7 @@ public class LibraryFileEventProcessor {
     private final BookFileTransactionalHandler bookFileTransactionalHandler;
     private final BookFilePersistenceService bookFilePersistenceService;
     private final NotificationService notificationService;
+    private final BookEventBroadcaster bookEventBroadcaster;
 
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
     private final ConcurrentMap<Path, ScheduledFuture<?>> pendingDeletes = new ConcurrentHashMap<>();
@@ -172,8 +174,7 @@ public class LibraryFileEventProcessor {
                         if (remainingFiles <= 1) {
                             // Last file - mark book as deleted
                             bookFilePersistenceService.markBookAsDeleted(book);
-                            notificationService.sendMessageToPermissions(Topic.BOOKS_REMOVE, Set.of(book.getId()),
-                                    Set.of(PermissionType.ADMIN, PermissionType.MANAGE_LIBRARY));
+                            bookEventBroadcaster.broadcastBooksRemoveEvent(library.getId(), Set.of(book.getId()));
                             log.info("[MARKED_DELETED] Book '{}' marked as deleted (last file removed)", fileName);
                         } else {
                             // Multiple files - just delete this file
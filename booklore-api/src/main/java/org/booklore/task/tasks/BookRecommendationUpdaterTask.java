@@ -6,13 +6,13 @@ import org.booklore.model.dto.BookRecommendationLite;
 import org.booklore.model.dto.request.TaskCreateRequest;
 import org.booklore.model.dto.response.TaskCreateResponse;
 import org.booklore.model.entity.BookEntity;
-import org.booklore.model.entity.BookMetadataEntity;
 import org.booklore.model.enums.TaskType;
 import org.booklore.model.enums.UserPermission;
 import org.booklore.model.websocket.TaskProgressPayload;
 import org.booklore.model.websocket.Topic;
 import org.booklore.service.NotificationService;
 import org.booklore.service.book.BookQueryService;
+import org.booklore.service.recommender.BookSimilarityIndex;
 import org.booklore.service.recommender.BookVectorService;
 import org.booklore.task.TaskStatus;
 import lombok.RequiredArgsConstructor;
@@ -30,9 +30,11 @@ public class BookRecommendationUpdaterTask implements Task {
 
     private final BookQueryService bookQueryService;
     private final BookVectorService vectorService;
+    private final BookSimilarityIndex similarityIndex;
     private final NotificationService notificationService;
 
     private static final int RECOMMENDATION_LIMIT = 25;
+    private static final double MIN_SIMILARITY = 0.1;
     private static final long MIN_NOTIFICATION_INTERVAL_MS = 250;
 
     @Override
@@ -87,44 +89,17 @@ public class BookRecommendationUpdaterTask implements Task {
             }
         }
 
-        lastNotificationTime = sendTaskProgressNotification(taskId, 35, "Computing book similarities...", TaskStatus.IN_PROGRESS, lastNotificationTime, false);
+        lastNotificationTime = sendTaskProgressNotification(taskId, 35, "Indexing book embeddings...", TaskStatus.IN_PROGRESS, lastNotificationTime, false);
+
+        similarityIndex.rebuild(allBooks, embeddings);
+
+        lastNotificationTime = sendTaskProgressNotification(taskId, 40, "Computing book similarities...", TaskStatus.IN_PROGRESS, lastNotificationTime, false);
 
         int processedBooks = 0;
         for (BookEntity targetBook : allBooks) {
             try {
-                double[] targetVector = embeddings.get(targetBook.getId());
-                if (targetVector == null) continue;
-
-                String targetSeries = Optional.ofNullable(targetBook.getMetadata())
-                        .map(BookMetadataEntity::getSeriesName)
-                        .map(String::toLowerCase)
-                        .orElse(null);
-
-                List<BookVectorService.ScoredBook> candidates = allBooks.stream()
-                        .filter(candidate -> !candidate.getId().equals(targetBook.getId()))
-                        .filter(candidate -> {
-                            String candidateSeries = Optional.ofNullable(candidate.getMetadata())
-                                    .map(BookMetadataEntity::getSeriesName)
-                                    .map(String::toLowerCase)
-                                    .orElse(null);
-                            return targetSeries == null || !targetSeries.equals(candidateSeries);
-                        })
-                        .map(candidate -> {
-                            double[] candidateVector = embeddings.get(candidate.getId());
-                            double similarity = vectorService.cosineSimilarity(targetVector, candidateVector);
-                            return new BookVectorService.ScoredBook(candidate.getId(), similarity);
-                        })
-                        .filter(scored -> scored.getScore() > 0.1)
-                        .collect(Collectors.toList());
-
-                List<BookVectorService.ScoredBook> topSimilar = vectorService.findTopKSimilar(
-                        targetVector,
-                        candidates,
-                        RECOMMENDATION_LIMIT
-                );
-
-                Set<BookRecommendationLite> recommendations = topSimilar.stream()
-                        .map(scored -> new BookRecommendationLite(scored.getBookId(), scored.getScore()))
+                Set<BookRecommendationLite> recommendations = similarityIndex.findNearest(targetBook.getId(), RECOMMENDATION_LIMIT, MIN_SIMILARITY).stream()
+                        .map(neighbor -> new BookRecommendationLite(neighbor.bookId(), neighbor.score()))
                         .collect(Collectors.toSet());
 
                 targetBook.setSimilarBooksJson(recommendations);
@@ -136,7 +111,7 @@ public class BookRecommendationUpdaterTask implements Task {
 
             processedBooks++;
             if (processedBooks % 10 == 0 || processedBooks == totalBooks) {
-                int progress = 35 + (processedBooks * 50 / totalBooks);
+                int progress = 40 + (processedBooks * 45 / totalBooks);
                 lastNotificationTime = sendTaskProgressNotification(taskId, progress,
                         String.format("Computing similarities: %d/%d books", processedBooks, totalBooks),
                         TaskStatus.IN_PROGRESS, lastNotificationTime, false);
@@ -0,0 +1,61 @@
+package org.booklore.task.tasks;
+
+import org.booklore.exception.ApiError;
+import org.booklore.model.dto.BookLoreUser;
+import org.booklore.model.dto.request.TaskCreateRequest;
+import org.booklore.model.dto.response.TaskCreateResponse;
+import org.booklore.model.enums.TaskType;
+import org.booklore.model.enums.UserPermission;
+import org.booklore.service.search.BookSearchIndex;
+import org.booklore.task.TaskStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchIndexRebuildTask implements Task {
+
+    private final BookSearchIndex bookSearchIndex;
+
+    @Override
+    public void validatePermissions(BookLoreUser user, TaskCreateRequest request) {
+        if (!UserPermission.CAN_ACCESS_TASK_MANAGER.isGranted(user.getPermissions())) {
+            throw ApiError.PERMISSION_DENIED.createException(UserPermission.CAN_ACCESS_TASK_MANAGER);
+        }
+    }
+
+    @Override
+    public TaskCreateResponse execute(TaskCreateRequest request) {
+        TaskCreateResponse.TaskCreateResponseBuilder builder = TaskCreateResponse.builder()
+                .taskId(request.getTaskId())
+                .taskType(getTaskType());
+
+        long startTime = System.currentTimeMillis();
+        log.info("{}: Task started", getTaskType());
+
+        try {
+            bookSearchIndex.rebuild();
+            builder.status(TaskStatus.COMPLETED);
+        } catch (Exception e) {
+            log.error("{}: Error rebuilding search index", getTaskType(), e);
+            builder.status(TaskStatus.FAILED);
+        }
+
+        long endTime = System.currentTimeMillis();
+        log.info("{}: Task completed. Duration: {} ms", getTaskType(), endTime - startTime);
+
+        return builder.build();
+    }
+
+    @Override
+    public TaskType getTaskType() {
+        return TaskType.REBUILD_SEARCH_INDEX;
+    }
+
+    @Override
+    public String getMetadata() {
+        return "Books in search index: " + bookSearchIndex.size();
+    }
+}
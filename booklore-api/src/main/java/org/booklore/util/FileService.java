@@ -157,6 +157,10 @@ public class FileService {
         return Paths.get(appProperties.getPathConfig(), "pdf_cache").toString();
     }
 
+    public String getCbxCachePath() {
+        return Paths.get(appProperties.getPathConfig(), "cbx_cache").toString();
+    }
+
     public String getTempBookdropCoverImagePath(long bookdropFileId) {
         return Paths.get(appProperties.getPathConfig(), "bookdrop_temp", bookdropFileId + ".jpg").toString();
     }
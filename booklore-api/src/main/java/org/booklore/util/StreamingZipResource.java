@@ -0,0 +1,527 @@
+package org.booklore.util;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A ZIP archive of files on disk that is produced while it is read, so an archive of any size is sent with a couple
+ * of buffers of memory and its first bytes go out right away.
+ * <p>
+ * Already compressed files (audio, EPUB and comic archives, images, PDFs) are stored as they are, and so is any file
+ * larger than {@link #MAX_DEFLATED_SIZE}. Smaller files are deflated: once when they are added, to learn their
+ * compressed size, and again while the archive is read. Every entry's size is therefore known before the first byte
+ * is sent, which gives the archive an exact {@link #contentLength()}. As the same files always give the same bytes,
+ * an interrupted download can be resumed with a range request. The CRC of each entry, which would take reading every
+ * file up front, follows its data in a data descriptor. Entries and archives past 4 GB use ZIP64.
+ * <p>
+ * A file that changes size after it was added fails the read instead of producing a corrupt archive.
+ */
+public class StreamingZipResource extends AbstractResource {
+
+    static final long MAX_DEFLATED_SIZE = 16L * 1024 * 1024;
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "mp3", "m4a", "m4b", "aac", "ogg", "opus", "flac",
+            "epub", "kepub", "cbz", "cbr", "cb7", "zip", "rar", "7z", "gz",
+            "jpg", "jpeg", "png", "gif", "webp", "avif", "pdf");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+    private static final int ZIP64_COUNT_LIMIT = 0xFFFF;
+    // sizes and CRC follow the data (bit 3), names are UTF-8 (bit 11)
+    private static final short FLAGS = 0x0808;
+    private static final short VERSION = 20;
+    private static final short VERSION_ZIP64 = 45;
+
+    private final String filename;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+
+    public StreamingZipResource(String filename) {
+        this.filename = filename;
+    }
+
+    /**
+     * Adds the file under the given name, renaming it if the archive already has an entry of that name.
+     */
+    public StreamingZipResource addFile(String name, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        byte[] nameBytes = uniqueName(name).getBytes(StandardCharsets.UTF_8);
+        if (isCompressed(file) || size > MAX_DEFLATED_SIZE) {
+            entries.add(new Entry(nameBytes, file, size, size, false, modified));
+        } else {
+            entries.add(new Entry(nameBytes, file, size, deflatedSize(file, size), true, modified));
+        }
+        return this;
+    }
+
+    /**
+     * Adds the regular files directly in the folder, in name order, under {@code prefix}.
+     */
+    public StreamingZipResource addFolder(String prefix, Path folder) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(folder)) {
+            files = paths.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList();
+        }
+        for (Path file : files) {
+            addFile(prefix + file.getFileName(), file);
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public String getDescription() {
+        return "ZIP archive [" + filename + "] of " + entries.size() + " files";
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        long offset = 0;
+        long centralSize = 0;
+        for (Entry entry : entries) {
+            centralSize += centralHeader(entry, 0, offset).length;
+            offset += localHeader(entry).length + entry.compressedSize() + dataDescriptor(entry, 0).length;
+        }
+        return offset + centralSize + end(offset, centralSize).length;
+    }
+
+    @Override
+    public long lastModified() {
+        return entries.stream().mapToLong(Entry::modified).max().orElse(0);
+    }
+
+    /**
+     * A strong entity tag for the archive, which changes whenever a file is added, renamed, resized or touched.
+     */
+    public String getETag() {
+        CRC32 crc = new CRC32();
+        ByteBuffer fields = ByteBuffer.allocate(17);
+        for (Entry entry : entries) {
+            crc.update(entry.name());
+            fields.clear();
+            fields.putLong(entry.size()).putLong(entry.modified()).put((byte) (entry.deflated() ? 1 : 0));
+            crc.update(fields.array());
+        }
+        return "\"zip-" + entries.size() + "-" + Long.toHexString(crc.getValue()) + "\"";
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ArchiveStream();
+    }
+
+    private String uniqueName(String name) {
+        if (names.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        boolean hasExtension = dot > name.lastIndexOf('/') + 1;
+        String base = hasExtension ? name.substring(0, dot) : name;
+        String extension = hasExtension ? name.substring(dot) : "";
+        for (int i = 2; ; i++) {
+            String candidate = base + " (" + i + ")" + extension;
+            if (names.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static boolean isCompressed(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static long deflatedSize(Path file, long size) throws IOException {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] input = new byte[BUFFER_SIZE];
+        byte[] output = new byte[BUFFER_SIZE];
+        long compressedSize = 0;
+        long read = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(input)) != -1) {
+                read += n;
+                deflater.setInput(input, 0, n);
+                while (!deflater.needsInput()) {
+                    compressedSize += deflater.deflate(output);
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                compressedSize += deflater.deflate(output);
+            }
+        } finally {
+            deflater.end();
+        }
+        if (read != size) {
+            throw new IOException("File changed while being added to the archive: " + file);
+        }
+        return compressedSize;
+    }
+
+    private static byte[] localHeader(Entry entry) {
+        boolean zip64 = entry.zip64();
+        ByteBuffer header = buffer(30 + entry.name().length + (zip64 ? 20 : 0));
+        header.putInt(0x04034b50);
+        header.putShort(zip64 ? VERSION_ZIP64 : VERSION);
+        header.putShort(FLAGS);
+        header.putShort(entry.method());
+        header.putInt(entry.dosTime());
+        header.putInt(0);
+        header.putInt(zip64 ? -1 : 0);
+        header.putInt(zip64 ? -1 : 0);
+        header.putShort((short) entry.name().length);
+        header.putShort((short) (zip64 ? 20 : 0));
+        header.put(entry.name());
+        if (zip64) {
+            header.putShort((short) 0x0001).putShort((short) 16).putLong(0).putLong(0);
+        }
+        return header.array();
+    }
+
+    private static byte[] dataDescriptor(Entry entry, long crc) {
+        boolean zip64 = entry.zip64();
+        ByteBuffer descriptor = buffer(zip64 ? 24 : 16);
+        descriptor.putInt(0x08074b50);
+        descriptor.putInt((int) crc);
+        if (zip64) {
+            descriptor.putLong(entry.compressedSize()).putLong(entry.size());
+        } else {
+            descriptor.putInt((int) entry.compressedSize()).putInt((int) entry.size());
+        }
+        return descriptor.array();
+    }
+
+    private static byte[] centralHeader(Entry entry, long crc, long offset) {
+        List<Long> zip64Fields = new ArrayList<>(3);
+        if (entry.size() >= ZIP64_LIMIT) {
+            zip64Fields.add(entry.size());
+        }
+        if (entry.compressedSize() >= ZIP64_LIMIT) {
+            zip64Fields.add(entry.compressedSize());
+        }
+        if (offset >= ZIP64_LIMIT) {
+            zip64Fields.add(offset);
+        }
+        int extraLength = zip64Fields.isEmpty() ? 0 : 4 + 8 * zip64Fields.size();
+        short version = zip64Fields.isEmpty() && !entry.zip64() ? VERSION : VERSION_ZIP64;
+
+        ByteBuffer header = buffer(46 + entry.name().length + extraLength);
+        header.putInt(0x02014b50);
+        header.putShort(version);
+        header.putShort(version);
+        header.putShort(FLAGS);
+        header.putShort(entry.method());
+        header.putInt(entry.dosTime());
+        header.putInt((int) crc);
+        header.putInt(entry.compressedSize() >= ZIP64_LIMIT ? -1 : (int) entry.compressedSize());
+        header.putInt(entry.size() >= ZIP64_LIMIT ? -1 : (int) entry.size());
+        header.putShort((short) entry.name().length);
+        header.putShort((short) extraLength);
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putInt(0);
+        header.putInt(offset >= ZIP64_LIMIT ? -1 : (int) offset);
+        header.put(entry.name());
+        if (!zip64Fields.isEmpty()) {
+            header.putShort((short) 0x0001).putShort((short) (8 * zip64Fields.size()));
+            zip64Fields.forEach(header::putLong);
+        }
+        return header.array();
+    }
+
+    private byte[] end(long centralOffset, long centralSize) {
+        int count = entries.size();
+        boolean zip64 = count > ZIP64_COUNT_LIMIT || centralOffset >= ZIP64_LIMIT || centralSize >= ZIP64_LIMIT;
+        ByteBuffer end = buffer(22 + (zip64 ? 76 : 0));
+        if (zip64) {
+            end.putInt(0x06064b50);
+            end.putLong(44);
+            end.putShort(VERSION_ZIP64);
+            end.putShort(VERSION_ZIP64);
+            end.putInt(0);
+            end.putInt(0);
+            end.putLong(count);
+            end.putLong(count);
+            end.putLong(centralSize);
+            end.putLong(centralOffset);
+
+            end.putInt(0x07064b50);
+            end.putInt(0);
+            end.putLong(centralOffset + centralSize);
+            end.putInt(1);
+        }
+        short entryCount = (short) (count > ZIP64_COUNT_LIMIT ? ZIP64_COUNT_LIMIT : count);
+        end.putInt(0x06054b50);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort(entryCount);
+        end.putShort(entryCount);
+        end.putInt(centralSize >= ZIP64_LIMIT ? -1 : (int) centralSize);
+        end.putInt(centralOffset >= ZIP64_LIMIT ? -1 : (int) centralOffset);
+        end.putShort((short) 0);
+        return end.array();
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private record Entry(byte[] name, Path path, long size, long compressedSize, boolean deflated, long modified) {
+
+        private boolean zip64() {
+            return size >= ZIP64_LIMIT || compressedSize >= ZIP64_LIMIT;
+        }
+
+        private short method() {
+            return (short) (deflated ? 8 : 0);
+        }
+
+        private int dosTime() {
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(modified), ZoneId.systemDefault());
+            if (time.getYear() < 1980) {
+                return (1 << 21) | (1 << 16);
+            }
+            return (Math.min(time.getYear(), 2107) - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+                    | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+        }
+    }
+
+    /**
+     * Produces the archive a chunk at a time: each entry's local header, its data as read from disk, its data
+     * descriptor, and finally the central directory.
+     */
+    private final class ArchiveStream extends InputStream {
+
+        private final byte[] readBuffer = new byte[BUFFER_SIZE];
+        private final byte[] deflateBuffer = new byte[BUFFER_SIZE];
+        private final long[] crcs = new long[entries.size()];
+        private final long[] offsets = new long[entries.size()];
+        private final CRC32 crc = new CRC32();
+
+        private byte[] chunk = new byte[0];
+        private int chunkPosition;
+        private int chunkLength;
+        private long written;
+        private int index;
+        private boolean inEntry;
+        private long centralOffset = -1;
+        private int centralIndex;
+        private boolean done;
+
+        private InputStream file;
+        private Deflater deflater;
+        private long remaining;
+        private long compressed;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chunkLength - chunkPosition);
+            System.arraycopy(chunk, chunkPosition, b, off, n);
+            chunkPosition += n;
+            return n;
+        }
+
+        /**
+         * Skips without copying, though the files skipped over are still read: the central directory needs their CRCs.
+         */
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && fill()) {
+                int step = (int) Math.min(n - skipped, chunkLength - chunkPosition);
+                chunkPosition += step;
+                skipped += step;
+            }
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeEntry();
+            done = true;
+        }
+
+        private boolean fill() throws IOException {
+            while (chunkPosition == chunkLength) {
+                if (done || !nextChunk()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (inEntry) {
+                Entry entry = entries.get(index);
+                if (entry.deflated() ? deflateData(entry) : readData(entry)) {
+                    return true;
+                }
+                crcs[index] = crc.getValue();
+                byte[] descriptor = dataDescriptor(entry, crcs[index]);
+                closeEntry();
+                index++;
+                setChunk(descriptor);
+                return true;
+            }
+            if (index < entries.size()) {
+                Entry entry = entries.get(index);
+                offsets[index] = written;
+                openEntry(entry);
+                setChunk(localHeader(entry));
+                return true;
+            }
+            if (centralOffset < 0) {
+                centralOffset = written;
+            }
+            if (centralIndex < entries.size()) {
+                setChunk(centralHeader(entries.get(centralIndex), crcs[centralIndex], offsets[centralIndex]));
+                centralIndex++;
+                return true;
+            }
+            if (!done) {
+                setChunk(end(centralOffset, written - centralOffset));
+                done = true;
+                return true;
+            }
+            return false;
+        }
+
+        private void openEntry(Entry entry) throws IOException {
+            file = Files.newInputStream(entry.path());
+            remaining = entry.size();
+            compressed = 0;
+            crc.reset();
+            if (entry.deflated()) {
+                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            }
+            inEntry = true;
+        }
+
+        private void closeEntry() throws IOException {
+            inEntry = false;
+            if (deflater != null) {
+                deflater.end();
+                deflater = null;
+            }
+            if (file != null) {
+                InputStream toClose = file;
+                file = null;
+                toClose.close();
+            }
+        }
+
+        /**
+         * Reads the next block of the file into the read buffer, or returns -1 once the whole file was read.
+         */
+        private int readBlock(Entry entry) throws IOException {
+            if (remaining == 0) {
+                if (file.read() != -1) {
+                    throw changed(entry);
+                }
+                return -1;
+            }
+            int n = file.read(readBuffer, 0, (int) Math.min(readBuffer.length, remaining));
+            if (n == -1) {
+                throw changed(entry);
+            }
+            remaining -= n;
+            crc.update(readBuffer, 0, n);
+            return n;
+        }
+
+        private boolean readData(Entry entry) throws IOException {
+            int n = readBlock(entry);
+            if (n == -1) {
+                return false;
+            }
+            setChunk(readBuffer, n);
+            return true;
+        }
+
+        private boolean deflateData(Entry entry) throws IOException {
+            while (!deflater.finished()) {
+                int n = deflater.deflate(deflateBuffer);
+                if (n > 0) {
+                    compressed += n;
+                    setChunk(deflateBuffer, n);
+                    return true;
+                }
+                if (deflater.needsInput()) {
+                    int read = readBlock(entry);
+                    if (read == -1) {
+                        deflater.finish();
+                    } else {
+                        deflater.setInput(readBuffer, 0, read);
+                    }
+                }
+            }
+            if (compressed != entry.compressedSize()) {
+                throw changed(entry);
+            }
+            return false;
+        }
+
+        private void setChunk(byte[] bytes) {
+            setChunk(bytes, bytes.length);
+        }
+
+        private void setChunk(byte[] bytes, int length) {
+            chunk = bytes;
+            chunkPosition = 0;
+            chunkLength = length;
+            written += length;
+        }
+
+        private IOException changed(Entry entry) {
+            return new IOException("File changed while being archived: " + entry.path());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+CREATE TABLE IF NOT EXISTS library_file_journal
+(
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    library_path_id BIGINT        NOT NULL,
+    file_sub_path   VARCHAR(512)  NOT NULL,
+    file_name       VARCHAR(1000) NOT NULL,
+    is_folder_based BOOLEAN       NOT NULL DEFAULT FALSE,
+    file_size       BIGINT        NOT NULL,
+    last_modified   BIGINT        NOT NULL,
+    file_key        VARCHAR(255),
+    hash            VARCHAR(128),
+    updated_at      DATETIME      NOT NULL,
+    -- Sub path and file name are too long for a unique index together, so the index covers a hash of the two.
+    -- File names never contain '/', which keeps the concatenation unambiguous.
+    path_hash       CHAR(64) AS (SHA2(CONCAT(file_sub_path, '/', file_name), 256)) STORED,
+    CONSTRAINT fk_library_file_journal_library_path FOREIGN KEY (library_path_id) REFERENCES library_path (id) ON DELETE CASCADE,
+    CONSTRAINT uk_library_file_journal_path UNIQUE (library_path_id, path_hash)
+);
+
+CREATE INDEX IF NOT EXISTS idx_library_file_journal_library_path_id ON library_file_journal (library_path_id);
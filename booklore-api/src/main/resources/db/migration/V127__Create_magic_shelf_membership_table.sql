@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS magic_shelf_membership
+(
+    magic_shelf_id BIGINT NOT NULL,
+    user_id        BIGINT NOT NULL,
+    book_id        BIGINT NOT NULL,
+    PRIMARY KEY (magic_shelf_id, user_id, book_id),
+    CONSTRAINT fk_magic_shelf_membership_shelf FOREIGN KEY (magic_shelf_id) REFERENCES magic_shelf (id) ON DELETE CASCADE,
+    CONSTRAINT fk_magic_shelf_membership_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_magic_shelf_membership_book FOREIGN KEY (book_id) REFERENCES book (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_magic_shelf_membership_book_id ON magic_shelf_membership (book_id);
@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS kobo_library_book
+(
+    id                  BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id             BIGINT       NOT NULL,
+    book_id             BIGINT       NOT NULL,
+    on_shelf            BOOLEAN      NOT NULL,
+    file_hash           VARCHAR(255) NULL,
+    metadata_updated_at TIMESTAMP    NULL,
+    added_version       BIGINT       NOT NULL,
+    version             BIGINT       NOT NULL,
+    CONSTRAINT uq_kobo_library_book UNIQUE (user_id, book_id),
+    CONSTRAINT fk_kobo_library_book_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_kobo_library_book_user_version ON kobo_library_book (user_id, version);
@@ -0,0 +1,104 @@
+package org.booklore.config.security.filter;
+
+import org.booklore.config.security.service.AuthPrincipalCache;
+import org.booklore.config.security.userdetails.KoreaderUserDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class KoreaderAuthFilterTest {
+
+    private final AuthPrincipalCache principalCache = mock(AuthPrincipalCache.class);
+    private final KoreaderAuthFilter filter = new KoreaderAuthFilter(principalCache);
+    private final KoreaderUserDetails user = new KoreaderUserDetails("koreader", "5f4dcc3b5aa765d61d8327deb882cf99",
+            true, false, 1L, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+    @BeforeEach
+    void setUp() {
+        when(principalCache.koreaderUser("koreader")).thenReturn(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_shouldAuthenticateWithTheCachedUserIgnoringKeyCase() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("/api/koreader/syncs/progress", "koreader", "5F4DCC3B5AA765D61D8327DEB882CF99"),
+                new MockHttpServletResponse(), chain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getPrincipal()).isSameAs(user);
+        assertThat(authentication.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void doFilter_shouldLeaveTheRequestAnonymousOnAWrongKey() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("/api/koreader/syncs/progress", "koreader", "wrong"), new MockHttpServletResponse(), chain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void doFilter_shouldLeaveTheRequestAnonymousForAnUnknownUser() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("/api/koreader/users/auth", "stranger", "key"), new MockHttpServletResponse(), chain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(chain.getRequest()).isNotNull();
+        verify(principalCache).koreaderUser("stranger");
+    }
+
+    @Test
+    void doFilter_shouldNotLookUpAnythingWithoutHeaders() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("/api/koreader/users/auth", null, null), new MockHttpServletResponse(), chain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(chain.getRequest()).isNotNull();
+        verifyNoInteractions(principalCache);
+    }
+
+    @Test
+    void doFilter_shouldIgnoreOtherPaths() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request("/api/v1/books", "koreader", "5f4dcc3b5aa765d61d8327deb882cf99"), new MockHttpServletResponse(), chain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        assertThat(chain.getRequest()).isNotNull();
+        verifyNoInteractions(principalCache);
+    }
+
+    private static MockHttpServletRequest request(String path, String username, String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (username != null) {
+            request.addHeader("x-auth-user", username);
+        }
+        if (key != null) {
+            request.addHeader("x-auth-key", key);
+        }
+        return request;
+    }
+}
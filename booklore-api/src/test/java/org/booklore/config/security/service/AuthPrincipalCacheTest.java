@@ -0,0 +1,92 @@
+package org.booklore.config.security.service;
+
+import org.booklore.config.AppProperties;
+import org.booklore.mapper.OpdsUserV2Mapper;
+import org.booklore.mapper.custom.BookLoreUserTransformer;
+import org.booklore.model.dto.BookLoreUser;
+import org.booklore.model.entity.BookLoreUserEntity;
+import org.booklore.model.entity.KoboUserSettingsEntity;
+import org.booklore.repository.KoboUserSettingsRepository;
+import org.booklore.repository.KoreaderUserRepository;
+import org.booklore.repository.OpdsUserV2Repository;
+import org.booklore.repository.UserRepository;
+import org.booklore.service.event.EntityChangeEvents;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuthPrincipalCacheTest {
+
+    private UserRepository userRepository;
+    private KoboUserSettingsRepository koboUserSettingsRepository;
+    private BookLoreUserTransformer transformer;
+    private AuthPrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        koboUserSettingsRepository = mock(KoboUserSettingsRepository.class);
+        transformer = mock(BookLoreUserTransformer.class);
+        cache = new AuthPrincipalCache(mock(EntityChangeEvents.class), userRepository, koboUserSettingsRepository,
+                mock(KoreaderUserRepository.class), mock(OpdsUserV2Repository.class), mock(OpdsUserV2Mapper.class),
+                transformer, new AppProperties());
+
+        BookLoreUserEntity entity = BookLoreUserEntity.builder().id(1L).username("reader").build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(entity));
+        when(userRepository.findByUsername("reader")).thenReturn(Optional.of(entity));
+        when(transformer.toDTO(any())).thenAnswer(invocation -> BookLoreUser.builder()
+                .id(1L)
+                .username("reader")
+                .build());
+    }
+
+    @Test
+    void userById_shouldLoadOnce() {
+        BookLoreUser first = cache.userById(1L);
+        BookLoreUser second = cache.userById(1L);
+
+        assertThat(second).isSameAs(first);
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void userById_shouldNotCacheUnknownUsers() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThat(cache.userById(2L)).isNull();
+        assertThat(cache.userById(2L)).isNull();
+        verify(userRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void userByKoboToken_shouldShareTheCachedUser() {
+        KoboUserSettingsEntity settings = new KoboUserSettingsEntity();
+        settings.setUserId(1L);
+        settings.setToken("token");
+        when(koboUserSettingsRepository.findByToken("token")).thenReturn(Optional.of(settings));
+
+        BookLoreUser byId = cache.userById(1L);
+        BookLoreUser byToken = cache.userByKoboToken("token");
+        cache.userByKoboToken("token");
+
+        assertThat(byToken).isSameAs(byId);
+        verify(koboUserSettingsRepository, times(1)).findByToken("token");
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void invalidateAll_shouldReloadEverything() {
+        cache.userByUsername("reader");
+
+        cache.invalidateAll();
+        cache.userByUsername("reader");
+
+        verify(userRepository, times(2)).findByUsername("reader");
+        verify(userRepository, times(2)).findById(1L);
+    }
+}
@@ -18,6 +18,7 @@ import org.booklore.repository.ShelfRepository;
 import org.booklore.repository.UserBookFileProgressRepository;
 import org.booklore.repository.UserBookProgressRepository;
 import org.booklore.service.opds.MagicShelfBookService;
+import org.booklore.service.search.BookSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -49,6 +50,7 @@ class MobileBookServiceFilterOptionsTest {
     @Mock private MobileBookMapper mobileBookMapper;
     @Mock private MagicShelfBookService magicShelfBookService;
     @Mock private EntityManager entityManager;
+    @Mock private BookSearchIndex bookSearchIndex;
 
     private MobileBookService service;
 
@@ -59,7 +61,7 @@ class MobileBookServiceFilterOptionsTest {
         service = new MobileBookService(
                 bookRepository, userBookProgressRepository, userBookFileProgressRepository,
                 shelfRepository, authenticationService, mobileBookMapper,
-                magicShelfBookService, entityManager
+                magicShelfBookService, entityManager, bookSearchIndex
         );
     }
 
@@ -9,6 +9,7 @@ import org.booklore.model.enums.BookFileType;
 import org.booklore.model.enums.ComicCreatorRole;
 import org.booklore.model.enums.ReadStatus;
 import org.booklore.repository.BookRepository;
+import org.booklore.service.rule.MagicShelfRuleCompiler;
 import org.booklore.service.task.TaskCronService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -77,6 +78,9 @@ class BookRuleEvaluatorServiceIntegrationTest {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private MagicShelfRuleCompiler ruleCompiler;
+
     @PersistenceContext
     private EntityManager em;
 
@@ -207,6 +211,31 @@ class BookRuleEvaluatorServiceIntegrationTest {
 
     @Nested
     class RelativeDateTests {
+        @Test
+        void nextRelativeDateChange_isWhenTheOldestBookInsideTheWindowLeavesIt() {
+            BookEntity leavingSoon = createBook("Leaving Soon");
+            leavingSoon.setAddedOn(Instant.now().minus(5, ChronoUnit.DAYS));
+            em.merge(leavingSoon);
+
+            BookEntity recent = createBook("Recent Book");
+            recent.setAddedOn(Instant.now().minus(1, ChronoUnit.DAYS));
+            em.merge(recent);
+
+            BookEntity old = createBook("Old Book");
+            old.setAddedOn(Instant.now().minus(30, ChronoUnit.DAYS));
+            em.merge(old);
+            em.flush();
+            em.clear();
+
+            Instant next = evaluator.nextRelativeDateChange(
+                    ruleCompiler.compile(singleRule(RuleField.ADDED_ON, RuleOperator.WITHIN_LAST, 7, null, "days")), user.getId());
+            Instant expected = Instant.now().plus(2, ChronoUnit.DAYS);
+            assertThat(next).isBetween(expected.minusSeconds(60), expected.plusSeconds(60));
+
+            assertThat(evaluator.nextRelativeDateChange(
+                    ruleCompiler.compile(singleRule(RuleField.TITLE, RuleOperator.EQUALS, "Old Book")), user.getId())).isNull();
+        }
+
         @Test
         void withinLast_matchesRecentBook() {
             BookEntity recent = createBook("Recent Book");
@@ -9,6 +9,8 @@ import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -182,7 +184,65 @@ class FileStreamingServiceTest {
 
         fileStreamingService.streamWithRangeSupport(testFile, "audio/mp4", request, response);
 
-        verify(response).setHeader("Cache-Control", "no-store");
+        verify(response).setHeader("Cache-Control", "private, no-cache");
+    }
+
+    // ==================== Conditional request tests ====================
+
+    @Test
+    void streamWithRangeSupport_matchingIfNoneMatch_sends304WithoutBody() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stream");
+        request.addHeader("If-None-Match", "\"abc-1\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileStreamingService.streamWithRangeSupport(testFile, "audio/mp4", "\"abc-1\"", request, response);
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+        assertEquals("\"abc-1\"", response.getHeader("ETag"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void streamWithRangeSupport_ifModifiedSinceAfterFileChange_sends304() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stream");
+        request.addHeader("If-Modified-Since", Files.getLastModifiedTime(testFile).toMillis() + 1000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileStreamingService.streamWithRangeSupport(testFile, "audio/mp4", request, response);
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+    }
+
+    @Test
+    void streamWithRangeSupport_staleIfRange_streamsFullFile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stream");
+        request.addHeader("Range", "bytes=0-99");
+        request.addHeader("If-Range", "\"old\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileStreamingService.streamWithRangeSupport(testFile, "audio/mp4", "\"new\"", request, response);
+
+        assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+        assertArrayEquals(testContent, response.getContentAsByteArray());
+    }
+
+    @Test
+    void streamWithRangeSupport_matchingIfRange_streamsRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stream");
+        request.addHeader("Range", "bytes=0-99");
+        request.addHeader("If-Range", "\"new\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileStreamingService.streamWithRangeSupport(testFile, "audio/mp4", "\"new\"", request, response);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+        assertEquals(100, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void ifRangeMatches_weakTagNeverMatches() {
+        assertFalse(fileStreamingService.ifRangeMatches("W/\"abc\"", "\"abc\"", 0));
+        assertTrue(fileStreamingService.ifRangeMatches(null, "\"abc\"", 0));
     }
 
     // ==================== parseRange tests ====================
@@ -1,7 +1,6 @@
 package org.booklore.service;
 
 import org.booklore.config.security.service.AuthenticationService;
-import org.booklore.model.dto.Book;
 import org.booklore.model.dto.BookLoreUser;
 import org.booklore.model.dto.settings.AppSettings;
 import org.booklore.model.dto.kobo.KoboBookMetadata;
@@ -46,7 +45,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
-import org.springframework.data.domain.PageImpl;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -214,8 +212,7 @@ class KoboEntitlementServiceTest {
         when(koboCompatibilityService.isBookSupportedForKobo(any(BookEntity.class))).thenReturn(true);
         when(shelfRepository.findByUserId(user.getId())).thenReturn(List.of(koboShelf, userShelf));
         when(magicShelfRepository.findAllByUserId(user.getId())).thenReturn(List.of(magicShelf));
-        when(magicShelfBookService.getBooksByMagicShelfId(eq(user.getId()), eq(201L), eq(0), eq(Integer.MAX_VALUE)))
-                .thenReturn(new PageImpl<>(List.of(Book.builder().id(2L).build())));
+        when(magicShelfBookService.getBookIdsByMagicShelfId(user.getId(), 201L)).thenReturn(List.of(2L));
 
         List<KoboTagWrapper> tags = koboEntitlementService.generateTags();
 
@@ -356,8 +353,7 @@ class KoboEntitlementServiceTest {
         when(koboCompatibilityService.isBookSupportedForKobo(any(BookEntity.class))).thenReturn(true);
         when(shelfRepository.findByUserId(user.getId())).thenReturn(List.of(koboShelf));
         when(magicShelfRepository.findAllByUserId(user.getId())).thenReturn(List.of(magicShelf));
-        when(magicShelfBookService.getBooksByMagicShelfId(eq(user.getId()), eq(201L), eq(0), eq(Integer.MAX_VALUE)))
-                .thenReturn(new PageImpl<>(List.of(Book.builder().id(1L).build())));
+        when(magicShelfBookService.getBookIdsByMagicShelfId(user.getId(), 201L)).thenReturn(List.of(1L));
 
         List<KoboTagWrapper> tags = koboEntitlementService.generateTags();
 
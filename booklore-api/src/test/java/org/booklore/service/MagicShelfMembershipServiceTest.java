@@ -0,0 +1,147 @@
+package org.booklore.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.booklore.config.AppProperties;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.MagicShelfEntity;
+import org.booklore.model.entity.MagicShelfMembershipEntity;
+import org.booklore.repository.MagicShelfMembershipRepository;
+import org.booklore.service.book.BookListViewIndex;
+import org.booklore.service.rule.CompiledRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MagicShelfMembershipServiceTest {
+
+    private static final String FILTER_JSON = "{\"join\":\"and\",\"rules\":[{\"field\":\"readStatus\",\"operator\":\"equals\",\"value\":\"READ\"}]}";
+
+    @Mock private MagicShelfMembershipRepository membershipRepository;
+    @Mock private BookRuleEvaluatorService ruleEvaluatorService;
+    @Mock private BookListViewIndex bookListViewIndex;
+    @Mock private EntityManager entityManager;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private AppProperties appProperties;
+    private MagicShelfMembershipService service;
+    private TypedQuery<Long> matchingIds;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getMagicShelf().setMaterializedMembership(true);
+        service = new MagicShelfMembershipService(appProperties, membershipRepository, ruleEvaluatorService,
+                bookListViewIndex, entityManager, transactionManager);
+    }
+
+    @Test
+    void register_shouldOnlyListenForChangesWhenEnabled() {
+        service.register();
+        verify(bookListViewIndex).addChangeListener(service);
+
+        appProperties.getMagicShelf().setMaterializedMembership(false);
+        MagicShelfMembershipService disabled = new MagicShelfMembershipService(appProperties, membershipRepository,
+                ruleEvaluatorService, bookListViewIndex, entityManager, transactionManager);
+        disabled.register();
+        verify(bookListViewIndex, never()).addChangeListener(disabled);
+    }
+
+    @Test
+    void getBookIds_shouldMaterializeOnceAndThenReadTheStoredRows() {
+        MagicShelfEntity shelf = shelf(FILTER_JSON);
+        stubMatchingIds(List.of(1L, 4L));
+        when(membershipRepository.findBookIds(3L, 9L)).thenReturn(List.of(1L, 4L));
+
+        assertThat(service.getBookIds(shelf, CompiledRule.Group.empty(), 9L)).containsExactly(1L, 4L);
+        assertThat(service.getBookIds(shelf, CompiledRule.Group.empty(), 9L)).containsExactly(1L, 4L);
+
+        verify(membershipRepository, times(1)).deleteAllByShelfAndUser(3L, 9L);
+        verify(entityManager, times(2)).persist(any(MagicShelfMembershipEntity.class));
+        verify(matchingIds, times(1)).getResultList();
+    }
+
+    @Test
+    void getBookIds_shouldOnlyReevaluateBooksChangedSinceTheLastRead() {
+        MagicShelfEntity shelf = shelf(FILTER_JSON);
+        stubMatchingIds(List.of(1L, 4L), List.of());
+        when(membershipRepository.findBookIdsIn(3L, 9L, List.of(4L))).thenReturn(List.of(4L));
+        service.getBookIds(shelf, CompiledRule.Group.empty(), 9L);
+
+        service.booksChanged(List.of(4L));
+        service.getBookIds(shelf, CompiledRule.Group.empty(), 9L);
+
+        verify(membershipRepository).deleteBooks(3L, 9L, List.of(4L));
+        verify(membershipRepository, times(1)).deleteAllByShelfAndUser(3L, 9L);
+    }
+
+    @Test
+    void getBookIds_shouldRecomputeWhenAllBooksChangedOrTheRulesChanged() {
+        stubMatchingIds(List.of(1L));
+        service.getBookIds(shelf(FILTER_JSON), CompiledRule.Group.empty(), 9L);
+
+        service.allBooksChanged();
+        service.getBookIds(shelf(FILTER_JSON), CompiledRule.Group.empty(), 9L);
+        service.getBookIds(shelf("{\"join\":\"or\",\"rules\":[]}"), CompiledRule.Group.empty(), 9L);
+
+        verify(membershipRepository, times(3)).deleteAllByShelfAndUser(3L, 9L);
+        verify(membershipRepository, never()).findBookIdsIn(any(), any(), any());
+    }
+
+    @Test
+    void booksChanged_shouldNotTouchTheDatabase() {
+        service.booksChanged(List.of(1L, 2L));
+        service.allBooksChanged();
+
+        verifyNoInteractions(membershipRepository, entityManager, transactionManager);
+    }
+
+    @Test
+    void getBookIds_shouldRecomputeOnceARelativeDateWindowMoves() {
+        MagicShelfEntity shelf = shelf(FILTER_JSON);
+        stubMatchingIds(List.of(1L));
+        when(ruleEvaluatorService.nextRelativeDateChange(any(), any()))
+                .thenReturn(Instant.now().minusSeconds(1), Instant.now().plus(1, ChronoUnit.DAYS));
+
+        service.getBookIds(shelf, CompiledRule.Group.empty(), 9L);
+        service.getBookIds(shelf, CompiledRule.Group.empty(), 9L);
+        service.getBookIds(shelf, CompiledRule.Group.empty(), 9L);
+
+        verify(membershipRepository, times(2)).deleteAllByShelfAndUser(3L, 9L);
+        verify(membershipRepository, never()).findBookIdsIn(any(), any(), any());
+    }
+
+    private static MagicShelfEntity shelf(String filterJson) {
+        return MagicShelfEntity.builder().id(3L).filterJson(filterJson).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    @SafeVarargs
+    private void stubMatchingIds(List<Long> first, List<Long>... then) {
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        CriteriaQuery<Long> query = mock(CriteriaQuery.class, RETURNS_SELF);
+        Root<BookEntity> root = mock(Root.class, RETURNS_DEEP_STUBS);
+        matchingIds = mock(TypedQuery.class);
+        when(entityManager.getCriteriaBuilder()).thenReturn(cb);
+        when(cb.createQuery(Long.class)).thenReturn(query);
+        when(query.from(BookEntity.class)).thenReturn(root);
+        when(entityManager.createQuery(query)).thenReturn(matchingIds);
+        when(matchingIds.getResultList()).thenReturn(first, then);
+        when(ruleEvaluatorService.toSpecification(any(), any())).thenReturn((r, q, builder) -> null);
+    }
+}
@@ -7,6 +7,7 @@ import org.booklore.model.dto.MagicShelf;
 import org.booklore.model.entity.MagicShelfEntity;
 import org.booklore.model.enums.IconType;
 import org.booklore.repository.MagicShelfRepository;
+import org.booklore.service.rule.MagicShelfRuleCompiler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,6 +32,8 @@ class MagicShelfServiceTest {
     private AuthenticationService authenticationService;
     @Mock
     private AuditService auditService;
+    @Mock
+    private MagicShelfRuleCompiler ruleCompiler;
 
     @InjectMocks
     private MagicShelfService magicShelfService;
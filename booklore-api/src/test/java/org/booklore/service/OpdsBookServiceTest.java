@@ -16,6 +16,7 @@ import org.booklore.repository.UserRepository;
 import org.booklore.service.library.LibraryService;
 import org.booklore.service.opds.OpdsBookService;
 import org.booklore.service.restriction.ContentRestrictionService;
+import org.booklore.service.search.BookSearchIndex;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,11 +26,16 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -46,6 +52,7 @@ class OpdsBookServiceTest {
     @Mock private ShelfRepository shelfRepository;
     @Mock private LibraryService libraryService;
     @Mock private ContentRestrictionService contentRestrictionService;
+    @Mock private BookSearchIndex bookSearchIndex;
 
     @InjectMocks private OpdsBookService opdsBookService;
 
@@ -157,9 +164,6 @@ class OpdsBookServiceTest {
         when(bookOpdsRepository.findBookIdsByLibraryIds(anySet(), any())).thenReturn(Page.empty());
         when(bookOpdsRepository.findBookIdsByShelfId(anyLong(), any())).thenReturn(Page.empty());
         when(bookOpdsRepository.findBookIdsByShelfIds(anySet(), any())).thenReturn(Page.empty());
-        when(bookOpdsRepository.findBookIdsByMetadataSearch(anyString(), any())).thenReturn(Page.empty());
-        when(bookOpdsRepository.findBookIdsByMetadataSearchAndLibraryIds(anyString(), anySet(), any())).thenReturn(Page.empty());
-        when(bookOpdsRepository.findBookIdsByMetadataSearchAndShelfIds(anyString(), anySet(), any())).thenReturn(Page.empty());
         when(bookOpdsRepository.findAllWithMetadataByIds(anyList())).thenReturn(List.of());
         when(bookOpdsRepository.findAllWithMetadataByIdsAndLibraryIds(anyList(), anySet())).thenReturn(List.of());
         when(bookOpdsRepository.findAllWithMetadataByIdsAndShelfId(anyList(), anyLong())).thenReturn(List.of());
@@ -179,8 +183,6 @@ class OpdsBookServiceTest {
         when(bookOpdsRepository.findBookIdsByLibraryIds(anySet(), any())).thenReturn(Page.empty());
         when(bookOpdsRepository.findBookIdsByShelfId(anyLong(), any())).thenReturn(Page.empty());
         when(bookOpdsRepository.findBookIdsByShelfIds(anySet(), any())).thenReturn(Page.empty());
-        when(bookOpdsRepository.findBookIdsByMetadataSearch(anyString(), any())).thenReturn(Page.empty());
-        when(bookOpdsRepository.findBookIdsByMetadataSearchAndShelfIds(anyString(), anySet(), any())).thenReturn(Page.empty());
         when(bookOpdsRepository.findAllWithMetadataByIds(anyList())).thenReturn(List.of());
         when(bookOpdsRepository.findAllWithMetadataByIdsAndLibraryIds(anyList(), anySet())).thenReturn(List.of());
         when(bookOpdsRepository.findAllWithMetadataByIdsAndShelfId(anyList(), anyLong())).thenReturn(List.of());
@@ -463,13 +465,16 @@ class OpdsBookServiceTest {
         Book book = Book.builder().id(1L).build();
         when(bookMapper.toBook(bookEntity)).thenReturn(book);
 
-        when(bookOpdsRepository.findBookIdsByMetadataSearchAndShelfIds(eq("test"), eq(Set.of(10L)), any())).thenReturn(new PageImpl<>(List.of(1L)));
+        when(bookSearchIndex.search(eq("test"), any())).thenAnswer(invocation ->
+                Stream.of(2L, 1L).filter(invocation.<Predicate<Long>>getArgument(1)).toList());
+        when(bookOpdsRepository.findIds(any(Specification.class))).thenReturn(List.of(1L));
         when(bookOpdsRepository.findAllWithFullMetadataByIdsAndShelfIds(eq(List.of(1L)), eq(Set.of(10L)))).thenReturn(List.of(bookEntity));
 
         Page<Book> result = opdsBookService.getBooksPage(1L, "test", null, Set.of(10L), 0, 10);
 
-        assertThat(result.getContent()).hasSize(1);
-        verify(bookOpdsRepository).findBookIdsByMetadataSearchAndShelfIds(eq("test"), eq(Set.of(10L)), any());
+        assertThat(result.getContent()).extracting(Book::getId).containsExactly(1L);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        verify(bookSearchIndex).search(eq("test"), any());
     }
 
     @Test
@@ -660,19 +665,18 @@ class OpdsBookServiceTest {
         Book allowedBook = Book.builder().id(1L).build();
         when(bookMapper.toBook(allowedEntity)).thenReturn(allowedBook);
 
-        when(bookOpdsRepository.findBookIdsByLibraryIds(anySet(), any()))
-                .thenReturn(new PageImpl<>(List.of(1L, 2L)));
+        Specification<BookEntity> restrictions = (root, query, cb) -> cb.conjunction();
+        when(contentRestrictionService.restrictionSpecification(1L)).thenReturn(restrictions);
+        when(bookOpdsRepository.findIds(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(1L)));
         when(bookOpdsRepository.findAllWithMetadataByIdsAndLibraryIds(anyList(), anySet()))
-                .thenReturn(List.of(allowedEntity, restrictedEntity));
-
-        when(contentRestrictionService.applyRestrictions(anyList(), eq(1L)))
                 .thenReturn(List.of(allowedEntity));
 
         Page<Book> result = opdsBookService.getBooksPage(1L, null, null, null, 0, 10);
 
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent().getFirst().getId()).isEqualTo(1L);
-        verify(contentRestrictionService).applyRestrictions(anyList(), eq(1L));
+        verify(bookOpdsRepository, never()).findBookIdsByLibraryIds(anySet(), any());
     }
 
     @Test
@@ -695,7 +699,7 @@ class OpdsBookServiceTest {
 
         opdsBookService.getBooksPage(1L, null, null, null, 0, 10);
 
-        verify(contentRestrictionService, never()).applyRestrictions(anyList(), eq(1L));
+        verify(contentRestrictionService, never()).restrictionSpecification(1L);
     }
 
     @Test
@@ -721,7 +725,7 @@ class OpdsBookServiceTest {
 
         opdsBookService.getRecentBooksPage(2L, 0, 10);
 
-        verify(contentRestrictionService).applyRestrictions(anyList(), eq(2L));
+        verify(contentRestrictionService).restrictionSpecification(2L);
     }
 
     @Test
@@ -738,7 +742,7 @@ class OpdsBookServiceTest {
 
         opdsBookService.getRecentBooksPage(1L, 0, 10);
 
-        verify(contentRestrictionService, never()).applyRestrictions(anyList(), eq(1L));
+        verify(contentRestrictionService, never()).restrictionSpecification(1L);
     }
 
     @Test
@@ -793,18 +797,18 @@ class OpdsBookServiceTest {
         when(bookMapper.toBook(book1)).thenReturn(Book.builder().id(1L).build());
         when(bookMapper.toBook(book3)).thenReturn(Book.builder().id(3L).build());
 
-        when(bookOpdsRepository.findBookIdsByLibraryIds(anySet(), any()))
-                .thenReturn(new PageImpl<>(List.of(1L, 2L, 3L)));
+        Specification<BookEntity> restrictions = (root, query, cb) -> cb.conjunction();
+        when(contentRestrictionService.restrictionSpecification(3L)).thenReturn(restrictions);
+        when(bookOpdsRepository.findIds(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(3L, 1L), PageRequest.of(0, 2), 5));
         when(bookOpdsRepository.findAllWithMetadataByIdsAndLibraryIds(anyList(), anySet()))
-                .thenReturn(List.of(book1, book2, book3));
-
-        when(contentRestrictionService.applyRestrictions(anyList(), eq(3L)))
                 .thenReturn(List.of(book1, book3));
 
-        Page<Book> result = opdsBookService.getBooksPage(3L, null, null, null, 0, 10);
+        Page<Book> result = opdsBookService.getBooksPage(3L, null, null, null, 0, 2);
 
-        assertThat(result.getContent()).hasSize(2);
-        assertThat(result.getContent()).extracting(Book::getId).containsExactly(1L, 3L);
+        assertThat(result.getContent()).extracting(Book::getId).containsExactly(3L, 1L);
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        verify(contentRestrictionService, never()).applyRestrictions(anyList(), eq(3L));
     }
 
 }
@@ -1,12 +1,16 @@
 package org.booklore.service;
 
+import org.booklore.config.AppProperties;
 import org.booklore.model.dto.BookMetadata;
 import org.booklore.model.entity.BookEntity;
 import org.booklore.model.entity.BookMetadataEntity;
 import org.booklore.service.kobo.CbxConversionService;
 import org.booklore.service.metadata.extractor.CbxMetadataExtractor;
 import org.booklore.service.metadata.writer.CbxMetadataWriter;
+import org.booklore.service.reader.CbxArchivePool;
+import org.booklore.service.reader.CbxExtractedPageCache;
 import org.booklore.service.reader.CbxReaderService;
+import org.booklore.service.reader.ReaderMetadataCache;
 import org.booklore.repository.BookRepository;
 import org.booklore.service.appsettings.AppSettingService;
 import org.booklore.util.UnrarHelper;
@@ -76,7 +80,8 @@ class Rar5FallbackIntegrationTest {
             fileUtilsStatic.when(() -> org.booklore.util.FileUtils.getBookFullPath(book))
                     .thenReturn(cbrCopy.toString());
 
-            CbxReaderService readerService = new CbxReaderService(mockRepo);
+            CbxReaderService readerService = new CbxReaderService(mockRepo, new ReaderMetadataCache(new AppProperties()),
+                    new CbxArchivePool(new AppProperties()), new CbxExtractedPageCache(new AppProperties(), org.mockito.Mockito.mock(org.booklore.util.FileService.class)));
             List<Integer> pages = readerService.getAvailablePages(99L);
 
             assertThat(pages).hasSize(3);
@@ -98,7 +103,8 @@ class Rar5FallbackIntegrationTest {
             fileUtilsStatic.when(() -> org.booklore.util.FileUtils.getBookFullPath(book))
                     .thenReturn(cbrCopy.toString());
 
-            CbxReaderService readerService = new CbxReaderService(mockRepo);
+            CbxReaderService readerService = new CbxReaderService(mockRepo, new ReaderMetadataCache(new AppProperties()),
+                    new CbxArchivePool(new AppProperties()), new CbxExtractedPageCache(new AppProperties(), org.mockito.Mockito.mock(org.booklore.util.FileService.class)));
             ByteArrayOutputStream out = new ByteArrayOutputStream();
             readerService.streamPageImage(99L, 1, out);
 
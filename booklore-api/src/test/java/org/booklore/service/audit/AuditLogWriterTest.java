@@ -0,0 +1,153 @@
+package org.booklore.service.audit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.booklore.config.AppProperties;
+import org.booklore.model.entity.AuditLogEntity;
+import org.booklore.model.enums.AuditAction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class AuditLogWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+    private AuditLogWriter writer;
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstBatch.countDown();
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void enqueue_shouldWriteWhatQueuedUpMeanwhileInOneBatch() throws Exception {
+        holdFirstBatch();
+        writer = writer(100, 10);
+
+        writer.enqueue(entry("first"));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.enqueue(entry("second"));
+        writer.enqueue(entry("third"));
+        writer.enqueue(entry("fourth"));
+        releaseFirstBatch.countDown();
+        writer.shutdown();
+
+        assertThat(batches).containsExactly(List.of("first"), List.of("second", "third", "fourth"));
+        assertThat(counter("audit.log.written")).isEqualTo(4);
+    }
+
+    @Test
+    void enqueue_shouldSplitBacklogIntoBatchesOfTheConfiguredSize() throws Exception {
+        holdFirstBatch();
+        writer = writer(100, 2);
+
+        writer.enqueue(entry("1"));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 2; i <= 6; i++) {
+            writer.enqueue(entry(String.valueOf(i)));
+        }
+        releaseFirstBatch.countDown();
+        writer.shutdown();
+
+        assertThat(batches).containsExactly(List.of("1"), List.of("2", "3"), List.of("4", "5"), List.of("6"));
+    }
+
+    @Test
+    void enqueue_shouldDropEntriesWhileTheQueueIsFull() throws Exception {
+        holdFirstBatch();
+        writer = writer(2, 10);
+
+        writer.enqueue(entry("in flight"));
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.enqueue(entry("queued 1"));
+        writer.enqueue(entry("queued 2"));
+        writer.enqueue(entry("dropped"));
+
+        assertThat(counter("audit.log.dropped")).isEqualTo(1);
+        assertThat(counter("audit.log.queue")).isEqualTo(2);
+
+        releaseFirstBatch.countDown();
+        writer.shutdown();
+
+        assertThat(batches).flatExtracting(batch -> batch).containsExactly("in flight", "queued 1", "queued 2");
+        assertThat(counter("audit.log.written")).isEqualTo(3);
+    }
+
+    @Test
+    void write_shouldRetryOneByOneAfterAFailedBatch() {
+        doAnswer(invocation -> {
+            List<String> batch = descriptions(invocation.getArgument(1));
+            batches.add(batch);
+            if (batch.size() > 1 || batch.contains("bad")) {
+                throw new IllegalStateException("constraint violated");
+            }
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        writer = writer(100, 10);
+
+        writer.write(List.of(entry("good 1"), entry("bad"), entry("good 2")));
+
+        assertThat(batches).containsExactly(
+                List.of("good 1", "bad", "good 2"), List.of("good 1"), List.of("bad"), List.of("good 2"));
+        assertThat(counter("audit.log.written")).isEqualTo(2);
+        assertThat(counter("audit.log.failed")).isEqualTo(1);
+    }
+
+    private void holdFirstBatch() {
+        doAnswer(invocation -> {
+            batches.add(descriptions(invocation.getArgument(1)));
+            if (batches.size() == 1) {
+                firstBatchStarted.countDown();
+                releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            }
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    private AuditLogWriter writer(int queueCapacity, int batchSize) {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getAudit().setQueueCapacity(queueCapacity);
+        appProperties.getAudit().setBatchSize(batchSize);
+        return new AuditLogWriter(jdbcTemplate, mock(PlatformTransactionManager.class), mock(GeoIpService.class), appProperties);
+    }
+
+    private double counter(String name) {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        writer.bindTo(registry);
+        return name.equals("audit.log.queue")
+                ? registry.get(name).gauge().value()
+                : registry.get(name).functionCounter().count();
+    }
+
+    private static List<String> descriptions(Collection<AuditLogEntity> batch) {
+        List<String> descriptions = new ArrayList<>();
+        batch.forEach(entry -> descriptions.add(entry.getDescription()));
+        return descriptions;
+    }
+
+    private static AuditLogEntity entry(String description) {
+        return AuditLogEntity.builder()
+                .username("reader")
+                .action(AuditAction.LOGIN_SUCCESS)
+                .description(description)
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package org.booklore.service.audit;
+
+import org.booklore.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalGeoIpResolverTest {
+
+    @TempDir
+    Path dataDir;
+
+    private AppProperties appProperties;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.setPathConfig(dataDir.toString());
+    }
+
+    @Test
+    void parse_shouldReadAddressLiteralRanges() throws IOException {
+        LocalGeoIpResolver.Ranges ranges = parse("""
+                ip_start,ip_end,country
+                1.0.0.0,1.0.0.255,AU
+                8.8.8.0,8.8.8.255,us
+                2001:4860::,2001:4860:ffff:ffff:ffff:ffff:ffff:ffff,US
+                """);
+
+        assertThat(ranges.size()).isEqualTo(3);
+        assertThat(ranges.lookup(InetAddress.ofLiteral("1.0.0.7"))).isEqualTo("AU");
+        assertThat(ranges.lookup(InetAddress.ofLiteral("8.8.8.8"))).isEqualTo("US");
+        assertThat(ranges.lookup(InetAddress.ofLiteral("2001:4860:4860::8888"))).isEqualTo("US");
+        assertThat(ranges.lookup(InetAddress.ofLiteral("1.0.1.0"))).isNull();
+        assertThat(ranges.lookup(InetAddress.ofLiteral("0.255.255.255"))).isNull();
+    }
+
+    @Test
+    void parse_shouldReadDecimalRanges() throws IOException {
+        LocalGeoIpResolver.Ranges ranges = parse("""
+                "0","16777215","-","-"
+                "16777216","16777471","AU","Australia"
+                "16781312","16785407","KR","Korea, Republic of"
+                """);
+
+        assertThat(ranges.size()).isEqualTo(2);
+        assertThat(ranges.lookup(InetAddress.ofLiteral("1.0.0.1"))).isEqualTo("AU");
+        assertThat(ranges.lookup(InetAddress.ofLiteral("1.0.16.1"))).isEqualTo("KR");
+        assertThat(ranges.lookup(InetAddress.ofLiteral("0.0.0.1"))).isNull();
+    }
+
+    @Test
+    void resolve_shouldUseTheDatabaseFileFromTheDataDirectory() throws IOException {
+        Path database = dataDir.resolve("geoip/ip-country.csv");
+        Files.createDirectories(database.getParent());
+        Files.writeString(database, "81.2.69.0,81.2.69.255,GB\n");
+
+        LocalGeoIpResolver resolver = new LocalGeoIpResolver(appProperties);
+
+        assertThat(resolver.resolve(InetAddress.ofLiteral("81.2.69.160"))).isEqualTo("GB");
+        assertThat(resolver.resolve(InetAddress.ofLiteral("81.2.70.1"))).isNull();
+    }
+
+    @Test
+    void resolve_shouldReturnNullWithoutADatabase() {
+        LocalGeoIpResolver resolver = new LocalGeoIpResolver(appProperties);
+
+        assertThat(resolver.resolve(InetAddress.ofLiteral("81.2.69.160"))).isNull();
+    }
+
+    private static LocalGeoIpResolver.Ranges parse(String csv) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new StringReader(csv))) {
+            return LocalGeoIpResolver.Ranges.parse(reader);
+        }
+    }
+}
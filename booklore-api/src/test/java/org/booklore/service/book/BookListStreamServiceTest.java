@@ -0,0 +1,277 @@
+package org.booklore.service.book;
+
+import org.booklore.config.security.service.AuthenticationService;
+import org.booklore.model.dto.Book;
+import org.booklore.model.dto.BookLoreUser;
+import org.booklore.model.dto.Library;
+import org.booklore.service.restriction.ContentRestrictionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookListStreamServiceTest {
+
+    @Mock
+    private BookListViewIndex bookListViewIndex;
+    @Mock
+    private BookService bookService;
+    @Mock
+    private AuthenticationService authenticationService;
+    @Mock
+    private ContentRestrictionService contentRestrictionService;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private BookListStreamService service;
+    private BookLoreUser admin;
+
+    @BeforeEach
+    void setUp() {
+        service = new BookListStreamService(bookListViewIndex, bookService, authenticationService, contentRestrictionService, objectMapper);
+        BookLoreUser.UserPermissions permissions = new BookLoreUser.UserPermissions();
+        permissions.setAdmin(true);
+        admin = BookLoreUser.builder().id(1L).permissions(permissions).assignedLibraries(List.of()).build();
+        lenient().when(authenticationService.getAuthenticatedUser()).thenReturn(admin);
+    }
+
+    @Test
+    void streamBooks_shouldStreamFirstPageWithCursorAndEtag() {
+        when(bookListViewIndex.snapshot()).thenReturn(snapshot(100L, 100L, row(1L, 10L, 100L), row(2L, 10L, 100L), row(3L, 20L, 100L)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.streamBooks(null, 2, null, null, response);
+
+        JsonNode body = read(response);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader("ETag")).startsWith("\"" + body.get("version").asText() + "/");
+        assertThat(body.get("delta").asBoolean()).isFalse();
+        assertThat(ids(body.get("books"))).containsExactly(1L, 2L);
+        assertThat(body.get("nextCursor").asLong()).isEqualTo(2L);
+        verify(bookService).enrichWithUserState(any(), eq(admin), anyBoolean());
+    }
+
+    @Test
+    void streamBooks_shouldContinueFromCursor() {
+        when(bookListViewIndex.snapshot()).thenReturn(snapshot(100L, 100L, row(1L, 10L, 100L), row(2L, 10L, 100L), row(3L, 20L, 100L)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.streamBooks(2L, 2, null, null, response);
+
+        JsonNode body = read(response);
+        assertThat(ids(body.get("books"))).containsExactly(3L);
+        assertThat(body.has("nextCursor")).isFalse();
+    }
+
+    @Test
+    void streamBooks_shouldReturnNotModified_whenEtagMatches() {
+        when(bookListViewIndex.snapshot()).thenReturn(snapshot(100L, 100L, row(1L, 10L, 100L)));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        service.streamBooks(null, null, null, null, first);
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        service.streamBooks(null, null, null, first.getHeader("ETag"), second);
+
+        assertThat(second.getStatus()).isEqualTo(304);
+        assertThat(second.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void streamBooks_shouldNotReturnNotModified_forAnotherPageOfTheSameVersion() {
+        when(bookListViewIndex.snapshot()).thenReturn(snapshot(100L, 100L, row(1L, 10L, 100L), row(2L, 10L, 100L)));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        service.streamBooks(null, 1, null, null, first);
+
+        MockHttpServletResponse nextPage = new MockHttpServletResponse();
+        service.streamBooks(1L, 1, null, first.getHeader("ETag"), nextPage);
+        MockHttpServletResponse biggerPage = new MockHttpServletResponse();
+        service.streamBooks(null, 2, null, first.getHeader("ETag"), biggerPage);
+
+        assertThat(nextPage.getStatus()).isEqualTo(200);
+        assertThat(ids(read(nextPage).get("books"))).containsExactly(2L);
+        assertThat(biggerPage.getStatus()).isEqualTo(200);
+        assertThat(ids(read(biggerPage).get("books"))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void streamBooks_shouldTreatAStarOnItsOwnAsMatchingAnyVersion() {
+        when(bookListViewIndex.snapshot()).thenReturn(snapshot(100L, 100L, row(1L, 10L, 100L)));
+        MockHttpServletResponse star = new MockHttpServletResponse();
+        service.streamBooks(null, null, null, "*", star);
+
+        MockHttpServletResponse starInList = new MockHttpServletResponse();
+        service.streamBooks(null, null, null, "\"other\", *", starInList);
+
+        assertThat(star.getStatus()).isEqualTo(304);
+        assertThat(starInList.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void streamBooks_shouldEnrichAndWriteRowsInBatches() {
+        Object[][] rows = new Object[250][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = row(i + 1L, 10L, 100L);
+        }
+        when(bookListViewIndex.snapshot()).thenReturn(snapshot(100L, 100L, rows));
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(invocation -> batchSizes.add(invocation.<List<Book>>getArgument(0).size()))
+                .when(bookService).enrichWithUserState(any(), eq(admin), anyBoolean());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.streamBooks(null, 250, null, null, response);
+
+        assertThat(ids(read(response).get("books"))).hasSize(250).startsWith(1L).endsWith(250L);
+        assertThat(batchSizes).containsExactly(100, 100, 50);
+    }
+
+    @Test
+    void streamBooks_shouldReturnOnlyChangesAndRemovals_whenSinceIsCurrent() {
+        when(bookListViewIndex.snapshot()).thenReturn(snapshot(100L, 100L, row(1L, 10L, 100L), row(2L, 10L, 100L)));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        service.streamBooks(null, null, null, null, first);
+        String version = read(first).get("version").asText();
+
+        when(bookListViewIndex.snapshot()).thenReturn(snapshot(102L, 100L, Map.of(), Map.of(3L, revision(3L, 10L, 100L, 102L)), Map.of(),
+                row(1L, 10L, 100L), row(2L, 10L, 101L)));
+        MockHttpServletResponse delta = new MockHttpServletResponse();
+        service.streamBooks(null, null, version, null, delta);
+
+        JsonNode body = read(delta);
+        assertThat(body.get("delta").asBoolean()).isTrue();
+        assertThat(ids(body.get("books"))).containsExactly(2L);
+        assertThat(ids(body.get("removed"))).containsExactly(3L);
+    }
+
+    @Test
+    void streamBooks_shouldOnlyReportRemovalsOfBooksTheUserCouldSee() {
+        BookLoreUser reader = reader();
+        when(authenticationService.getAuthenticatedUser()).thenReturn(reader);
+        when(bookListViewIndex.snapshot()).thenReturn(
+                snapshot(100L, 100L, row(3L, 20L, 100L), row(4L, 20L, 100L)),
+                snapshot(104L, 100L,
+                        // book 1 changed in another library, book 4 moved out of the reader's library
+                        Map.of(1L, revision(1L, 10L, 100L, 101L), 4L, revision(4L, 20L, 100L, 102L)),
+                        // book 5 was deleted from another library, book 6 from the reader's
+                        Map.of(5L, revision(5L, 10L, 100L, 103L), 6L, revision(6L, 20L, 100L, 104L)),
+                        Map.of(),
+                        row(1L, 10L, 101L), row(3L, 20L, 100L), row(4L, 10L, 102L)));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        service.streamBooks(null, null, null, null, first);
+        String version = read(first).get("version").asText();
+
+        MockHttpServletResponse delta = new MockHttpServletResponse();
+        service.streamBooks(null, null, version, null, delta);
+
+        JsonNode body = read(delta);
+        assertThat(body.get("delta").asBoolean()).isTrue();
+        assertThat(ids(body.get("books"))).isEmpty();
+        assertThat(ids(body.get("removed"))).containsExactlyInAnyOrder(4L, 6L);
+        assertThat(body.get("version").asText()).startsWith("104-");
+    }
+
+    @Test
+    void streamBooks_shouldKeepTheEtag_whenOnlyOtherLibrariesAndOtherUsersChange() {
+        BookLoreUser reader = reader();
+        when(authenticationService.getAuthenticatedUser()).thenReturn(reader);
+        when(bookListViewIndex.snapshot()).thenReturn(
+                snapshot(100L, 100L, row(3L, 20L, 100L)),
+                snapshot(105L, 100L, Map.of(), Map.of(), Map.of(99L, Map.of(3L, 105L)), row(1L, 10L, 104L), row(3L, 20L, 100L)),
+                snapshot(106L, 100L, Map.of(), Map.of(), Map.of(2L, Map.of(3L, 106L)), row(1L, 10L, 104L), row(3L, 20L, 100L)));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        service.streamBooks(null, null, null, null, first);
+        String version = read(first).get("version").asText();
+
+        MockHttpServletResponse unchanged = new MockHttpServletResponse();
+        service.streamBooks(null, null, null, first.getHeader("ETag"), unchanged);
+        MockHttpServletResponse ownProgress = new MockHttpServletResponse();
+        service.streamBooks(null, null, version, null, ownProgress);
+
+        assertThat(unchanged.getStatus()).isEqualTo(304);
+        JsonNode body = read(ownProgress);
+        assertThat(body.get("version").asText()).startsWith("106-");
+        assertThat(ids(body.get("books"))).containsExactly(3L);
+        assertThat(ids(body.get("removed"))).isEmpty();
+    }
+
+    @Test
+    void streamBooks_shouldFallBackToFullList_whenSinceIsOlderThanLastRebuild() {
+        when(bookListViewIndex.snapshot()).thenReturn(snapshot(200L, 150L, row(1L, 10L, 150L), row(2L, 10L, 160L)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.streamBooks(null, null, "100-1.0", null, response);
+
+        JsonNode body = read(response);
+        assertThat(body.get("delta").asBoolean()).isFalse();
+        assertThat(ids(body.get("books"))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void streamBooks_shouldOnlyIncludeAssignedLibraries_forNonAdmin() {
+        when(authenticationService.getAuthenticatedUser()).thenReturn(reader());
+        when(bookListViewIndex.snapshot()).thenReturn(snapshot(100L, 100L, row(1L, 10L, 100L), row(3L, 20L, 100L)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        service.streamBooks(null, null, null, null, response);
+
+        assertThat(ids(read(response).get("books"))).containsExactly(3L);
+    }
+
+    private BookLoreUser reader() {
+        BookLoreUser.UserPermissions permissions = new BookLoreUser.UserPermissions();
+        lenient().when(contentRestrictionService.getUserRestrictions(2L)).thenReturn(List.of());
+        return BookLoreUser.builder().id(2L).permissions(permissions)
+                .assignedLibraries(List.of(Library.builder().id(20L).build())).build();
+    }
+
+    private BookListViewIndex.Snapshot snapshot(long version, long baseline, Object[]... rows) {
+        return snapshot(version, baseline, Map.of(), Map.of(), Map.of(), rows);
+    }
+
+    private BookListViewIndex.Snapshot snapshot(long version, long baseline, Map<Long, BookListViewIndex.Revision> history,
+                                                Map<Long, BookListViewIndex.Revision> tombstones,
+                                                Map<Long, Map<Long, Long>> touches, Object[]... rows) {
+        List<Book> books = new ArrayList<>();
+        Map<Long, Long> versions = new HashMap<>();
+        for (Object[] row : rows) {
+            books.add((Book) row[0]);
+            versions.put(((Book) row[0]).getId(), (Long) row[1]);
+        }
+        return BookListViewIndex.Snapshot.of(books, versions, version, baseline, history, tombstones, touches);
+    }
+
+    private Object[] row(Long id, Long libraryId, Long version) {
+        return new Object[]{book(id, libraryId), version};
+    }
+
+    private BookListViewIndex.Revision revision(Long id, Long libraryId, long from, long until) {
+        return new BookListViewIndex.Revision(from, until, book(id, libraryId), null);
+    }
+
+    private Book book(Long id, Long libraryId) {
+        return Book.builder().id(id).libraryId(libraryId).title("Book " + id).build();
+    }
+
+    private JsonNode read(MockHttpServletResponse response) {
+        return objectMapper.readTree(response.getContentAsByteArray());
+    }
+
+    private List<Long> ids(JsonNode array) {
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode node : array) {
+            ids.add(node.isObject() ? node.get("id").asLong() : node.asLong());
+        }
+        return ids;
+    }
+}
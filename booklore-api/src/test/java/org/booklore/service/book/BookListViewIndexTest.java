@@ -0,0 +1,199 @@
+package org.booklore.service.book;
+
+import org.booklore.mapper.v2.BookMapperV2;
+import org.booklore.model.dto.Book;
+import org.booklore.model.dto.BookMetadata;
+import org.booklore.model.dto.Shelf;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookListViewIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private BookMapperV2 bookMapperV2;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<Long, Book> database = new TreeMap<>();
+    private BookListViewIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookListViewIndex(bookRepository, bookMapperV2, transactionManager);
+
+        lenient().when(bookRepository.findAllActiveBookIds()).thenAnswer(inv -> new ArrayList<>(database.keySet()));
+        lenient().when(bookRepository.findAllWithMetadataByIds(anySet())).thenAnswer(inv -> {
+            Set<Long> ids = inv.getArgument(0);
+            return ids.stream()
+                    .filter(database::containsKey)
+                    .map(id -> BookEntity.builder().id(id).build())
+                    .collect(Collectors.toList());
+        });
+        lenient().when(bookMapperV2.toDTO(any(BookEntity.class))).thenAnswer(inv -> {
+            Book stored = database.get(((BookEntity) inv.getArgument(0)).getId());
+            return stored.toBuilder()
+                    .metadata(BookMetadata.builder()
+                            .title(stored.getTitle())
+                            .description("long description")
+                            .authors(new LinkedHashSet<>(List.of("Author " + stored.getLibraryId())))
+                            .build())
+                    .shelves(stored.getShelves() == null ? null : new HashSet<>(stored.getShelves()))
+                    .build();
+        });
+    }
+
+    @Test
+    void getBooks_shouldBuildOnceAndFilterByLibrary() {
+        store(1L, 10L, "Dune");
+        store(2L, 20L, "Emma");
+        store(3L, 10L, "Ulysses");
+
+        assertThat(index.getBooks(null)).extracting(Book::getId).containsExactly(1L, 2L, 3L);
+        assertThat(index.getBooks(Set.of(10L))).extracting(Book::getId).containsExactly(1L, 3L);
+
+        verify(bookRepository, times(1)).findAllActiveBookIds();
+        verify(bookRepository, times(1)).findAllWithMetadataByIds(anySet());
+    }
+
+    @Test
+    void getBooks_shouldStripDescriptionAndInternRepeatedStrings() {
+        store(1L, 10L, "Dune");
+        store(2L, 10L, "Dune Messiah");
+
+        List<Book> books = index.getBooks(null);
+
+        assertThat(books).allSatisfy(book -> assertThat(book.getMetadata().getDescription()).isNull());
+        String first = books.get(0).getMetadata().getAuthors().iterator().next();
+        String second = books.get(1).getMetadata().getAuthors().iterator().next();
+        assertThat(first).isSameAs(second);
+    }
+
+    @Test
+    void getBooks_shouldReturnIndependentTopLevelCopies() {
+        store(1L, 10L, "Dune");
+
+        index.getBooks(null).getFirst().setReadStatus("READ");
+
+        assertThat(index.getBooks(null).getFirst().getReadStatus()).isNull();
+    }
+
+    @Test
+    void invalidate_shouldReloadOnlyDirtyRows() {
+        store(1L, 10L, "Dune");
+        store(2L, 10L, "Emma");
+        index.getBooks(null);
+
+        store(2L, 10L, "Emma (Revised)");
+        store(3L, 10L, "Ulysses");
+        index.invalidate(List.of(2L, 3L));
+
+        assertThat(index.getBooks(null)).extracting(Book::getTitle).containsExactly("Dune", "Emma (Revised)", "Ulysses");
+        verify(bookRepository, times(1)).findAllActiveBookIds();
+        verify(bookRepository).findAllWithMetadataByIds(Set.of(2L, 3L));
+    }
+
+    @Test
+    void invalidate_shouldDropDeletedBooks() {
+        store(1L, 10L, "Dune");
+        store(2L, 10L, "Emma");
+        index.getBooks(null);
+
+        database.remove(2L);
+        index.invalidate(2L);
+
+        assertThat(index.getBooks(null)).extracting(Book::getId).containsExactly(1L);
+    }
+
+    @Test
+    void invalidate_shouldRefreshOtherMembersWhenShelfMembershipChanges() {
+        Shelf shelf = Shelf.builder().id(5L).name("Favourites").userId(1L).bookCount(1).build();
+        store(1L, 10L, "Dune").setShelves(Set.of(shelf));
+        store(2L, 10L, "Emma");
+        store(3L, 10L, "Ulysses");
+        index.getBooks(null);
+
+        Shelf grown = Shelf.builder().id(5L).name("Favourites").userId(1L).bookCount(2).build();
+        database.get(1L).setShelves(Set.of(grown));
+        database.get(2L).setShelves(Set.of(grown));
+        index.invalidate(2L);
+
+        List<Book> books = index.getBooks(null);
+        assertThat(books.get(0).getShelves()).extracting(Shelf::getBookCount).containsExactly(2);
+        assertThat(books.get(1).getShelves()).extracting(Shelf::getBookCount).containsExactly(2);
+        verify(bookRepository).findAllWithMetadataByIds(Set.of(1L));
+    }
+
+    @Test
+    void snapshot_shouldBumpVersionsAndRecordTombstones() {
+        store(1L, 10L, "Dune");
+        store(2L, 10L, "Emma");
+        BookListViewIndex.Snapshot initial = index.snapshot();
+
+        database.remove(2L);
+        index.invalidate(2L);
+        index.touch(7L, List.of(1L));
+        BookListViewIndex.Snapshot next = index.snapshot();
+
+        assertThat(next.version()).isGreaterThan(initial.version());
+        assertThat(next.baselineVersion()).isEqualTo(initial.baselineVersion());
+        assertThat(next.versions()[next.indexOf(1L)]).isEqualTo(initial.version());
+        assertThat(next.touchesOf(7L)).containsOnly(Map.entry(1L, next.version()));
+        assertThat(next.touchesOf(8L)).isEmpty();
+        assertThat(next.tombstones().get(2L).until()).isEqualTo(next.version());
+        assertThat(next.tombstones().get(2L).row().getTitle()).isEqualTo("Emma");
+    }
+
+    @Test
+    void snapshot_shouldKeepEarlierRowStatesForDeltas() {
+        store(1L, 10L, "Dune");
+        BookListViewIndex.Snapshot initial = index.snapshot();
+
+        store(1L, 20L, "Dune");
+        store(2L, 10L, "Emma");
+        index.invalidate(List.of(1L, 2L));
+        BookListViewIndex.Snapshot moved = index.snapshot();
+        store(1L, 30L, "Dune");
+        index.invalidate(1L);
+        BookListViewIndex.Snapshot next = index.snapshot();
+
+        assertThat(next.rowAt(next.indexOf(1L), initial.version()).getLibraryId()).isEqualTo(10L);
+        assertThat(next.rowAt(next.indexOf(1L), moved.version()).getLibraryId()).isEqualTo(20L);
+        assertThat(next.rowAt(next.indexOf(1L), next.version()).getLibraryId()).isEqualTo(30L);
+        assertThat(next.rowAt(next.indexOf(2L), initial.version())).isNull();
+    }
+
+    @Test
+    void invalidateAll_shouldRebuildFromScratch() {
+        store(1L, 10L, "Dune");
+        index.getBooks(null);
+
+        store(2L, 10L, "Emma");
+        index.invalidateAll();
+
+        assertThat(index.getBooks(null)).extracting(Book::getId).containsExactly(1L, 2L);
+        verify(bookRepository, times(2)).findAllActiveBookIds();
+    }
+
+    private Book store(Long id, Long libraryId, String title) {
+        Book book = Book.builder().id(id).libraryId(libraryId).title(title).build();
+        database.put(id, book);
+        return book;
+    }
+}
@@ -0,0 +1,114 @@
+package org.booklore.service.book;
+
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookFileEntity;
+import org.booklore.model.enums.BookFileType;
+import org.booklore.repository.BookRepository;
+import org.booklore.repository.projection.BookCoverVersionProjection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookMediaCacheValidatorTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @InjectMocks
+    private BookMediaCacheValidator validator;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void checkCoverNotModified_shouldAnswer304ForCurrentCoverTag() {
+        stubCoverVersion("cover-hash", Instant.ofEpochMilli(0x1000));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/media/book/1/cover");
+        request.addHeader("If-None-Match", "\"cover-hash-1000\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean notModified = validator.checkCoverNotModified(1L, BookMediaCacheValidator.CoverType.COVER, new ServletWebRequest(request, response));
+
+        assertThat(notModified).isTrue();
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getHeader("Cache-Control")).isEqualTo(BookMediaCacheValidator.REVALIDATED);
+    }
+
+    @Test
+    void checkCoverNotModified_shouldTagThumbnailsSeparatelyAndCacheVersionedLinksForever() {
+        stubCoverVersion("cover-hash", Instant.ofEpochMilli(0x1000));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/media/book/1/thumbnail");
+        request.addParameter("2025-01-01T00:00:00Z", "");
+        request.addParameter("token", "jwt");
+        request.addHeader("If-None-Match", "\"cover-hash-1000\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean notModified = validator.checkCoverNotModified(1L, BookMediaCacheValidator.CoverType.THUMBNAIL, new ServletWebRequest(request, response));
+
+        assertThat(notModified).isFalse();
+        assertThat(response.getHeader("ETag")).isEqualTo("\"cover-hash-1000-thumbnail\"");
+        assertThat(response.getHeader("Cache-Control")).isEqualTo(BookMediaCacheValidator.IMMUTABLE);
+    }
+
+    @Test
+    void checkPageNotModified_shouldTagPagesByFileHashModificationTimeAndPage() throws IOException {
+        Path cbz = Files.write(tempDir.resolve("book.cbz"), new byte[]{1});
+        long lastModified = Files.getLastModifiedTime(cbz).toMillis();
+        stubBookFile(cbz, "file-hash");
+        String pageTag = "\"file-hash-" + Long.toHexString(lastModified) + "-p3\"";
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/media/book/1/cbx/pages/3");
+        request.addHeader("If-None-Match", pageTag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(validator.checkPageNotModified(1L, null, 3, null, new ServletWebRequest(request, response))).isTrue();
+        assertThat(response.getStatus()).isEqualTo(304);
+
+        MockHttpServletResponse otherPage = new MockHttpServletResponse();
+        assertThat(validator.checkPageNotModified(1L, null, 4, null, new ServletWebRequest(request, otherPage))).isFalse();
+        assertThat(otherPage.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void checkPageNotModified_shouldSkipValidationWhenFileHashUnknown() throws IOException {
+        Path cbz = Files.write(tempDir.resolve("book.cbz"), new byte[]{1});
+        stubBookFile(cbz, null);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/media/book/1/cbx/pages/1");
+        request.addHeader("If-None-Match", "*");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(validator.checkPageNotModified(1L, null, 1, null, new ServletWebRequest(request, response))).isFalse();
+        assertThat(response.getHeader("ETag")).isNull();
+    }
+
+    private void stubCoverVersion(String hash, Instant updatedOn) {
+        BookCoverVersionProjection version = mock(BookCoverVersionProjection.class);
+        lenient().when(version.getBookCoverHash()).thenReturn(hash);
+        lenient().when(version.getCoverUpdatedOn()).thenReturn(updatedOn);
+        when(bookRepository.findCoverVersionById(1L)).thenReturn(Optional.of(version));
+    }
+
+    private void stubBookFile(Path file, String hash) {
+        BookFileEntity bookFile = spy(BookFileEntity.builder().bookType(BookFileType.CBX).currentHash(hash).build());
+        lenient().doReturn(file).when(bookFile).getFullFilePath();
+        BookEntity book = BookEntity.builder().id(1L).bookFiles(new ArrayList<>(List.of(bookFile))).build();
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+    }
+}
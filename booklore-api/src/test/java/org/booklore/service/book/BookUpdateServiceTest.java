@@ -48,6 +48,8 @@ class BookUpdateServiceTest {
     private ReadingProgressService readingProgressService;
     @Mock
     private EbookViewerPreferenceRepository ebookViewerPreferenceRepository;
+    @Mock
+    private BookListViewIndex bookListViewIndex;
 
     @InjectMocks
     private BookUpdateService bookUpdateService;
@@ -67,7 +69,8 @@ class BookUpdateServiceTest {
                 authenticationService,
                 bookQueryService,
                 readingProgressService,
-                ebookViewerPreferenceRepository
+                ebookViewerPreferenceRepository,
+                bookListViewIndex
         );
     }
 
@@ -0,0 +1,106 @@
+package org.booklore.service.event;
+
+import org.booklore.config.AppProperties;
+import org.booklore.model.dto.Book;
+import org.booklore.model.websocket.BookEventBatchPayload;
+import org.booklore.model.websocket.LogNotification;
+import org.booklore.model.websocket.Topic;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookEventBroadcasterTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+    @Mock
+    private BookEventRecipients recipients;
+
+    private BookEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties appProperties = new AppProperties();
+        // long window so only the explicit flush() calls send
+        appProperties.getBookEvents().setWindowMillis(60_000);
+        appProperties.getBookEvents().setMaxBatchSize(100);
+        appProperties.getBookEvents().setMaxPendingBooks(100);
+        broadcaster = new BookEventBroadcaster(messagingTemplate, recipients, appProperties);
+        lenient().when(recipients.libraryAccess()).thenReturn(new BookEventRecipients.LibraryAccess(
+                Set.of("admin"), Map.of(1L, Set.of("reader"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void flush_shouldSendOneCoalescedBatchPerUserWithAccess() {
+        broadcaster.broadcastBookAddEvent(book(10L, 1L, "first"));
+        broadcaster.broadcastBookUpdateEvent(book(10L, 1L, "first-updated"));
+        broadcaster.broadcastBookAddEvent(book(11L, 1L, "second"));
+        broadcaster.broadcastBooksRemoveEvent(1L, List.of(11L));
+        broadcaster.broadcastBookAddEvent(book(20L, 2L, "other library"));
+
+        broadcaster.flush();
+
+        BookEventBatchPayload readerBatch = sentBatch("reader");
+        assertThat(readerBatch.added()).extracting(Book::getId).containsExactly(10L);
+        assertThat(readerBatch.added().getFirst().getTitle()).isEqualTo("first-updated");
+        assertThat(readerBatch.removed()).containsExactly(11L);
+        assertThat(readerBatch.resync()).isFalse();
+
+        BookEventBatchPayload adminBatch = sentBatch("admin");
+        assertThat(adminBatch.added()).extracting(Book::getId).containsExactly(10L, 20L);
+        verify(messagingTemplate).convertAndSendToUser(eq("admin"), eq(Topic.LOG.getPath()), any(LogNotification.class));
+    }
+
+    @Test
+    void flush_shouldSendNothingForAnEmptyWindow() {
+        broadcaster.flush();
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void publish_shouldAskForResyncWhenTooManyBooksArePending() {
+        // the size threshold hands the batch to the sender thread; stop it so this test flushes by hand
+        broadcaster.shutdown();
+        for (long id = 1; id <= 100; id++) {
+            broadcaster.broadcastBookAddEvent(book(id, 1L, "book " + id));
+        }
+        broadcaster.broadcastBookAddEvent(book(101L, 1L, "ignored until the reload"));
+
+        broadcaster.flush();
+
+        BookEventBatchPayload readerBatch = sentBatch("reader");
+        assertThat(readerBatch.resync()).isTrue();
+        assertThat(readerBatch.added()).isEmpty();
+    }
+
+    private BookEventBatchPayload sentBatch(String username) {
+        ArgumentCaptor<BookEventBatchPayload> captor = ArgumentCaptor.forClass(BookEventBatchPayload.class);
+        verify(messagingTemplate).convertAndSendToUser(eq(username), eq(Topic.BOOKS_BATCH.getPath()), captor.capture());
+        return captor.getValue();
+    }
+
+    private static Book book(long id, long libraryId, String title) {
+        return Book.builder().id(id).libraryId(libraryId).title(title).build();
+    }
+}
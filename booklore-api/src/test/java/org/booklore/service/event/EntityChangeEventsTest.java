@@ -0,0 +1,106 @@
+package org.booklore.service.event;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.LibraryEntity;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EntityChangeEventsTest {
+
+    private EntityChangeEvents events;
+
+    @BeforeEach
+    void setUp() {
+        events = new EntityChangeEvents(mock(EntityManagerFactory.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void onPostUpdate_shouldPassTheEntityAndChangeToListeners() {
+        List<String> seen = new ArrayList<>();
+        events.addListener((entity, change) -> seen.add(entity.getClass().getSimpleName() + ":" + change));
+        BookEntity book = BookEntity.builder().id(1L).build();
+
+        events.onPostInsert(insertOf(book));
+        events.onPostUpdate(updateOf(book));
+
+        assertThat(seen).containsExactly("BookEntity:INSERTED", "BookEntity:UPDATED");
+    }
+
+    @Test
+    void onCommit_shouldRunOnceAfterCommitForMatchingEntities() {
+        AtomicInteger runs = new AtomicInteger();
+        events.onCommit(entity -> entity instanceof LibraryEntity, runs::incrementAndGet);
+        TransactionSynchronizationManager.initSynchronization();
+
+        events.onPostUpdate(updateOf(new LibraryEntity()));
+        events.onPostUpdate(updateOf(new LibraryEntity()));
+        events.onPostUpdate(updateOf(BookEntity.builder().id(1L).build()));
+        assertThat(runs).hasValue(0);
+
+        commit();
+
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void afterCommit_shouldRunRightAwayOutsideATransaction() {
+        AtomicInteger runs = new AtomicInteger();
+
+        events.afterCommit(runs::incrementAndGet);
+
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void afterCommit_shouldRunTheRemainingActionsWhenOneFails() {
+        AtomicInteger runs = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+
+        events.afterCommit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        events.afterCommit(runs::incrementAndGet);
+        commit();
+
+        assertThat(runs).hasValue(1);
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+    }
+
+    private static PostInsertEvent insertOf(Object entity) {
+        PostInsertEvent event = mock(PostInsertEvent.class);
+        when(event.getEntity()).thenReturn(entity);
+        return event;
+    }
+
+    private static PostUpdateEvent updateOf(Object entity) {
+        PostUpdateEvent event = mock(PostUpdateEvent.class);
+        when(event.getEntity()).thenReturn(entity);
+        return event;
+    }
+}
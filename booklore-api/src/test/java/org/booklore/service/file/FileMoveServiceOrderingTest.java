@@ -15,6 +15,7 @@ import org.booklore.repository.BookAdditionalFileRepository;
 import org.booklore.repository.BookRepository;
 import org.booklore.repository.LibraryRepository;
 import org.booklore.service.NotificationService;
+import org.booklore.service.book.BookListViewIndex;
 import org.booklore.service.metadata.sidecar.SidecarMetadataWriter;
 import org.booklore.service.monitoring.MonitoringRegistrationService;
 import org.junit.jupiter.api.BeforeEach;
@@ -59,6 +60,7 @@ class FileMoveServiceOrderingTest {
     @Mock private EntityManager entityManager;
     @Mock private TransactionTemplate transactionTemplate;
     @Mock private SidecarMetadataWriter sidecarMetadataWriter;
+    @Mock private BookListViewIndex bookListViewIndex;
 
     private FileMoveService service;
     private LibraryEntity library;
@@ -69,9 +71,9 @@ class FileMoveServiceOrderingTest {
                                 LibraryRepository libraryRepository, FileMoveHelper fileMoveHelper,
                                 MonitoringRegistrationService monitoringRegistrationService, LibraryMapper libraryMapper,
                                 BookMapper bookMapper, NotificationService notificationService, EntityManager entityManager,
-                                TransactionTemplate transactionTemplate, SidecarMetadataWriter sidecarMetadataWriter) {
+                                TransactionTemplate transactionTemplate, SidecarMetadataWriter sidecarMetadataWriter, BookListViewIndex bookListViewIndex) {
             super(appProperties, bookRepository, bookFileRepository, libraryRepository, fileMoveHelper,
-                    monitoringRegistrationService, libraryMapper, bookMapper, notificationService, entityManager, transactionTemplate, sidecarMetadataWriter);
+                    monitoringRegistrationService, libraryMapper, bookMapper, notificationService, entityManager, transactionTemplate, sidecarMetadataWriter, bookListViewIndex);
         }
 
         @Override
@@ -91,7 +93,7 @@ class FileMoveServiceOrderingTest {
         }).when(transactionTemplate).executeWithoutResult(any());
 
         service = spy(new TestableFileMoveService(appProperties, bookRepository, bookFileRepository, libraryRepository,
-                fileMoveHelper, monitoringRegistrationService, libraryMapper, bookMapper, notificationService, entityManager, transactionTemplate, sidecarMetadataWriter));
+                fileMoveHelper, monitoringRegistrationService, libraryMapper, bookMapper, notificationService, entityManager, transactionTemplate, sidecarMetadataWriter, bookListViewIndex));
 
         library = new LibraryEntity();
         library.setId(1L);
@@ -1,7 +1,9 @@
 package org.booklore.service.kobo;
 
+import org.booklore.model.entity.AuthorEntity;
 import org.booklore.model.entity.BookEntity;
 import org.booklore.model.entity.BookMetadataEntity;
+import org.booklore.model.entity.TagEntity;
 import freemarker.template.TemplateException;
 import com.github.junrar.exception.RarException;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
@@ -20,6 +22,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -152,6 +155,27 @@ class CbxConversionServiceTest {
         verifyEpubStructure(epubFile);
     }
 
+    @Test
+    void metadataFingerprint_ShouldNotDependOnTheOrderOfAuthorsAndTags() {
+        testBookEntity.getMetadata().setAuthors(new LinkedHashSet<>(List.of(author("Moore"), author("Gibbons"))));
+        testBookEntity.getMetadata().setTags(new LinkedHashSet<>(List.of(tag("noir"), tag("classic"))));
+        String fingerprint = cbxConversionService.metadataFingerprint(testBookEntity);
+
+        testBookEntity.getMetadata().setAuthors(new LinkedHashSet<>(List.of(author("Gibbons"), author("Moore"))));
+        testBookEntity.getMetadata().setTags(new LinkedHashSet<>(List.of(tag("classic"), tag("noir"))));
+
+        assertThat(cbxConversionService.metadataFingerprint(testBookEntity)).isEqualTo(fingerprint);
+        assertThat(fingerprint).doesNotContain("urn:uuid");
+    }
+
+    private static AuthorEntity author(String name) {
+        return AuthorEntity.builder().name(name).build();
+    }
+
+    private static TagEntity tag(String name) {
+        return TagEntity.builder().name(name).build();
+    }
+
     private File createTestCbzFile() throws IOException {
         File cbzFile = Files.createFile(tempDir.resolve("test-comic.cbz")).toFile();
         
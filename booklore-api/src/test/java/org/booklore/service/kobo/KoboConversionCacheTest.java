@@ -0,0 +1,184 @@
+package org.booklore.service.kobo;
+
+import org.booklore.config.AppProperties;
+import org.booklore.model.dto.settings.KoboSettings;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookFileEntity;
+import org.booklore.model.entity.LibraryPathEntity;
+import org.booklore.model.enums.BookFileType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+class KoboConversionCacheTest {
+
+    @TempDir
+    Path dataDir;
+
+    @TempDir
+    Path libraryDir;
+
+    private AppProperties appProperties;
+    private KepubConversionService kepubConversionService;
+    private CbxConversionService cbxConversionService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        appProperties = new AppProperties();
+        appProperties.setPathConfig(dataDir.toString());
+        kepubConversionService = mock(KepubConversionService.class);
+        cbxConversionService = mock(CbxConversionService.class);
+        when(kepubConversionService.convertEpubToKepub(any(), any(), anyBoolean())).thenAnswer(invocation -> {
+            File source = invocation.getArgument(0);
+            File output = new File(invocation.<File>getArgument(1), source.getName().replace(".epub", ".kepub.epub"));
+            Files.writeString(output.toPath(), "kepub of " + source.getName() + ", hyphenate=" + invocation.getArgument(2));
+            return output;
+        });
+    }
+
+    @Test
+    void prepare_shouldConvertOnceAndServeLaterDownloadsFromTheCache() throws Exception {
+        KoboConversionCache cache = new KoboConversionCache(appProperties, kepubConversionService, cbxConversionService);
+        BookEntity book = book(1L, "book.epub", "hash-1");
+
+        File first;
+        try (KoboConversionCache.Delivery delivery = cache.prepare(book, kepubSettings(false))) {
+            first = delivery.file();
+        }
+        File second;
+        try (KoboConversionCache.Delivery delivery = cache.prepare(book, kepubSettings(false))) {
+            second = delivery.file();
+        }
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.getName()).isEqualTo("book.kepub.epub");
+        assertThat(second.toPath()).startsWith(dataDir).hasContent("kepub of book.epub, hyphenate=false");
+        verify(kepubConversionService, times(1)).convertEpubToKepub(any(), any(), anyBoolean());
+    }
+
+    @Test
+    void prepare_shouldConvertAgainWhenTheSourceOrSettingsChange() throws Exception {
+        KoboConversionCache cache = new KoboConversionCache(appProperties, kepubConversionService, cbxConversionService);
+        BookEntity book = book(1L, "book.epub", "hash-1");
+
+        cache.prepare(book, kepubSettings(false)).close();
+        File hyphenated = cache.prepare(book, kepubSettings(true)).file();
+        book.getPrimaryBookFile().setCurrentHash("hash-2");
+        cache.prepare(book, kepubSettings(true)).close();
+
+        assertThat(hyphenated.toPath()).hasContent("kepub of book.epub, hyphenate=true");
+        verify(kepubConversionService, times(3)).convertEpubToKepub(any(), any(), anyBoolean());
+    }
+
+    @Test
+    void prepare_shouldShareOneConversionBetweenConcurrentRequests() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            File output = new File(invocation.<File>getArgument(1), "book.kepub.epub");
+            Files.writeString(output.toPath(), "kepub");
+            return output;
+        }).when(kepubConversionService).convertEpubToKepub(any(), any(), anyBoolean());
+        KoboConversionCache cache = new KoboConversionCache(appProperties, kepubConversionService, cbxConversionService);
+        BookEntity book = book(1L, "book.epub", "hash-1");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<File> first = executor.submit(() -> cache.prepare(book, kepubSettings(false)).file());
+            started.await(5, TimeUnit.SECONDS);
+            Future<File> second = executor.submit(() -> cache.prepare(book, kepubSettings(false)).file());
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(first.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(kepubConversionService, times(1)).convertEpubToKepub(any(), any(), anyBoolean());
+    }
+
+    @Test
+    void prepare_shouldSendTheBookFileWhenNoConversionIsConfigured() throws Exception {
+        KoboConversionCache cache = new KoboConversionCache(appProperties, kepubConversionService, cbxConversionService);
+        BookEntity book = book(1L, "book.epub", "hash-1");
+
+        try (KoboConversionCache.Delivery delivery = cache.prepare(book, KoboSettings.builder().convertToKepub(false).build())) {
+            assertThat(delivery.file().toPath()).isEqualTo(libraryDir.resolve("book.epub"));
+        }
+        verifyNoInteractions(kepubConversionService, cbxConversionService);
+    }
+
+    @Test
+    void prepare_shouldConvertIntoATemporaryDirectoryWhenDisabled() throws Exception {
+        appProperties.getKoboConversionCache().setEnabled(false);
+        KoboConversionCache cache = new KoboConversionCache(appProperties, kepubConversionService, cbxConversionService);
+        BookEntity book = book(1L, "book.epub", "hash-1");
+
+        File converted;
+        try (KoboConversionCache.Delivery delivery = cache.prepare(book, kepubSettings(false))) {
+            converted = delivery.file();
+            assertThat(converted).exists();
+        }
+
+        assertThat(converted).doesNotExist();
+        assertThat(dataDir).isEmptyDirectory();
+    }
+
+    @Test
+    void evict_shouldRemoveTheLeastRecentlyUsedEntriesOverTheSizeBound() throws Exception {
+        appProperties.getKoboConversionCache().setMaxSizeMb(1);
+        doAnswer(invocation -> {
+            File source = invocation.getArgument(0);
+            File output = new File(invocation.<File>getArgument(1), source.getName() + ".kepub.epub");
+            Files.write(output.toPath(), new byte[600 * 1024]);
+            return output;
+        }).when(kepubConversionService).convertEpubToKepub(any(), any(), anyBoolean());
+        KoboConversionCache cache = new KoboConversionCache(appProperties, kepubConversionService, cbxConversionService);
+        File older = cache.prepare(book(1L, "older.epub", "hash-1"), kepubSettings(false)).file();
+        File newer = cache.prepare(book(2L, "newer.epub", "hash-2"), kepubSettings(false)).file();
+        Files.setLastModifiedTime(older.toPath(), FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        Files.setLastModifiedTime(newer.toPath(), FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+
+        cache.evict();
+
+        assertThat(older).doesNotExist();
+        assertThat(newer).exists();
+    }
+
+    private BookEntity book(Long id, String fileName, String hash) throws Exception {
+        Files.writeString(libraryDir.resolve(fileName), "epub " + id);
+        BookEntity book = BookEntity.builder()
+                .id(id)
+                .libraryPath(LibraryPathEntity.builder().path(libraryDir.toString()).build())
+                .build();
+        BookFileEntity file = new BookFileEntity();
+        file.setBook(book);
+        file.setFileSubPath("");
+        file.setFileName(fileName);
+        file.setBookType(BookFileType.EPUB);
+        file.setFileSizeKb(1L);
+        file.setCurrentHash(hash);
+        book.setBookFiles(List.of(file));
+        return book;
+    }
+
+    private static KoboSettings kepubSettings(boolean hyphenate) {
+        return KoboSettings.builder().convertToKepub(true).forceEnableHyphenation(hyphenate).build();
+    }
+}
@@ -0,0 +1,167 @@
+package org.booklore.service.kobo;
+
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookFileEntity;
+import org.booklore.model.entity.KoboLibraryBookEntity;
+import org.booklore.model.entity.ShelfEntity;
+import org.booklore.model.enums.ShelfType;
+import org.booklore.repository.BookRepository;
+import org.booklore.repository.KoboLibraryBookRepository;
+import org.booklore.repository.ShelfRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KoboLibraryChangeLogServiceTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Mock
+    private KoboLibraryBookRepository koboLibraryBookRepository;
+
+    @Mock
+    private ShelfRepository shelfRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private KoboLibrarySnapshotService koboLibrarySnapshotService;
+
+    @Mock
+    private KoboLibraryChangeTracker changeTracker;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private KoboLibraryChangeLogService service;
+
+    @Test
+    void refresh_shouldRecordAddedAndRemovedBooksWhenReconcilingWholeShelf() {
+        BookEntity syncedBook = book(101L, "hash-101");
+        BookEntity incompatibleBook = book(102L, "hash-102");
+        ShelfEntity shelf = ShelfEntity.builder()
+                .id(5L)
+                .name(ShelfType.KOBO.getName())
+                .bookEntities(Set.of(syncedBook, incompatibleBook))
+                .build();
+        KoboLibraryBookEntity removed = entry(103L, "hash-103", 2L, 3L);
+
+        when(changeTracker.pending(USER_ID)).thenReturn(new KoboLibraryChangeTracker.Pending(true, Set.of(), 7L));
+        when(shelfRepository.findByUserIdAndName(USER_ID, ShelfType.KOBO.getName())).thenReturn(Optional.of(shelf));
+        when(koboLibrarySnapshotService.isSyncable(any(BookEntity.class), eq(USER_ID), eq(false)))
+                .thenAnswer(invocation -> invocation.<BookEntity>getArgument(0).getId() == 101L);
+        when(koboLibraryBookRepository.findByUserId(USER_ID)).thenReturn(List.of(removed));
+        when(koboLibraryBookRepository.findLatestVersion(USER_ID)).thenReturn(3L);
+
+        long latest = service.refresh(USER_ID);
+
+        assertThat(latest).isEqualTo(5L);
+        List<KoboLibraryBookEntity> saved = captureSaved();
+        assertThat(saved).extracting(KoboLibraryBookEntity::getBookId).containsExactly(101L, 103L);
+
+        KoboLibraryBookEntity added = saved.getFirst();
+        assertThat(added.isOnShelf()).isTrue();
+        assertThat(added.getUserId()).isEqualTo(USER_ID);
+        assertThat(added.getFileHash()).isEqualTo("hash-101");
+        assertThat(added.getAddedVersion()).isEqualTo(4L);
+        assertThat(added.getVersion()).isEqualTo(4L);
+
+        assertThat(removed.isOnShelf()).isFalse();
+        assertThat(removed.getAddedVersion()).isEqualTo(2L);
+        assertThat(removed.getVersion()).isEqualTo(5L);
+
+        verify(changeTracker).reconciled(USER_ID, 7L);
+    }
+
+    @Test
+    void refresh_shouldOnlyReversionChangedBooksWhenRecheckingPendingBooks() {
+        ShelfEntity shelf = ShelfEntity.builder().id(5L).name(ShelfType.KOBO.getName()).build();
+        BookEntity unchangedBook = book(101L, "hash-101");
+        BookEntity changedBook = book(102L, "hash-102-new");
+        unchangedBook.setShelves(Set.of(shelf));
+        changedBook.setShelves(Set.of(shelf));
+        KoboLibraryBookEntity unchanged = entry(101L, "hash-101", 1L, 2L);
+        KoboLibraryBookEntity changed = entry(102L, "hash-102", 1L, 3L);
+        Set<Long> pendingIds = Set.of(101L, 102L);
+
+        when(changeTracker.pending(USER_ID)).thenReturn(new KoboLibraryChangeTracker.Pending(false, pendingIds, 9L));
+        when(koboLibrarySnapshotService.isAdmin()).thenReturn(true);
+        when(shelfRepository.findByUserIdAndName(USER_ID, ShelfType.KOBO.getName())).thenReturn(Optional.of(shelf));
+        when(bookRepository.findAllById(pendingIds)).thenReturn(List.of(unchangedBook, changedBook));
+        when(koboLibrarySnapshotService.isSyncable(any(BookEntity.class), eq(USER_ID), eq(true))).thenReturn(true);
+        when(koboLibraryBookRepository.findByUserIdAndBookIdIn(USER_ID, pendingIds)).thenReturn(List.of(unchanged, changed));
+        when(koboLibraryBookRepository.findLatestVersion(USER_ID)).thenReturn(3L);
+
+        long latest = service.refresh(USER_ID);
+
+        assertThat(latest).isEqualTo(4L);
+        assertThat(captureSaved()).containsExactly(changed);
+        assertThat(changed.getFileHash()).isEqualTo("hash-102-new");
+        assertThat(changed.getAddedVersion()).isEqualTo(1L);
+        assertThat(changed.getVersion()).isEqualTo(4L);
+        assertThat(unchanged.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void refresh_withNothingPending_shouldNotLoadTheShelf() {
+        when(changeTracker.pending(USER_ID)).thenReturn(new KoboLibraryChangeTracker.Pending(false, Set.of(), 2L));
+        when(koboLibraryBookRepository.findLatestVersion(USER_ID)).thenReturn(6L);
+
+        long latest = service.refresh(USER_ID);
+
+        assertThat(latest).isEqualTo(6L);
+        verifyNoInteractions(shelfRepository, bookRepository);
+        verify(koboLibraryBookRepository, never()).saveAll(any());
+        verify(changeTracker).reconciled(USER_ID, 2L);
+    }
+
+    @Test
+    void getChanges_shouldReadEntriesAfterTheGivenVersion() {
+        service.getChanges(USER_ID, 12L, 5);
+
+        verify(koboLibraryBookRepository).findByUserIdAndVersionGreaterThanOrderByVersionAsc(eq(USER_ID), eq(12L), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<KoboLibraryBookEntity> captureSaved() {
+        ArgumentCaptor<Iterable<KoboLibraryBookEntity>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(koboLibraryBookRepository).saveAll(captor.capture());
+        List<KoboLibraryBookEntity> saved = new ArrayList<>();
+        captor.getValue().forEach(saved::add);
+        return saved;
+    }
+
+    private static BookEntity book(Long id, String hash) {
+        BookEntity book = BookEntity.builder().id(id).build();
+        BookFileEntity file = new BookFileEntity();
+        file.setBook(book);
+        file.setCurrentHash(hash);
+        book.setBookFiles(List.of(file));
+        return book;
+    }
+
+    private static KoboLibraryBookEntity entry(Long bookId, String hash, long addedVersion, long version) {
+        return KoboLibraryBookEntity.builder()
+                .userId(USER_ID)
+                .bookId(bookId)
+                .onShelf(true)
+                .fileHash(hash)
+                .addedVersion(addedVersion)
+                .version(version)
+                .build();
+    }
+}
@@ -48,6 +48,8 @@ class KoboLibrarySyncServiceTest {
     private ObjectMapper objectMapper;
     @Mock
     private KoboSettingsService koboSettingsService;
+    @Mock
+    private KoboLibraryChangeLogService koboLibraryChangeLogService;
 
     @InjectMocks
     private KoboLibrarySyncService service;
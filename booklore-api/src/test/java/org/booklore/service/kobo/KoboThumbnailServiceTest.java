@@ -41,6 +41,8 @@ class KoboThumbnailServiceTest {
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals("image/jpeg", response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        assertEquals("\"abc123hash\"", response.getHeaders().getETag());
+        assertTrue(response.getHeaders().getCacheControl().contains("immutable"));
         assertNotNull(response.getBody());
     }
 
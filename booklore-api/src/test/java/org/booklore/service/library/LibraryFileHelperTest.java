@@ -1,8 +1,10 @@
 package org.booklore.service.library;
 
+import org.booklore.config.AppProperties;
 import org.booklore.model.dto.settings.LibraryFile;
 import org.booklore.model.entity.LibraryEntity;
 import org.booklore.model.entity.LibraryPathEntity;
+import org.booklore.model.enums.BookFileType;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
@@ -13,6 +15,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,7 +26,7 @@ class LibraryFileHelperTest {
 
     @Test
     void testGetLibraryFiles_HandlesInaccessibleDirectories() throws IOException {
-        LibraryFileHelper libraryFileHelper = new LibraryFileHelper();
+        LibraryFileHelper libraryFileHelper = new LibraryFileHelper(new AppProperties());
 
         Files.createFile(tempDir.resolve("happy.epub"));
         Files.createDirectory(tempDir.resolve("some_other_random_named_dir"), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("---------")));
@@ -43,4 +46,66 @@ class LibraryFileHelperTest {
         List<LibraryFile> libraryFiles = libraryFileHelper.getLibraryFiles(testLibrary);
         assertEquals(libraryFiles.stream().map(LibraryFile::getFileName).sorted().toList(), List.of("happy.epub", "zzzz_happ.epub"));
     }
+
+    @Test
+    void testGetLibraryFiles_DetectsFolderAudiobooksInNestedDirectories() throws IOException {
+        LibraryFileHelper libraryFileHelper = new LibraryFileHelper(new AppProperties());
+
+        Path audiobookDir = Files.createDirectories(tempDir.resolve("Author/Audiobook Title"));
+        Files.createFile(audiobookDir.resolve("01 - Chapter.mp3"));
+        Files.createFile(audiobookDir.resolve("02 - Chapter.mp3"));
+        Path mixedDir = Files.createDirectories(tempDir.resolve("Author/Mixed"));
+        Files.createFile(mixedDir.resolve("book.epub"));
+        Files.createFile(mixedDir.resolve("book.m4b"));
+        Files.createFile(mixedDir.resolve("notes.txt"));
+        Files.createFile(tempDir.resolve("root1.mp3"));
+        Files.createFile(tempDir.resolve("root2.mp3"));
+
+        LibraryEntity testLibrary = createLibrary();
+
+        List<LibraryFile> libraryFiles = libraryFileHelper.getAllLibraryFiles(testLibrary);
+
+        assertEquals(List.of("Audiobook Title", "book.epub", "book.m4b", "root1.mp3", "root2.mp3"),
+                libraryFiles.stream().map(LibraryFile::getFileName).sorted().toList());
+        LibraryFile folderAudiobook = libraryFiles.stream().filter(LibraryFile::isFolderBased).findFirst().orElseThrow();
+        assertEquals("Author", folderAudiobook.getFileSubPath());
+        assertEquals(BookFileType.AUDIOBOOK, folderAudiobook.getBookFileType());
+        assertTrue(folderAudiobook.getAttributes().isDirectory());
+        LibraryFile rootAudio = libraryFiles.stream().filter(f -> f.getFileName().equals("root1.mp3")).findFirst().orElseThrow();
+        assertTrue(rootAudio.getAttributes().isRegularFile());
+        LibraryFile epub = libraryFiles.stream().filter(f -> f.getFileName().equals("book.epub")).findFirst().orElseThrow();
+        assertEquals("Author/Mixed", epub.getFileSubPath());
+        assertNotNull(epub.getAttributes());
+    }
+
+    @Test
+    void testGetLibraryFiles_HandsAllowedFilesOverAsTheyAreFound() throws IOException {
+        LibraryFileHelper libraryFileHelper = new LibraryFileHelper(new AppProperties());
+
+        Files.createFile(Files.createDirectories(tempDir.resolve("a")).resolve("one.epub"));
+        Files.createFile(Files.createDirectories(tempDir.resolve("b")).resolve("two.pdf"));
+        Files.createFile(tempDir.resolve("three.epub"));
+
+        LibraryEntity testLibrary = createLibrary();
+        testLibrary.setAllowedFormats(List.of(BookFileType.EPUB));
+        List<LibraryFile> found = new CopyOnWriteArrayList<>();
+
+        List<LibraryFile> libraryFiles = libraryFileHelper.getLibraryFiles(testLibrary, found::add);
+
+        assertEquals(List.of("one.epub", "three.epub"), libraryFiles.stream().map(LibraryFile::getFileName).sorted().toList());
+        assertEquals(List.of("one.epub", "three.epub"), found.stream().map(LibraryFile::getFileName).sorted().toList());
+    }
+
+    private LibraryEntity createLibrary() {
+        LibraryPathEntity libraryPath = new LibraryPathEntity();
+        libraryPath.setId(10L);
+        libraryPath.setPath(tempDir.toString());
+
+        return LibraryEntity.builder()
+                .name("Test Library")
+                .icon("book")
+                .watch(false)
+                .libraryPaths(List.of(libraryPath))
+                .build();
+    }
 }
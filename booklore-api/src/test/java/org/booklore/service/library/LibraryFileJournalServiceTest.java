@@ -0,0 +1,186 @@
+package org.booklore.service.library;
+
+import org.booklore.model.dto.settings.LibraryFile;
+import org.booklore.model.entity.LibraryEntity;
+import org.booklore.model.entity.LibraryFileJournalEntity;
+import org.booklore.model.entity.LibraryPathEntity;
+import org.booklore.model.enums.BookFileType;
+import org.booklore.repository.LibraryFileJournalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LibraryFileJournalServiceTest {
+
+    @Mock
+    private LibraryFileJournalRepository journalRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private LibraryFileJournalService journalService;
+    private LibraryEntity libraryEntity;
+    private LibraryPathEntity pathEntity;
+
+    @BeforeEach
+    void setUp() {
+        journalService = new LibraryFileJournalService(journalRepository);
+        pathEntity = LibraryPathEntity.builder().id(7L).path(tempDir.toString()).build();
+        libraryEntity = LibraryEntity.builder().id(1L).name("Library").libraryPaths(new ArrayList<>(List.of(pathEntity))).build();
+    }
+
+    @Test
+    void diff_shouldTreatEverythingAsChanged_whenJournalIsEmpty() throws IOException {
+        LibraryFile file = createFile("book.epub", "content");
+        when(journalRepository.findByLibraryPathIdIn(List.of(7L))).thenReturn(List.of());
+
+        LibraryFileJournalService.JournalDiff diff = journalService.diff(libraryEntity, List.of(file));
+
+        assertThat(diff.isUnchanged()).isFalse();
+        assertThat(diff.changedFiles()).extracting(LibraryFileJournalService.ChangedFile::file).containsExactly(file);
+        assertThat(diff.removedEntries()).isEmpty();
+    }
+
+    @Test
+    void diff_shouldReuseJournaledHash_whenStatMatches() throws IOException {
+        LibraryFile file = createFile("book.epub", "content");
+        when(journalRepository.findByLibraryPathIdIn(List.of(7L))).thenReturn(List.of(journalEntryFor(file, "abc123")));
+
+        LibraryFileJournalService.JournalDiff diff = journalService.diff(libraryEntity, List.of(file));
+
+        assertThat(diff.isUnchanged()).isTrue();
+        assertThat(diff.unchangedCount()).isEqualTo(1);
+        assertThat(file.getHash()).isEqualTo("abc123");
+    }
+
+    @Test
+    void diff_shouldReportModifiedAndRemovedFiles() throws IOException {
+        LibraryFile file = createFile("book.epub", "content");
+        LibraryFileJournalEntity staleEntry = journalEntryFor(file, "abc123");
+        staleEntry.setFileSize(staleEntry.getFileSize() + 1);
+        LibraryFileJournalEntity goneEntry = LibraryFileJournalEntity.builder()
+                .id(99L).libraryPathId(7L).fileSubPath("").fileName("gone.pdf").fileSize(10).lastModified(10).build();
+        when(journalRepository.findByLibraryPathIdIn(List.of(7L))).thenReturn(List.of(staleEntry, goneEntry));
+
+        LibraryFileJournalService.JournalDiff diff = journalService.diff(libraryEntity, List.of(file));
+
+        assertThat(diff.isUnchanged()).isFalse();
+        assertThat(diff.changedFiles()).extracting(LibraryFileJournalService.ChangedFile::file).containsExactly(file);
+        assertThat(diff.removedEntries()).containsExactly(goneEntry);
+        assertThat(file.getHash()).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_shouldSaveChangedFilesAndDeleteRemovedEntries() throws IOException {
+        LibraryFile file = createFile("book.epub", "content");
+        LibraryFileJournalEntity goneEntry = LibraryFileJournalEntity.builder()
+                .id(99L).libraryPathId(7L).fileSubPath("").fileName("gone.pdf").fileSize(10).lastModified(10).build();
+        when(journalRepository.findByLibraryPathIdIn(List.of(7L))).thenReturn(List.of(goneEntry));
+
+        LibraryFileJournalService.JournalDiff diff = journalService.diff(libraryEntity, List.of(file));
+        file.setHash("computed-during-scan");
+        journalService.record(diff);
+
+        ArgumentCaptor<List<LibraryFileJournalEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(journalRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).singleElement().satisfies(entry -> {
+            assertThat(entry.getLibraryPathId()).isEqualTo(7L);
+            assertThat(entry.getFileName()).isEqualTo("book.epub");
+            assertThat(entry.getFileSize()).isEqualTo(7L);
+            assertThat(entry.getHash()).isEqualTo("computed-during-scan");
+            assertThat(entry.getUpdatedAt()).isNotNull();
+        });
+        verify(journalRepository).deleteAllInBatch(List.of(goneEntry));
+    }
+
+    @Test
+    void record_shouldNotTouchRepository_whenNothingChanged() throws IOException {
+        LibraryFile file = createFile("book.epub", "content");
+        when(journalRepository.findByLibraryPathIdIn(List.of(7L))).thenReturn(List.of(journalEntryFor(file, "abc123")));
+
+        journalService.record(journalService.diff(libraryEntity, List.of(file)));
+
+        verify(journalRepository, never()).saveAll(any());
+        verify(journalRepository, never()).deleteAllInBatch(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void diff_shouldSeeATrackRewrittenInsideAFolderAudiobook() throws IOException {
+        Path folder = Files.createDirectory(tempDir.resolve("Dune"));
+        Path secondDisc = Files.createDirectory(folder.resolve("CD2"));
+        Files.writeString(folder.resolve("01.mp3"), "chapter one");
+        Files.writeString(secondDisc.resolve("02.mp3"), "chapter two");
+        Files.setLastModifiedTime(folder.resolve("01.mp3"), FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(secondDisc.resolve("02.mp3"), FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(secondDisc, FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(folder, FileTime.fromMillis(1_000_000));
+        LibraryFile audiobook = LibraryFile.builder()
+                .libraryEntity(libraryEntity)
+                .libraryPathEntity(pathEntity)
+                .fileSubPath("")
+                .fileName("Dune")
+                .bookFileType(BookFileType.AUDIOBOOK)
+                .folderBased(true)
+                .build();
+        when(journalRepository.findByLibraryPathIdIn(List.of(7L))).thenReturn(List.of());
+        journalService.record(journalService.diff(libraryEntity, List.of(audiobook)));
+        ArgumentCaptor<List<LibraryFileJournalEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(journalRepository).saveAll(saved.capture());
+        LibraryFileJournalEntity entry = saved.getValue().getFirst();
+        assertThat(entry.getFileSize()).isEqualTo(22L);
+        when(journalRepository.findByLibraryPathIdIn(List.of(7L))).thenReturn(List.of(entry));
+
+        assertThat(journalService.diff(libraryEntity, List.of(audiobook)).isUnchanged()).isTrue();
+
+        Files.writeString(secondDisc.resolve("02.mp3"), "chapter 2!!");
+        Files.setLastModifiedTime(secondDisc.resolve("02.mp3"), FileTime.fromMillis(2_000_000));
+        Files.setLastModifiedTime(secondDisc, FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(folder, FileTime.fromMillis(1_000_000));
+
+        assertThat(journalService.diff(libraryEntity, List.of(audiobook)).isUnchanged()).isFalse();
+    }
+
+    private LibraryFile createFile(String name, String content) throws IOException {
+        Files.writeString(tempDir.resolve(name), content);
+        return LibraryFile.builder()
+                .libraryEntity(libraryEntity)
+                .libraryPathEntity(pathEntity)
+                .fileSubPath("")
+                .fileName(name)
+                .bookFileType(BookFileType.EPUB)
+                .build();
+    }
+
+    private LibraryFileJournalEntity journalEntryFor(LibraryFile file, String hash) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file.getFullPath(), BasicFileAttributes.class);
+        return LibraryFileJournalEntity.builder()
+                .id(1L)
+                .libraryPathId(7L)
+                .fileSubPath("")
+                .fileName(file.getFileName())
+                .fileSize(attrs.size())
+                .lastModified(attrs.lastModifiedTime().toMillis())
+                .fileKey(attrs.fileKey() == null ? null : attrs.fileKey().toString())
+                .hash(hash)
+                .build();
+    }
+}
@@ -21,6 +21,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -46,6 +47,10 @@ class LibraryProcessingServiceRegressionTest {
     @Mock
     private BookGroupingService bookGroupingService;
     @Mock
+    private LibraryScanPipeline libraryScanPipeline;
+    @Mock
+    private LibraryFileJournalService libraryFileJournalService;
+    @Mock
     private EntityManager entityManager;
 
     private LibraryProcessingService libraryProcessingService;
@@ -61,8 +66,12 @@ class LibraryProcessingServiceRegressionTest {
                 bookDeletionService,
                 libraryFileHelper,
                 bookGroupingService,
+                libraryScanPipeline,
+                libraryFileJournalService,
                 entityManager
         );
+        lenient().when(libraryFileJournalService.diff(any(), any()))
+                .thenReturn(new LibraryFileJournalService.JournalDiff(Map.of(), List.of(), List.of(), 0));
     }
 
     @Test
@@ -23,9 +23,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -49,6 +51,10 @@ class LibraryProcessingServiceTest {
     @Mock
     private BookGroupingService bookGroupingService;
     @Mock
+    private LibraryScanPipeline libraryScanPipeline;
+    @Mock
+    private LibraryFileJournalService libraryFileJournalService;
+    @Mock
     private EntityManager entityManager;
 
     private LibraryProcessingService libraryProcessingService;
@@ -64,8 +70,12 @@ class LibraryProcessingServiceTest {
                 bookDeletionService,
                 libraryFileHelper,
                 bookGroupingService,
+                libraryScanPipeline,
+                libraryFileJournalService,
                 entityManager
         );
+        lenient().when(libraryFileJournalService.diff(any(), any()))
+                .thenReturn(new LibraryFileJournalService.JournalDiff(Map.of(), List.of(), List.of(), 0));
     }
 
     @Test
@@ -104,7 +114,14 @@ class LibraryProcessingServiceTest {
                 .fileName("book2.epub")
                 .build();
 
-        when(libraryFileHelper.getLibraryFiles(libraryEntity)).thenReturn(List.of(existingFile, newFile));
+        LibraryScanPipeline.EarlyFingerprints fingerprints = mock(LibraryScanPipeline.EarlyFingerprints.class);
+        when(libraryScanPipeline.fingerprintAsFound()).thenReturn(fingerprints);
+        when(libraryFileHelper.getLibraryFiles(eq(libraryEntity), any())).thenAnswer(invocation -> {
+            Consumer<LibraryFile> onFound = invocation.getArgument(1);
+            onFound.accept(existingFile);
+            onFound.accept(newFile);
+            return List.of(existingFile, newFile);
+        });
         when(bookAdditionalFileRepository.findByLibraryId(libraryId)).thenReturn(Collections.emptyList());
 
         // Mock grouping service to pass through the files
@@ -127,6 +144,9 @@ class LibraryProcessingServiceTest {
 
         assertThat(processedFiles).hasSize(1);
         assertThat(processedFiles.getFirst().getFileName()).isEqualTo("book2.epub");
+        verify(fingerprints).submit(newFile);
+        verify(fingerprints, never()).submit(existingFile);
+        verify(fingerprints).close();
     }
 
     @Test
@@ -158,7 +178,7 @@ class LibraryProcessingServiceTest {
                 .fileName("book1.epub")
                 .build();
 
-        when(libraryFileHelper.getLibraryFiles(libraryEntity)).thenReturn(List.of(existingFile));
+        when(libraryFileHelper.getLibraryFiles(eq(libraryEntity), any())).thenReturn(List.of(existingFile));
         when(bookAdditionalFileRepository.findByLibraryId(libraryId)).thenReturn(Collections.emptyList());
         when(bookGroupingService.groupForInitialScan(anyList(), eq(libraryEntity))).thenReturn(Collections.emptyMap());
 
@@ -197,7 +217,7 @@ class LibraryProcessingServiceTest {
                 .fileName("book2.epub")
                 .build();
 
-        when(libraryFileHelper.getLibraryFiles(libraryEntity)).thenReturn(List.of(newFile1, newFile2));
+        when(libraryFileHelper.getLibraryFiles(eq(libraryEntity), any())).thenReturn(List.of(newFile1, newFile2));
         when(bookAdditionalFileRepository.findByLibraryId(libraryId)).thenReturn(Collections.emptyList());
         when(bookGroupingService.groupForInitialScan(anyList(), eq(libraryEntity)))
                 .thenAnswer(invocation -> {
@@ -238,7 +258,7 @@ class LibraryProcessingServiceTest {
                 .fileName("book1.epub")
                 .build();
 
-        when(libraryFileHelper.getLibraryFiles(libraryEntity)).thenReturn(List.of(newFileInSub));
+        when(libraryFileHelper.getLibraryFiles(eq(libraryEntity), any())).thenReturn(List.of(newFileInSub));
         when(bookAdditionalFileRepository.findByLibraryId(libraryId)).thenReturn(Collections.emptyList());
         when(bookGroupingService.groupForInitialScan(anyList(), eq(libraryEntity)))
                 .thenAnswer(invocation -> {
@@ -290,7 +310,7 @@ class LibraryProcessingServiceTest {
         additionalFileEntity.setFileSubPath("");
         additionalFileEntity.setFileName("extra.pdf");
 
-        when(libraryFileHelper.getLibraryFiles(libraryEntity)).thenReturn(List.of(additionalFileAsLibraryFile));
+        when(libraryFileHelper.getLibraryFiles(eq(libraryEntity), any())).thenReturn(List.of(additionalFileAsLibraryFile));
         when(bookAdditionalFileRepository.findByLibraryId(libraryId)).thenReturn(List.of(additionalFileEntity));
         when(bookGroupingService.groupForInitialScan(anyList(), eq(libraryEntity))).thenReturn(Collections.emptyMap());
 
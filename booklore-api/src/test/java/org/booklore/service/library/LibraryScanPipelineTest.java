@@ -0,0 +1,143 @@
+package org.booklore.service.library;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.booklore.config.AppProperties;
+import org.booklore.model.dto.settings.LibraryFile;
+import org.booklore.model.entity.LibraryEntity;
+import org.booklore.model.entity.LibraryPathEntity;
+import org.booklore.model.enums.BookFileType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LibraryScanPipelineTest {
+
+    @Mock
+    private FileAsBookProcessor fileAsBookProcessor;
+
+    @TempDir
+    Path tempDir;
+
+    private AppProperties appProperties;
+    private HikariDataSource dataSource;
+    private LibraryScanPipeline pipeline;
+    private LibraryEntity libraryEntity;
+    private LibraryPathEntity pathEntity;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(20);
+        pipeline = new LibraryScanPipeline(fileAsBookProcessor, appProperties, dataSource);
+        libraryEntity = LibraryEntity.builder().id(1L).name("Test Library").build();
+        pathEntity = LibraryPathEntity.builder().id(1L).path(tempDir.toString()).build();
+    }
+
+    @Test
+    void process_shouldFallBackToSerialProcessing_whenExtractionParallelismIsOne() throws IOException {
+        appProperties.getLibraryScan().setExtractionParallelism(1);
+        Map<String, List<LibraryFile>> groups = createGroups(3);
+
+        pipeline.process(groups, libraryEntity);
+
+        verify(fileAsBookProcessor).processLibraryFilesGrouped(groups, libraryEntity);
+        verify(fileAsBookProcessor, never()).processGroupInNewTransaction(any(), any());
+    }
+
+    @Test
+    void process_shouldProcessSerially_whenThePoolCannotServeTwoConnectionsPerWorker() throws IOException {
+        appProperties.getLibraryScan().setExtractionParallelism(4);
+        dataSource.setMaximumPoolSize(3);
+        Map<String, List<LibraryFile>> groups = createGroups(3);
+
+        pipeline.process(groups, libraryEntity);
+
+        verify(fileAsBookProcessor).processLibraryFilesGrouped(groups, libraryEntity);
+        verify(fileAsBookProcessor, never()).processGroupInNewTransaction(any(), any());
+    }
+
+    @Test
+    void process_shouldKeepGoingAfterAGroupFails() throws IOException {
+        appProperties.getLibraryScan().setExtractionParallelism(4);
+        Map<String, List<LibraryFile>> groups = createGroups(3);
+        List<LibraryFile> failing = groups.values().iterator().next();
+        doThrow(new IllegalStateException("unreadable")).when(fileAsBookProcessor)
+                .processGroupInNewTransaction(eq(failing), eq(libraryEntity));
+
+        pipeline.process(groups, libraryEntity);
+
+        for (List<LibraryFile> group : groups.values()) {
+            verify(fileAsBookProcessor).processGroupInNewTransaction(group, libraryEntity);
+        }
+    }
+
+    @Test
+    void process_shouldFingerprintAndProcessEveryGroup() throws IOException {
+        appProperties.getLibraryScan().setExtractionParallelism(4);
+        appProperties.getLibraryScan().setQueueCapacity(2);
+        Map<String, List<LibraryFile>> groups = createGroups(10);
+
+        pipeline.process(groups, libraryEntity);
+
+        for (List<LibraryFile> group : groups.values()) {
+            verify(fileAsBookProcessor).processGroupInNewTransaction(group, libraryEntity);
+            assertThat(group).allSatisfy(file -> assertThat(file.getHash()).isNotBlank());
+        }
+        verify(fileAsBookProcessor, never()).processLibraryFilesGrouped(any(), any());
+    }
+
+    @Test
+    void process_shouldRetryConflictingGroupSerially() throws IOException {
+        appProperties.getLibraryScan().setExtractionParallelism(4);
+        Map<String, List<LibraryFile>> groups = createGroups(3);
+        List<LibraryFile> conflicting = groups.values().iterator().next();
+        AtomicBoolean failedOnce = new AtomicBoolean();
+
+        doAnswer(invocation -> {
+            if (failedOnce.compareAndSet(false, true)) {
+                throw new DataIntegrityViolationException("Duplicate entry for key 'unique_name'");
+            }
+            return null;
+        }).when(fileAsBookProcessor).processGroupInNewTransaction(eq(conflicting), eq(libraryEntity));
+
+        pipeline.process(groups, libraryEntity);
+
+        verify(fileAsBookProcessor, times(2)).processGroupInNewTransaction(conflicting, libraryEntity);
+    }
+
+    private Map<String, List<LibraryFile>> createGroups(int count) throws IOException {
+        Map<String, List<LibraryFile>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String fileName = "book" + i + ".epub";
+            Files.writeString(tempDir.resolve(fileName), "content of book " + i);
+            LibraryFile file = LibraryFile.builder()
+                    .libraryEntity(libraryEntity)
+                    .libraryPathEntity(pathEntity)
+                    .fileSubPath("")
+                    .fileName(fileName)
+                    .bookFileType(BookFileType.EPUB)
+                    .build();
+            groups.put("book" + i, List.of(file));
+        }
+        return groups;
+    }
+}
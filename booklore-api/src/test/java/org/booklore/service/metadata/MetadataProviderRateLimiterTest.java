@@ -0,0 +1,82 @@
+package org.booklore.service.metadata;
+
+import org.booklore.config.AppProperties;
+import org.booklore.model.enums.MetadataProvider;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataProviderRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void reserve_shouldSpaceRequestsByTheInterval() {
+        long now = System.nanoTime();
+        MetadataProviderRateLimiter.TokenBucket bucket = new MetadataProviderRateLimiter.TokenBucket(1.0, 1);
+
+        assertThat(bucket.reserve(now)).isLessThanOrEqualTo(0);
+        assertThat(bucket.reserve(now)).isEqualTo(SECOND);
+        assertThat(bucket.reserve(now)).isEqualTo(2 * SECOND);
+    }
+
+    @Test
+    void reserve_shouldAllowABurstAfterIdling() {
+        long now = System.nanoTime();
+        MetadataProviderRateLimiter.TokenBucket bucket = new MetadataProviderRateLimiter.TokenBucket(2.0, 2);
+
+        assertThat(bucket.reserve(now + 10 * SECOND)).isLessThanOrEqualTo(0);
+        assertThat(bucket.reserve(now + 10 * SECOND)).isLessThanOrEqualTo(0);
+        assertThat(bucket.reserve(now + 10 * SECOND)).isEqualTo(SECOND / 2);
+    }
+
+    @Test
+    void pause_shouldHoldBackTheNextRequest() {
+        long now = System.nanoTime();
+        MetadataProviderRateLimiter.TokenBucket bucket = new MetadataProviderRateLimiter.TokenBucket(1.0, 1);
+
+        bucket.pause(now, 5 * SECOND);
+
+        assertThat(bucket.reserve(now)).isEqualTo(5 * SECOND);
+    }
+
+    @Test
+    void withPermit_shouldCapConcurrentFetchesPerProvider() throws Exception {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getMetadataFetch().setProviderConcurrency(2);
+        MetadataProviderRateLimiter rateLimiter = new MetadataProviderRateLimiter(appProperties);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?>[] futures = new Future<?>[5];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> rateLimiter.withPermit(MetadataProvider.Google, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return null;
+                }));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        }
+
+        assertThat(maxRunning.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,270 @@
+package org.booklore.service.metadata;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.booklore.config.AppProperties;
+import org.booklore.config.security.service.AuthenticationService;
+import org.booklore.mapper.BookMapper;
+import org.booklore.model.MetadataUpdateContext;
+import org.booklore.model.dto.Book;
+import org.booklore.model.dto.BookMetadata;
+import org.booklore.model.dto.MetadataBatchProgressNotification;
+import org.booklore.model.dto.request.MetadataRefreshOptions;
+import org.booklore.model.dto.request.MetadataRefreshRequest;
+import org.booklore.model.dto.settings.AppSettings;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookMetadataEntity;
+import org.booklore.model.enums.MetadataFetchTaskStatus;
+import org.booklore.model.websocket.Topic;
+import org.booklore.repository.BookRepository;
+import org.booklore.repository.LibraryRepository;
+import org.booklore.repository.MetadataFetchJobRepository;
+import org.booklore.repository.MetadataFetchProposalRepository;
+import org.booklore.service.NotificationService;
+import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.event.EntityChangeEvents;
+import org.booklore.task.TaskCancellationManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MetadataRefreshServiceBatchTest {
+
+    private static final String JOB_ID = "job-1";
+
+    private final MetadataFetchJobRepository jobRepository = mock(MetadataFetchJobRepository.class);
+    private final BookMapper bookMapper = mock(BookMapper.class);
+    private final BookMetadataUpdater bookMetadataUpdater = mock(BookMetadataUpdater.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final AppSettingService appSettingService = mock(AppSettingService.class);
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final TaskCancellationManager cancellationManager = mock(TaskCancellationManager.class);
+    private final MetadataFetchScheduler fetchScheduler = mock(MetadataFetchScheduler.class);
+    private final AppProperties appProperties = new AppProperties();
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    // what happened, in order: transactions committing or rolling back, books applied and books announced
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private final List<Long> appliedInTransaction = new ArrayList<>();
+    private MetadataRefreshService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new MetadataRefreshService(mock(LibraryRepository.class), jobRepository, bookMapper, bookMetadataUpdater,
+                notificationService, appSettingService, Map.of(), JsonMapper.builder().build(), bookRepository,
+                transactionManager, mock(AuthenticationService.class), cancellationManager, fetchScheduler,
+                mock(MetadataFetchProposalRepository.class), appProperties,
+                new EntityChangeEvents(mock(EntityManagerFactory.class)));
+
+        when(appSettingService.getAppSettings()).thenReturn(new AppSettings());
+        when(fetchScheduler.getBookConcurrency()).thenReturn(2);
+        when(fetchScheduler.submit(any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Callable<?>>getArgument(0).call()));
+        when(fetchScheduler.fetchFromProviders(any(), any())).thenReturn(Map.of());
+        when(bookMapper.toBook(any())).thenReturn(Book.builder().metadata(BookMetadata.builder().build()).build());
+        when(bookMapper.toBookWithDescription(any(), anyBoolean())).thenAnswer(invocation ->
+                Book.builder().id(invocation.<BookEntity>getArgument(0).getId()).build());
+        when(bookRepository.findAllWithMetadataByIds(any())).thenAnswer(invocation ->
+                invocation.<Set<Long>>getArgument(0).stream().map(MetadataRefreshServiceBatchTest::book).toList());
+        when(bookRepository.findByIdWithBookFiles(anyLong())).thenAnswer(invocation ->
+                Optional.of(book(invocation.getArgument(0))));
+        doAnswer(invocation -> {
+            Long bookId = invocation.<MetadataUpdateContext>getArgument(0).getBookEntity().getId();
+            appliedInTransaction.add(bookId);
+            events.add("apply " + bookId);
+            return null;
+        }).when(bookMetadataUpdater).setBookMetadata(any());
+        doAnswer(invocation -> {
+            events.add("notify " + invocation.<Book>getArgument(1).getId());
+            return null;
+        }).when(notificationService).sendMessage(eq(Topic.BOOK_METADATA_UPDATE), any());
+    }
+
+    @AfterEach
+    void clearInterrupt() {
+        Thread.interrupted();
+    }
+
+    @Test
+    void refreshMetadata_shouldApplyBooksInBatchesAndAnnounceThemAfterCommit() {
+        appProperties.getMetadataFetch().setApplyBatchSize(2);
+
+        service.refreshMetadata(request(5), JOB_ID);
+
+        verify(bookRepository, times(3)).flush();
+        assertThat(applyTransactions()).containsExactly(
+                List.of("apply 1", "apply 2", "commit", "notify 1", "notify 2"),
+                List.of("apply 3", "apply 4", "commit", "notify 3", "notify 4"),
+                List.of("apply 5", "commit", "notify 5"));
+        verify(bookMetadataUpdater, times(5)).setBookMetadata(argThat(MetadataUpdateContext::isDeferFileUpdates));
+        verify(jobRepository).updateStatus(eq(JOB_ID), eq(MetadataFetchTaskStatus.COMPLETED), any(), eq(5));
+    }
+
+    @Test
+    void refreshMetadata_shouldSaveBooksOneAtATimeAfterTheirBatchFailed() {
+        appProperties.getMetadataFetch().setApplyBatchSize(3);
+        doAnswer(invocation -> {
+            if (appliedInTransaction.contains(2L)) {
+                throw new DataIntegrityViolationException("Duplicate entry");
+            }
+            return null;
+        }).when(bookRepository).flush();
+
+        service.refreshMetadata(request(3), JOB_ID);
+
+        assertThat(applyTransactions()).containsExactly(
+                List.of("apply 1", "apply 2", "apply 3", "rollback"),
+                List.of("apply 1", "commit", "notify 1"),
+                List.of("apply 2", "rollback"),
+                List.of("apply 3", "commit", "notify 3"));
+        assertThat(progress(MetadataFetchTaskStatus.ERROR)).singleElement()
+                .satisfies(notification -> assertThat(notification.getMessage()).contains("Book 2"));
+        verify(jobRepository).updateStatus(eq(JOB_ID), eq(MetadataFetchTaskStatus.COMPLETED), any(), eq(3));
+    }
+
+    @Test
+    void refreshMetadata_shouldSendProgressAtMostOncePerInterval() {
+        appProperties.getMetadataFetch().setApplyBatchSize(2);
+        appProperties.getMetadataFetch().setProgressIntervalMillis(60_000);
+
+        service.refreshMetadata(request(5), JOB_ID);
+
+        verify(jobRepository, times(1)).updateProgress(eq(JOB_ID), anyInt());
+        assertThat(progress(MetadataFetchTaskStatus.IN_PROGRESS)).hasSize(1);
+        assertThat(progress(MetadataFetchTaskStatus.COMPLETED)).singleElement()
+                .satisfies(notification -> assertThat(notification.getCompleted()).isEqualTo(5));
+    }
+
+    @Test
+    void refreshMetadata_shouldSendEveryProgressUpdateWithoutAnInterval() {
+        appProperties.getMetadataFetch().setProgressIntervalMillis(0);
+
+        service.refreshMetadata(request(3), JOB_ID);
+
+        verify(jobRepository, times(3)).updateProgress(eq(JOB_ID), anyInt());
+    }
+
+    @Test
+    void refreshMetadata_shouldStopAndMarkTheJobCancelled() {
+        appProperties.getMetadataFetch().setApplyBatchSize(2);
+        // checked before each chunk and before each fetch is collected; the sixth check comes after the first batch
+        when(cancellationManager.isTaskCancelled(JOB_ID)).thenReturn(false, false, false, false, false, true);
+
+        service.refreshMetadata(request(6), JOB_ID);
+
+        assertThat(applyTransactions()).containsExactly(List.of("apply 1", "apply 2", "commit", "notify 1", "notify 2"));
+        verify(jobRepository).updateStatus(eq(JOB_ID), eq(MetadataFetchTaskStatus.CANCELLED), any(), anyInt());
+        verify(jobRepository, never()).updateStatus(eq(JOB_ID), eq(MetadataFetchTaskStatus.COMPLETED), any(), anyInt());
+        assertThat(progress(MetadataFetchTaskStatus.CANCELLED)).hasSize(1);
+    }
+
+    @Test
+    void refreshMetadata_shouldKeepWhatTheBatchAppliedWhenInterrupted() {
+        appProperties.getMetadataFetch().setApplyBatchSize(3);
+        doAnswer(invocation -> {
+            Long bookId = invocation.<MetadataUpdateContext>getArgument(0).getBookEntity().getId();
+            if (bookId == 2L) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted");
+            }
+            appliedInTransaction.add(bookId);
+            events.add("apply " + bookId);
+            return null;
+        }).when(bookMetadataUpdater).setBookMetadata(any());
+
+        service.refreshMetadata(request(3), JOB_ID);
+
+        assertThat(applyTransactions()).containsExactly(List.of("apply 1", "commit", "notify 1"));
+        assertThat(progress(MetadataFetchTaskStatus.ERROR))
+                .extracting(MetadataBatchProgressNotification::getMessage)
+                .satisfiesExactly(
+                        message -> assertThat(message).contains("Book 2", "Interrupted"),
+                        message -> assertThat(message).contains("Book 3", "Interrupted"));
+        verify(jobRepository, never()).updateStatus(eq(JOB_ID), eq(MetadataFetchTaskStatus.COMPLETED), any(), anyInt());
+    }
+
+    /**
+     * The events of every transaction that applied books, from its first book to the notifications after it ended.
+     */
+    private List<List<String>> applyTransactions() {
+        List<List<String>> transactions = new ArrayList<>();
+        List<String> current = null;
+        for (String event : events) {
+            if (event.startsWith("apply") && (current == null || !current.getLast().startsWith("apply"))) {
+                current = new ArrayList<>();
+                transactions.add(current);
+            }
+            if (current != null) {
+                current.add(event);
+            }
+        }
+        return transactions;
+    }
+
+    private List<MetadataBatchProgressNotification> progress(MetadataFetchTaskStatus status) {
+        return mockingDetails(notificationService).getInvocations().stream()
+                .filter(invocation -> invocation.getArgument(0) == Topic.BOOK_METADATA_BATCH_PROGRESS)
+                .map(invocation -> invocation.<MetadataBatchProgressNotification>getArgument(1))
+                .filter(notification -> notification.getStatus().equals(status.name()))
+                .toList();
+    }
+
+    private static MetadataRefreshRequest request(int books) {
+        return MetadataRefreshRequest.builder()
+                .refreshType(MetadataRefreshRequest.RefreshType.BOOKS)
+                .bookIds(LongStream.rangeClosed(1, books).boxed().collect(Collectors.toCollection(LinkedHashSet::new)))
+                .refreshOptions(MetadataRefreshOptions.builder().build())
+                .build();
+    }
+
+    private static BookEntity book(Long id) {
+        BookEntity book = BookEntity.builder().id(id).build();
+        book.setMetadata(BookMetadataEntity.builder().bookId(id).title("Book " + id).build());
+        return book;
+    }
+
+    /**
+     * Runs transaction synchronizations like a real manager, so work registered for after commit runs once a
+     * transaction commits and never after a rollback.
+     */
+    private class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            appliedInTransaction.clear();
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            if (!appliedInTransaction.isEmpty()) {
+                events.add("commit");
+            }
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            if (!appliedInTransaction.isEmpty()) {
+                events.add("rollback");
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.booklore.service.metadata;
+
+import org.booklore.config.AppProperties;
+import org.booklore.model.enums.MetadataProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataResponseCacheTest {
+
+    @TempDir
+    Path dataDir;
+
+    private AppProperties appProperties;
+
+    @BeforeEach
+    void setUp() {
+        appProperties = new AppProperties();
+        appProperties.setPathConfig(dataDir.toString());
+    }
+
+    @Test
+    void fetch_shouldServeAFreshEntryWithoutCallingTheProvider() throws IOException {
+        MetadataResponseCache cache = new MetadataResponseCache(appProperties, new ObjectMapper());
+        List<MetadataResponseCache.Validators> calls = new ArrayList<>();
+
+        MetadataResponseCache.Response first = cache.fetch(MetadataProvider.Google, "https://example.org/q=dune", validators -> {
+            calls.add(validators);
+            return new MetadataResponseCache.Response(200, "{\"title\":\"Dune\"}", "\"v1\"", null);
+        });
+        MetadataResponseCache.Response second = cache.fetch(MetadataProvider.Google, "https://example.org/q=dune", validators -> {
+            calls.add(validators);
+            return new MetadataResponseCache.Response(200, "changed", null, null);
+        });
+
+        assertThat(first.body()).isEqualTo("{\"title\":\"Dune\"}");
+        assertThat(second.body()).isEqualTo("{\"title\":\"Dune\"}");
+        assertThat(calls).hasSize(1);
+    }
+
+    @Test
+    void fetch_shouldRevalidateAnExpiredEntryAndKeepItOnNotModified() throws IOException {
+        appProperties.getMetadataCache().getProviderTtlHours().put(MetadataProvider.Google, 0);
+        MetadataResponseCache cache = new MetadataResponseCache(appProperties, new ObjectMapper());
+        cache.fetch(MetadataProvider.Google, "key", validators -> new MetadataResponseCache.Response(200, "cached body", "\"v1\"", "Mon, 01 Jan 2024 00:00:00 GMT"));
+
+        List<MetadataResponseCache.Validators> sent = new ArrayList<>();
+        MetadataResponseCache.Response response = cache.fetch(MetadataProvider.Google, "key", validators -> {
+            sent.add(validators);
+            return new MetadataResponseCache.Response(304, "", null, null);
+        });
+
+        assertThat(sent).containsExactly(new MetadataResponseCache.Validators("\"v1\"", "Mon, 01 Jan 2024 00:00:00 GMT"));
+        assertThat(response.status()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("cached body");
+    }
+
+    @Test
+    void fetch_shouldNotCacheFailedResponses() throws IOException {
+        MetadataResponseCache cache = new MetadataResponseCache(appProperties, new ObjectMapper());
+        cache.fetch(MetadataProvider.Amazon, "key", validators -> new MetadataResponseCache.Response(503, "captcha", null, null));
+
+        MetadataResponseCache.Response response = cache.fetch(MetadataProvider.Amazon, "key", validators -> new MetadataResponseCache.Response(200, "page", null, null));
+
+        assertThat(response.body()).isEqualTo("page");
+    }
+
+    @Test
+    void fetch_shouldGoStraightToTheProviderWhenDisabled() throws IOException {
+        appProperties.getMetadataCache().setEnabled(false);
+        MetadataResponseCache cache = new MetadataResponseCache(appProperties, new ObjectMapper());
+        cache.fetch(MetadataProvider.Google, "key", validators -> new MetadataResponseCache.Response(200, "body", null, null));
+
+        assertThat(dataDir.resolve("metadata_cache")).doesNotExist();
+    }
+
+    @Test
+    void evict_shouldRemoveTheOldestEntriesOverTheSizeBound() throws IOException {
+        appProperties.getMetadataCache().setMaxSizeMb(0);
+        MetadataResponseCache cache = new MetadataResponseCache(appProperties, new ObjectMapper());
+        cache.fetch(MetadataProvider.Google, "a", validators -> new MetadataResponseCache.Response(200, "first", null, null));
+        cache.fetch(MetadataProvider.Hardcover, "b", validators -> new MetadataResponseCache.Response(200, "second", null, null));
+
+        cache.evict();
+
+        try (Stream<Path> files = Files.walk(dataDir.resolve("metadata_cache"))) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+}
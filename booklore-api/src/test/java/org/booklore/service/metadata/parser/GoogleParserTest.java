@@ -1,11 +1,14 @@
 package org.booklore.service.metadata.parser;
 
+import org.booklore.config.AppProperties;
 import org.booklore.model.dto.Book;
 import org.booklore.model.dto.BookMetadata;
 import org.booklore.model.dto.request.FetchMetadataRequest;
 import org.booklore.model.dto.settings.AppSettings;
 import org.booklore.model.dto.settings.MetadataProviderSettings;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataProviderRateLimiter;
+import org.booklore.service.metadata.MetadataResponseCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -15,10 +18,12 @@ import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -27,6 +32,8 @@ import static org.mockito.Mockito.*;
 
 class GoogleParserTest {
 
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Map.of(), (name, value) -> true);
+
     @Mock
     private AppSettingService appSettingService;
 
@@ -35,6 +42,9 @@ class GoogleParserTest {
     @Mock
     private HttpClient httpClient;
 
+    @Mock
+    private MetadataProviderRateLimiter rateLimiter;
+
     private GoogleParser googleParser;
 
     @BeforeEach
@@ -55,7 +65,9 @@ class GoogleParserTest {
         
         when(appSettingService.getAppSettings()).thenReturn(appSettings);
 
-        googleParser = new GoogleParser(objectMapper, appSettingService, httpClient);
+        AppProperties appProperties = new AppProperties();
+        appProperties.getMetadataCache().setEnabled(false);
+        googleParser = new GoogleParser(objectMapper, appSettingService, httpClient, rateLimiter, new MetadataResponseCache(appProperties, objectMapper));
     }
 
     @Test
@@ -134,6 +146,7 @@ class GoogleParserTest {
         HttpResponse<String> mockResponse = mock(HttpResponse.class);
         when(mockResponse.body()).thenReturn(jsonBody);
         when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.headers()).thenReturn(NO_HEADERS);
         when(httpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
                 .thenReturn(mockResponse);
     }
@@ -145,6 +158,7 @@ class GoogleParserTest {
             HttpResponse<String> mockInfo = mock(HttpResponse.class);
             when(mockInfo.body()).thenReturn(jsonBodies[i]);
             when(mockInfo.statusCode()).thenReturn(200);
+            when(mockInfo.headers()).thenReturn(NO_HEADERS);
             responses[i] = mockInfo;
         }
         
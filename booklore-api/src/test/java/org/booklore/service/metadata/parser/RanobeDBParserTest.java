@@ -4,6 +4,8 @@ import org.booklore.model.dto.Book;
 import org.booklore.model.dto.BookMetadata;
 import org.booklore.model.dto.request.FetchMetadataRequest;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataProviderRateLimiter;
+import org.booklore.service.metadata.MetadataResponseCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -20,6 +22,12 @@ class RanobeDbParserTest {
     @Mock
     private AppSettingService appSettingService;
 
+    @Mock
+    private MetadataProviderRateLimiter rateLimiter;
+
+    @Mock
+    private MetadataResponseCache responseCache;
+
     @InjectMocks
     private RanobeDbParser parser;
 
@@ -3,12 +3,15 @@ package org.booklore.service.metadata.parser.hardcover;
 import org.booklore.model.dto.settings.AppSettings;
 import org.booklore.model.dto.settings.MetadataProviderSettings;
 import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.service.metadata.MetadataProviderRateLimiter;
+import org.booklore.service.metadata.MetadataResponseCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import tools.jackson.databind.ObjectMapper;
 
 import java.util.List;
 
@@ -20,12 +23,18 @@ class HardcoverBookSearchServiceTest {
     @Mock
     private AppSettingService appSettingService;
 
+    @Mock
+    private MetadataProviderRateLimiter rateLimiter;
+
+    @Mock
+    private MetadataResponseCache responseCache;
+
     private HardcoverBookSearchService searchService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        searchService = new HardcoverBookSearchService(appSettingService);
+        searchService = new HardcoverBookSearchService(appSettingService, rateLimiter, responseCache, new ObjectMapper());
     }
 
     @Nested
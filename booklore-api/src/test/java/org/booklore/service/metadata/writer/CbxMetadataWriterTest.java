@@ -1,5 +1,7 @@
 package org.booklore.service.metadata.writer;
 
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZOutputFile;
 import org.booklore.model.MetadataClearFlags;
 import org.booklore.model.dto.settings.AppSettings;
 import org.booklore.model.dto.settings.MetadataPersistenceSettings;
@@ -23,8 +25,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -255,6 +259,63 @@ class CbxMetadataWriterTest {
         }
     }
 
+    @Test
+    void saveMetadataToFile_cbz_copiesPagesWithoutRecompressing() throws Exception {
+        Path out = tempDir.resolve("raw_copy.cbz");
+        byte[] page = new byte[4096];
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(out.toFile()))) {
+            put(zos, "001.jpg", page);
+            put(zos, "ComicInfo.xml", "<ComicInfo><Title>Old</Title></ComicInfo>".getBytes(StandardCharsets.UTF_8));
+            put(zos, "002.jpg", page);
+        }
+        long pageCompressedSize;
+        try (ZipFile zip = new ZipFile(out.toFile())) {
+            pageCompressedSize = zip.getEntry("001.jpg").getCompressedSize();
+        }
+
+        BookMetadataEntity meta = new BookMetadataEntity();
+        meta.setTitle("New");
+        writer.saveMetadataToFile(out.toFile(), meta, null, new MetadataClearFlags());
+
+        try (ZipFile zip = new ZipFile(out.toFile())) {
+            assertEquals(List.of("001.jpg", "ComicInfo.xml", "002.jpg"),
+                    Collections.list(zip.entries()).stream().map(ZipEntry::getName).toList());
+            assertEquals(pageCompressedSize, zip.getEntry("001.jpg").getCompressedSize());
+            assertArrayEquals(page, zip.getInputStream(zip.getEntry("002.jpg")).readAllBytes());
+            assertEquals("New", text(parseXml(zip.getInputStream(zip.getEntry("ComicInfo.xml"))), "Title"));
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(out), files.toList(), "no temp or backup files should be left behind");
+        }
+    }
+
+    @Test
+    void saveMetadataToFile_cb7_convertsToCbzStoringImages() throws Exception {
+        Path cb7 = tempDir.resolve("seven.cb7");
+        try (SevenZOutputFile sevenZ = new SevenZOutputFile(cb7.toFile())) {
+            for (String name : new String[]{"001.jpg", "notes.txt"}) {
+                SevenZArchiveEntry entry = new SevenZArchiveEntry();
+                entry.setName(name);
+                sevenZ.putArchiveEntry(entry);
+                sevenZ.write(new byte[1024]);
+                sevenZ.closeArchiveEntry();
+            }
+        }
+
+        BookMetadataEntity meta = new BookMetadataEntity();
+        meta.setTitle("Converted");
+        writer.saveMetadataToFile(cb7.toFile(), meta, null, new MetadataClearFlags());
+
+        Path cbz = tempDir.resolve("seven.cbz");
+        assertFalse(Files.exists(cb7));
+        try (ZipFile zip = new ZipFile(cbz.toFile())) {
+            assertEquals(ZipEntry.STORED, zip.getEntry("001.jpg").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("notes.txt").getMethod());
+            assertArrayEquals(new byte[1024], zip.getInputStream(zip.getEntry("001.jpg")).readAllBytes());
+            assertEquals("Converted", text(parseXml(zip.getInputStream(zip.getEntry("ComicInfo.xml"))), "Title"));
+        }
+    }
+
     @Test
     void saveMetadataToFile_ZipNamedAsCbr_ShouldUpdateMetadata() throws Exception {
         File zipAsCbr = createCbz(tempDir.resolve("mismatched.cbr"), new String[]{"page1.jpg"});
@@ -21,13 +21,19 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -184,6 +190,72 @@ class EpubMetadataWriterTest {
         }
     }
 
+    @Nested
+    @DisplayName("Streaming Rewrite Tests")
+    class StreamingRewriteTests {
+        @Test
+        @DisplayName("Should copy entries other than the OPF without recompressing them")
+        void saveMetadataToFile_keepsUnchangedEntriesAsStored() throws IOException {
+            File epubFile = tempDir.resolve("test.epub").toFile();
+            Files.write(epubFile.toPath(), createEpubWithUnicodeCoverHref());
+            List<String> entriesBefore = describeEntries(epubFile, "OEBPS/content.opf");
+
+            writer.saveMetadataToFile(epubFile, metadata, null, new MetadataClearFlags());
+
+            assertThat(readOpfContent(epubFile)).contains("Test Book");
+            assertThat(describeEntries(epubFile, "OEBPS/content.opf")).isEqualTo(entriesBefore);
+            try (Stream<Path> files = Files.list(tempDir)) {
+                assertThat(files).containsExactly(epubFile.toPath());
+            }
+        }
+
+        @Test
+        @DisplayName("Should replace only the cover entry when the cover changes")
+        void replaceCoverImageFromBytes_replacesOnlyTheCoverEntry() throws IOException {
+            File epubFile = tempDir.resolve("test.epub").toFile();
+            Files.write(epubFile.toPath(), createEpubWithUnicodeCoverHref());
+            String coverEntry = "OEBPS/cover\u00e1.png";
+            String opfBefore = readOpfContent(epubFile);
+            List<String> entriesBefore = describeEntries(epubFile, coverEntry);
+            byte[] newCover = "new cover".getBytes(StandardCharsets.UTF_8);
+
+            writer.replaceCoverImageFromBytes(bookEntity, newCover);
+
+            try (ZipFile zf = new ZipFile(epubFile)) {
+                assertThat(zf.getInputStream(zf.getEntry(coverEntry)).readAllBytes()).isEqualTo(newCover);
+            }
+            assertThat(readOpfContent(epubFile)).isEqualTo(opfBefore);
+            assertThat(describeEntries(epubFile, coverEntry)).isEqualTo(entriesBefore);
+        }
+
+        @Test
+        @DisplayName("Should keep the file permissions of the original EPUB")
+        void saveMetadataToFile_keepsFilePermissions() throws IOException {
+            assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+            File epubFile = tempDir.resolve("test.epub").toFile();
+            Files.write(epubFile.toPath(), createEpubWithUnicodeCoverHref());
+            Files.setPosixFilePermissions(epubFile.toPath(), PosixFilePermissions.fromString("rw-rw-r--"));
+
+            writer.saveMetadataToFile(epubFile, metadata, null, new MetadataClearFlags());
+
+            assertThat(readOpfContent(epubFile)).contains("Test Book");
+            assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(epubFile.toPath()))).isEqualTo("rw-rw-r--");
+        }
+
+        // entry order plus the stored form of every entry except the one that is expected to change
+        private List<String> describeEntries(File epubFile, String changedEntry) throws IOException {
+            List<String> entries = new ArrayList<>();
+            try (ZipFile zf = new ZipFile(epubFile)) {
+                for (ZipEntry entry : Collections.list(zf.entries())) {
+                    entries.add(entry.getName().equals(changedEntry)
+                            ? entry.getName()
+                            : entry.getName() + ":" + entry.getMethod() + ":" + entry.getCompressedSize() + ":" + entry.getCrc());
+                }
+            }
+            return entries;
+        }
+    }
+
     private String readOpfContent(File epubFile) throws IOException {
         try (ZipFile zf = new ZipFile(epubFile)) {
             ZipEntry ze = zf.getEntry("OEBPS/content.opf");
@@ -6,14 +6,18 @@ import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
 import org.apache.commons.compress.archivers.sevenz.SevenZFile;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.booklore.config.AppProperties;
 import org.booklore.exception.APIException;
 import org.booklore.exception.ApiError;
 import org.booklore.model.entity.BookEntity;
 import org.booklore.repository.BookRepository;
+import org.booklore.util.FileService;
 import org.booklore.util.FileUtils;
+import org.booklore.util.UnrarHelper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -26,6 +30,9 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -36,6 +43,15 @@ class CbxReaderServiceTest {
     @Mock
     BookRepository bookRepository;
 
+    @Spy
+    ReaderMetadataCache readerMetadataCache = new ReaderMetadataCache(new AppProperties());
+
+    @Spy
+    CbxArchivePool archivePool = new CbxArchivePool(new AppProperties());
+
+    @Spy
+    CbxExtractedPageCache extractedPageCache = new CbxExtractedPageCache(new AppProperties(), mock(FileService.class));
+
     @InjectMocks
     CbxReaderService cbxReaderService;
 
@@ -257,6 +273,38 @@ class CbxReaderServiceTest {
         }
     }
 
+    @Test
+    void testStreamPageImage_CBR_FailureAfterWritingIsNotRetried() throws Exception {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(bookEntity));
+        try (MockedStatic<FileUtils> fileUtilsStatic = mockStatic(FileUtils.class);
+             MockedStatic<UnrarHelper> unrarStatic = mockStatic(UnrarHelper.class)) {
+            fileUtilsStatic.when(() -> FileUtils.getBookFullPath(bookEntity)).thenReturn(cbrPath.toString());
+            unrarStatic.when(UnrarHelper::isAvailable).thenReturn(true);
+
+            FileHeader header = mock(FileHeader.class);
+            when(header.isDirectory()).thenReturn(false);
+            when(header.getFileName()).thenReturn("1.jpg");
+
+            try (MockedConstruction<Archive> ignored = mockConstruction(Archive.class, (mock, context) -> {
+                when(mock.getFileHeaders()).thenReturn(List.of(header));
+                doAnswer(invocation -> {
+                    OutputStream out = invocation.getArgument(1);
+                    out.write(new byte[]{1, 2});
+                    throw new IllegalStateException("truncated");
+                }).when(mock).extractFile(eq(header), any(OutputStream.class));
+            })) {
+                Files.deleteIfExists(cbrPath);
+                Files.createFile(cbrPath);
+                Files.setLastModifiedTime(cbrPath, FileTime.fromMillis(System.currentTimeMillis()));
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                assertThrows(IOException.class, () -> cbxReaderService.streamPageImage(1L, 1, out));
+                assertArrayEquals(new byte[]{1, 2}, out.toByteArray());
+                unrarStatic.verify(() -> UnrarHelper.extractEntry(any(), any(), any()), never());
+            }
+        }
+    }
+
     @Test
     void testStreamPageImage_PageOutOfRange_Throws() throws Exception {
         when(bookRepository.findById(1L)).thenReturn(Optional.of(bookEntity));
@@ -329,4 +377,56 @@ class CbxReaderServiceTest {
             }
         }
     }
+
+    @Test
+    void testStreamPageImage_CBZ_StoredEntryCopiedFromPooledArchive(@TempDir Path tempDir) throws Exception {
+        Path archive = writeStoredZip(tempDir.resolve("stored.cbz"), new byte[]{9, 8, 7, 6}, new byte[]{5, 4});
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(bookEntity));
+        try (MockedStatic<FileUtils> fileUtilsStatic = mockStatic(FileUtils.class)) {
+            fileUtilsStatic.when(() -> FileUtils.getBookFullPath(bookEntity)).thenReturn(archive.toString());
+
+            ByteArrayOutputStream first = new ByteArrayOutputStream();
+            cbxReaderService.streamPageImage(1L, 1, first);
+            ByteArrayOutputStream second = new ByteArrayOutputStream();
+            cbxReaderService.streamPageImage(1L, 2, second);
+
+            assertArrayEquals(new byte[]{9, 8, 7, 6}, first.toByteArray());
+            assertArrayEquals(new byte[]{5, 4}, second.toByteArray());
+        }
+    }
+
+    @Test
+    void testFindPageRange_CBZ_StoredEntryPointsIntoArchive(@TempDir Path tempDir) throws Exception {
+        byte[] page = {1, 2, 3, 4, 5};
+        Path archive = writeStoredZip(tempDir.resolve("stored.cbz"), page);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(bookEntity));
+        try (MockedStatic<FileUtils> fileUtilsStatic = mockStatic(FileUtils.class)) {
+            fileUtilsStatic.when(() -> FileUtils.getBookFullPath(bookEntity)).thenReturn(archive.toString());
+
+            CbxReaderService.PageRange range = cbxReaderService.findPageRange(1L, null, 1).orElseThrow();
+
+            assertEquals(archive, range.file());
+            assertEquals(page.length, range.length());
+            byte[] archiveBytes = Files.readAllBytes(archive);
+            assertArrayEquals(page, java.util.Arrays.copyOfRange(archiveBytes, (int) range.offset(), (int) (range.offset() + range.length())));
+        }
+    }
+
+    private static Path writeStoredZip(Path path, byte[]... pages) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(path))) {
+            for (int i = 0; i < pages.length; i++) {
+                ZipEntry entry = new ZipEntry((i + 1) + ".jpg");
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(pages[i].length);
+                entry.setCompressedSize(pages[i].length);
+                CRC32 crc = new CRC32();
+                crc.update(pages[i]);
+                entry.setCrc(crc.getValue());
+                zip.putNextEntry(entry);
+                zip.write(pages[i]);
+                zip.closeEntry();
+            }
+        }
+        return path;
+    }
 }
@@ -1,5 +1,6 @@
 package org.booklore.service.reader;
 
+import org.booklore.config.AppProperties;
 import org.booklore.exception.ApiError;
 import org.booklore.model.dto.response.EpubBookInfo;
 import org.booklore.model.dto.response.EpubManifestItem;
@@ -17,6 +18,7 @@ import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
@@ -40,6 +42,9 @@ class EpubReaderServiceTest {
     @Mock
     BookRepository bookRepository;
 
+    @Spy
+    ReaderMetadataCache readerMetadataCache = new ReaderMetadataCache(new AppProperties());
+
     @InjectMocks
     EpubReaderService epubReaderService;
 
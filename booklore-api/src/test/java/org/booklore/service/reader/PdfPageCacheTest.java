@@ -0,0 +1,102 @@
+package org.booklore.service.reader;
+
+import org.booklore.model.dto.settings.AppSettings;
+import org.booklore.service.appsettings.AppSettingService;
+import org.booklore.util.FileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PdfPageCacheTest {
+
+    private static final int PAGE_SIZE = 400 * 1024;
+
+    @Mock private FileService fileService;
+    @Mock private AppSettingService appSettingService;
+
+    @TempDir
+    Path tempDir;
+
+    private PdfPageCache pageCache;
+    private final Path pdfPath = Path.of("/books/scan.pdf");
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(fileService.getPdfCachePath()).thenReturn(tempDir.toString());
+        lenient().when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder().pdfCacheSizeInMb(1).build());
+        pageCache = new PdfPageCache(fileService, appSettingService);
+    }
+
+    @Test
+    void copyTo_shouldServeStoredPageForSameFileVersionAndResolution() throws IOException {
+        pageCache.put(pdfPath, 1000L, 3, 200, new byte[]{1, 2, 3});
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertThat(pageCache.copyTo(pdfPath, 1000L, 3, 200, output)).isTrue();
+        assertThat(output.toByteArray()).containsExactly(1, 2, 3);
+
+        assertThat(pageCache.copyTo(pdfPath, 2000L, 3, 200, new ByteArrayOutputStream())).isFalse();
+        assertThat(pageCache.copyTo(pdfPath, 1000L, 3, 100, new ByteArrayOutputStream())).isFalse();
+        assertThat(pageCache.contains(pdfPath, 1000L, 3, 200)).isTrue();
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsedPagesOverLimit() throws IOException {
+        pageCache.put(pdfPath, 1000L, 1, 200, new byte[PAGE_SIZE]);
+        pageCache.put(pdfPath, 1000L, 2, 200, new byte[PAGE_SIZE]);
+        ageAllPages();
+        pageCache.copyTo(pdfPath, 1000L, 1, 200, new ByteArrayOutputStream());
+
+        pageCache.put(pdfPath, 1000L, 3, 200, new byte[PAGE_SIZE]);
+
+        assertThat(pageCache.contains(pdfPath, 1000L, 1, 200)).isTrue();
+        assertThat(pageCache.contains(pdfPath, 1000L, 2, 200)).isFalse();
+        assertThat(pageCache.contains(pdfPath, 1000L, 3, 200)).isTrue();
+    }
+
+    @Test
+    void put_shouldSkipCachingWhenDisabled() {
+        lenient().when(appSettingService.getAppSettings()).thenReturn(AppSettings.builder().pdfCacheSizeInMb(0).build());
+
+        pageCache.put(pdfPath, 1000L, 1, 200, new byte[]{1});
+
+        assertThat(pageCache.isEnabled()).isFalse();
+        assertThat(pageCache.contains(pdfPath, 1000L, 1, 200)).isFalse();
+    }
+
+    @Test
+    void put_shouldCountAnOverwrittenPageOnce() {
+        pageCache.put(pdfPath, 1000L, 1, 200, new byte[PAGE_SIZE]);
+        pageCache.put(pdfPath, 1000L, 1, 200, new byte[PAGE_SIZE]);
+        pageCache.put(pdfPath, 1000L, 1, 200, new byte[PAGE_SIZE]);
+
+        pageCache.put(pdfPath, 1000L, 2, 200, new byte[PAGE_SIZE]);
+
+        assertThat(pageCache.contains(pdfPath, 1000L, 1, 200)).isTrue();
+        assertThat(pageCache.contains(pdfPath, 1000L, 2, 200)).isTrue();
+        // one lookup per page stored plus the first size scan; an eviction would have scanned the cache again
+        verify(fileService, times(5)).getPdfCachePath();
+    }
+
+    private void ageAllPages() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.booklore.service.reader;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.booklore.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReaderMetadataCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ReaderMetadataCache cache;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cache = new ReaderMetadataCache(new AppProperties());
+        file = Files.writeString(tempDir.resolve("book.cbz"), "data");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000L));
+    }
+
+    @Test
+    void get_shouldLoadOnceAndServeHitsFromCache() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+
+        TestMetadata first = cache.get(TestMetadata.class, file, previous -> load(loads, 100));
+        TestMetadata second = cache.get(TestMetadata.class, file, previous -> load(loads, 100));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void get_shouldReloadWithPreviousEntryWhenFileChanges() throws IOException {
+        TestMetadata first = cache.get(TestMetadata.class, file, previous -> load(new AtomicInteger(), 100));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2_000_000L));
+
+        List<TestMetadata> seenPrevious = new ArrayList<>();
+        TestMetadata reloaded = cache.get(TestMetadata.class, file, previous -> {
+            seenPrevious.add(previous);
+            return load(new AtomicInteger(), 100);
+        });
+
+        assertThat(seenPrevious).containsExactly(first);
+        assertThat(reloaded.lastModified()).isEqualTo(2_000_000L);
+    }
+
+    @Test
+    void get_shouldCoalesceConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TestMetadata>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get(TestMetadata.class, file, previous -> {
+                    loading.countDown();
+                    awaitQuietly(release);
+                    return load(loads, 100);
+                })));
+            }
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(100);
+            release.countDown();
+
+            TestMetadata first = results.getFirst().get(5, TimeUnit.SECONDS);
+            for (Future<TestMetadata> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+            }
+            assertThat(loads).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void get_shouldPropagateLoaderIOException() {
+        assertThatThrownBy(() -> cache.get(TestMetadata.class, file, previous -> {
+            throw new IOException("corrupt archive");
+        })).isInstanceOf(IOException.class).hasMessage("corrupt archive");
+    }
+
+    @Test
+    void bindTo_shouldPublishHitAndMissCounts() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get(TestMetadata.class, file, previous -> load(new AtomicInteger(), 100));
+        cache.get(TestMetadata.class, file, previous -> load(new AtomicInteger(), 100));
+
+        assertThat(registry.get("cache.gets").tags("cache", "reader.metadata", "result", "miss").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.gets").tags("cache", "reader.metadata", "result", "hit").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    private TestMetadata load(AtomicInteger loads, int weight) throws IOException {
+        loads.incrementAndGet();
+        return new TestMetadata(Files.getLastModifiedTime(file).toMillis(), weight);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    record TestMetadata(long lastModified, int weight) implements ReaderMetadataCache.CachedMetadata {
+    }
+}
@@ -0,0 +1,124 @@
+package org.booklore.service.recommender;
+
+import org.booklore.model.entity.AuthorEntity;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookMetadataEntity;
+import org.booklore.model.entity.CategoryEntity;
+import org.booklore.repository.BookRepository;
+import org.booklore.service.book.BookListViewIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookSimilarityIndexTest {
+
+    @Mock private BookRepository bookRepository;
+    @Mock private BookListViewIndex bookListViewIndex;
+
+    private BookSimilarityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSimilarityIndex(bookRepository, new BookVectorService(), bookListViewIndex);
+    }
+
+    @Test
+    void findNearest_shouldRankSharedAuthorsFirstAndSkipSameSeries() {
+        BookEntity dune = book(1L, "Dune", "Frank Herbert", "Science Fiction", "Dune");
+        BookEntity messiah = book(2L, "Dune Messiah", "Frank Herbert", "Science Fiction", "Dune");
+        BookEntity whipping = book(3L, "Whipping Star", "Frank Herbert", "Science Fiction", null);
+        BookEntity emma = book(4L, "Emma", "Jane Austen", "Romance", null);
+        when(bookRepository.findAllFullBooks()).thenReturn(List.of(dune, messiah, whipping, emma));
+
+        List<BookSimilarityIndex.Neighbor> nearest = index.findNearest(1L, 5, 0.0);
+
+        assertThat(nearest).extracting(BookSimilarityIndex.Neighbor::bookId).doesNotContain(1L, 2L);
+        assertThat(nearest.getFirst().bookId()).isEqualTo(3L);
+        verify(bookRepository, times(1)).findAllFullBooks();
+        index.findNearest(3L, 5, 0.0);
+        verify(bookRepository, times(1)).findAllFullBooks();
+    }
+
+    @Test
+    void applyPendingChanges_shouldReindexChangedAndDropDeletedBooks() {
+        BookEntity dune = book(1L, "Dune", "Frank Herbert", "Science Fiction", null);
+        BookEntity emma = book(2L, "Emma", "Jane Austen", "Romance", null);
+        BookEntity persuasion = book(3L, "Persuasion", "Jane Austen", "Romance", null);
+        index.rebuild(List.of(dune, emma, persuasion), null);
+        assertThat(index.findNearest(2L, 1, 0.0).getFirst().bookId()).isEqualTo(3L);
+
+        BookEntity retitled = book(3L, "Children of Dune", "Frank Herbert", "Science Fiction", null);
+        BookEntity deleted = book(2L, "Emma", "Jane Austen", "Romance", null);
+        deleted.setDeleted(true);
+        when(bookRepository.findAllFullBooksByIds(anyCollection())).thenReturn(List.of(retitled, deleted));
+
+        index.booksChanged(List.of(2L, 3L));
+        index.applyPendingChanges();
+
+        assertThat(index.findNearest(2L, 5, 0.0)).isEmpty();
+        assertThat(index.findNearest(1L, 1, 0.0).getFirst().bookId()).isEqualTo(3L);
+    }
+
+    @Test
+    void hnswGraph_shouldFindMostTrueNearestNeighbours() {
+        Random random = new Random(7);
+        int dimension = 32;
+        HnswGraph graph = new HnswGraph(dimension, 16, 100, 1L);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            float[] vector = randomUnitVector(random, dimension);
+            vectors.add(vector);
+            graph.add(vector);
+        }
+
+        int hits = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = randomUnitVector(random, dimension);
+            Set<Integer> exact = IntStream.range(0, vectors.size()).boxed()
+                    .sorted(Comparator.comparingDouble((Integer node) -> graph.score(query, node)).reversed())
+                    .limit(10)
+                    .collect(Collectors.toSet());
+            hits += (int) graph.search(query, 10, 64).stream().filter(c -> exact.contains(c.node())).count();
+        }
+        assertThat(hits / 500.0).isGreaterThan(0.9);
+
+        graph.remove(0);
+        assertThat(graph.search(vectors.getFirst(), 10, 64)).extracting(HnswGraph.Candidate::node).doesNotContain(0);
+    }
+
+    private static float[] randomUnitVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        double norm = 0;
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        for (int i = 0; i < dimension; i++) {
+            vector[i] /= (float) Math.sqrt(norm);
+        }
+        return vector;
+    }
+
+    private static BookEntity book(Long id, String title, String author, String category, String series) {
+        return BookEntity.builder()
+                .id(id)
+                .metadata(BookMetadataEntity.builder()
+                        .title(title)
+                        .authors(new HashSet<>(Set.of(AuthorEntity.builder().name(author).build())))
+                        .categories(new HashSet<>(Set.of(CategoryEntity.builder().name(category).build())))
+                        .seriesName(series)
+                        .build())
+                .build();
+    }
+}
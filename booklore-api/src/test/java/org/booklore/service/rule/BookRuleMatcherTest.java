@@ -0,0 +1,137 @@
+package org.booklore.service.rule;
+
+import org.booklore.model.dto.*;
+import org.booklore.model.entity.MagicShelfEntity;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BookRuleMatcherTest {
+
+    private final MagicShelfRuleCompiler compiler = new MagicShelfRuleCompiler(JsonMapper.builder().build());
+
+    @Test
+    void compile_shouldBuildTypedTreeFromJson() {
+        CompiledRule.Group rule = compiler.compile("""
+                {"join":"and","rules":[
+                  {"field":"title","operator":"contains","value":"dune"},
+                  {"type":"group","join":"or","rules":[
+                    {"field":"pageCount","operator":"greater_than","value":300},
+                    {"field":"tags","operator":"includes_any","value":["Classic","Epic"]}
+                  ]},
+                  null,
+                  {"field":"notAField","operator":"equals","value":"x"}
+                ]}""");
+
+        assertThat(rule.join()).isEqualTo(JoinType.AND);
+        assertThat(rule.rules()).hasSize(2);
+        CompiledRule.Condition title = (CompiledRule.Condition) rule.rules().get(0);
+        assertThat(title.field()).isEqualTo(RuleField.TITLE);
+        assertThat(title.operator()).isEqualTo(RuleOperator.CONTAINS);
+        CompiledRule.Group nested = (CompiledRule.Group) rule.rules().get(1);
+        assertThat(nested.join()).isEqualTo(JoinType.OR);
+        assertThat(((CompiledRule.Condition) nested.rules().get(1)).values()).containsExactly("Classic", "Epic");
+        assertThat(rule.inMemoryCapable()).isTrue();
+    }
+
+    @Test
+    void compile_shouldReuseShelfRuleUntilShelfChanges() {
+        MagicShelfEntity shelf = MagicShelfEntity.builder()
+                .id(7L)
+                .filterJson("{\"join\":\"and\",\"rules\":[{\"field\":\"title\",\"operator\":\"equals\",\"value\":\"Dune\"}]}")
+                .updatedAt(LocalDateTime.of(2026, 1, 1, 12, 0))
+                .build();
+
+        CompiledRule.Group first = compiler.compile(shelf);
+        assertThat(compiler.compile(shelf)).isSameAs(first);
+
+        shelf.setFilterJson("{\"join\":\"and\",\"rules\":[{\"field\":\"title\",\"operator\":\"equals\",\"value\":\"Emma\"}]}");
+        CompiledRule.Group edited = compiler.compile(shelf);
+        assertThat(edited).isNotSameAs(first);
+        assertThat(((CompiledRule.Condition) edited.rules().getFirst()).value()).isEqualTo("Emma");
+    }
+
+    @Test
+    void compile_shouldFlagRulesThatNeedSql() {
+        assertThat(compiler.compile(group(JoinType.AND, rule(RuleField.READ_STATUS, RuleOperator.EQUALS, "READ"))).inMemoryCapable()).isFalse();
+        assertThat(compiler.compile(group(JoinType.AND, rule(RuleField.SERIES_STATUS, RuleOperator.EQUALS, "reading"))).inMemoryCapable()).isFalse();
+        assertThat(compiler.compile(group(JoinType.AND, rule(RuleField.DESCRIPTION, RuleOperator.CONTAINS, "war"))).inMemoryCapable()).isFalse();
+        assertThatThrownBy(() -> BookRuleMatcher.toPredicate(compiler.compile(group(JoinType.AND, rule(RuleField.FILE_TYPE, RuleOperator.EQUALS, "epub")))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void matcher_shouldEvaluateScalarAndCollectionFields() {
+        Book dune = book(1L, 10L, "Dune", 412, Set.of("Frank Herbert"), Set.of("Classic", "Science Fiction"));
+        Book emma = book(2L, 20L, "Emma", 300, Set.of("Jane Austen"), Set.of("Classic"));
+
+        Predicate<Book> predicate = predicate(group(JoinType.AND,
+                rule(RuleField.CATEGORIES, RuleOperator.INCLUDES_ALL, List.of("classic", "science fiction")),
+                rule(RuleField.PAGE_COUNT, RuleOperator.GREATER_THAN_EQUAL_TO, "400"),
+                rule(RuleField.LIBRARY, RuleOperator.EQUALS, 10)));
+
+        assertThat(predicate.test(dune)).isTrue();
+        assertThat(predicate.test(emma)).isFalse();
+        assertThat(predicate(group(JoinType.OR,
+                rule(RuleField.AUTHORS, RuleOperator.STARTS_WITH, "jane"),
+                rule(RuleField.TITLE, RuleOperator.ENDS_WITH, "UNE"))).test(emma)).isTrue();
+    }
+
+    @Test
+    void matcher_shouldTreatComparisonsWithMissingValuesAsUnknown() {
+        Book untitled = book(1L, 10L, null, null, Set.of(), Set.of());
+
+        assertThat(predicate(group(JoinType.AND, rule(RuleField.TITLE, RuleOperator.NOT_EQUALS, "Dune"))).test(untitled)).isFalse();
+        assertThat(predicate(group(JoinType.OR,
+                rule(RuleField.TITLE, RuleOperator.DOES_NOT_CONTAIN, "x"),
+                rule(RuleField.AUTHORS, RuleOperator.IS_EMPTY, null))).test(untitled)).isTrue();
+        assertThat(predicate(group(JoinType.AND, rule(RuleField.PAGE_COUNT, RuleOperator.IS_EMPTY, null))).test(untitled)).isTrue();
+        assertThat(predicate(group(JoinType.AND, rule(RuleField.TAGS, RuleOperator.EXCLUDES_ALL, List.of("Horror")))).test(untitled)).isTrue();
+    }
+
+    @Test
+    void matcher_shouldEvaluateRelativeDates() {
+        Book recent = book(1L, 10L, "New", 100, Set.of(), Set.of());
+        recent.setAddedOn(Instant.now().minus(2, ChronoUnit.DAYS));
+        recent.getMetadata().setPublishedDate(LocalDate.of(1965, 8, 1));
+
+        assertThat(predicate(group(JoinType.AND, rule(RuleField.ADDED_ON, RuleOperator.WITHIN_LAST, 7))).test(recent)).isTrue();
+        assertThat(predicate(group(JoinType.AND, rule(RuleField.PUBLISHED_DATE, RuleOperator.OLDER_THAN, 10))).test(recent)).isTrue();
+        assertThat(predicate(group(JoinType.AND, rule(RuleField.PUBLISHED_DATE, RuleOperator.LESS_THAN, "1960-01-01"))).test(recent)).isFalse();
+    }
+
+    private Predicate<Book> predicate(GroupRule group) {
+        return BookRuleMatcher.toPredicate(compiler.compile(group));
+    }
+
+    private static GroupRule group(JoinType join, Object... rules) {
+        return GroupRule.builder().join(join).rules(List.of(rules)).build();
+    }
+
+    private static Rule rule(RuleField field, RuleOperator operator, Object value) {
+        return Rule.builder().field(field).operator(operator).value(value).build();
+    }
+
+    private static Book book(Long id, Long libraryId, String title, Integer pageCount, Set<String> authors, Set<String> categories) {
+        return Book.builder()
+                .id(id)
+                .libraryId(libraryId)
+                .metadata(BookMetadata.builder()
+                        .title(title)
+                        .pageCount(pageCount)
+                        .authors(authors)
+                        .categories(categories)
+                        .build())
+                .build();
+    }
+}
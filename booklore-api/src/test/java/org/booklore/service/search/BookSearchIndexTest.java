@@ -0,0 +1,67 @@
+package org.booklore.service.search;
+
+import org.booklore.config.AppProperties;
+import org.booklore.model.entity.BookEntity;
+import org.booklore.model.entity.BookMetadataEntity;
+import org.booklore.repository.BookRepository;
+import org.booklore.service.book.BookListViewIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookSearchIndexTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final AppProperties appProperties = new AppProperties();
+
+    @Test
+    void search_shouldUseTheDatabaseUntilTheIndexIsOpen() {
+        appProperties.getSearch().setMaxResults(3);
+        // books 10 down to 1, most recently added first, two pages of them
+        when(bookRepository.findBookIdsByMetadataSearch(eq("dune"), any())).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(1);
+            long first = 10 - pageable.getOffset();
+            List<Long> ids = LongStream.iterate(first, id -> id > Math.max(first - pageable.getPageSize(), 0), id -> id - 1).boxed().toList();
+            return new SliceImpl<>(ids, pageable, first - pageable.getPageSize() > 0);
+        });
+        BookSearchIndex searchIndex = searchIndex();
+
+        assertThat(searchIndex.search("Dune", bookId -> bookId % 2 == 0)).containsExactly(10L, 8L, 6L);
+        assertThat(searchIndex.search("Dune", bookId -> bookId < 3)).containsExactly(2L, 1L);
+        verify(bookRepository, never()).findAllActiveBookIds();
+    }
+
+    @Test
+    void search_shouldLeaveOutBooksThatAreNotAllowedBeforeLimiting() {
+        appProperties.getSearch().setMaxResults(2);
+        when(bookRepository.findAllActiveBookIds()).thenReturn(List.of(1L, 2L, 3L, 4L));
+        when(bookRepository.findAllFullBooksByIds(any())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream().map(BookSearchIndexTest::book).toList());
+        BookSearchIndex searchIndex = searchIndex();
+        searchIndex.rebuild();
+
+        assertThat(searchIndex.search("dune", bookId -> true)).containsExactly(4L, 3L);
+        assertThat(searchIndex.search("dune", bookId -> bookId <= 2)).containsExactly(2L, 1L);
+        verify(bookRepository, never()).findBookIdsByMetadataSearch(any(), any());
+    }
+
+    private BookSearchIndex searchIndex() {
+        return new BookSearchIndex(bookRepository, mock(BookListViewIndex.class), mock(PlatformTransactionManager.class), appProperties);
+    }
+
+    private static BookEntity book(Long id) {
+        BookEntity book = BookEntity.builder().id(id).build();
+        book.setMetadata(BookMetadataEntity.builder().bookId(id).title("Dune").build());
+        return book;
+    }
+}
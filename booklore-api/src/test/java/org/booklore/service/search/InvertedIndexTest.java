@@ -0,0 +1,140 @@
+package org.booklore.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    @Test
+    void analyzer_shouldFoldAccentsAndStemPlurals() {
+        assertThat(SearchAnalyzer.terms("Les Misérables")).containsExactly("les", "miserable");
+        assertThat(SearchAnalyzer.terms("Tolkien's Stories")).containsExactly("tolkien", "story");
+        assertThat(SearchAnalyzer.terms("Søren Kierkegaard, Straße")).containsExactly("soren", "kierkegaard", "strasse");
+        assertThat(SearchAnalyzer.stem("glass")).isEqualTo("glass");
+        assertThat(SearchAnalyzer.stem("virus")).isEqualTo("virus");
+    }
+
+    @Test
+    void search_shouldRankTitleMatchesAboveDescriptionMatches() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1L, fields("Collected Essays", "A long description that mentions dragons once"));
+        index.add(2L, fields("Dragons of Autumn Twilight", null));
+
+        assertThat(ids(index.search("dragons ", 10, false))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void search_shouldRequireEveryWord() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1L, fields("The Hobbit", null));
+        index.add(2L, fields("The Silmarillion", null));
+
+        assertThat(ids(index.search("the hobbit ", 10, false))).containsExactly(1L);
+        assertThat(ids(index.search("hobbit silmarillion ", 10, false))).isEmpty();
+    }
+
+    @Test
+    void search_shouldMatchPrefixOfLastWordOnly() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1L, fields("The Hobbit", null));
+
+        assertThat(ids(index.search("hobb", 10, false))).containsExactly(1L);
+        assertThat(ids(index.search("hobb ", 10, false))).isEmpty();
+        assertThat(ids(index.search("hobb the", 10, false))).isEmpty();
+    }
+
+    @Test
+    void search_shouldTolerateTyposOnlyWhenEnabled() {
+        InvertedIndex index = new InvertedIndex();
+        Map<SearchField, String> fields = fields("The Hobbit", null);
+        fields.put(SearchField.AUTHORS, "J. R. R. Tolkien");
+        index.add(1L, fields);
+
+        assertThat(ids(index.search("tolkein ", 10, true))).containsExactly(1L);
+        assertThat(ids(index.search("tolkein ", 10, false))).isEmpty();
+        assertThat(ids(index.search("bolkien ", 10, true))).isEmpty();
+    }
+
+    @Test
+    void search_shouldLeaveOutBooksThatAreNotAllowedBeforeLimiting() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 5; id++) {
+            index.add(id, fields("Dragons " + id, null));
+        }
+
+        assertThat(ids(index.search("dragons ", 2, false))).containsExactly(5L, 4L);
+        assertThat(ids(index.search("dragons ", 2, false, id -> id <= 3))).containsExactly(3L, 2L);
+        assertThat(ids(index.search("dragons ", 2, false, id -> false))).isEmpty();
+    }
+
+    @Test
+    void addAndRemove_shouldReplaceAndDropBooks() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1L, fields("Old Title", null));
+        index.add(1L, fields("New Title", null));
+        index.add(2L, fields("Other Title", null));
+
+        assertThat(index.isCurrent(1L, fields("New Title", null))).isTrue();
+        assertThat(index.isCurrent(1L, fields("Old Title", null))).isFalse();
+        assertThat(ids(index.search("old ", 10, false))).isEmpty();
+        assertThat(ids(index.search("new ", 10, false))).containsExactly(1L);
+
+        assertThat(index.remove(2L)).isTrue();
+        assertThat(index.remove(2L)).isFalse();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.deletedCount()).isEqualTo(2);
+
+        index.compact();
+
+        assertThat(index.deletedCount()).isZero();
+        assertThat(index.bookIds()).containsExactly(1L);
+        assertThat(ids(index.search("title ", 10, false))).containsExactly(1L);
+    }
+
+    @Test
+    void writeAndRead_shouldRoundTrip() throws IOException {
+        InvertedIndex index = new InvertedIndex();
+        index.add(1L, fields("The Hobbit", "There and back again"));
+        index.add(2L, fields("The Silmarillion", null));
+        index.remove(2L);
+        index.compact();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.write(out);
+        }
+        InvertedIndex read = InvertedIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(read).isNotNull();
+        assertThat(read.bookIds()).containsExactly(1L);
+        assertThat(read.isCurrent(1L, fields("The Hobbit", "There and back again"))).isTrue();
+        assertThat(ids(read.search("back hobbit", 10, false))).containsExactly(1L);
+        assertThat(ids(read.search("silmarillion", 10, false))).isEmpty();
+    }
+
+    @Test
+    void editDistance_shouldCountAdjacentSwapsAsOneEdit() {
+        assertThat(InvertedIndex.editDistance("tolkein", "tolkien", 2)).isEqualTo(1);
+        assertThat(InvertedIndex.editDistance("kitten", "sitting", 3)).isEqualTo(3);
+        assertThat(InvertedIndex.editDistance("kitten", "sitting", 1)).isEqualTo(2);
+    }
+
+    private static Map<SearchField, String> fields(String title, String description) {
+        Map<SearchField, String> fields = new EnumMap<>(SearchField.class);
+        fields.put(SearchField.TITLE, title);
+        if (description != null) {
+            fields.put(SearchField.DESCRIPTION, description);
+        }
+        return fields;
+    }
+
+    private static List<Long> ids(List<InvertedIndex.Hit> hits) {
+        return hits.stream().map(InvertedIndex.Hit::bookId).toList();
+    }
+}
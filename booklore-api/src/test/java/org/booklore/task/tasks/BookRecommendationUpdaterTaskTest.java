@@ -10,6 +10,7 @@ import org.booklore.model.enums.TaskType;
 import org.booklore.model.websocket.Topic;
 import org.booklore.service.NotificationService;
 import org.booklore.service.book.BookQueryService;
+import org.booklore.service.recommender.BookSimilarityIndex;
 import org.booklore.service.recommender.BookVectorService;
 import org.booklore.task.TaskStatus;
 import org.junit.jupiter.api.BeforeEach;
@@ -36,6 +37,8 @@ class BookRecommendationUpdaterTaskTest {
     private BookVectorService vectorService;
     @Mock
     private NotificationService notificationService;
+    @Mock
+    private BookSimilarityIndex similarityIndex;
 
     @InjectMocks
     private BookRecommendationUpdaterTask task;
@@ -96,6 +99,7 @@ class BookRecommendationUpdaterTaskTest {
         // Verify embeddings were set
         assertNotNull(savedBooks.get(0).getMetadata().getEmbeddingVector());
         verify(vectorService, times(2)).generateEmbedding(any());
+        verify(similarityIndex).rebuild(eq(books), anyMap());
     }
 
     @Test
@@ -117,9 +121,7 @@ class BookRecommendationUpdaterTaskTest {
         when(vectorService.generateEmbedding(any())).thenReturn(new double[]{0.1});
         when(vectorService.serializeVector(any())).thenReturn("[0.1]");
         
-        // Mock similarity to throw for first book, pass for second (actually it iterates as target)
-        // target=book1, candidate=book2. 
-        when(vectorService.cosineSimilarity(any(), any())).thenThrow(new RuntimeException("Math error"));
+        when(similarityIndex.findNearest(anyLong(), anyInt(), anyDouble())).thenThrow(new RuntimeException("Math error"));
 
         TaskCreateResponse response = task.execute(request);
 
@@ -0,0 +1,122 @@
+package org.booklore.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingZipResourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void getInputStream_shouldProduceAnArchiveOfTheExactContentLength() throws IOException {
+        StreamingZipResource zip = audiobook();
+
+        byte[] archive = readAll(zip);
+
+        assertThat((long) archive.length).isEqualTo(zip.contentLength());
+    }
+
+    @Test
+    void getInputStream_shouldStoreCompressedFormatsAndDeflateTheRest() throws IOException {
+        Path archive = tempDir.resolve("out.zip");
+        Files.write(archive, readAll(audiobook()));
+
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            List<? extends ZipEntry> entries = zipFile.stream().toList();
+            assertThat(entries).extracting(ZipEntry::getName)
+                    .containsExactly("Dune/01.mp3", "Dune/02.mp3", "Dune/cover.jpg", "Dune/notes.txt");
+            assertThat(entries).extracting(ZipEntry::getMethod)
+                    .containsExactly(ZipEntry.STORED, ZipEntry.STORED, ZipEntry.STORED, ZipEntry.DEFLATED);
+            for (ZipEntry entry : entries) {
+                byte[] content = zipFile.getInputStream(entry).readAllBytes();
+                String name = entry.getName().substring("Dune/".length());
+                assertThat(content).isEqualTo(Files.readAllBytes(tempDir.resolve("Dune").resolve(name)));
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                assertThat(entry.getCrc()).isEqualTo(crc.getValue());
+            }
+        }
+    }
+
+    @Test
+    void skip_shouldResumeWithTheSameBytes() throws IOException {
+        StreamingZipResource zip = audiobook();
+        byte[] archive = readAll(zip);
+
+        for (int offset : new int[]{1, 40, 100_000, archive.length - 20, archive.length}) {
+            try (InputStream in = zip.getInputStream()) {
+                assertThat(in.skip(offset)).isEqualTo(offset);
+                assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(archive, offset, archive.length));
+            }
+        }
+    }
+
+    @Test
+    void addFile_shouldRenameDuplicateEntries() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("book.fb2"), "<FictionBook/>");
+        Path archive = tempDir.resolve("out.zip");
+
+        Files.write(archive, readAll(new StreamingZipResource("book.zip").addFile("book.fb2", file).addFile("book.fb2", file)));
+
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            assertThat(zipFile.stream().map(ZipEntry::getName)).containsExactly("book.fb2", "book (2).fb2");
+        }
+    }
+
+    @Test
+    void getInputStream_shouldFailWhenAFileChangedSizeAfterItWasAdded() throws IOException {
+        StreamingZipResource zip = audiobook();
+        Files.writeString(tempDir.resolve("Dune").resolve("notes.txt"), "rewritten");
+
+        assertThatThrownBy(() -> readAll(zip))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("notes.txt");
+    }
+
+    @Test
+    void getETag_shouldChangeWhenAFileIsTouched() throws IOException {
+        String before = audiobook().getETag();
+        assertThat(audiobook().getETag()).isEqualTo(before);
+
+        Files.setLastModifiedTime(tempDir.resolve("Dune").resolve("01.mp3"), FileTime.fromMillis(0));
+
+        assertThat(audiobook().getETag()).isNotEqualTo(before);
+    }
+
+    private StreamingZipResource audiobook() throws IOException {
+        Path folder = tempDir.resolve("Dune");
+        if (!Files.isDirectory(folder)) {
+            Files.createDirectories(folder);
+            Random random = new Random(42);
+            for (String name : List.of("01.mp3", "02.mp3", "cover.jpg")) {
+                byte[] content = new byte[150_000];
+                random.nextBytes(content);
+                Files.write(folder.resolve(name), content);
+            }
+            Files.writeString(folder.resolve("notes.txt"), "Narrated by Scott Brick.\n".repeat(500));
+        }
+        return new StreamingZipResource("Dune.zip").addFolder("Dune/", folder);
+    }
+
+    private static byte[] readAll(StreamingZipResource zip) throws IOException {
+        try (InputStream in = zip.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -18,6 +18,7 @@ import {LibraryService} from './features/book/service/library.service';
 import {LibraryHealthService} from './features/book/service/library-health.service';
 import {LibraryLoadingService} from './features/library-creator/library-loading.service';
 import {scan, withLatestFrom} from 'rxjs/operators';
+import {BookEventBatch} from './features/book/model/book.model';
 
 @Component({
   selector: 'app-root',
@@ -101,6 +102,26 @@ export class AppComponent implements OnInit, OnDestroy {
         }, {count: 0})
       ).subscribe()
     );
+    this.subscriptions.push(
+      this.rxStompService.watch('/user/queue/books-batch').pipe(
+        withLatestFrom(this.libraryService.largeLibraryLoading$),
+        scan((acc, [msg, loadingState]) => {
+          const batch = JSON.parse(msg.body) as BookEventBatch;
+          this.bookService.handleBookEventBatch(batch);
+          if (!loadingState.isLoading || batch.added.length === 0) {
+            return {count: loadingState.isLoading ? acc.count : 0};
+          }
+          const newCount = acc.count + batch.added.length;
+          const lastBook = batch.added[batch.added.length - 1];
+          this.libraryLoadingService.showBookLoadingProgress(lastBook.metadata?.title || 'Unknown Book', newCount, loadingState.expectedCount);
+          if (newCount >= loadingState.expectedCount) {
+            this.libraryService.setLargeLibraryLoading(false, 0);
+            return {count: 0};
+          }
+          return {count: newCount};
+        }, {count: 0})
+      ).subscribe()
+    );
     this.subscriptions.push(
       this.rxStompService.watch('/user/queue/book-update').subscribe(msg =>
         this.bookService.handleBookUpdate(JSON.parse(msg.body))
@@ -12,7 +12,6 @@ import {UrlHelperService} from '../../../../shared/service/url-helper.service';
 import {Router} from '@angular/router';
 import {IconField} from 'primeng/iconfield';
 import {InputIcon} from 'primeng/inputicon';
-import {HeaderFilter} from '../book-browser/filters/HeaderFilter';
 import {TranslocoDirective, TranslocoService} from '@jsverse/transloco';
 
 @Component({
@@ -45,27 +44,20 @@ export class BookSearcherComponent implements OnInit, OnDestroy {
   protected urlHelper = inject(UrlHelperService);
   private readonly t = inject(TranslocoService);
   private elRef = inject(ElementRef);
-  private headerFilter = new HeaderFilter(
-    this.#searchSubject.pipe(debounceTime(200), distinctUntilChanged())
-  );
 
   ngOnInit(): void {
-    this.#subscription = this.bookService.bookState$.pipe(
-      tap(() => {
-        if (this.searchQuery.trim().length >= 2) {
-          this.isLoading = true;
-        }
-      }),
-      switchMap(bookState => this.headerFilter.filter(bookState)),
-      catchError(() => of({books: [], loaded: true, error: null}))
+    this.#subscription = this.#searchSubject.pipe(
+      debounceTime(200),
+      distinctUntilChanged(),
+      tap(term => this.isLoading = term.length >= 2),
+      switchMap(term => term.length >= 2
+        ? this.bookService.searchBooks(term).pipe(catchError(() => of([] as Book[])))
+        : of([] as Book[]))
     ).subscribe({
-      next: (filteredState) => {
+      next: (books) => {
         this.isLoading = false;
         this.activeIndex = -1;
-        const term = this.searchQuery.trim();
-        this.books = term.length >= 2
-          ? (filteredState.books || []).slice(0, 50)
-          : [];
+        this.books = this.searchQuery.trim().length >= 2 ? books : [];
       }
     });
   }
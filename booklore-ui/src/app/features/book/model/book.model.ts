@@ -447,3 +447,10 @@ export interface DetachBookFileResponse {
   sourceBook: Book;
   newBook: Book;
 }
+
+export interface BookEventBatch {
+  added: Book[];
+  updated: Book[];
+  removed: number[];
+  resync: boolean;
+}
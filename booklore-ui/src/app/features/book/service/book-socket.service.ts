@@ -1,6 +1,6 @@
 import {inject, Injectable} from '@angular/core';
 import {BookStateService} from './book-state.service';
-import {Book, BookMetadata} from '../model/book.model';
+import {Book, BookEventBatch, BookMetadata} from '../model/book.model';
 
 @Injectable({
   providedIn: 'root',
@@ -20,6 +20,31 @@ export class BookSocketService {
     this.bookStateService.updateBookState({...currentState, books: updatedBooks});
   }
 
+  handleBookEventBatch(batch: BookEventBatch): void {
+    const currentState = this.bookStateService.getCurrentBookState();
+    const removed = new Set(batch.removed);
+    const changed = new Map<number, Book>();
+    batch.updated.forEach(book => changed.set(book.id, book));
+    batch.added.forEach(book => changed.set(book.id, book));
+
+    const books = (currentState.books || [])
+      .filter(book => !removed.has(book.id))
+      .map(book => {
+        const replacement = changed.get(book.id);
+        if (replacement) {
+          changed.delete(book.id);
+          return replacement;
+        }
+        return book;
+      });
+    batch.added.forEach(book => {
+      if (changed.has(book.id)) {
+        books.push(book);
+      }
+    });
+    this.bookStateService.updateBookState({...currentState, books});
+  }
+
   handleRemovedBookIds(removedBookIds: number[]): void {
     const currentState = this.bookStateService.getCurrentBookState();
     const filteredBooks = (currentState.books || []).filter(book => !removedBookIds.includes(book.id));
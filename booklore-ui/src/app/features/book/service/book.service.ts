@@ -2,7 +2,7 @@ import {inject, Injectable} from '@angular/core';
 import {first, Observable, of, throwError} from 'rxjs';
 import {HttpClient, HttpParams} from '@angular/common/http';
 import {catchError, distinctUntilChanged, filter, finalize, map, shareReplay, tap} from 'rxjs/operators';
-import {Book, BookDeletionResponse, BookRecommendation, BookSetting, BookStatusUpdateResponse, BookType, CreatePhysicalBookRequest, PersonalRatingUpdateResponse, ReadStatus} from '../model/book.model';
+import {Book, BookDeletionResponse, BookEventBatch, BookRecommendation, BookSetting, BookStatusUpdateResponse, BookType, CreatePhysicalBookRequest, PersonalRatingUpdateResponse, ReadStatus} from '../model/book.model';
 import {BookState} from '../model/state/book-state.model';
 import {API_CONFIG} from '../../../core/config/api-config';
 import {MessageService} from 'primeng/api';
@@ -171,6 +171,12 @@ export class BookService {
     );
   }
 
+  searchBooks(query: string, limit: number = 50): Observable<Book[]> {
+    return this.http.get<Book[]>(`${this.url}/search`, {
+      params: {q: query, limit: limit.toString()}
+    });
+  }
+
   getBookRecommendations(bookId: number, limit: number = 20): Observable<BookRecommendation[]> {
     return this.http.get<BookRecommendation[]>(`${this.url}/${bookId}/recommendations`, {
       params: {limit: limit.toString()}
@@ -367,6 +373,14 @@ export class BookService {
     this.bookSocketService.handleNewlyCreatedBook(book);
   }
 
+  handleBookEventBatch(batch: BookEventBatch): void {
+    if (batch.resync) {
+      this.refreshBooks();
+    } else {
+      this.bookSocketService.handleBookEventBatch(batch);
+    }
+  }
+
   handleRemovedBookIds(removedBookIds: number[]): void {
     this.bookSocketService.handleRemovedBookIds(removedBookIds);
   }
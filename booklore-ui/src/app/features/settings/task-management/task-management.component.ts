@@ -474,7 +474,8 @@ export class TaskManagementComponent implements OnInit, OnDestroy {
       [TaskType.CLEANUP_DELETED_BOOKS]: 'pi-trash',
       [TaskType.SYNC_LIBRARY_FILES]: 'pi-sync',
       [TaskType.BOOKDROP_PERIODIC_SCANNING]: 'pi-inbox',
-      [TaskType.CLEANUP_TEMP_METADATA]: 'pi-file'
+      [TaskType.CLEANUP_TEMP_METADATA]: 'pi-file',
+      [TaskType.REBUILD_SEARCH_INDEX]: 'pi-search'
     };
     return icons[taskType] || 'pi-cog';
   }
@@ -12,6 +12,7 @@ export enum TaskType {
   SYNC_LIBRARY_FILES = 'SYNC_LIBRARY_FILES',
   BOOKDROP_PERIODIC_SCANNING = 'BOOKDROP_PERIODIC_SCANNING',
   CLEANUP_TEMP_METADATA = 'CLEANUP_TEMP_METADATA',
+  REBUILD_SEARCH_INDEX = 'REBUILD_SEARCH_INDEX',
   REFRESH_METADATA_MANUAL = 'REFRESH_METADATA_MANUAL'
 }
 
@@ -24,6 +25,7 @@ export const TASK_TYPE_CONFIG: Record<TaskType, { parallel: boolean; async: bool
   [TaskType.CLEANUP_TEMP_METADATA]: {parallel: false, async: false, displayOrder: 6},
   [TaskType.REFRESH_METADATA_MANUAL]: {parallel: false, async: false, displayOrder: 7},
   [TaskType.CLEAR_PDF_CACHE]: {parallel: false, async: false, displayOrder: 8},
+  [TaskType.REBUILD_SEARCH_INDEX]: {parallel: false, async: true, displayOrder: 9},
 };
 
 export enum MetadataReplaceMode {